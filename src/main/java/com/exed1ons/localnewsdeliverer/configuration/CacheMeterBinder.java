@@ -0,0 +1,52 @@
+package com.exed1ons.localnewsdeliverer.configuration;
+
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.service.CacheStatisticsService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the statistics of the caches listed at {@code /status/caches} as the standard
+ * Micrometer cache meters {@code cache.gets} and {@code cache.size}, tagged with the cache name.
+ */
+@Component
+public class CacheMeterBinder implements MeterBinder {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    public CacheMeterBinder(CacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CacheStatistics statistics : cacheStatisticsService.getCacheStatistics()) {
+            String name = statistics.getName();
+            FunctionCounter.builder("cache.gets", this, statisticOf(name, CacheStatistics::getHits))
+                    .tags("cache", name, "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", this, statisticOf(name, CacheStatistics::getMisses))
+                    .tags("cache", name, "result", "miss")
+                    .register(registry);
+            Gauge.builder("cache.size", this, statisticOf(name, CacheStatistics::getSize))
+                    .tag("cache", name)
+                    .register(registry);
+        }
+    }
+
+    private ToDoubleFunction<CacheMeterBinder> statisticOf(String name, ToDoubleFunction<CacheStatistics> statistic) {
+        return binder -> {
+            for (CacheStatistics statistics : binder.cacheStatisticsService.getCacheStatistics()) {
+                if (statistics.getName().equals(name)) {
+                    return statistic.applyAsDouble(statistics);
+                }
+            }
+            return Double.NaN;
+        };
+    }
+}
@@ -1,52 +1,169 @@
 package com.exed1ons.localnewsdeliverer.controller;
 
 import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
 import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
 import com.exed1ons.localnewsdeliverer.service.NewsArticleService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @Controller
 @CrossOrigin(origins = "https://local-news-deliverer.onrender.com/")
 public class CityController {
+    private static final int MAX_NEAREST_CITIES = 1000;
+    private static final int DEFAULT_QUERY_LIMIT = 20;
+    private static final int MAX_QUERY_LIMIT = 100;
+
     private final NewsArticleService newsArticleService;
+    private final ItemResponseWriter itemResponseWriter;
 
-    public CityController(NewsArticleService newsArticleService) {
+    public CityController(NewsArticleService newsArticleService, ItemResponseWriter itemResponseWriter) {
         this.newsArticleService = newsArticleService;
+        this.itemResponseWriter = itemResponseWriter;
     }
 
     @GetMapping("/cities")
-    public ResponseEntity<List<City>> getCities() {
-        return ResponseEntity.ok(newsArticleService.getAllCities());
+    public ResponseEntity<byte[]> getCities(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            HttpServletRequest request) {
+        int offset = PageCursor.decode(cursor);
+        int size = pageSize(limit);
+        return itemResponseWriter.cachedJson(request, newsArticleService.getDataVersion(),
+                () -> newsArticleService.getCities(offset, size), City.class, fields);
+    }
+
+    @GetMapping(value = "/cities", produces = ItemResponseWriter.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCities(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        return itemResponseWriter.ndjson(
+                newsArticleService.getCities(PageCursor.decode(cursor), pageSize(limit)), City.class, fields);
     }
 
     @GetMapping("/news")
-    public ResponseEntity<List<NewsArticle>> getNews() {
-        return ResponseEntity.ok(newsArticleService.getAllNewsArticles());
+    public ResponseEntity<byte[]> getNews(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            HttpServletRequest request) {
+        int offset = PageCursor.decode(cursor);
+        int size = pageSize(limit);
+        return itemResponseWriter.cachedJson(request, newsArticleService.getDataVersion(),
+                () -> newsArticleService.getNewsArticles(offset, size), NewsArticle.class, fields);
+    }
+
+    @GetMapping(value = "/news", produces = ItemResponseWriter.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamNews(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields) {
+        return itemResponseWriter.ndjson(
+                newsArticleService.getNewsArticles(PageCursor.decode(cursor), pageSize(limit)), NewsArticle.class, fields);
     }
 
     @GetMapping("cities/search")
     public ResponseEntity<List<City>> searchCities(
-            @RequestParam String name) {
-        List<City> cities = newsArticleService.searchCities(name);
+            @RequestParam String name,
+            @RequestParam(required = false) Integer limit) {
+        List<City> cities = newsArticleService.searchCities(name, pageSize(limit));
         return ResponseEntity.ok(cities);
     }
 
     @GetMapping("/news/search")
-    public ResponseEntity<List<NewsArticle>> getBody(
+    public ResponseEntity<byte[]> getBody(
             @RequestParam String cityName,
             @RequestParam String stateName,
-            @RequestParam boolean includeGlobalNews) {
-        return ResponseEntity.ok(newsArticleService.searchNewsByCity(cityName, stateName, includeGlobalNews));
+            @RequestParam boolean includeGlobalNews,
+            HttpServletRequest request) {
+        return itemResponseWriter.cachedJson(request, newsArticleService.getDataVersion(),
+                () -> ItemPage.<NewsArticle>builder()
+                        .items(newsArticleService.searchNewsByCity(cityName, stateName, includeGlobalNews))
+                        .build(),
+                NewsArticle.class, null);
+    }
+
+    @GetMapping("/news/nearby")
+    public ResponseEntity<byte[]> getNearbyNews(
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) String cityName,
+            @RequestParam(required = false) String stateName,
+            @RequestParam(defaultValue = "50") double radiusKm,
+            @RequestParam(required = false) Integer nearest,
+            @RequestParam(defaultValue = "false") boolean includeGlobalNews,
+            HttpServletRequest request) {
+        if (!(radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be positive");
+        }
+        if (nearest != null && (nearest <= 0 || nearest > MAX_NEAREST_CITIES)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "nearest must be between 1 and " + MAX_NEAREST_CITIES);
+        }
+        boolean byPoint = lat != null && lng != null;
+        if (byPoint) {
+            if (Math.abs(lat) > 90 || Math.abs(lng) > 180) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat or lng out of range");
+            }
+        } else if (cityName == null || stateName == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "either lat and lng or cityName and stateName are required");
+        }
+        return itemResponseWriter.cachedJson(request, newsArticleService.getDataVersion(),
+                () -> ItemPage.<NewsArticle>builder()
+                        .items(byPoint
+                                ? newsArticleService.searchNewsNearby(lat, lng, radiusKm, nearest, includeGlobalNews)
+                                : newsArticleService.searchNewsNearCity(cityName, stateName, radiusKm, nearest,
+                                        includeGlobalNews))
+                        .build(),
+                NewsArticle.class, null);
+    }
+
+    @GetMapping("/news/query")
+    public ResponseEntity<byte[]> queryNews(
+            @RequestParam String q,
+            @RequestParam(required = false) String cityName,
+            @RequestParam(required = false) String stateName,
+            @RequestParam(defaultValue = "false") boolean includeGlobalNews,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
+        if ((cityName == null) != (stateName == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cityName and stateName must be given together");
+        }
+        int size = limit != null ? limit : DEFAULT_QUERY_LIMIT;
+        if (size <= 0 || size > MAX_QUERY_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_QUERY_LIMIT);
+        }
+        return itemResponseWriter.cachedJson(request, newsArticleService.getDataVersion(),
+                () -> ItemPage.<NewsArticle>builder()
+                        .items(newsArticleService.queryNews(q, cityName, stateName, includeGlobalNews, size))
+                        .build(),
+                NewsArticle.class, null);
     }
 
     @GetMapping("/keep")
     public ResponseEntity<String> keepAlive() {
         return ResponseEntity.ok("Keep");
     }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null) {
+            return Integer.MAX_VALUE;
+        }
+        if (limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return limit;
+    }
 }
@@ -0,0 +1,187 @@
+package com.exed1ons.localnewsdeliverer.controller;
+
+import com.exed1ons.localnewsdeliverer.domain.CachedResponse;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
+import com.exed1ons.localnewsdeliverer.service.ResponseCacheService;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Writes pages of items one at a time, either as newline-delimited JSON streamed straight to the
+ * response or as a JSON array kept in the {@link ResponseCacheService}. Only the page being
+ * served is touched and no intermediate tree of the response is built.
+ * <p>
+ * A {@code fields} list restricts every item to the named top-level properties. The next page's
+ * cursor, if there is one, is returned in the {@value #NEXT_CURSOR_HEADER} header.
+ * <p>
+ * JSON arrays are built once per data version and request, and repeat requests are answered
+ * from the cached bytes, gzip-compressed when the client accepts it, or with
+ * {@code 304 Not Modified} when its ETag still matches.
+ */
+@Component
+public class ItemResponseWriter {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+    private static final String FIELDS_FILTER = "fields";
+
+    private final ObjectMapper objectMapper;
+    private final ResponseCacheService responseCache;
+    private final Map<Class<?>, ObjectMapper> projectingMappers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Set<String>> propertyNames = new ConcurrentHashMap<>();
+
+    public ItemResponseWriter(ObjectMapper objectMapper, ResponseCacheService responseCache) {
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> ndjson(ItemPage<T> page, Class<T> type, String fields) {
+        ObjectWriter writer = writerFor(type, fields);
+        List<T> items = page.getItems();
+        StreamingResponseBody body = out -> writeItems(items, writer, out, true);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(NDJSON);
+        if (page.getNextOffset() != null) {
+            response.header(NEXT_CURSOR_HEADER, PageCursor.encode(page.getNextOffset()));
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Serves the JSON array for this request from the response cache, building it with
+     * {@code page} only when the cache has no entry for the request at {@code version}.
+     */
+    public <T> ResponseEntity<byte[]> cachedJson(HttpServletRequest request, long version,
+                                                 Supplier<ItemPage<T>> page, Class<T> type, String fields) {
+        String key = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + '?' + request.getQueryString();
+        CachedResponse cached = responseCache.get(key, version, () -> {
+            ItemPage<T> items = page.get();
+            ObjectWriter writer = writerFor(type, fields);
+            ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+            try {
+                writeItems(items.getItems(), writer, body, false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return CachedResponse.builder()
+                    .contentType(MediaType.APPLICATION_JSON_VALUE)
+                    .headers(items.getNextOffset() != null
+                            ? Map.of(NEXT_CURSOR_HEADER, PageCursor.encode(items.getNextOffset()))
+                            : Map.of())
+                    .body(body.toByteArray())
+                    .build();
+        });
+
+        boolean gzip = cached.getGzipBody() != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(cached.getContentType()))
+                .eTag(gzip ? cached.getEtag() + "-gz" : cached.getEtag())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        cached.getHeaders().forEach(response::header);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? cached.getGzipBody() : cached.getBody());
+    }
+
+    private <T> void writeItems(List<T> items, ObjectWriter writer, OutputStream out, boolean lines) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            if (!lines) {
+                generator.writeStartArray();
+            }
+            for (T item : items) {
+                writer.writeValue(generator, item);
+                if (lines) {
+                    generator.writeRaw('\n');
+                }
+            }
+            if (!lines) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().toLowerCase(Locale.ROOT).split(";");
+            if (parts[0].trim().equals("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private ObjectWriter writerFor(Class<?> type, String fields) {
+        if (fields == null || fields.isBlank()) {
+            return objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+        Set<String> known = propertyNames.computeIfAbsent(type, this::introspectPropertyNames);
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown field '" + name + "', expected one of " + known);
+            }
+            selected.add(name);
+        }
+        ObjectMapper projecting = projectingMappers.computeIfAbsent(type,
+                t -> objectMapper.copy().addMixIn(t, FieldsFilterMixin.class));
+        return projecting.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .with(new SimpleFilterProvider()
+                        .addFilter(FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(selected)));
+    }
+
+    private Set<String> introspectPropertyNames(Class<?> type) {
+        JavaType javaType = objectMapper.constructType(type);
+        Set<String> names = new LinkedHashSet<>();
+        for (BeanPropertyDefinition property : objectMapper.getSerializationConfig().introspect(javaType).findProperties()) {
+            if (property.couldSerialize()) {
+                names.add(property.getName());
+            }
+        }
+        return names;
+    }
+
+    @JsonFilter(FIELDS_FILTER)
+    private abstract static class FieldsFilterMixin {
+    }
+}
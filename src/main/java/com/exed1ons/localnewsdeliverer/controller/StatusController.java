@@ -0,0 +1,39 @@
+package com.exed1ons.localnewsdeliverer.controller;
+
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.domain.LoadStatus;
+import com.exed1ons.localnewsdeliverer.service.CacheStatisticsService;
+import com.exed1ons.localnewsdeliverer.service.NewsArticleService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.List;
+
+@Controller
+public class StatusController {
+    private final NewsArticleService newsArticleService;
+    private final CacheStatisticsService cacheStatisticsService;
+
+    public StatusController(NewsArticleService newsArticleService, CacheStatisticsService cacheStatisticsService) {
+        this.newsArticleService = newsArticleService;
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<LoadStatus> getStatus() {
+        return ResponseEntity.ok(newsArticleService.getLoadStatus());
+    }
+
+    @GetMapping("/ready")
+    public ResponseEntity<LoadStatus> getReadiness() {
+        LoadStatus status = newsArticleService.getLoadStatus();
+        return ResponseEntity.status(status.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(status);
+    }
+
+    @GetMapping("/status/caches")
+    public ResponseEntity<List<CacheStatistics>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getCacheStatistics());
+    }
+}
@@ -1,77 +1,136 @@
 package com.exed1ons.localnewsdeliverer.data;
 
+import com.exed1ons.localnewsdeliverer.data.ingest.CsvReader;
 import com.exed1ons.localnewsdeliverer.domain.City;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Reads cities from a CSV file with a header row, such as the simplemaps US cities dataset.
+ * <p>
+ * The file is streamed record by record with {@link CsvReader}, and only the columns the
+ * application uses are decoded: {@code id}, {@code city}, {@code state_name}, {@code state_id}
+ * and, when present, {@code population}, {@code lat} and {@code lng}. Rows without a valid id
+ * are skipped, and coordinates are only kept when both are valid.
+ */
 @Component
 public class CityCSVReaderImpl implements CityCSVReader {
 
     private static final Logger logger = LoggerFactory.getLogger(CityCSVReaderImpl.class);
 
     public List<City> readCities(String filePath) {
-        var lines = readFromFile(filePath);
-        if (lines.isEmpty()) {
-            logger.warn("No lines found in the CSV file.");
-            return Collections.emptyList();
-        }
-
-        String headerLine = lines.remove(0);
-        Map<String, Integer> headerMap = mapHeader(headerLine);
+        List<City> cities = new ArrayList<>();
+        try (CsvReader csv = CsvReader.open(Path.of(filePath))) {
+            if (!csv.next()) {
+                logger.warn("No lines found in the CSV file.");
+                return Collections.emptyList();
+            }
+            Columns columns = new Columns(mapHeader(csv));
 
-        return lines
-                .stream()
-                .map(line -> mapToCity(line, headerMap))
-                .collect(Collectors.toList());
+            int skipped = 0;
+            while (csv.next()) {
+                if (csv.isBlankLine()) {
+                    continue;
+                }
+                City city = mapToCity(csv, columns);
+                if (city != null) {
+                    cities.add(city);
+                } else if (skipped++ < 10) {
+                    logger.warn("Skipping city without a valid id on line " + csv.lineNumber() + " of " + filePath);
+                }
+            }
+            if (skipped > 0) {
+                logger.warn("Skipped " + skipped + " invalid rows in " + filePath);
+            }
+        } catch (IOException e) {
+            logger.error("Error while reading CSV file: " + e.getMessage());
+        }
+        return cities;
     }
 
-    private City mapToCity(String line, Map<String, Integer> headerMap) {
-        var cityData = parseCSVLine(line);
-
-        Long id = Long.parseLong(cityData[headerMap.get("id")]);
-        String name = cityData[headerMap.get("city")];
-        String stateName = cityData[headerMap.get("state_name")];
-        String stateCode = cityData[headerMap.get("state_id")];
+    private City mapToCity(CsvReader csv, Columns columns) {
+        Long id;
+        try {
+            id = csv.longField(columns.id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (id == null) {
+            return null;
+        }
+        Double latitude = parseCoordinate(csv, columns.latitude, 90);
+        Double longitude = parseCoordinate(csv, columns.longitude, 180);
+        if (latitude == null || longitude == null) {
+            latitude = null;
+            longitude = null;
+        }
 
         return City.builder()
                 .id(id)
-                .name(name)
-                .stateName(stateName)
-                .stateCode(stateCode)
+                .name(csv.field(columns.name))
+                .stateName(csv.field(columns.stateName))
+                .stateCode(csv.field(columns.stateCode))
+                .population(parsePopulation(csv, columns.population))
+                .latitude(latitude)
+                .longitude(longitude)
                 .build();
     }
 
-    protected List<String> readFromFile(String pathOfFile) {
-        List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(pathOfFile))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                lines.add(line);
-            }
-        } catch (IOException e) {
-            logger.error("Error while reading CSV file: " + e.getMessage());
+    private Long parsePopulation(CsvReader csv, int column) {
+        try {
+            return csv.longField(column);
+        } catch (NumberFormatException e) {
+            return null;
         }
-        return lines;
     }
 
-    private String[] parseCSVLine(String line) {
-        return line.replace("\"", "").split(",");
+    private Double parseCoordinate(CsvReader csv, int column, double limit) {
+        try {
+            Double value = csv.doubleField(column);
+            return value != null && Math.abs(value) <= limit ? value : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
-    private Map<String, Integer> mapHeader(String headerLine) {
-        String[] headers = parseCSVLine(headerLine);
+    private Map<String, Integer> mapHeader(CsvReader csv) {
         Map<String, Integer> headerMap = new HashMap<>();
-
-        for (int i = 0; i < headers.length; i++) {
-            headerMap.put(headers[i], i);
+        for (int i = 0; i < csv.fieldCount(); i++) {
+            headerMap.put(csv.field(i).trim(), i);
         }
         return headerMap;
     }
+
+    private static final class Columns {
+        private final int id;
+        private final int name;
+        private final int stateName;
+        private final int stateCode;
+        private final int population;
+        private final int latitude;
+        private final int longitude;
+
+        private Columns(Map<String, Integer> header) {
+            this.id = required(header, "id");
+            this.name = required(header, "city");
+            this.stateName = required(header, "state_name");
+            this.stateCode = required(header, "state_id");
+            this.population = header.getOrDefault("population", -1);
+            this.latitude = header.getOrDefault("lat", -1);
+            this.longitude = header.getOrDefault("lng", -1);
+        }
+
+        private static int required(Map<String, Integer> header, String column) {
+            Integer index = header.get(column);
+            if (index == null) {
+                throw new IllegalArgumentException("City CSV file has no '" + column + "' column");
+            }
+            return index;
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package com.exed1ons.localnewsdeliverer.data;
+
+import com.exed1ons.localnewsdeliverer.data.index.ArticleAlternates;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleCityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleTextIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityGeoIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CitySearchIndex;
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, versioned view of everything the store serves: the cities, the articles and the
+ * indexes derived from them. A snapshot is never changed after it is built; a writer derives
+ * the next one with {@link #withCities} or {@link #withArticles} and publishes it in a single
+ * reference swap, so a reader holding a snapshot always sees an article list and indexes that
+ * belong together.
+ * <p>
+ * Articles are held as compact {@link ArticleRecord}s; {@link #getNewsArticles()} is a view that
+ * creates each {@link NewsArticle} only when it is read.
+ */
+public final class DataSnapshot {
+
+    private static final DataSnapshot EMPTY = new DataSnapshot(0, CityIndex.empty(), CitySearchIndex.empty(),
+            CityGeoIndex.empty(), List.of(), ArticleAlternates.empty(), ArticleCityIndex.empty(),
+            ArticleTextIndex.empty());
+
+    private final long version;
+    private final CityIndex cityIndex;
+    private final CitySearchIndex citySearchIndex;
+    private final CityGeoIndex cityGeoIndex;
+    private final List<ArticleRecord> articles;
+    private final List<NewsArticle> newsArticles;
+    private final ArticleAlternates alternates;
+    private final ArticleCityIndex articleCityIndex;
+    private final ArticleTextIndex articleTextIndex;
+
+    private DataSnapshot(long version, CityIndex cityIndex, CitySearchIndex citySearchIndex,
+                         CityGeoIndex cityGeoIndex, List<ArticleRecord> articles, ArticleAlternates alternates,
+                         ArticleCityIndex articleCityIndex, ArticleTextIndex articleTextIndex) {
+        this.version = version;
+        this.cityIndex = cityIndex;
+        this.citySearchIndex = citySearchIndex;
+        this.cityGeoIndex = cityGeoIndex;
+        this.articles = articles;
+        this.newsArticles = new NewsArticleList(articles, alternates, cityIndex);
+        this.alternates = alternates;
+        this.articleCityIndex = articleCityIndex;
+        this.articleTextIndex = articleTextIndex;
+    }
+
+    public static DataSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the next snapshot with a new city set. Articles are dropped, since their index
+     * refers to the ordinals of the previous cities.
+     */
+    public DataSnapshot withCities(CityIndex cities) {
+        return new DataSnapshot(version + 1, cities, CitySearchIndex.build(cities),
+                CityGeoIndex.build(cities), List.of(), ArticleAlternates.empty(), ArticleCityIndex.empty(),
+                ArticleTextIndex.empty());
+    }
+
+    /**
+     * Returns the next snapshot with {@code articles} and their {@code alternates} replacing the
+     * current ones. The list is not copied and must not change afterwards. When it starts with
+     * the current articles, as it does while articles are ingested, only the new ones are added
+     * to the city and text indexes.
+     */
+    public DataSnapshot withArticles(List<ArticleRecord> articles, ArticleAlternates alternates) {
+        return withArticles(articles, alternates, articleCityIndex.append(articles, cityIndex),
+                articleTextIndex.append(articles));
+    }
+
+    /**
+     * Like {@link #withArticles(List, ArticleAlternates)}, with article city and text indexes that
+     * were already built for {@code articles}, such as those restored from a store snapshot.
+     */
+    public DataSnapshot withArticles(List<ArticleRecord> articles, ArticleAlternates alternates,
+                                     ArticleCityIndex articleCityIndex, ArticleTextIndex articleTextIndex) {
+        return new DataSnapshot(version + 1, cityIndex, citySearchIndex, cityGeoIndex, articles, alternates,
+                articleCityIndex, articleTextIndex);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<City> getCities() {
+        return cityIndex.getCities();
+    }
+
+    public CityIndex getCityIndex() {
+        return cityIndex;
+    }
+
+    public CitySearchIndex getCitySearchIndex() {
+        return citySearchIndex;
+    }
+
+    public CityGeoIndex getCityGeoIndex() {
+        return cityGeoIndex;
+    }
+
+    public List<ArticleRecord> getArticles() {
+        return articles;
+    }
+
+    public List<NewsArticle> getNewsArticles() {
+        return newsArticles;
+    }
+
+    public ArticleAlternates getAlternates() {
+        return alternates;
+    }
+
+    public ArticleCityIndex getArticleCityIndex() {
+        return articleCityIndex;
+    }
+
+    public ArticleTextIndex getArticleTextIndex() {
+        return articleTextIndex;
+    }
+
+    /**
+     * Resolves article positions from {@link #getArticleCityIndex()} against this snapshot's list.
+     */
+    public List<NewsArticle> articlesAt(int[] positions) {
+        NewsArticle[] result = new NewsArticle[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = articles.get(positions[i]).toNewsArticle(cityIndex, alternates.get(positions[i]));
+        }
+        return List.of(result);
+    }
+
+    private static final class NewsArticleList extends AbstractList<NewsArticle> implements RandomAccess {
+        private final List<ArticleRecord> articles;
+        private final ArticleAlternates alternates;
+        private final CityIndex cityIndex;
+
+        private NewsArticleList(List<ArticleRecord> articles, ArticleAlternates alternates, CityIndex cityIndex) {
+            this.articles = articles;
+            this.alternates = alternates;
+            this.cityIndex = cityIndex;
+        }
+
+        @Override
+        public NewsArticle get(int index) {
+            return articles.get(index).toNewsArticle(cityIndex, alternates.get(index));
+        }
+
+        @Override
+        public int size() {
+            return articles.size();
+        }
+    }
+}
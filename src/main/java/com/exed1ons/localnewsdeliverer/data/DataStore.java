@@ -1,6 +1,10 @@
 package com.exed1ons.localnewsdeliverer.data;
 
+import com.exed1ons.localnewsdeliverer.data.index.ArticleCityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CitySearchIndex;
 import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.LoadStatus;
 import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
 
 import java.util.List;
@@ -8,8 +12,22 @@ import java.util.List;
 public interface DataStore {
     void init();
 
+    /**
+     * Returns the current snapshot. Callers that combine several lists or indexes should read
+     * them all from one snapshot rather than through the separate getters below.
+     */
+    DataSnapshot getSnapshot();
+
     List<City> getCities();
 
+    CityIndex getCityIndex();
+
+    CitySearchIndex getCitySearchIndex();
+
     List<NewsArticle> getNewsArticles();
 
+    ArticleCityIndex getArticleCityIndex();
+
+    LoadStatus getLoadStatus();
+
 }
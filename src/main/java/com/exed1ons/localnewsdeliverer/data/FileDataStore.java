@@ -1,51 +1,554 @@
 package com.exed1ons.localnewsdeliverer.data;
 
+import com.exed1ons.localnewsdeliverer.data.index.ArticleAlternates;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleCityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CitySearchIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionCheckpointStore;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionListener;
+import com.exed1ons.localnewsdeliverer.data.ingest.FileCheckpoint;
+import com.exed1ons.localnewsdeliverer.data.ingest.NearDuplicateIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.SimHash;
+import com.exed1ons.localnewsdeliverer.data.ingest.StageThreadFactory;
+import com.exed1ons.localnewsdeliverer.data.ingest.StoryCluster;
+import com.exed1ons.localnewsdeliverer.data.snapshot.SnapshotContent;
+import com.exed1ons.localnewsdeliverer.data.snapshot.SnapshotStore;
 import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.LoadState;
+import com.exed1ons.localnewsdeliverer.domain.LoadStatus;
 import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Data store backed by the city CSV and news JSONL files.
+ * <p>
+ * Loading runs on a background thread once the application is ready, so the HTTP port opens
+ * immediately. Cities are published as soon as the CSV is indexed, and articles are published
+ * in batches while ingestion is still running. Everything served is bundled in an immutable
+ * {@link DataSnapshot} behind one volatile reference: readers take the current snapshot without
+ * locking, and a publication builds the next snapshot off to the side and swaps it in, so reads
+ * never wait for a reload and never see an article list paired with another list's index.
+ * Publications are serialized by a lock that readers never touch.
+ * <p>
+ * {@code news.file.path} may name a single JSONL file or a directory, in which case every file
+ * matching {@code news.file.pattern} is read in name order. The byte offset reached in each file
+ * is checkpointed, and every {@code news.ingest.poll-interval} the files are checked again so
+ * that appended lines and new files are ingested and merged into the published articles. After
+ * a restart the checkpointed part of each file is replayed from the enrichment cache.
+ * <p>
+ * After the initial load the ingested state is saved to a {@link SnapshotStore}. A snapshot holds
+ * every article, so polls that read new lines do not rewrite it each time: it is saved again at
+ * most every {@code news.snapshot.save-interval}, and once more at shutdown if lines were read
+ * since. On the next start a valid snapshot replaces the CSV parse and the replay: its cities
+ * and articles are published at once, its articles stay in the mapped snapshot file, and only
+ * lines after its checkpoints are ingested, those already read before the restart being
+ * replayed from the enrichment cache.
+ * <p>
+ * An article whose body fingerprint is a near duplicate of an already stored article is not
+ * stored again: its URL is added to the alternate URLs of the first copy, so every story is
+ * served once.
+ */
 @Component
 public class FileDataStore implements DataStore {
 
     private static final Logger logger = LoggerFactory.getLogger(FileDataStore.class);
+    private static final long SHUTDOWN_WAIT_SECONDS = 10;
 
     private final String cityFilePath;
-    private final String newsFilePath;
+    private final Path newsPath;
+    private final String newsFilePattern;
+    private final int publishBatchSize;
+    private final long publishIntervalMillis;
+    private final long pollIntervalMillis;
+    private final long snapshotIntervalMillis;
 
-    private List<City> cities;
-    private List<NewsArticle> newsArticles;
+    private volatile LoadState state = LoadState.STARTING;
+    private volatile DataSnapshot snapshot = DataSnapshot.empty();
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    private List<ArticleRecord> restoredArticles = List.of();
+    private final ArticleLog loadedArticles = new ArticleLog();
+    private Map<Integer, List<String>> unpublishedAlternates = new HashMap<>();
+    private int unpublishedAlternateCount;
+    private long[] fingerprints = new long[64];
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private long lastPublished;
+    private long lastSnapshotSaved;
+    private boolean unsavedChanges;
 
     private final NewsArticleReader newsArticleReader;
     private final CityCSVReader cityCSVReader;
+    private final IngestionCheckpointStore checkpointStore;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService loader =
+            Executors.newSingleThreadScheduledExecutor(new StageThreadFactory("data-store-loader"));
 
     public FileDataStore(@Value("${city.file.path}") String cityFilePath,
                          @Value("${news.file.path}") String newsFilePath,
+                         @Value("${news.file.pattern:*.jsonl}") String newsFilePattern,
+                         @Value("${news.publish.batch-size:50}") int publishBatchSize,
+                         @Value("${news.publish.interval:2s}") Duration publishInterval,
+                         @Value("${news.ingest.poll-interval:30s}") Duration pollInterval,
+                         @Value("${news.snapshot.save-interval:10m}") Duration snapshotInterval,
                          NewsArticleReader newsArticleReader,
-                         CityCSVReader cityCSVReader) {
+                         CityCSVReader cityCSVReader,
+                         IngestionCheckpointStore checkpointStore,
+                         SnapshotStore snapshotStore) {
         this.cityFilePath = cityFilePath;
-        this.newsFilePath = newsFilePath;
+        this.newsPath = Path.of(newsFilePath);
+        this.newsFilePattern = newsFilePattern;
+        this.publishBatchSize = Math.max(1, publishBatchSize);
+        this.publishIntervalMillis = publishInterval.toMillis();
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.snapshotIntervalMillis = snapshotInterval.toMillis();
         this.newsArticleReader = newsArticleReader;
         this.cityCSVReader = cityCSVReader;
+        this.checkpointStore = checkpointStore;
+        this.snapshotStore = snapshotStore;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        init();
     }
 
     @Override
     public void init() {
-        cities = cityCSVReader.readCities(cityFilePath);
-        newsArticles = newsArticleReader.readNews(newsFilePath, cities);
+        if (started.compareAndSet(false, true)) {
+            loader.execute(this::load);
+        }
+    }
+
+    /**
+     * Lets a running load or poll finish for a moment and saves what it read since the last
+     * snapshot, then stops the loader.
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            loader.execute(this::saveUnsavedChanges);
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        loader.shutdown();
+        try {
+            if (!loader.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Stopping data store loader without saving the latest snapshot");
+                loader.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            loader.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void load() {
+        try {
+            state = LoadState.LOADING_CITIES;
+            checkpointStore.load();
+            List<Path> files = listNewsFiles();
+            SnapshotContent restored = snapshotStore.open(cityFilePath, files);
+            CityIndex cities = restored != null
+                    ? CityIndex.build(restored.getCities())
+                    : CityIndex.build(cityCSVReader.readCities(cityFilePath));
+            Map<String, Long> restoredOffsets = new HashMap<>();
+            publishLock.lock();
+            try {
+                snapshot = snapshot.withCities(cities);
+                if (restored != null) {
+                    newsArticleReader.getUrlIndex().addHashes(restored.getUrlHashes());
+                    restoredArticles = restored.getArticles();
+                    NearDuplicateIndex<StoryCluster> stories = newsArticleReader.getStories();
+                    synchronized (loadedArticles) {
+                        long[] restoredFingerprints = restored.getFingerprints();
+                        for (int position = 0; position < restoredFingerprints.length; position++) {
+                            long fingerprint = restoredFingerprints[position];
+                            addFingerprint(position, fingerprint);
+                            if (stories != null && fingerprint != SimHash.NONE) {
+                                stories.add(fingerprint, StoryCluster.stored(position));
+                            }
+                        }
+                    }
+                    snapshot = snapshot.withArticles(restoredArticles, restored.getAlternates(),
+                            restored.getArticleCityIndex(), restored.getArticleTextIndex());
+                    for (FileCheckpoint checkpoint : restored.getCheckpoints()) {
+                        restoredOffsets.put(checkpoint.getPath(), checkpoint.getOffset());
+                    }
+                }
+            } finally {
+                publishLock.unlock();
+            }
+            logger.info("Indexed " + cities.size() + " cities");
+
+            state = LoadState.LOADING_NEWS;
+            if (files.isEmpty()) {
+                logger.warn("No news files found at " + newsPath);
+            }
+            boolean changed = restored == null;
+            for (Path file : files) {
+                long from = restoredOffsets.getOrDefault(file.toAbsolutePath().normalize().toString(), 0L);
+                if (restored == null || Files.size(file) > from) {
+                    changed |= ingest(file, from, Math.max(from, checkpointStore.offsetOf(file)));
+                } else {
+                    checkpointStore.update(file, from);
+                }
+            }
+            checkpointStore.save();
+            publishArticles(true);
+            if (changed) {
+                saveSnapshot();
+            } else {
+                lastSnapshotSaved = System.currentTimeMillis();
+            }
+            state = LoadState.READY;
+            logger.info("Loaded " + snapshot.getArticles().size() + " news articles");
+        } catch (Exception e) {
+            state = LoadState.FAILED;
+            logger.error("Error while loading data: " + e.getMessage(), e);
+            return;
+        }
+
+        if (pollIntervalMillis > 0 && !loader.isShutdown()) {
+            loader.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Ingests whatever was appended to the news files, or added to the news directory, since
+     * the last checkpoint.
+     */
+    private void poll() {
+        try {
+            int before = snapshot.getArticles().size();
+            boolean changed = false;
+            for (Path file : listNewsFiles()) {
+                long checkpoint = checkpointStore.offsetOf(file);
+                if (Files.size(file) > checkpoint) {
+                    changed |= ingest(file, checkpoint, checkpoint);
+                }
+            }
+            if (changed) {
+                publishArticles(true);
+                unsavedChanges = true;
+                if (System.currentTimeMillis() - lastSnapshotSaved >= snapshotIntervalMillis) {
+                    saveSnapshot();
+                }
+                int after = snapshot.getArticles().size();
+                if (after > before) {
+                    logger.info("Merged " + (after - before) + " new news articles");
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error while polling news files: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ingests {@code file} from {@code fromOffset} and returns whether any lines were consumed.
+     */
+    private boolean ingest(Path file, long fromOffset, long replayUntil) throws IOException {
+        long offset = newsArticleReader.readNews(file.toString(), fromOffset, replayUntil, snapshot.getCityIndex(),
+                new PublishingListener());
+        checkpointStore.update(file, offset);
+        checkpointStore.save();
+        return offset > fromOffset;
+    }
+
+    private void saveUnsavedChanges() {
+        if (unsavedChanges && state == LoadState.READY) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * Saves the published state. Called on the loader thread after everything read so far has
+     * been published, so the articles and the checkpoints describe the same lines.
+     */
+    private void saveSnapshot() {
+        DataSnapshot data = snapshot;
+        long[] articleFingerprints;
+        synchronized (loadedArticles) {
+            articleFingerprints = Arrays.copyOf(fingerprints, data.getArticles().size());
+        }
+        snapshotStore.save(SnapshotContent.builder()
+                .cities(data.getCityIndex().getTable())
+                .urlHashes(newsArticleReader.getUrlIndex().hashes())
+                .articleCityIndex(data.getArticleCityIndex())
+                .articleTextIndex(data.getArticleTextIndex())
+                .articles(data.getArticles())
+                .fingerprints(articleFingerprints)
+                .alternates(data.getAlternates())
+                .checkpoints(checkpointStore.checkpoints())
+                .build(), cityFilePath);
+        lastSnapshotSaved = System.currentTimeMillis();
+        unsavedChanges = false;
+    }
+
+    private List<Path> listNewsFiles() throws IOException {
+        if (!Files.exists(newsPath)) {
+            return List.of();
+        }
+        if (!Files.isDirectory(newsPath)) {
+            return List.of(newsPath);
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(newsPath, newsFilePattern)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    /**
+     * Publishes the articles stored so far as a new snapshot. When {@code wait} is false and
+     * another publication is already running, this one is skipped; that publication or the
+     * final one of the load picks the articles up.
+     */
+    private void publishArticles(boolean wait) {
+        if (wait) {
+            publishLock.lock();
+        } else if (!publishLock.tryLock()) {
+            return;
+        }
+        try {
+            List<ArticleRecord> articles;
+            ArticleAlternates alternates;
+            synchronized (loadedArticles) {
+                lastPublished = System.currentTimeMillis();
+                if (pending() == 0) {
+                    return;
+                }
+                articles = restoredArticles.isEmpty()
+                        ? loadedArticles.view()
+                        : new ConcatenatedList(restoredArticles, loadedArticles.view());
+                alternates = snapshot.getAlternates().append(unpublishedAlternates);
+                unpublishedAlternates = new HashMap<>();
+                unpublishedAlternateCount = 0;
+            }
+            snapshot = snapshot.withArticles(articles, alternates);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Number of stored articles and alternate URLs not published yet. Called while holding the
+     * {@code loadedArticles} lock.
+     */
+    private int pending() {
+        return restoredArticles.size() + loadedArticles.size() - snapshot.getArticles().size()
+                + unpublishedAlternateCount;
+    }
+
+    /**
+     * Records the body fingerprint of the article at {@code position}, to be saved with the
+     * store snapshot. Called while holding the {@code loadedArticles} lock.
+     */
+    private void addFingerprint(int position, long fingerprint) {
+        if (position >= fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, Math.max(position + 1, fingerprints.length * 2));
+        }
+        fingerprints[position] = fingerprint;
+    }
+
+    @Override
+    public DataSnapshot getSnapshot() {
+        return snapshot;
     }
 
     @Override
     public List<City> getCities() {
-        return cities;
+        return snapshot.getCities();
+    }
+
+    @Override
+    public CityIndex getCityIndex() {
+        return snapshot.getCityIndex();
+    }
+
+    @Override
+    public CitySearchIndex getCitySearchIndex() {
+        return snapshot.getCitySearchIndex();
     }
 
     @Override
     public List<NewsArticle> getNewsArticles() {
-        return newsArticles;
+        return snapshot.getNewsArticles();
+    }
+
+    @Override
+    public ArticleCityIndex getArticleCityIndex() {
+        return snapshot.getArticleCityIndex();
+    }
+
+    @Override
+    public LoadStatus getLoadStatus() {
+        LoadState current = state;
+        DataSnapshot data = snapshot;
+        long finished = accepted.get() + dropped.get();
+        return LoadStatus.builder()
+                .state(current)
+                .ready(current == LoadState.READY)
+                .version(data.getVersion())
+                .cities(data.getCityIndex().size())
+                .articles(data.getArticles().size())
+                .queued(submitted.get() - finished)
+                .processed(finished)
+                .failed(dropped.get())
+                .build();
+    }
+
+    private class PublishingListener implements IngestionListener {
+        @Override
+        public void onSubmitted() {
+            submitted.incrementAndGet();
+        }
+
+        @Override
+        public void onStored(NewsArticle article, long fingerprint) {
+            accepted.incrementAndGet();
+            NearDuplicateIndex<StoryCluster> stories = newsArticleReader.getStories();
+            ArticleRecord record = ArticleRecord.of(article, snapshot.getCityIndex());
+            boolean publish;
+            synchronized (loadedArticles) {
+                int position = restoredArticles.size() + loadedArticles.size();
+                StoryCluster story = stories == null || fingerprint == SimHash.NONE
+                        ? null : stories.findOrAdd(fingerprint, StoryCluster.stored(position));
+                if (story == null || story.getPosition() == StoryCluster.NOT_STORED) {
+                    if (story != null) {
+                        story.setPosition(position);
+                    }
+                    addFingerprint(position, fingerprint);
+                    loadedArticles.add(record);
+                } else {
+                    logger.debug("Adding near-duplicate article " + article.getUrl() + " as an alternate URL");
+                    unpublishedAlternates.computeIfAbsent(story.getPosition(), key -> new ArrayList<>())
+                            .add(article.getUrl());
+                    unpublishedAlternateCount++;
+                }
+                publish = pending() >= publishBatchSize
+                        || System.currentTimeMillis() - lastPublished >= publishIntervalMillis;
+            }
+            if (publish) {
+                publishArticles(false);
+            }
+        }
+
+        @Override
+        public void onDropped() {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Append-only list of the ingested articles. The articles are kept in fixed-size chunks that
+     * are never reallocated, so {@link #view} hands out the current articles without copying
+     * them: later appends only write past the end of every view taken before.
+     */
+    private static final class ArticleLog {
+        private static final int CHUNK_BITS = 10;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+        private ArticleRecord[][] chunks = new ArticleRecord[4][];
+        private int size;
+
+        private void add(ArticleRecord article) {
+            int chunk = size >>> CHUNK_BITS;
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new ArticleRecord[CHUNK_SIZE];
+            }
+            chunks[chunk][size & (CHUNK_SIZE - 1)] = article;
+            size++;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private List<ArticleRecord> view() {
+            return new View(chunks, size);
+        }
+
+        private static final class View extends AbstractList<ArticleRecord> implements RandomAccess {
+            private final ArticleRecord[][] chunks;
+            private final int size;
+
+            private View(ArticleRecord[][] chunks, int size) {
+                this.chunks = chunks;
+                this.size = size;
+            }
+
+            @Override
+            public ArticleRecord get(int index) {
+                Objects.checkIndex(index, size);
+                return chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * The articles restored from a store snapshot followed by those ingested since.
+     */
+    private static final class ConcatenatedList extends AbstractList<ArticleRecord> implements RandomAccess {
+        private final List<ArticleRecord> first;
+        private final List<ArticleRecord> second;
+
+        private ConcatenatedList(List<ArticleRecord> first, List<ArticleRecord> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public ArticleRecord get(int index) {
+            return index < first.size() ? first.get(index) : second.get(index - first.size());
+        }
+
+        @Override
+        public int size() {
+            return first.size() + second.size();
+        }
     }
 }
@@ -1,10 +1,31 @@
 package com.exed1ons.localnewsdeliverer.data;
 
-import com.exed1ons.localnewsdeliverer.domain.City;
-import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
-
-import java.util.List;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionListener;
+import com.exed1ons.localnewsdeliverer.data.ingest.NearDuplicateIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.StoryCluster;
+import com.exed1ons.localnewsdeliverer.data.ingest.UrlDeduplicationIndex;
 
 public interface NewsArticleReader {
-    List<NewsArticle> readNews(String filePath, List<City> cityFilePath);
+
+    /**
+     * Ingests the lines of {@code filePath} starting at byte {@code fromOffset}. Lines that end
+     * before {@code replayUntil} were ingested before a restart: they are served from fresh
+     * enrichment cache entries, and their pages are fetched again when the entry expired or
+     * records a page that was unreachable. Returns the byte offset just past the last line
+     * consumed; a partially written last line is left for the next call.
+     */
+    long readNews(String filePath, long fromOffset, long replayUntil, CityIndex cityIndex, IngestionListener listener);
+
+    /**
+     * The URLs seen so far, shared by every {@link #readNews} call so that a URL is ingested once.
+     */
+    UrlDeduplicationIndex getUrlIndex();
+
+    /**
+     * The stories seen so far by body fingerprint, shared by every {@link #readNews} call and
+     * by the store, which adds copies of a stored story to it as alternate URLs. {@code null}
+     * when near-duplicate detection is disabled.
+     */
+    NearDuplicateIndex<StoryCluster> getStories();
 }
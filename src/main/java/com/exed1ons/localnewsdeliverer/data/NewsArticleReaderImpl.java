@@ -1,82 +1,245 @@
 package com.exed1ons.localnewsdeliverer.data;
 
+import com.exed1ons.localnewsdeliverer.data.cache.ContentHash;
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentCache;
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentRecord;
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentStatus;
+import com.exed1ons.localnewsdeliverer.data.fetch.ArticlePage;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+import com.exed1ons.localnewsdeliverer.data.fetch.HostFetchScheduler;
+import com.exed1ons.localnewsdeliverer.data.fetch.PageFetcher;
+import com.exed1ons.localnewsdeliverer.data.index.CityGazetteer;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityTable;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionItem;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionListener;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionPipeline;
+import com.exed1ons.localnewsdeliverer.data.ingest.NearDuplicateIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.OffsetLineReader;
+import com.exed1ons.localnewsdeliverer.data.ingest.SimHash;
+import com.exed1ons.localnewsdeliverer.data.ingest.StoryCluster;
+import com.exed1ons.localnewsdeliverer.data.ingest.UrlDeduplicationIndex;
 import com.exed1ons.localnewsdeliverer.domain.City;
 import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
 import com.exed1ons.localnewsdeliverer.service.LLMRequestCityService;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
 public class NewsArticleReaderImpl implements NewsArticleReader {
 
     private static final Logger logger = LoggerFactory.getLogger(NewsArticleReaderImpl.class);
+    private static final String CANDIDATES_HINT = "\n\nCities from the city list that the text mentions: ";
+    private static final List<String> STAGES = List.of("cache", "fetch", "classify");
 
     private final ObjectMapper objectMapper;
     private final LLMRequestCityService llmRequestCityService;
-
-    private List<City> cities;
-
-    public NewsArticleReaderImpl(LLMRequestCityService llmRequestCityService) {
+    private final EnrichmentCache enrichmentCache;
+    private final PageFetcher pageFetcher;
+
+    private final int fetchConcurrency;
+    private final int classifyConcurrency;
+    private final int queueCapacity;
+    private final int maxInFlight;
+    private final HostFetchScheduler scheduler;
+    private final UrlDeduplicationIndex urlIndex = new UrlDeduplicationIndex();
+    private final boolean gazetteerEnabled;
+    private final boolean classifyDirectly;
+    private final int maxCandidates;
+    private final NearDuplicateIndex<StoryCluster> stories;
+    private final MeterRegistry meterRegistry;
+    private final Counter classifiedFromCache;
+    private final Counter classifiedLocally;
+    private final Counter classifiedFromDuplicates;
+    private final Counter classifiedByLlm;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheStale;
+
+    private CityIndex cityIndex = CityIndex.empty();
+    private CityGazetteer gazetteer;
+    private volatile IngestionPipeline pipeline;
+
+    public NewsArticleReaderImpl(LLMRequestCityService llmRequestCityService,
+                                 EnrichmentCache enrichmentCache,
+                                 PageFetcher pageFetcher,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${news.ingest.fetch.concurrency:16}") int fetchConcurrency,
+                                 @Value("${news.ingest.classify.concurrency:4}") int classifyConcurrency,
+                                 @Value("${news.ingest.queue.capacity:64}") int queueCapacity,
+                                 @Value("${news.ingest.max-in-flight:1024}") int maxInFlight,
+                                 @Value("${news.fetch.max-connections-per-host:2}") int maxConnectionsPerHost,
+                                 @Value("${news.fetch.host-delay:250ms}") Duration hostDelay,
+                                 @Value("${news.fetch.host-failure-threshold:5}") int hostFailureThreshold,
+                                 @Value("${news.fetch.host-cooldown:5m}") Duration hostCooldown,
+                                 @Value("${news.fetch.robots.enabled:false}") boolean robotsEnabled,
+                                 @Value("${news.fetch.robots.agent:local-news-deliverer}") String robotsAgent,
+                                 @Value("${news.fetch.robots.max-crawl-delay:10s}") Duration maxCrawlDelay,
+                                 @Value("${news.gazetteer.enabled:true}") boolean gazetteerEnabled,
+                                 @Value("${news.gazetteer.classify-directly:true}") boolean classifyDirectly,
+                                 @Value("${news.gazetteer.max-candidates:10}") int maxCandidates,
+                                 @Value("${news.dedup.enabled:true}") boolean dedupEnabled,
+                                 @Value("${news.dedup.max-distance:5}") int dedupMaxDistance) {
         this.objectMapper = new ObjectMapper();
         this.llmRequestCityService = llmRequestCityService;
+        this.enrichmentCache = enrichmentCache;
+        this.pageFetcher = pageFetcher;
+        this.fetchConcurrency = fetchConcurrency;
+        this.classifyConcurrency = classifyConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.maxInFlight = maxInFlight;
+        this.gazetteerEnabled = gazetteerEnabled;
+        this.classifyDirectly = classifyDirectly;
+        this.maxCandidates = maxCandidates;
+        this.stories = dedupEnabled ? new NearDuplicateIndex<>(dedupMaxDistance) : null;
+        // One scheduler serves every ingestion, so robots.txt rules, crawl delays and open
+        // circuits carry over from one run to the next.
+        HostFetchScheduler.Builder fetchScheduler = HostFetchScheduler.builder()
+                .concurrency(fetchConcurrency)
+                .maxPerHost(maxConnectionsPerHost)
+                .hostDelay(hostDelay)
+                .circuitBreaker(hostFailureThreshold, hostCooldown);
+        if (robotsEnabled) {
+            fetchScheduler.robots(pageFetcher, robotsAgent, maxCrawlDelay);
+        }
+        this.scheduler = fetchScheduler.build();
+        this.meterRegistry = meterRegistry;
+        this.classifiedFromCache = classifiedCounter("cache");
+        this.classifiedLocally = classifiedCounter("city-list");
+        this.classifiedFromDuplicates = classifiedCounter("near-duplicate");
+        this.classifiedByLlm = classifiedCounter("llm");
+        this.cacheHits = cacheCounter("hit");
+        this.cacheMisses = cacheCounter("miss");
+        this.cacheStale = cacheCounter("stale");
+        for (String stage : STAGES) {
+            Gauge.builder("news.ingest.queued", this, reader -> reader.queued(stage))
+                    .description("Articles waiting in the input queue of an ingestion stage")
+                    .tag("stage", stage)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("news.ingest.active", this, reader -> {
+                    IngestionPipeline current = reader.pipeline;
+                    return current != null ? current.inFlight() : 0;
+                })
+                .description("Articles submitted to ingestion and not yet stored or dropped")
+                .register(meterRegistry);
+        Gauge.builder("news.fetch.queued", scheduler, HostFetchScheduler::queued)
+                .description("Page fetches waiting for their host's turn")
+                .register(meterRegistry);
+        Gauge.builder("news.fetch.active", scheduler, HostFetchScheduler::active)
+                .description("Page fetches in progress")
+                .register(meterRegistry);
     }
 
-    public List<NewsArticle> readNews(String filePath, List<City> cities) {
-        this.cities = cities;
-
-        List<NewsArticle> articles = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+    public long readNews(String filePath, long fromOffset, long replayUntil, CityIndex cityIndex,
+                         IngestionListener listener) {
+        this.cityIndex = cityIndex;
+        if (gazetteerEnabled && (gazetteer == null || gazetteer.getCityIndex() != cityIndex)) {
+            gazetteer = CityGazetteer.build(cityIndex);
+        }
+        enrichmentCache.open();
+
+        // The links of one source are grouped together in the file, so the in-flight window has
+        // to span several sources for the scheduler to have other hosts to turn to.
+        IngestionPipeline pipeline = IngestionPipeline.builder()
+                .queueCapacity(queueCapacity)
+                .maxInFlight(Math.max(maxInFlight, queueCapacity * 2 + fetchConcurrency + classifyConcurrency))
+                .stage("cache", 1, this::lookupCache)
+                .asyncStage("fetch", this::fetch)
+                .asyncStage("classify", classifyConcurrency, this::classify)
+                .listener(listener)
+                .build();
+        this.pipeline = pipeline;
+        pipeline.start();
+
+        long offset = fromOffset;
+        try (OffsetLineReader reader = new OffsetLineReader(Path.of(filePath), fromOffset)) {
             String line;
             while ((line = reader.readLine()) != null) {
-                logger.debug("Reading line: " + line);
-                JsonNode jsonNode = objectMapper.readTree(line);
-                List<NewsArticle> parsedArticles = processJsonNode(jsonNode);
-
-                for (NewsArticle article : parsedArticles) {
-                    try {
-                        enrichArticle(article);
-                        if (article.getDescription() == null || article.getDescription().isBlank() ||
-                                article.getDescription().equals("No description available")) {
-                            logger.warn("Skipping article without a valid description");
-                            continue;
-                        }
-                        if (articles.stream()
-                                .map(NewsArticle::getUrl)
-                                .collect(Collectors.toSet())
-                                .contains(article.getUrl())) {
-                            logger.warn("Skipping article with duplicate URL: " + article.getUrl());
-                            continue;
-                        }
-                        articles.add(article);
-                    }
-                    catch (Exception e) {
-                        logger.error("Error while enriching article: " + e.getMessage());
+                if (line.isBlank()) {
+                    offset = reader.getOffset();
+                    continue;
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Reading line: " + line);
+                }
+                JsonNode jsonNode;
+                try {
+                    jsonNode = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    if (!reader.isTerminated()) {
+                        logger.debug("Waiting for the rest of the last line of " + filePath);
+                        break;
                     }
+                    logger.error("Skipping malformed line in " + filePath + ": " + e.getOriginalMessage());
+                    offset = reader.getOffset();
+                    continue;
                 }
+                boolean replay = reader.getOffset() <= replayUntil;
+                for (NewsArticle article : processJsonNode(jsonNode, urlIndex)) {
+                    pipeline.submit(article, replay);
+                }
+                offset = reader.getOffset();
             }
         } catch (IOException e) {
             logger.error("Error while reading JSON file: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while reading JSON file: " + filePath);
         }
 
-        return articles;
+        try {
+            pipeline.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while waiting for ingestion to finish");
+        } finally {
+            this.pipeline = null;
+        }
+        enrichmentCache.flush();
+
+        logger.info("Finished reading " + filePath + " up to byte " + offset + ", URL index holds "
+                + urlIndex.size() + " URLs in " + urlIndex.memoryFootprintBytes() / 1024 + " KB, "
+                + (long) classifiedLocally.count() + " articles classified from the city list and "
+                + (long) classifiedFromDuplicates.count() + " from near-duplicate articles so far");
+        return offset;
     }
 
-    private List<NewsArticle> processJsonNode(JsonNode jsonNode) {
+    @PreDestroy
+    public void close() {
+        scheduler.close();
+    }
+
+    @Override
+    public UrlDeduplicationIndex getUrlIndex() {
+        return urlIndex;
+    }
+
+    @Override
+    public NearDuplicateIndex<StoryCluster> getStories() {
+        return stories;
+    }
+
+    private List<NewsArticle> processJsonNode(JsonNode jsonNode, UrlDeduplicationIndex urlIndex) {
         List<NewsArticle> articles = new ArrayList<>();
 
         jsonNode.fields().forEachRemaining(entry -> {
@@ -90,16 +253,18 @@ public class NewsArticleReaderImpl implements NewsArticleReader {
                     String snippet = link.get("snippet").asText();
 
                     if (!snippet.isEmpty()) {
-                        logger.debug("Snippet: " + snippet);
-                        if (isValidURL(url)) {
-                            logger.debug("Creating article with url: " + url);
-                            NewsArticle article = NewsArticle.builder()
-                                    .url(url)
-                                    .build();
-                            articles.add(article);
-                        } else {
-                            logger.warn("Skipping URL due to HTTP error: " + url);
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Snippet: " + snippet);
+                        }
+                        if (!urlIndex.add(url)) {
+                            logger.warn("Skipping article with duplicate URL: " + url);
+                            continue;
                         }
+                        logger.debug("Creating article with url: " + url);
+                        NewsArticle article = NewsArticle.builder()
+                                .url(url)
+                                .build();
+                        articles.add(article);
                     }
                 }
             } else {
@@ -110,74 +275,244 @@ public class NewsArticleReaderImpl implements NewsArticleReader {
         return articles;
     }
 
-    private boolean isValidURL(String urlString) {
-        try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            int responseCode = connection.getResponseCode();
-            return (responseCode >= 200 && responseCode < 400);
-        } catch (IOException e) {
-            logger.error("Error checking URL: " + urlString + " - " + e.getMessage());
-            return false;
+    private void lookupCache(IngestionItem item) {
+        NewsArticle article = item.getArticle();
+        EnrichmentRecord record = enrichmentCache.get(article.getUrl());
+        if (record == null) {
+            cacheMisses.increment();
+            return;
         }
+        // A replayed line was processed before the restart, but a page that was unreachable
+        // then was never stored, so it gets another fetch even while its failure is cached.
+        boolean retry = item.isReplay() && record.getStatus() == EnrichmentStatus.UNREACHABLE;
+        if (retry || !enrichmentCache.isFresh(record)) {
+            cacheStale.increment();
+            item.setCachedRecord(record);
+            return;
+        }
+        cacheHits.increment();
+        if (record.getStatus() != EnrichmentStatus.ENRICHED) {
+            logger.debug("Skipping article cached as " + record.getStatus() + ": " + article.getUrl());
+            item.drop();
+            return;
+        }
+        article.setTitle(record.getTitle());
+        article.setDescription(record.getDescription());
+        article.setUrlToImage(record.getUrlToImage());
+        item.setFingerprint(record.getFingerprint());
+        share(record.getFingerprint(), record.getCityNames());
+        List<City> cities = resolveCities(record.getCityNames());
+        article.setLocal(!cities.isEmpty());
+        article.setCities(cities);
+        item.complete();
     }
 
-    private void enrichArticle(NewsArticle article) {
-
-        String url = article.getUrl();
-
+    private CompletableFuture<?> fetch(IngestionItem item) {
+        String url = item.getArticle().getUrl();
 
         if (url == null || url.isEmpty() || url.equals("#")) {
             logger.warn("Skipping article with invalid URL: " + url);
+            reject(item, EnrichmentStatus.REJECTED);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return scheduler.submit(url, () -> {
+            logger.debug("Enriching article with URL: " + url);
+            return pageFetcher.fetch(url);
+        }).handle((page, error) -> {
+            if (error != null) {
+                logger.error("Error while fetching additional data for article: " + url + " - " + error.getMessage());
+                reject(item, EnrichmentStatus.UNREACHABLE);
+            } else {
+                accept(item, page);
+            }
+            return null;
+        });
+    }
+
+    private void accept(IngestionItem item, ArticlePage page) {
+        String url = item.getArticle().getUrl();
+        String description = page.getDescription();
+        if (description == null || description.isBlank()) {
+            logger.warn("Skipping article without a valid description");
+            reject(item, EnrichmentStatus.REJECTED);
+            return;
+        }
+        String body = page.getBody();
+        if (body == null || body.isBlank()) {
+            logger.debug("Skipping article without a valid body");
+            reject(item, EnrichmentStatus.REJECTED);
             return;
         }
-        logger.info("Enriching article with URL: " + url);
+        if (page.isTruncated()) {
+            logger.debug("Article body truncated to the extraction budget: " + url);
+        }
+        NewsArticle article = item.getArticle();
+        article.setDescription(description);
+        article.setTitle(page.getTitle() != null ? page.getTitle() : ArticleRecord.NO_TITLE);
+        article.setUrlToImage(page.getUrlToImage() != null ? page.getUrlToImage() : ArticleRecord.NO_IMAGE);
+        item.setBody(body);
+        item.setContentHash(ContentHash.sha256(body));
+        item.setFingerprint(SimHash.of(body));
+    }
 
-        try {
-            Document doc = Jsoup.connect(article.getUrl()).get();
-            String description = getDescription(doc);
-            if (description.isEmpty()) {
-                logger.debug("Skipping article without a valid description");
-                return;
+    /**
+     * Starts classifying the item and returns without waiting for the LLM. At most
+     * {@code news.ingest.classify.concurrency} articles are being classified at once.
+     */
+    private CompletableFuture<?> classify(IngestionItem item) {
+        NewsArticle article = item.getArticle();
+        EnrichmentRecord cached = item.getCachedRecord();
+        if (cached != null && cached.getStatus() == EnrichmentStatus.ENRICHED
+                && item.getContentHash().equals(cached.getContentHash())) {
+            logger.debug("Reusing cached cities for unchanged article: " + article.getUrl());
+            classifiedFromCache.increment();
+            share(item.getFingerprint(), cached.getCityNames());
+            enrich(item, cached.getCityNames());
+            return CompletableFuture.completedFuture(null);
+        }
+        return classifyOnce(item).handle((cityNames, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                logger.error("Error while enriching article: " + cause.getMessage());
+                item.drop();
+            } else {
+                enrich(item, cityNames);
+            }
+            return null;
+        });
+    }
+
+    private void enrich(IngestionItem item, List<String> cityNames) {
+        NewsArticle article = item.getArticle();
+        List<City> cities = resolveCities(cityNames);
+        article.setLocal(!cities.isEmpty());
+        article.setCities(cities);
+        enrichmentCache.put(EnrichmentRecord.builder()
+                .url(article.getUrl())
+                .status(EnrichmentStatus.ENRICHED)
+                .title(article.getTitle())
+                .description(article.getDescription())
+                .urlToImage(article.getUrlToImage())
+                .contentHash(item.getContentHash())
+                .fingerprint(item.getFingerprint())
+                .cityNames(cityNames)
+                .build());
+        item.setBody(null);
+    }
+
+    /**
+     * Classifies the item's body, unless a near-duplicate article was already classified or is
+     * being classified, in which case the result is chained on its cities. Copies of one story
+     * thus cost a single classification however many URLs they arrive under.
+     */
+    private CompletableFuture<List<String>> classifyOnce(IngestionItem item) {
+        long fingerprint = item.getFingerprint();
+        String body = item.getBody();
+        if (stories == null || fingerprint == SimHash.NONE) {
+            return requestCities(body);
+        }
+        CompletableFuture<List<String>> own = new CompletableFuture<>();
+        StoryCluster story = StoryCluster.classifying(own);
+        StoryCluster representative = stories.findOrAdd(fingerprint, story);
+        if (representative != null) {
+            if (representative.getCityNames() == null) {
+                return requestCities(body);
             }
-            if(getArticleBody(doc).isBlank()) {
-                logger.debug("Skipping article without a valid body");
-                return;
+            return representative.getCityNames().thenApply(cityNames -> {
+                classifiedFromDuplicates.increment();
+                logger.debug("Reusing cities of a near-duplicate article for " + item.getArticle().getUrl());
+                return cityNames;
+            }).exceptionallyCompose(error -> requestCities(body));
+        }
+        CompletableFuture<List<String>> answer;
+        try {
+            answer = requestCities(body);
+        } catch (RuntimeException e) {
+            answer = CompletableFuture.failedFuture(e);
+        }
+        answer.whenComplete((cityNames, error) -> {
+            if (error != null) {
+                stories.remove(fingerprint, story);
+                own.completeExceptionally(error);
+            } else {
+                own.complete(cityNames);
             }
-            article.setDescription(description);
-            article.setTitle(getTitle(doc));
-            article.setUrlToImage(getUrlToImage(doc));
+        });
+        return answer;
+    }
 
-            List<City> cities = getCities(doc);
-            article.setLocal(!cities.isEmpty());
-            article.setCities(cities);
+    /**
+     * Makes already known cities of an article available to its near duplicates.
+     */
+    private void share(long fingerprint, List<String> cityNames) {
+        if (stories != null && fingerprint != SimHash.NONE) {
+            stories.findOrAdd(fingerprint, StoryCluster.classifying(CompletableFuture.completedFuture(cityNames)));
+        }
+    }
 
-        } catch (IOException e) {
-            logger.error("Error while fetching additional data for article: " + article.getUrl() + " - " + e.getMessage());
+    /**
+     * Classifies the body from the city list when it names a city without doubt, and otherwise
+     * asks the LLM, passing along the cities the text seems to mention.
+     */
+    private CompletableFuture<List<String>> requestCities(String body) {
+        if (gazetteer == null) {
+            classifiedByLlm.increment();
+            return llmRequestCityService.requestCityAsync(body);
         }
+        CityGazetteer.Mentions mentions = gazetteer.scan(body, maxCandidates);
+        if (classifyDirectly && mentions.confident().length > 0) {
+            classifiedLocally.increment();
+            List<String> cityNames = cityNames(mentions.confident());
+            logger.debug("Classified article from the city list as " + cityNames);
+            return CompletableFuture.completedFuture(cityNames);
+        }
+        classifiedByLlm.increment();
+        if (mentions.candidates().length == 0) {
+            return llmRequestCityService.requestCityAsync(body);
+        }
+        return llmRequestCityService.requestCityAsync(body + CANDIDATES_HINT
+                + String.join("; ", cityNames(mentions.candidates())));
     }
 
-    private String getDescription(Document doc) {
-        Element metaDescription = doc.selectFirst("meta[property=og:description]");
-        return metaDescription != null ? metaDescription.attr("content") : "No description available";
+    private int queued(String stage) {
+        IngestionPipeline current = pipeline;
+        return current != null ? current.queued(stage) : 0;
     }
 
-    private String getTitle(Document doc) {
-        Element metaTitle = doc.selectFirst("meta[property=og:title]");
-        return metaTitle != null ? metaTitle.attr("content") : "No title available";
+    private Counter classifiedCounter(String source) {
+        return Counter.builder("news.classify")
+                .description("Articles classified, by where their cities came from")
+                .tag("source", source)
+                .register(meterRegistry);
     }
 
-    private String getUrlToImage(Document doc) {
-        Element metaImage = doc.selectFirst("meta[property=og:image]");
-        return metaImage != null ? metaImage.attr("content") : "No image URL available";
+    private Counter cacheCounter(String result) {
+        return Counter.builder("news.enrichment.cache")
+                .description("Enrichment cache lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
-    private List<City> getCities(Document doc) {
-        List<String> cityNames = llmRequestCityService.requestCity(getArticleBody(doc));
+    private List<String> cityNames(int[] ordinals) {
+        CityTable table = gazetteer.getCityIndex().getTable();
+        Set<String> cityNames = new LinkedHashSet<>();
+        for (int ordinal : ordinals) {
+            cityNames.add(table.name(ordinal) + ", " + table.stateCode(ordinal));
+        }
+        return new ArrayList<>(cityNames);
+    }
 
+    private void reject(IngestionItem item, EnrichmentStatus status) {
+        enrichmentCache.put(EnrichmentRecord.builder()
+                .url(item.getArticle().getUrl())
+                .status(status)
+                .build());
+        item.drop();
+    }
+
+    private List<City> resolveCities(List<String> cityNames) {
         if (cityNames == null || cityNames.isEmpty()) {
             return new ArrayList<>();
         }
@@ -192,7 +527,7 @@ public class NewsArticleReaderImpl implements NewsArticleReader {
             String trimmedCityName = parts[0].trim();
             String stateCode = parts[1].trim();
 
-            City city = findCityByName(trimmedCityName, stateCode);
+            City city = cityIndex.findByNameAndStateCode(trimmedCityName, stateCode);
             if (city != null) {
                 connectedCities.add(city);
             }
@@ -201,15 +536,4 @@ public class NewsArticleReaderImpl implements NewsArticleReader {
         return connectedCities;
     }
 
-    private String getArticleBody(Document doc) {
-        doc.select("menu, header, nav, footer").remove();
-        return doc.body().text();
-    }
-
-    private City findCityByName(String cityName, String stateCode) {
-        return cities.stream()
-                .filter(city -> city.getName().equalsIgnoreCase(cityName) && city.getStateCode().equalsIgnoreCase(stateCode))
-                .findFirst()
-                .orElse(null);
-    }
 }
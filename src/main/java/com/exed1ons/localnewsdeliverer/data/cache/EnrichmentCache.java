@@ -0,0 +1,18 @@
+package com.exed1ons.localnewsdeliverer.data.cache;
+
+public interface EnrichmentCache {
+    void open();
+
+    /**
+     * Returns the last record stored for the URL, fresh or stale, or {@code null}.
+     */
+    EnrichmentRecord get(String url);
+
+    boolean isFresh(EnrichmentRecord record);
+
+    void put(EnrichmentRecord record);
+
+    void flush();
+
+    int size();
+}
@@ -0,0 +1,30 @@
+package com.exed1ons.localnewsdeliverer.data.cache;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Outcome of enriching one article URL, as persisted in the enrichment cache.
+ * City names are kept exactly as the LLM returned them ("City, ST") and are resolved
+ * against the current city index when the record is reused. The fingerprint is the SimHash of
+ * the article body, used to recognize republished copies of the article.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EnrichmentRecord {
+    String key;
+    String url;
+    EnrichmentStatus status;
+    String title;
+    String description;
+    String urlToImage;
+    String contentHash;
+    long fingerprint;
+    List<String> cityNames;
+    long fetchedAt;
+}
@@ -0,0 +1,16 @@
+package com.exed1ons.localnewsdeliverer.data.cache;
+
+public enum EnrichmentStatus {
+    /**
+     * The article was fetched and classified.
+     */
+    ENRICHED,
+    /**
+     * The page was fetched but has no usable description or body.
+     */
+    REJECTED,
+    /**
+     * The page could not be fetched. Cached for a shorter time because the failure may be transient.
+     */
+    UNREACHABLE
+}
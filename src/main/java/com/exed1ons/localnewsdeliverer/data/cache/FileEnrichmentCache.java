@@ -0,0 +1,150 @@
+package com.exed1ons.localnewsdeliverer.data.cache;
+
+import com.exed1ons.localnewsdeliverer.data.ingest.UrlDeduplicationIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.UrlNormalizer;
+import com.exed1ons.localnewsdeliverer.data.store.JsonLinesStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enrichment cache persisted as an append-only JSONL file.
+ * <p>
+ * Every enrichment result is appended as one line to a {@link JsonLinesStore}, and a later line
+ * for the same normalized URL replaces an earlier one. Only the byte offset of each URL's latest
+ * line is kept in memory, indexed by the URL's 64-bit hash; records are read back from the file
+ * on demand. The file is compacted as it grows, keeping the newest
+ * {@code news.enrichment.cache.max-entries} records that are still fresh.
+ * An empty {@code news.enrichment.cache.path} keeps the cache in memory only.
+ */
+@Component
+public class FileEnrichmentCache implements EnrichmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileEnrichmentCache.class);
+
+    private final Duration ttl;
+    private final Duration failureTtl;
+    private final RecordStore store;
+
+    private final Map<String, EnrichmentRecord> memoryRecords = new ConcurrentHashMap<>();
+    private boolean opened;
+
+    public FileEnrichmentCache(ObjectMapper objectMapper,
+                               @Value("${news.enrichment.cache.path:}") String path,
+                               @Value("${news.enrichment.cache.ttl:7d}") Duration ttl,
+                               @Value("${news.enrichment.cache.failure-ttl:6h}") Duration failureTtl,
+                               @Value("${news.enrichment.cache.max-entries:200000}") int maxEntries) {
+        this.ttl = ttl;
+        this.failureTtl = failureTtl;
+        this.store = path == null || path.isBlank() ? null : new RecordStore(objectMapper, Path.of(path), maxEntries);
+    }
+
+    @Override
+    public synchronized void open() {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        if (store == null) {
+            return;
+        }
+        try {
+            store.open();
+        } catch (IOException e) {
+            logger.error("Error while reading enrichment cache, continuing in memory: " + e.getMessage());
+            store.close();
+        }
+    }
+
+    @Override
+    public EnrichmentRecord get(String url) {
+        String key = UrlNormalizer.normalize(url);
+        return onDisk() ? store.get(key) : memoryRecords.get(key);
+    }
+
+    @Override
+    public boolean isFresh(EnrichmentRecord record) {
+        return isFresh(record, System.currentTimeMillis());
+    }
+
+    private boolean isFresh(EnrichmentRecord record, long now) {
+        Duration maxAge = record.getStatus() == EnrichmentStatus.UNREACHABLE ? failureTtl : ttl;
+        return now - record.getFetchedAt() < maxAge.toMillis();
+    }
+
+    @Override
+    public void put(EnrichmentRecord record) {
+        EnrichmentRecord stored = record.toBuilder()
+                .key(UrlNormalizer.normalize(record.getUrl()))
+                .fetchedAt(record.getFetchedAt() > 0 ? record.getFetchedAt() : System.currentTimeMillis())
+                .build();
+        if (onDisk()) {
+            store.put(stored);
+        } else {
+            memoryRecords.put(stored.getKey(), stored);
+        }
+    }
+
+    /**
+     * Records are written to the file as they are put, so there is nothing left to flush.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public int size() {
+        return onDisk() ? store.size() : memoryRecords.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * Whether records go to the file; if it could not be opened, or reopened after a compaction,
+     * the cache carries on in memory.
+     */
+    private boolean onDisk() {
+        return store != null && store.isOpen();
+    }
+
+    private class RecordStore extends JsonLinesStore<EnrichmentRecord> {
+
+        RecordStore(ObjectMapper objectMapper, Path path, int maxRecords) {
+            super(objectMapper, path, EnrichmentRecord.class, maxRecords, "enrichment cache");
+        }
+
+        @Override
+        protected String keyOf(EnrichmentRecord record) {
+            return record.getKey();
+        }
+
+        @Override
+        protected long hash(String key) {
+            return UrlDeduplicationIndex.hash(key);
+        }
+
+        @Override
+        protected long timestampOf(EnrichmentRecord record) {
+            return record.getFetchedAt();
+        }
+
+        @Override
+        protected boolean isLive(EnrichmentRecord record, long now) {
+            return isFresh(record, now);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Fields extracted from an article page. Missing og: properties are {@code null}.
+ * The body is {@code null} when the page has no description, and it is cut off at the
+ * configured budget when {@code truncated} is set.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ArticlePage {
+    String title;
+    String description;
+    String urlToImage;
+    String body;
+    boolean truncated;
+}
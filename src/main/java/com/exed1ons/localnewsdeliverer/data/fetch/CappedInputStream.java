@@ -0,0 +1,61 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reports end of stream once {@code limit} bytes have been read, leaving the rest unread.
+ */
+class CappedInputStream extends FilterInputStream {
+
+    private long remaining;
+    private boolean capped;
+
+    CappedInputStream(InputStream in, long limit) {
+        super(in);
+        this.remaining = limit;
+    }
+
+    boolean isCapped() {
+        return capped;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            capped = true;
+            return -1;
+        }
+        int b = super.read();
+        if (b >= 0) {
+            remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining <= 0) {
+            capped = true;
+            return -1;
+        }
+        int n = super.read(buffer, offset, (int) Math.min(length, remaining));
+        if (n > 0) {
+            remaining -= n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
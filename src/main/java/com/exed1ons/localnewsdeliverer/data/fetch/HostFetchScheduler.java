@@ -0,0 +1,401 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import com.exed1ons.localnewsdeliverer.data.ingest.StageThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spreads fetches across hosts so that no single publisher is hammered.
+ * <p>
+ * Work is queued per host, and one dispatcher thread starts tasks round-robin over the hosts
+ * that have work waiting. A host is skipped while it already runs {@code maxPerHost} requests
+ * or while its minimum delay since the last request has not passed, so the other hosts keep
+ * the {@code concurrency} workers busy. Total throughput therefore grows with the number of
+ * distinct hosts instead of being bound by the slowest one.
+ * <p>
+ * Timeouts, refused connections, 429 and 5xx answers count as host failures. After
+ * {@code failureThreshold} of them in a row the host's circuit opens: waiting and new work for
+ * it fails at once for {@code cooldown}, after which a single trial request decides whether it
+ * closes again. When robots handling is enabled, a host's {@code robots.txt} is read before its
+ * first request, disallowed URLs fail without being fetched, and its {@code Crawl-delay}
+ * raises the host's minimum delay.
+ */
+public class HostFetchScheduler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostFetchScheduler.class);
+
+    private final int concurrency;
+    private final int maxPerHost;
+    private final long hostDelayNanos;
+    private final int failureThreshold;
+    private final long cooldownNanos;
+    private final PageFetcher robotsFetcher;
+    private final String robotsAgent;
+    private final long maxCrawlDelayNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, HostState> hosts = new HashMap<>();
+    private final Deque<HostState> ready = new ArrayDeque<>();
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private int active;
+    private boolean closed;
+
+    private HostFetchScheduler(Builder builder) {
+        this.concurrency = Math.max(1, builder.concurrency);
+        this.maxPerHost = Math.max(1, builder.maxPerHost);
+        this.hostDelayNanos = builder.hostDelay.toNanos();
+        this.failureThreshold = Math.max(1, builder.failureThreshold);
+        this.cooldownNanos = builder.cooldown.toNanos();
+        this.robotsFetcher = builder.robotsFetcher;
+        this.robotsAgent = builder.robotsAgent;
+        this.maxCrawlDelayNanos = builder.maxCrawlDelay.toNanos();
+        this.workers = Executors.newFixedThreadPool(concurrency, new StageThreadFactory("fetch-worker"));
+        this.dispatcher = new StageThreadFactory("fetch-dispatcher").newThread(this::dispatch);
+        dispatcher.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Queues {@code task} behind the other work for the host of {@code url}. The returned future
+     * completes with the task's result, or fails when the task throws, the URL has no host, the
+     * host's circuit is open or its {@code robots.txt} disallows the URL.
+     */
+    public <T> CompletableFuture<T> submit(String url, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            future.completeExceptionally(new IOException("Malformed URL: " + url, e));
+            return future;
+        }
+        if (uri.getHost() == null) {
+            future.completeExceptionally(new IOException("URL has no host: " + url));
+            return future;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                future.completeExceptionally(new IOException("Fetch scheduler is closed"));
+                return future;
+            }
+            String key = uri.getHost().toLowerCase(Locale.ROOT);
+            HostState host = hosts.computeIfAbsent(key, name -> new HostState(name, uri));
+            host.pending.add(new Task<>(uri, task, future));
+            if (!host.queued) {
+                host.queued = true;
+                ready.add(host);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Number of tasks waiting for their host's turn.
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            int queued = 0;
+            for (HostState host : hosts.values()) {
+                queued += host.pending.size();
+            }
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of tasks currently running, including {@code robots.txt} reads.
+     */
+    public int active() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        workers.shutdownNow();
+    }
+
+    private void dispatch() {
+        List<Runnable> rejections = new ArrayList<>();
+        while (true) {
+            lock.lock();
+            try {
+                long wakeAt = Long.MAX_VALUE;
+                boolean started = false;
+                int rounds = ready.size();
+                for (int i = 0; i < rounds && active < concurrency && !closed; i++) {
+                    HostState host = ready.poll();
+                    long now = System.nanoTime();
+                    if (host.pending.isEmpty()) {
+                        host.queued = false;
+                        continue;
+                    }
+                    if (host.circuitOpenUntil != 0 && now < host.circuitOpenUntil) {
+                        failAll(host, rejections);
+                        host.queued = false;
+                        continue;
+                    }
+                    ready.add(host);
+                    if (robotsFetcher != null && host.robots == null) {
+                        if (!host.robotsLoading) {
+                            host.robotsLoading = true;
+                            active++;
+                            workers.execute(() -> loadRobots(host));
+                            started = true;
+                        }
+                        continue;
+                    }
+                    Task<?> next = host.pending.peek();
+                    if (host.robots != null && !host.robots.isAllowed(pathOf(next.uri))) {
+                        host.pending.poll();
+                        rejections.add(() -> next.future.completeExceptionally(
+                                new IOException("Disallowed by robots.txt: " + next.uri)));
+                        continue;
+                    }
+                    boolean halfOpen = host.circuitOpenUntil != 0;
+                    if (host.active >= (halfOpen ? 1 : maxPerHost) || host.trialInFlight) {
+                        continue;
+                    }
+                    if (now < host.nextStartAt) {
+                        wakeAt = Math.min(wakeAt, host.nextStartAt);
+                        continue;
+                    }
+                    host.pending.poll();
+                    host.active++;
+                    host.trialInFlight = halfOpen;
+                    host.nextStartAt = now + host.delayNanos;
+                    active++;
+                    started = true;
+                    workers.execute(() -> run(host, next));
+                }
+
+                if (closed) {
+                    for (HostState host : hosts.values()) {
+                        failAll(host, rejections);
+                    }
+                } else if (!started && rejections.isEmpty()) {
+                    if (wakeAt == Long.MAX_VALUE || active >= concurrency) {
+                        changed.await();
+                    } else {
+                        changed.awaitNanos(Math.max(1, wakeAt - System.nanoTime()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            rejections.forEach(Runnable::run);
+            rejections.clear();
+            if (closed) {
+                return;
+            }
+        }
+    }
+
+    private <T> void run(HostState host, Task<T> task) {
+        T result = null;
+        Throwable error = null;
+        try {
+            result = task.work.call();
+        } catch (Throwable e) {
+            error = e;
+        }
+
+        lock.lock();
+        try {
+            host.active--;
+            active--;
+            boolean trial = host.trialInFlight;
+            host.trialInFlight = false;
+            if (error != null && isHostFailure(error)) {
+                host.consecutiveFailures++;
+                if (trial || host.consecutiveFailures >= failureThreshold) {
+                    host.circuitOpenUntil = System.nanoTime() + cooldownNanos;
+                    logger.warn("Pausing fetches from " + host.name + " for "
+                            + TimeUnit.NANOSECONDS.toSeconds(cooldownNanos) + "s after "
+                            + host.consecutiveFailures + " consecutive failures");
+                }
+            } else {
+                host.consecutiveFailures = 0;
+                host.circuitOpenUntil = 0;
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (error != null) {
+            task.future.completeExceptionally(error);
+        } else {
+            task.future.complete(result);
+        }
+    }
+
+    private void loadRobots(HostState host) {
+        String url = host.origin + "/robots.txt";
+        RobotsRules rules;
+        try {
+            rules = RobotsRules.parse(robotsFetcher.fetchText(url), robotsAgent);
+        } catch (HttpStatusException e) {
+            logger.debug("No robots.txt at " + url + " (status " + e.getStatus() + ")");
+            rules = RobotsRules.ALLOW_ALL;
+        } catch (Exception e) {
+            logger.debug("Could not read " + url + " - " + e.getMessage());
+            rules = RobotsRules.ALLOW_ALL;
+        }
+
+        lock.lock();
+        try {
+            host.robots = rules;
+            host.robotsLoading = false;
+            if (rules.getCrawlDelay() != null) {
+                long crawlDelay = Math.min(rules.getCrawlDelay().toNanos(), maxCrawlDelayNanos);
+                host.delayNanos = Math.max(host.delayNanos, crawlDelay);
+            }
+            active--;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failAll(HostState host, List<Runnable> rejections) {
+        Task<?> task;
+        while ((task = host.pending.poll()) != null) {
+            Task<?> failed = task;
+            rejections.add(() -> failed.future.completeExceptionally(
+                    new IOException("Host " + host.name + " is unavailable after repeated failures")));
+        }
+    }
+
+    private static boolean isHostFailure(Throwable error) {
+        if (error instanceof HttpStatusException status) {
+            return status.getStatus() == 429 || status.getStatus() >= 500;
+        }
+        return error instanceof HttpTimeoutException
+                || error instanceof SocketTimeoutException
+                || error instanceof ConnectException;
+    }
+
+    private static String pathOf(URI uri) {
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path;
+    }
+
+    private final class HostState {
+        private final String name;
+        private final String origin;
+        private final Deque<Task<?>> pending = new ArrayDeque<>();
+        private long delayNanos = hostDelayNanos;
+        private boolean queued;
+        private int active;
+        private long nextStartAt = Long.MIN_VALUE;
+        private int consecutiveFailures;
+        private long circuitOpenUntil;
+        private boolean trialInFlight;
+        private RobotsRules robots;
+        private boolean robotsLoading;
+
+        private HostState(String name, URI uri) {
+            this.name = name;
+            this.origin = uri.getScheme() + "://" + uri.getRawAuthority();
+        }
+    }
+
+    private record Task<T>(URI uri, Callable<T> work, CompletableFuture<T> future) {
+    }
+
+    public static class Builder {
+        private int concurrency = 16;
+        private int maxPerHost = 2;
+        private Duration hostDelay = Duration.ofMillis(250);
+        private int failureThreshold = 5;
+        private Duration cooldown = Duration.ofMinutes(5);
+        private PageFetcher robotsFetcher;
+        private String robotsAgent = "*";
+        private Duration maxCrawlDelay = Duration.ofSeconds(10);
+
+        public Builder concurrency(int concurrency) {
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        public Builder maxPerHost(int maxPerHost) {
+            this.maxPerHost = maxPerHost;
+            return this;
+        }
+
+        public Builder hostDelay(Duration hostDelay) {
+            this.hostDelay = hostDelay;
+            return this;
+        }
+
+        public Builder circuitBreaker(int failureThreshold, Duration cooldown) {
+            this.failureThreshold = failureThreshold;
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        /**
+         * Reads every host's {@code robots.txt} through {@code fetcher} and applies the rules
+         * for {@code agent}. Crawl delays above {@code maxCrawlDelay} are capped.
+         */
+        public Builder robots(PageFetcher fetcher, String agent, Duration maxCrawlDelay) {
+            this.robotsFetcher = fetcher;
+            this.robotsAgent = agent;
+            this.maxCrawlDelay = maxCrawlDelay;
+            return this;
+        }
+
+        public HostFetchScheduler build() {
+            return new HostFetchScheduler(this);
+        }
+    }
+}
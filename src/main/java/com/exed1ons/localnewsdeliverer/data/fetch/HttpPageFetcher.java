@@ -0,0 +1,174 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jsoup.helper.HttpConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches article pages through one shared {@link HttpClient}, which keeps connections alive
+ * and reuses them across articles from the same host.
+ * <p>
+ * The status line is checked before the body is read, so error pages are never downloaded,
+ * and the body is handed to {@link StreamingArticleExtractor} as a stream. Limits on how hard
+ * a single host is hit are left to the caller, see {@link HostFetchScheduler}.
+ * <p>
+ * The time until the status line arrives is recorded as {@code news.fetch.response}, tagged
+ * with the status class, and the time spent streaming and extracting the body as
+ * {@code news.fetch.extract}.
+ */
+@Component
+public class HttpPageFetcher implements PageFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpPageFetcher.class);
+    private static final int MAX_TEXT_BYTES = 512 * 1024;
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final String userAgent;
+    private final StreamingArticleExtractor extractor;
+    private final Timer[] responseTimers;
+    private final Timer errorTimer;
+    private final Timer extractTimer;
+
+    public HttpPageFetcher(MeterRegistry meterRegistry,
+                           @Value("${news.fetch.connect-timeout:5s}") Duration connectTimeout,
+                           @Value("${news.fetch.timeout:30s}") Duration timeout,
+                           @Value("${news.fetch.user-agent:}") String userAgent,
+                           @Value("${news.fetch.max-body-size:2MB}") DataSize maxBodySize,
+                           @Value("${news.extract.max-body-tokens:3000}") int maxBodyTokens) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.ALWAYS)
+                .build();
+        this.timeout = timeout;
+        this.userAgent = userAgent == null || userAgent.isBlank() ? HttpConnection.DEFAULT_UA : userAgent;
+        // Roughly four characters per token for English text.
+        this.extractor = new StreamingArticleExtractor(maxBodySize.toBytes(), Math.max(1, maxBodyTokens) * 4);
+        // Indexed by status class, 1xx to 5xx; a nonstandard class above 5xx is counted as 5xx.
+        this.responseTimers = new Timer[6];
+        for (int statusClass = 1; statusClass < responseTimers.length; statusClass++) {
+            responseTimers[statusClass] = responseTimer(meterRegistry, statusClass + "xx");
+        }
+        this.errorTimer = responseTimer(meterRegistry, "error");
+        this.extractTimer = Timer.builder("news.fetch.extract")
+                .description("Time to stream and extract the body of an article page")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ArticlePage fetch(String url) throws IOException {
+        HttpRequest request = request(url, "text/html,application/xhtml+xml;q=0.9,*/*;q=0.8");
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        } catch (IOException e) {
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        int statusClass = Math.min(Math.max(response.statusCode() / 100, 1), responseTimers.length - 1);
+        responseTimers[statusClass].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try (InputStream body = response.body()) {
+            checkStatus(response);
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (!isHtml(contentType)) {
+                throw new IOException("Unhandled content type " + contentType);
+            }
+            logger.debug("Fetched " + url + " from " + response.uri());
+            long extractStart = System.nanoTime();
+            ArticlePage page = extractor.extract(body, charsetOf(contentType), response.uri().toString());
+            extractTimer.record(System.nanoTime() - extractStart, TimeUnit.NANOSECONDS);
+            return page;
+        }
+    }
+
+    @Override
+    public String fetchText(String url) throws IOException {
+        HttpRequest request = request(url, "text/plain,*/*;q=0.8");
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                checkStatus(response);
+                byte[] bytes = body.readNBytes(MAX_TEXT_BYTES);
+                String charset = charsetOf(response.headers().firstValue("Content-Type").orElse(""));
+                return new String(bytes, charset != null && Charset.isSupported(charset)
+                        ? Charset.forName(charset) : StandardCharsets.UTF_8);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while fetching " + url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported charset for " + url, e);
+        }
+    }
+
+    private HttpRequest request(String url, String accept) throws IOException {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed URL: " + url, e);
+        }
+        if (uri.getHost() == null) {
+            throw new IOException("URL has no host: " + url);
+        }
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("User-Agent", userAgent)
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
+
+    private static Timer responseTimer(MeterRegistry meterRegistry, String status) {
+        return Timer.builder("news.fetch.response")
+                .description("Time until an article page answers with its status line")
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+
+    private static void checkStatus(HttpResponse<?> response) throws HttpStatusException {
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            throw new HttpStatusException(status);
+        }
+    }
+
+    private static boolean isHtml(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.isEmpty() || type.startsWith("text/") || type.startsWith("application/xml")
+                || type.contains("+xml");
+    }
+
+    private static String charsetOf(String contentType) {
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                String charset = trimmed.substring(8).replace("\"", "").trim();
+                return charset.isEmpty() ? null : charset;
+            }
+        }
+        return null;
+    }
+}
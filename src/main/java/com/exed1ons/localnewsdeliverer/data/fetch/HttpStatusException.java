@@ -0,0 +1,20 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a server answers with a status outside 2xx.
+ */
+public class HttpStatusException extends IOException {
+
+    private final int status;
+
+    public HttpStatusException(int status) {
+        super("HTTP error fetching URL. Status=" + status);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,19 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import java.io.IOException;
+
+public interface PageFetcher {
+
+    /**
+     * Downloads an HTML page with a single GET, following redirects, and extracts its
+     * og: metadata and body text while the response streams in.
+     * Throws an {@link IOException} when the page cannot be fetched or is not HTML, and an
+     * {@link HttpStatusException} when it answers with a status outside 2xx.
+     */
+    ArticlePage fetch(String url) throws IOException;
+
+    /**
+     * Downloads a small text resource such as {@code robots.txt}, capped at 512 KB.
+     */
+    String fetchText(String url) throws IOException;
+}
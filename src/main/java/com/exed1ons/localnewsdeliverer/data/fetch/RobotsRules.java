@@ -0,0 +1,172 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The {@code robots.txt} rules that apply to one user agent.
+ * <p>
+ * Groups are matched on the agent's product token, the part of the user agent before the first
+ * {@code /} or space, compared without case. A group applies when it names that token, or a
+ * family name the token starts with followed by {@code -}, such as {@code news} for
+ * {@code news-bot}. The longest applicable name wins, and the {@code *} group is the fallback.
+ * All groups naming the winner are combined. Within them the longest matching {@code Allow} or
+ * {@code Disallow} path decides, with {@code Allow} winning a tie, and {@code *} and a trailing
+ * {@code $} are understood in paths. {@code Crawl-delay} is taken from the same groups.
+ */
+final class RobotsRules {
+
+    static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), null);
+
+    private final List<Rule> rules;
+    private final Duration crawlDelay;
+
+    private RobotsRules(List<Rule> rules, Duration crawlDelay) {
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+    }
+
+    static RobotsRules parse(String robotsTxt, String agent) {
+        List<Group> groups = new ArrayList<>();
+        Group current = null;
+        boolean inAgentLines = false;
+
+        for (String rawLine : robotsTxt.split("\r?\n|\r")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            if (field.equals("user-agent")) {
+                if (!inAgentLines) {
+                    current = new Group();
+                    groups.add(current);
+                    inAgentLines = true;
+                }
+                current.agents.add(productToken(value));
+                continue;
+            }
+            inAgentLines = false;
+            if (current == null) {
+                continue;
+            }
+            switch (field) {
+                case "allow" -> current.rules.add(new Rule(value, true));
+                case "disallow" -> {
+                    if (!value.isEmpty()) {
+                        current.rules.add(new Rule(value, false));
+                    }
+                }
+                case "crawl-delay" -> {
+                    try {
+                        current.crawlDelay = Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+                    } catch (NumberFormatException ignored) {
+                        // Unparseable delays are ignored like any other unknown line.
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        String token = productToken(agent);
+        String best = "*";
+        for (Group group : groups) {
+            for (String name : group.agents) {
+                if (appliesTo(name, token) && (best.equals("*") || name.length() > best.length())) {
+                    best = name;
+                }
+            }
+        }
+        List<Rule> rules = new ArrayList<>();
+        Duration crawlDelay = null;
+        boolean matched = false;
+        for (Group group : groups) {
+            if (group.agents.contains(best)) {
+                matched = true;
+                rules.addAll(group.rules);
+                crawlDelay = crawlDelay != null ? crawlDelay : group.crawlDelay;
+            }
+        }
+        return matched ? new RobotsRules(List.copyOf(rules), crawlDelay) : ALLOW_ALL;
+    }
+
+    private static String productToken(String agent) {
+        String trimmed = agent.trim();
+        int end = 0;
+        while (end < trimmed.length() && trimmed.charAt(end) != '/' && !Character.isWhitespace(trimmed.charAt(end))) {
+            end++;
+        }
+        return trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean appliesTo(String name, String token) {
+        if (name.isEmpty() || name.equals("*") || !token.startsWith(name)) {
+            return false;
+        }
+        return token.length() == name.length() || token.charAt(name.length()) == '-';
+    }
+
+    boolean isAllowed(String path) {
+        String target = path == null || path.isEmpty() ? "/" : path;
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (rule.matches(target) && (best == null || rule.length() > best.length()
+                    || (rule.length() == best.length() && rule.allow))) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow;
+    }
+
+    Duration getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    private static final class Group {
+        private final Set<String> agents = new HashSet<>();
+        private final List<Rule> rules = new ArrayList<>();
+        private Duration crawlDelay;
+    }
+
+    private record Rule(String pattern, boolean allow) {
+
+        int length() {
+            return pattern.length();
+        }
+
+        boolean matches(String path) {
+            boolean anchored = pattern.endsWith("$");
+            String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+            return matches(body, 0, path, 0, anchored);
+        }
+
+        private static boolean matches(String pattern, int p, String path, int i, boolean anchored) {
+            while (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c == '*') {
+                    for (int j = i; j <= path.length(); j++) {
+                        if (matches(pattern, p + 1, path, j, anchored)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (i >= path.length() || path.charAt(i) != c) {
+                    return false;
+                }
+                p++;
+                i++;
+            }
+            return !anchored || i == path.length();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pulls og: metadata and body text out of an HTML stream without building the whole document.
+ * <p>
+ * The page is parsed with a jsoup {@link StreamParser}, which hands over each element as soon
+ * as its end tag is seen. The og: properties are taken from the first matching meta element,
+ * in the head or in the body, and a page without a description is returned without body text.
+ * Whenever a block element in the body is finished, the text up to its end is appended to the
+ * result and the finished nodes are detached, so the tree never holds more than the elements
+ * that are still open. Menus, headers, navigation and footers are dropped as before.
+ * <p>
+ * Extraction stops once the body text reaches {@code maxBodyChars} and a description has been
+ * seen; without one, the rest of the page is only scanned for meta elements. At most
+ * {@code maxBytes} of the response are read. Instances hold no per-page state and can be shared.
+ */
+class StreamingArticleExtractor {
+
+    private static final Set<String> SKIPPED_TAGS = Set.of("menu", "header", "nav", "footer");
+    private static final int SNIFF_BYTES = 4096;
+    private static final Pattern META_CHARSET =
+            Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final long maxBytes;
+    private final int maxBodyChars;
+
+    StreamingArticleExtractor(long maxBytes, int maxBodyChars) {
+        this.maxBytes = maxBytes;
+        this.maxBodyChars = maxBodyChars;
+    }
+
+    ArticlePage extract(InputStream in, String declaredCharset, String baseUri) throws IOException {
+        CappedInputStream capped = new CappedInputStream(in, maxBytes);
+        BufferedInputStream buffered = new BufferedInputStream(capped, SNIFF_BYTES * 2);
+        Charset charset = detectCharset(buffered, declaredCharset);
+
+        ArticlePage page = new ArticlePage();
+        StringBuilder text = new StringBuilder();
+        boolean inHead = true;
+        try (StreamParser parser = new StreamParser(Parser.htmlParser())
+                .parse(new BufferedReader(new InputStreamReader(buffered, charset)), baseUri)) {
+            Iterator<Element> elements = parser.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                String tag = element.normalName();
+                if (tag.equals("meta")) {
+                    readMeta(element, page);
+                }
+                if (inHead) {
+                    inHead = !tag.equals("head");
+                    continue;
+                }
+
+                if (page.isTruncated()) {
+                    // The text budget is spent, only a late og:description is still wanted.
+                    element.remove();
+                } else if (SKIPPED_TAGS.contains(tag)) {
+                    element.remove();
+                } else if (element.isBlock() && !insideSkippedTag(element)) {
+                    flushThrough(element, text);
+                    if (text.length() >= maxBodyChars) {
+                        page.setTruncated(true);
+                    }
+                }
+                if (page.isTruncated() && hasDescription(page)) {
+                    parser.stop();
+                    break;
+                }
+            }
+
+            if (!hasDescription(page)) {
+                return page;
+            }
+            Element body = parser.document().body();
+            if (body != null && !page.isTruncated()) {
+                flushThrough(body, text);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        page.setBody(finish(text));
+        page.setTruncated(page.isTruncated() || capped.isCapped());
+        return page;
+    }
+
+    private static boolean hasDescription(ArticlePage page) {
+        return page.getDescription() != null && !page.getDescription().isBlank();
+    }
+
+    private static void readMeta(Element meta, ArticlePage page) {
+        String property = meta.attr("property");
+        if (property.equals("og:description") && page.getDescription() == null) {
+            page.setDescription(meta.attr("content"));
+        } else if (property.equals("og:title") && page.getTitle() == null) {
+            page.setTitle(meta.attr("content"));
+        } else if (property.equals("og:image") && page.getUrlToImage() == null) {
+            page.setUrlToImage(meta.attr("content"));
+        }
+    }
+
+    /**
+     * Appends the text of everything in the body that ends at or before {@code last} and has
+     * not been appended yet, then detaches it. Once a block element is finished, all content
+     * before it in document order is finished too, so every node is visited once.
+     */
+    private static void flushThrough(Element last, StringBuilder text) {
+        Deque<Element> path = new ArrayDeque<>();
+        Element container = last;
+        while (container != null && !container.nameIs("body")) {
+            path.push(container);
+            container = container.parent();
+        }
+        if (container == null) {
+            return;
+        }
+        for (Element next : path) {
+            while (container.childNode(0) != next) {
+                appendAndRemove(container.childNode(0), text);
+            }
+            if (next.isBlock()) {
+                text.append(' ');
+            }
+            container = next;
+        }
+        if (last.nameIs("body")) {
+            while (last.childNodeSize() > 0) {
+                appendAndRemove(last.childNode(0), text);
+            }
+        } else {
+            appendAndRemove(last, text);
+        }
+    }
+
+    private static void appendAndRemove(Node node, StringBuilder text) {
+        if (node instanceof TextNode textNode) {
+            text.append(textNode.getWholeText());
+        } else if (node instanceof Element element && !SKIPPED_TAGS.contains(element.normalName())) {
+            if (element.nameIs("br")) {
+                text.append(' ');
+            } else if (element.isBlock()) {
+                text.append(' ').append(element.text()).append(' ');
+            } else {
+                text.append(element.wholeText());
+            }
+        }
+        node.remove();
+    }
+
+    private static boolean insideSkippedTag(Element element) {
+        for (Element parent = element.parent(); parent != null; parent = parent.parent()) {
+            if (SKIPPED_TAGS.contains(parent.normalName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collapses whitespace runs to single spaces, trims, and cuts the text at the last word
+     * boundary before {@code maxBodyChars}.
+     */
+    private String finish(StringBuilder text) {
+        StringBuilder normalized = new StringBuilder(Math.min(text.length(), maxBodyChars));
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length() && normalized.length() < maxBodyChars; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        if (normalized.length() >= maxBodyChars) {
+            int cut = normalized.lastIndexOf(" ");
+            if (cut > maxBodyChars / 2) {
+                normalized.setLength(cut);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static Charset detectCharset(BufferedInputStream in, String declared) throws IOException {
+        in.mark(SNIFF_BYTES);
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        in.reset();
+
+        if (head.length >= 3 && (head[0] & 0xff) == 0xef && (head[1] & 0xff) == 0xbb && (head[2] & 0xff) == 0xbf) {
+            in.skip(3);
+            return StandardCharsets.UTF_8;
+        }
+        if (head.length >= 2 && (head[0] & 0xff) == 0xfe && (head[1] & 0xff) == 0xff) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (head.length >= 2 && (head[0] & 0xff) == 0xff && (head[1] & 0xff) == 0xfe) {
+            return StandardCharsets.UTF_16LE;
+        }
+        Charset charset = toCharset(declared);
+        if (charset != null) {
+            return charset;
+        }
+        Matcher matcher = META_CHARSET.matcher(new String(head, StandardCharsets.ISO_8859_1));
+        if (matcher.find()) {
+            charset = toCharset(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+        return charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
+    private static Charset toCharset(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return Charset.isSupported(name) ? Charset.forName(name) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+}
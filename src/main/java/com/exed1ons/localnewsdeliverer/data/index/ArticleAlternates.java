@@ -0,0 +1,189 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alternate URLs of published articles, keyed by article position: the URLs of near-duplicate
+ * copies that were folded into the first copy of a story instead of being published as
+ * articles of their own.
+ * <p>
+ * Like {@link ArticleCityIndex}, the alternates are a stack of immutable segments.
+ * {@link #append} adds only the URLs found since the previous snapshot as a new segment and
+ * shares the older ones, and a segment is merged into the one below it once it holds a quarter
+ * as many URLs.
+ */
+public final class ArticleAlternates {
+
+    private static final int MERGE_RATIO = 4;
+    private static final ArticleAlternates EMPTY = new ArticleAlternates(new Segment[0]);
+
+    private final Segment[] segments;
+    private final int count;
+
+    private ArticleAlternates(Segment[] segments) {
+        this.segments = segments;
+        int total = 0;
+        for (Segment segment : segments) {
+            total += segment.count;
+        }
+        this.count = total;
+    }
+
+    public static ArticleAlternates empty() {
+        return EMPTY;
+    }
+
+    public static ArticleAlternates of(Map<Integer, List<String>> urls) {
+        return EMPTY.append(urls);
+    }
+
+    /**
+     * Returns these alternates together with {@code added}, whose URLs come after the ones
+     * already held for the same position. Only {@code added} is copied.
+     */
+    public ArticleAlternates append(Map<Integer, List<String>> added) {
+        Segment segment = Segment.of(added);
+        if (segment.count == 0) {
+            return this;
+        }
+        List<Segment> stack = new ArrayList<>(Arrays.asList(segments));
+        stack.add(segment);
+        while (stack.size() > 1) {
+            Segment last = stack.get(stack.size() - 1);
+            Segment previous = stack.get(stack.size() - 2);
+            if ((long) last.count * MERGE_RATIO < previous.count) {
+                break;
+            }
+            stack.remove(stack.size() - 1);
+            stack.set(stack.size() - 1, Segment.merge(previous, last));
+        }
+        return new ArticleAlternates(stack.toArray(new Segment[0]));
+    }
+
+    /**
+     * Reads alternates written by {@link #writeTo}, starting at the buffer's position and
+     * leaving the position just past them.
+     */
+    public static ArticleAlternates readFrom(ByteBuffer in) {
+        int size = in.getInt();
+        if (size == 0) {
+            return EMPTY;
+        }
+        Map<Integer, List<String>> urls = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            int position = in.getInt();
+            String[] alternates = new String[in.getInt()];
+            for (int j = 0; j < alternates.length; j++) {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                alternates[j] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            urls.put(position, List.of(alternates));
+        }
+        return new ArticleAlternates(new Segment[]{new Segment(urls)});
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        Map<Integer, List<String>> urls = asMap();
+        out.writeInt(urls.size());
+        for (Map.Entry<Integer, List<String>> entry : urls.entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (String url : entry.getValue()) {
+                byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Returns the alternate URLs of the article at {@code position}, or an empty list.
+     */
+    public List<String> get(int position) {
+        List<String> result = List.of();
+        for (Segment segment : segments) {
+            List<String> urls = segment.urls.get(position);
+            if (urls != null) {
+                result = concat(result, urls);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns every position with alternate URLs and its URLs, merged from all segments.
+     */
+    public Map<Integer, List<String>> asMap() {
+        if (segments.length == 1) {
+            return segments[0].urls;
+        }
+        Map<Integer, List<String>> urls = new HashMap<>();
+        for (Segment segment : segments) {
+            segment.urls.forEach((position, alternates) -> urls.merge(position, alternates, ArticleAlternates::concat));
+        }
+        return urls;
+    }
+
+    /**
+     * Total number of alternate URLs.
+     */
+    public int count() {
+        return count;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        if (first.isEmpty()) {
+            return second;
+        }
+        List<String> result = new ArrayList<>(first.size() + second.size());
+        result.addAll(first);
+        result.addAll(second);
+        return List.copyOf(result);
+    }
+
+    private static final class Segment {
+        private final Map<Integer, List<String>> urls;
+        private final int count;
+
+        private Segment(Map<Integer, List<String>> urls) {
+            this.urls = urls;
+            int total = 0;
+            for (List<String> alternates : urls.values()) {
+                total += alternates.size();
+            }
+            this.count = total;
+        }
+
+        private static Segment of(Map<Integer, List<String>> urls) {
+            Map<Integer, List<String>> copy = new HashMap<>(urls.size() * 2);
+            urls.forEach((position, alternates) -> {
+                if (!alternates.isEmpty()) {
+                    copy.put(position, List.copyOf(alternates));
+                }
+            });
+            return new Segment(copy);
+        }
+
+        /**
+         * Merges two segments, the URLs of {@code second} following those of {@code first}.
+         */
+        private static Segment merge(Segment first, Segment second) {
+            Map<Integer, List<String>> urls = new HashMap<>(first.urls);
+            second.urls.forEach((position, alternates) -> urls.merge(position, alternates, ArticleAlternates::concat));
+            return new Segment(urls);
+        }
+    }
+}
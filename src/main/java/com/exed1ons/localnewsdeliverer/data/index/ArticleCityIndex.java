@@ -0,0 +1,318 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inverted index from city to the articles mentioning it.
+ * <p>
+ * Posting lists hold article positions in ascending order and are addressed by city ordinal
+ * from {@link CityIndex}. Articles that are not local are kept in separate lists, so a city
+ * search is a lookup per city plus a linear merge of already sorted lists.
+ * <p>
+ * Like {@link ArticleTextIndex}, the index is a stack of immutable segments over contiguous
+ * ranges of positions. {@link #append} indexes only the articles added since the previous
+ * snapshot and shares the older segments, and a segment is merged into the one below it once
+ * it grows to a quarter of that one's size. A segment only holds the cities its articles
+ * mention.
+ */
+public final class ArticleCityIndex {
+
+    private static final int MERGE_RATIO = 4;
+    private static final int[] NONE = new int[0];
+    private static final ArticleCityIndex EMPTY = new ArticleCityIndex(0, new Segment[0]);
+
+    private final int cityCount;
+    private final Segment[] segments;
+    private final int size;
+
+    private ArticleCityIndex(int cityCount, Segment[] segments) {
+        this.cityCount = cityCount;
+        this.segments = segments;
+        int articles = 0;
+        for (Segment segment : segments) {
+            articles += segment.size;
+        }
+        this.size = articles;
+    }
+
+    public static ArticleCityIndex empty() {
+        return EMPTY;
+    }
+
+    public static ArticleCityIndex build(List<ArticleRecord> articles, CityIndex cityIndex) {
+        return EMPTY.append(articles, cityIndex);
+    }
+
+    /**
+     * Returns an index over {@code articles}, which must start with the articles this index
+     * already covers. Only the articles past {@link #size()} are indexed.
+     */
+    public ArticleCityIndex append(List<ArticleRecord> articles, CityIndex cityIndex) {
+        if (articles.size() < size || (size > 0 && cityIndex.size() != cityCount)) {
+            return EMPTY.append(articles, cityIndex);
+        }
+        if (articles.size() == size) {
+            return cityIndex.size() == cityCount ? this : new ArticleCityIndex(cityIndex.size(), segments);
+        }
+        List<Segment> stack = new ArrayList<>(Arrays.asList(segments));
+        stack.add(Segment.build(articles, size, articles.size()));
+        while (stack.size() > 1) {
+            Segment last = stack.get(stack.size() - 1);
+            Segment previous = stack.get(stack.size() - 2);
+            if ((long) last.size * MERGE_RATIO < previous.size) {
+                break;
+            }
+            stack.remove(stack.size() - 1);
+            stack.set(stack.size() - 1, Segment.merge(previous, last));
+        }
+        return new ArticleCityIndex(cityIndex.size(), stack.toArray(new Segment[0]));
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo}, starting at the buffer's position and leaving
+     * the position just past it.
+     */
+    public static ArticleCityIndex readFrom(ByteBuffer in) {
+        int size = in.getInt();
+        int cityCount = in.getInt();
+        int[] ordinals = new int[cityCount];
+        int[][] lists = new int[cityCount][];
+        int used = 0;
+        for (int ordinal = 0; ordinal < cityCount; ordinal++) {
+            int[] positions = readInts(in);
+            if (positions.length > 0) {
+                ordinals[used] = ordinal;
+                lists[used++] = positions;
+            }
+        }
+        int[] globalArticles = readInts(in);
+        if (size == 0) {
+            return new ArticleCityIndex(cityCount, new Segment[0]);
+        }
+        Segment segment = new Segment(size, Arrays.copyOf(ordinals, used), Arrays.copyOf(lists, used), globalArticles);
+        return new ArticleCityIndex(cityCount, new Segment[]{segment});
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(cityCount);
+        for (int ordinal = 0; ordinal < cityCount; ordinal++) {
+            writeInts(out, articlesForCity(ordinal));
+        }
+        writeInts(out, globalArticles());
+    }
+
+    /**
+     * Number of articles covered.
+     */
+    public int size() {
+        return size;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns the positions of the articles linked to a city, in ascending order. The returned
+     * array may be shared with the index and must not be modified.
+     */
+    public int[] articlesForCity(int cityOrdinal) {
+        if (cityOrdinal < 0 || cityOrdinal >= cityCount) {
+            return NONE;
+        }
+        int[] result = NONE;
+        for (Segment segment : segments) {
+            result = concat(result, segment.articlesForCity(cityOrdinal));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions of the non-local articles, in ascending order. The returned array
+     * may be shared with the index and must not be modified.
+     */
+    public int[] globalArticles() {
+        int[] result = NONE;
+        for (Segment segment : segments) {
+            result = concat(result, segment.globalArticles);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions of all articles linked to any of the given cities, optionally
+     * together with the non-local articles, in ascending order and without duplicates.
+     * The returned array may be shared with the index and must not be modified.
+     */
+    public int[] search(int[] cityOrdinals, boolean includeGlobalNews) {
+        int[] result = includeGlobalNews ? globalArticles() : NONE;
+        for (int cityOrdinal : cityOrdinals) {
+            result = merge(result, articlesForCity(cityOrdinal));
+        }
+        return result;
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == 0) {
+            return NONE;
+        }
+        int[] values = new int[length];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * Concatenates two sorted lists whose ranges do not overlap, the first one lower.
+     */
+    private static int[] concat(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.length == 0) {
+            return right;
+        }
+        int[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static int[] merge(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.length == 0) {
+            return right;
+        }
+        int[] merged = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                merged[k++] = left[i++];
+            } else if (left[i] > right[j]) {
+                merged[k++] = right[j++];
+            } else {
+                merged[k++] = left[i++];
+                j++;
+            }
+        }
+        while (i < left.length) {
+            merged[k++] = left[i++];
+        }
+        while (j < right.length) {
+            merged[k++] = right[j++];
+        }
+        return k == merged.length ? merged : Arrays.copyOf(merged, k);
+    }
+
+    /**
+     * Postings of a range of articles, for the cities they mention only: {@code ordinals} is
+     * sorted and {@code lists} holds the positions for the city at the same index.
+     */
+    private static final class Segment {
+        private final int size;
+        private final int[] ordinals;
+        private final int[][] lists;
+        private final int[] globalArticles;
+
+        private Segment(int size, int[] ordinals, int[][] lists, int[] globalArticles) {
+            this.size = size;
+            this.ordinals = ordinals;
+            this.lists = lists;
+            this.globalArticles = globalArticles;
+        }
+
+        private int[] articlesForCity(int cityOrdinal) {
+            int index = Arrays.binarySearch(ordinals, cityOrdinal);
+            return index >= 0 ? lists[index] : NONE;
+        }
+
+        private static Segment build(List<ArticleRecord> articles, int from, int to) {
+            // Each pair packs a city ordinal above an article position, so sorting groups the
+            // pairs by city with positions ascending, and repeated ordinals collapse.
+            long[] pairs = new long[16];
+            int pairCount = 0;
+            int[] globalArticles = new int[4];
+            int globalCount = 0;
+            for (int position = from; position < to; position++) {
+                ArticleRecord article = articles.get(position);
+                if (!article.isLocal()) {
+                    if (globalCount == globalArticles.length) {
+                        globalArticles = Arrays.copyOf(globalArticles, globalCount * 2);
+                    }
+                    globalArticles[globalCount++] = position;
+                }
+                for (int ordinal : article.getCityOrdinals()) {
+                    if (pairCount == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairCount * 2);
+                    }
+                    pairs[pairCount++] = ((long) ordinal << 32) | position;
+                }
+            }
+            Arrays.sort(pairs, 0, pairCount);
+
+            int[] ordinals = new int[pairCount];
+            int[][] lists = new int[pairCount][];
+            int cities = 0;
+            int i = 0;
+            while (i < pairCount) {
+                int ordinal = (int) (pairs[i] >>> 32);
+                int end = i;
+                while (end < pairCount && (int) (pairs[end] >>> 32) == ordinal) {
+                    end++;
+                }
+                int[] positions = new int[end - i];
+                int count = 0;
+                for (int p = i; p < end; p++) {
+                    if (p == i || pairs[p] != pairs[p - 1]) {
+                        positions[count++] = (int) pairs[p];
+                    }
+                }
+                ordinals[cities] = ordinal;
+                lists[cities++] = count == positions.length ? positions : Arrays.copyOf(positions, count);
+                i = end;
+            }
+            return new Segment(to - from, Arrays.copyOf(ordinals, cities), Arrays.copyOf(lists, cities),
+                    globalCount == 0 ? NONE : Arrays.copyOf(globalArticles, globalCount));
+        }
+
+        private static Segment merge(Segment first, Segment second) {
+            int[] ordinals = new int[first.ordinals.length + second.ordinals.length];
+            int[][] lists = new int[ordinals.length][];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < first.ordinals.length || j < second.ordinals.length) {
+                if (j == second.ordinals.length
+                        || (i < first.ordinals.length && first.ordinals[i] < second.ordinals[j])) {
+                    ordinals[k] = first.ordinals[i];
+                    lists[k++] = first.lists[i++];
+                } else if (i == first.ordinals.length || first.ordinals[i] > second.ordinals[j]) {
+                    ordinals[k] = second.ordinals[j];
+                    lists[k++] = second.lists[j++];
+                } else {
+                    ordinals[k] = first.ordinals[i];
+                    lists[k++] = concat(first.lists[i++], second.lists[j++]);
+                }
+            }
+            return new Segment(first.size + second.size, Arrays.copyOf(ordinals, k), Arrays.copyOf(lists, k),
+                    concat(first.globalArticles, second.globalArticles));
+        }
+    }
+}
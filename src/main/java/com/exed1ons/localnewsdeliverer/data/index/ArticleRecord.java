@@ -0,0 +1,237 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, immutable form in which a published article is kept in memory.
+ * <p>
+ * The four text fields are packed into one UTF-8 byte array with their end offsets, the linked
+ * cities are kept as {@link CityIndex} ordinals instead of {@link City} copies, and the
+ * placeholder title and image texts are kept as flags. {@link NewsArticle} objects are only
+ * created at the edge, by {@link #toNewsArticle(CityIndex, List)}.
+ * <p>
+ * A record read back from a store snapshot with {@link #readFrom} does not copy its text: it
+ * points into the snapshot's memory-mapped buffer and decodes the text when it is asked for.
+ */
+public final class ArticleRecord {
+
+    public static final String NO_TITLE = "No title available";
+    public static final String NO_IMAGE = "No image URL available";
+
+    private static final int[] NO_CITIES = new int[0];
+
+    private static final int LOCAL = 1;
+    private static final int DEFAULT_TITLE = 1 << 1;
+    private static final int DEFAULT_IMAGE = 1 << 2;
+    private static final int NULL_TITLE = 1 << 3;
+    private static final int NULL_DESCRIPTION = 1 << 4;
+    private static final int NULL_URL = 1 << 5;
+    private static final int NULL_IMAGE = 1 << 6;
+
+    private final byte[] text;
+    private final ByteBuffer mapped;
+    private final int textStart;
+    private final int titleEnd;
+    private final int descriptionEnd;
+    private final int urlEnd;
+    private final int textEnd;
+    private final int[] cityOrdinals;
+    private final byte flags;
+
+    private ArticleRecord(byte[] text, ByteBuffer mapped, int textStart, int titleEnd, int descriptionEnd,
+                          int urlEnd, int textEnd, int[] cityOrdinals, int flags) {
+        this.text = text;
+        this.mapped = mapped;
+        this.textStart = textStart;
+        this.titleEnd = titleEnd;
+        this.descriptionEnd = descriptionEnd;
+        this.urlEnd = urlEnd;
+        this.textEnd = textEnd;
+        this.cityOrdinals = cityOrdinals;
+        this.flags = (byte) flags;
+    }
+
+    /**
+     * Packs {@code article}. Its cities must come from {@code cityIndex}; cities the index does
+     * not know are left out.
+     */
+    public static ArticleRecord of(NewsArticle article, CityIndex cityIndex) {
+        int flags = article.isLocal() ? LOCAL : 0;
+        String title = article.getTitle();
+        String image = article.getUrlToImage();
+        if (NO_TITLE.equals(title)) {
+            flags |= DEFAULT_TITLE;
+            title = null;
+        } else if (title == null) {
+            flags |= NULL_TITLE;
+        }
+        if (NO_IMAGE.equals(image)) {
+            flags |= DEFAULT_IMAGE;
+            image = null;
+        } else if (image == null) {
+            flags |= NULL_IMAGE;
+        }
+        if (article.getDescription() == null) {
+            flags |= NULL_DESCRIPTION;
+        }
+        if (article.getUrl() == null) {
+            flags |= NULL_URL;
+        }
+
+        byte[] titleBytes = bytes(title);
+        byte[] descriptionBytes = bytes(article.getDescription());
+        byte[] urlBytes = bytes(article.getUrl());
+        byte[] imageBytes = bytes(image);
+        byte[] text = new byte[titleBytes.length + descriptionBytes.length + urlBytes.length + imageBytes.length];
+        int titleEnd = titleBytes.length;
+        int descriptionEnd = titleEnd + descriptionBytes.length;
+        int urlEnd = descriptionEnd + urlBytes.length;
+        System.arraycopy(titleBytes, 0, text, 0, titleEnd);
+        System.arraycopy(descriptionBytes, 0, text, titleEnd, descriptionBytes.length);
+        System.arraycopy(urlBytes, 0, text, descriptionEnd, urlBytes.length);
+        System.arraycopy(imageBytes, 0, text, urlEnd, imageBytes.length);
+
+        return new ArticleRecord(text, null, 0, titleEnd, descriptionEnd, urlEnd, text.length,
+                ordinalsOf(article.getCities(), cityIndex), flags);
+    }
+
+    /**
+     * Reads the record that {@link #writeTo} wrote at {@code position} of {@code buffer}.
+     * The text stays in the buffer, which must not change while the record is in use.
+     */
+    public static ArticleRecord readFrom(ByteBuffer buffer, int position) {
+        int flags = buffer.get(position);
+        int titleEnd = buffer.getInt(position + 1);
+        int descriptionEnd = buffer.getInt(position + 5);
+        int urlEnd = buffer.getInt(position + 9);
+        int textEnd = buffer.getInt(position + 13);
+        int cityCount = buffer.getInt(position + 17);
+        int[] cityOrdinals = cityCount == 0 ? NO_CITIES : new int[cityCount];
+        for (int i = 0; i < cityCount; i++) {
+            cityOrdinals[i] = buffer.getInt(position + 21 + i * Integer.BYTES);
+        }
+        int textStart = position + 21 + cityCount * Integer.BYTES;
+        return new ArticleRecord(null, buffer, textStart, titleEnd, descriptionEnd, urlEnd, textEnd, cityOrdinals, flags);
+    }
+
+    /**
+     * Number of bytes {@link #writeTo} writes for this record.
+     */
+    public int serializedSize() {
+        return 21 + cityOrdinals.length * Integer.BYTES + textEnd;
+    }
+
+    /**
+     * Writes the record in the layout {@link #readFrom} expects: flags, the four text end
+     * offsets, the city ordinals and the packed text.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(flags);
+        out.writeInt(titleEnd);
+        out.writeInt(descriptionEnd);
+        out.writeInt(urlEnd);
+        out.writeInt(textEnd);
+        out.writeInt(cityOrdinals.length);
+        for (int ordinal : cityOrdinals) {
+            out.writeInt(ordinal);
+        }
+        out.write(bytes(0, textEnd));
+    }
+
+    public String getTitle() {
+        if (has(DEFAULT_TITLE)) {
+            return NO_TITLE;
+        }
+        return has(NULL_TITLE) ? null : string(0, titleEnd);
+    }
+
+    public String getDescription() {
+        return has(NULL_DESCRIPTION) ? null : string(titleEnd, descriptionEnd);
+    }
+
+    public String getUrl() {
+        return has(NULL_URL) ? null : string(descriptionEnd, urlEnd);
+    }
+
+    public String getUrlToImage() {
+        if (has(DEFAULT_IMAGE)) {
+            return NO_IMAGE;
+        }
+        return has(NULL_IMAGE) ? null : string(urlEnd, textEnd);
+    }
+
+    public boolean isLocal() {
+        return has(LOCAL);
+    }
+
+    /**
+     * Ordinals of the linked cities in their original order. The array is shared and must not
+     * be modified.
+     */
+    public int[] getCityOrdinals() {
+        return cityOrdinals;
+    }
+
+    public NewsArticle toNewsArticle(CityIndex cityIndex, List<String> alternateUrls) {
+        return NewsArticle.builder()
+                .title(getTitle())
+                .description(getDescription())
+                .url(getUrl())
+                .urlToImage(getUrlToImage())
+                .isLocal(isLocal())
+                .cities(cityIndex.toCities(cityOrdinals))
+                .alternateUrls(alternateUrls)
+                .build();
+    }
+
+    private boolean has(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private String string(int from, int to) {
+        if (text != null) {
+            return new String(text, from, to - from, StandardCharsets.UTF_8);
+        }
+        return new String(bytes(from, to), StandardCharsets.UTF_8);
+    }
+
+    private byte[] bytes(int from, int to) {
+        if (text != null && from == 0 && to == text.length) {
+            return text;
+        }
+        byte[] copy = new byte[to - from];
+        if (text != null) {
+            System.arraycopy(text, from, copy, 0, copy.length);
+        } else {
+            mapped.get(textStart + from, copy);
+        }
+        return copy;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int[] ordinalsOf(List<City> cities, CityIndex cityIndex) {
+        if (cities == null || cities.isEmpty()) {
+            return NO_CITIES;
+        }
+        int[] ordinals = new int[cities.size()];
+        int count = 0;
+        for (City city : cities) {
+            int ordinal = cityIndex.ordinalOf(city.getId());
+            if (ordinal >= 0) {
+                ordinals[count++] = ordinal;
+            }
+        }
+        return count == 0 ? NO_CITIES : count == ordinals.length ? ordinals : Arrays.copyOf(ordinals, count);
+    }
+}
@@ -0,0 +1,518 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index over article titles and descriptions, ranked with BM25.
+ * <p>
+ * Articles are identified by their position in the snapshot's article list, like in
+ * {@link ArticleCityIndex}. Since that list only grows, the index is a stack of immutable
+ * segments, each covering a contiguous range of positions: {@link #append} indexes only the
+ * articles added since the previous snapshot into a new segment and shares the older ones, and
+ * whenever a segment grows to a quarter of the one below it the two are merged, so there are
+ * never more than a logarithmic number of segments. Title terms count {@value #TITLE_WEIGHT}
+ * times. Like the city index, it can be written to a store snapshot with {@link #writeTo} and
+ * read back as a single segment with {@link #readFrom}, without analyzing the articles again.
+ * <p>
+ * Queries are matched with OR semantics, document at a time, and keep the best {@code limit}
+ * hits in a heap. Query terms that can no longer lift a document into that heap on their own
+ * are only probed for documents found through the other terms (MaxScore), so a common term does
+ * not make the whole posting list walk, and a position filter skips ahead with binary searches
+ * instead of scoring every match.
+ */
+public final class ArticleTextIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MERGE_RATIO = 4;
+    private static final int[] NONE = new int[0];
+    private static final ArticleTextIndex EMPTY = new ArticleTextIndex(new Segment[0]);
+
+    private final Segment[] segments;
+    private final int size;
+    private final long totalLength;
+
+    private ArticleTextIndex(Segment[] segments) {
+        this.segments = segments;
+        int documents = 0;
+        long length = 0;
+        for (Segment segment : segments) {
+            documents += segment.lengths.length;
+            length += segment.totalLength;
+        }
+        this.size = documents;
+        this.totalLength = length;
+    }
+
+    public static ArticleTextIndex empty() {
+        return EMPTY;
+    }
+
+    public static ArticleTextIndex build(List<ArticleRecord> articles) {
+        return EMPTY.append(articles);
+    }
+
+    /**
+     * Returns an index over {@code articles}, which must start with the articles this index
+     * already covers. Only the articles past {@link #size()} are analyzed.
+     */
+    public ArticleTextIndex append(List<ArticleRecord> articles) {
+        if (articles.size() < size) {
+            return build(articles);
+        }
+        if (articles.size() == size) {
+            return this;
+        }
+        List<Segment> stack = new ArrayList<>(Arrays.asList(segments));
+        stack.add(Segment.build(articles, size, articles.size()));
+        while (stack.size() > 1) {
+            Segment last = stack.get(stack.size() - 1);
+            Segment previous = stack.get(stack.size() - 2);
+            if ((long) last.lengths.length * MERGE_RATIO < previous.lengths.length) {
+                break;
+            }
+            stack.remove(stack.size() - 1);
+            stack.set(stack.size() - 1, Segment.merge(previous, last));
+        }
+        return new ArticleTextIndex(stack.toArray(new Segment[0]));
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo}, starting at the buffer's position and leaving
+     * the position just past it.
+     */
+    public static ArticleTextIndex readFrom(ByteBuffer in) {
+        int[] lengths = readInts(in);
+        int termCount = in.getInt();
+        Map<String, Postings> postings = new HashMap<>(termCount * 2);
+        for (int i = 0; i < termCount; i++) {
+            byte[] term = new byte[in.getInt()];
+            in.get(term);
+            int maxFrequency = in.getInt();
+            int minLength = in.getInt();
+            int[] positions = readInts(in);
+            int[] frequencies = readInts(in);
+            postings.put(new String(term, StandardCharsets.UTF_8),
+                    new Postings(positions, frequencies, maxFrequency, minLength));
+        }
+        if (lengths.length == 0) {
+            return EMPTY;
+        }
+        return new ArticleTextIndex(new Segment[]{new Segment(0, lengths, postings)});
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        Segment all = segments.length == 0 ? new Segment(0, NONE, Map.of()) : segments[0];
+        for (int i = 1; i < segments.length; i++) {
+            all = Segment.merge(all, segments[i]);
+        }
+        writeInts(out, all.lengths);
+        out.writeInt(all.postings.size());
+        for (Map.Entry<String, Postings> entry : all.postings.entrySet()) {
+            byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            Postings postings = entry.getValue();
+            out.writeInt(term.length);
+            out.write(term);
+            out.writeInt(postings.maxFrequency);
+            out.writeInt(postings.minLength);
+            writeInts(out, postings.positions);
+            writeInts(out, postings.frequencies);
+        }
+    }
+
+    /**
+     * Number of articles covered.
+     */
+    public int size() {
+        return size;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Returns the positions of the {@code limit} articles that best match {@code query}, best
+     * first. When {@code filter} is not {@code null}, only the positions it contains, in
+     * ascending order, are considered.
+     */
+    public int[] search(String query, int[] filter, int limit) {
+        if (limit <= 0 || size == 0 || (filter != null && filter.length == 0)) {
+            return NONE;
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.terms(query)));
+        double averageLength = Math.max(1.0, (double) totalLength / size);
+
+        List<String> matched = new ArrayList<>();
+        List<Double> idfs = new ArrayList<>();
+        for (String term : terms) {
+            int frequency = 0;
+            for (Segment segment : segments) {
+                Postings postings = segment.postings.get(term);
+                frequency += postings == null ? 0 : postings.positions.length;
+            }
+            if (frequency > 0) {
+                matched.add(term);
+                idfs.add(Math.log(1 + (size - frequency + 0.5) / (frequency + 0.5)));
+            }
+        }
+        if (matched.isEmpty()) {
+            return NONE;
+        }
+
+        TopHits hits = new TopHits(limit);
+        for (Segment segment : segments) {
+            List<Cursor> cursors = new ArrayList<>(matched.size());
+            for (int i = 0; i < matched.size(); i++) {
+                Postings postings = segment.postings.get(matched.get(i));
+                if (postings != null) {
+                    cursors.add(new Cursor(postings, idfs.get(i), averageLength));
+                }
+            }
+            if (!cursors.isEmpty()) {
+                cursors.sort((a, b) -> Double.compare(a.maxScore, b.maxScore));
+                new SegmentSearch(segment, cursors.toArray(new Cursor[0]), filter, averageLength, hits).run();
+            }
+        }
+        return hits.sorted();
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int length = in.getInt();
+        if (length == 0) {
+            return NONE;
+        }
+        int[] values = new int[length];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + length * Integer.BYTES);
+        return values;
+    }
+
+    /**
+     * The articles containing a term, with the term's frequency in each. The highest frequency
+     * and the shortest article length bound the BM25 score any of them can get for the term.
+     */
+    private static final class Postings {
+        private final int[] positions;
+        private final int[] frequencies;
+        private final int maxFrequency;
+        private final int minLength;
+
+        private Postings(int[] positions, int[] frequencies, int maxFrequency, int minLength) {
+            this.positions = positions;
+            this.frequencies = frequencies;
+            this.maxFrequency = maxFrequency;
+            this.minLength = minLength;
+        }
+    }
+
+    private static final class Segment {
+        private final int base;
+        private final int[] lengths;
+        private final long totalLength;
+        private final Map<String, Postings> postings;
+
+        private Segment(int base, int[] lengths, Map<String, Postings> postings) {
+            this.base = base;
+            this.lengths = lengths;
+            this.postings = postings;
+            long total = 0;
+            for (int length : lengths) {
+                total += length;
+            }
+            this.totalLength = total;
+        }
+
+        private static Segment build(List<ArticleRecord> articles, int from, int to) {
+            int[] lengths = new int[to - from];
+            Map<String, PostingsBuilder> builders = new HashMap<>();
+            Map<String, Integer> counts = new HashMap<>();
+            for (int position = from; position < to; position++) {
+                ArticleRecord article = articles.get(position);
+                counts.clear();
+                String title = article.getTitle();
+                if (title != null && !ArticleRecord.NO_TITLE.equals(title)) {
+                    for (String term : TextAnalyzer.terms(title)) {
+                        counts.merge(term, TITLE_WEIGHT, Integer::sum);
+                        lengths[position - from] += TITLE_WEIGHT;
+                    }
+                }
+                for (String term : TextAnalyzer.terms(article.getDescription())) {
+                    counts.merge(term, 1, Integer::sum);
+                    lengths[position - from]++;
+                }
+                for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                    builders.computeIfAbsent(entry.getKey(), key -> new PostingsBuilder())
+                            .add(position, entry.getValue(), lengths[position - from]);
+                }
+            }
+            Map<String, Postings> postings = new HashMap<>(builders.size() * 2);
+            builders.forEach((term, builder) -> postings.put(term, builder.build()));
+            return new Segment(from, lengths, postings);
+        }
+
+        /**
+         * Merges two segments, {@code second} starting where {@code first} ends.
+         */
+        private static Segment merge(Segment first, Segment second) {
+            int[] lengths = Arrays.copyOf(first.lengths, first.lengths.length + second.lengths.length);
+            System.arraycopy(second.lengths, 0, lengths, first.lengths.length, second.lengths.length);
+            Map<String, Postings> postings = new HashMap<>(first.postings);
+            second.postings.forEach((term, added) -> postings.merge(term, added, (left, right) -> new Postings(
+                    concat(left.positions, right.positions), concat(left.frequencies, right.frequencies),
+                    Math.max(left.maxFrequency, right.maxFrequency), Math.min(left.minLength, right.minLength))));
+            return new Segment(first.base, lengths, postings);
+        }
+
+        private static int[] concat(int[] left, int[] right) {
+            int[] result = Arrays.copyOf(left, left.length + right.length);
+            System.arraycopy(right, 0, result, left.length, right.length);
+            return result;
+        }
+    }
+
+    private static final class PostingsBuilder {
+        private int[] positions = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+        private int maxFrequency;
+        private int minLength = Integer.MAX_VALUE;
+
+        private void add(int position, int frequency, int length) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            positions[size] = position;
+            frequencies[size] = frequency;
+            size++;
+            maxFrequency = Math.max(maxFrequency, frequency);
+            minLength = Math.min(minLength, length);
+        }
+
+        private Postings build() {
+            return new Postings(Arrays.copyOf(positions, size), Arrays.copyOf(frequencies, size), maxFrequency,
+                    minLength);
+        }
+    }
+
+    private static final class Cursor {
+        private final int[] positions;
+        private final int[] frequencies;
+        private final double idf;
+        private final double maxScore;
+        private int index;
+
+        private Cursor(Postings postings, double idf, double averageLength) {
+            this.positions = postings.positions;
+            this.frequencies = postings.frequencies;
+            this.idf = idf;
+            this.maxScore = idf * postings.maxFrequency * (K1 + 1)
+                    / (postings.maxFrequency + K1 * (1 - B + B * postings.minLength / averageLength));
+        }
+
+        private int current() {
+            return index < positions.length ? positions[index] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Moves to the first posting at or after {@code target}.
+         */
+        private void advance(int target) {
+            if (current() >= target) {
+                return;
+            }
+            int found = Arrays.binarySearch(positions, index + 1, positions.length, target);
+            index = found >= 0 ? found : -found - 1;
+        }
+    }
+
+    /**
+     * MaxScore evaluation of one segment. The cursors are sorted by ascending maximum score in
+     * the segment;
+     * those before {@code firstEssential} together cannot beat the heap's current threshold, so
+     * candidates are only taken from the others.
+     */
+    private static final class SegmentSearch {
+        private final Segment segment;
+        private final Cursor[] cursors;
+        private final double[] boundBelow;
+        private final int[] filter;
+        private final double averageLength;
+        private final TopHits hits;
+        private int filterIndex;
+        private int firstEssential;
+
+        private SegmentSearch(Segment segment, Cursor[] cursors, int[] filter, double averageLength, TopHits hits) {
+            this.segment = segment;
+            this.cursors = cursors;
+            this.filter = filter;
+            this.averageLength = averageLength;
+            this.hits = hits;
+            this.boundBelow = new double[cursors.length + 1];
+            for (int i = 0; i < cursors.length; i++) {
+                boundBelow[i + 1] = boundBelow[i] + cursors[i].maxScore;
+            }
+            if (filter != null) {
+                int found = Arrays.binarySearch(filter, segment.base);
+                filterIndex = found >= 0 ? found : -found - 1;
+            }
+        }
+
+        private void run() {
+            updateEssential();
+            while (firstEssential < cursors.length) {
+                int position = Integer.MAX_VALUE;
+                for (int i = firstEssential; i < cursors.length; i++) {
+                    position = Math.min(position, cursors[i].current());
+                }
+                if (position == Integer.MAX_VALUE) {
+                    return;
+                }
+                if (filter != null) {
+                    while (filterIndex < filter.length && filter[filterIndex] < position) {
+                        filterIndex++;
+                    }
+                    if (filterIndex == filter.length) {
+                        return;
+                    }
+                    if (filter[filterIndex] != position) {
+                        for (int i = firstEssential; i < cursors.length; i++) {
+                            cursors[i].advance(filter[filterIndex]);
+                        }
+                        continue;
+                    }
+                }
+                score(position);
+            }
+        }
+
+        private void score(int position) {
+            double lengthNorm = K1 * (1 - B + B * segment.lengths[position - segment.base] / averageLength);
+            double score = 0;
+            for (int i = firstEssential; i < cursors.length; i++) {
+                Cursor cursor = cursors[i];
+                if (cursor.current() == position) {
+                    score += termScore(cursor, lengthNorm);
+                    cursor.index++;
+                }
+            }
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (!hits.admits(score + boundBelow[i + 1], position)) {
+                    return;
+                }
+                Cursor cursor = cursors[i];
+                cursor.advance(position);
+                if (cursor.current() == position) {
+                    score += termScore(cursor, lengthNorm);
+                }
+            }
+            if (hits.offer(position, score)) {
+                updateEssential();
+            }
+        }
+
+        private double termScore(Cursor cursor, double lengthNorm) {
+            int frequency = cursor.frequencies[cursor.index];
+            return cursor.idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+        }
+
+        private void updateEssential() {
+            while (firstEssential < cursors.length && !hits.admits(boundBelow[firstEssential + 1], Integer.MAX_VALUE)) {
+                firstEssential++;
+            }
+        }
+    }
+
+    /**
+     * Min-heap of the best hits so far. Between equal scores the later article wins.
+     */
+    private static final class TopHits {
+        private final int[] positions;
+        private final double[] scores;
+        private int size;
+
+        private TopHits(int limit) {
+            positions = new int[limit];
+            scores = new double[limit];
+        }
+
+        /**
+         * Whether a hit with {@code score} at {@code position} would enter the heap.
+         */
+        private boolean admits(double score, int position) {
+            return size < positions.length || worse(scores[0], positions[0], score, position);
+        }
+
+        private boolean offer(int position, double score) {
+            if (size < positions.length) {
+                int i = size++;
+                while (i > 0 && worse(score, position, scores[(i - 1) / 2], positions[(i - 1) / 2])) {
+                    positions[i] = positions[(i - 1) / 2];
+                    scores[i] = scores[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                positions[i] = position;
+                scores[i] = score;
+                return size == positions.length;
+            }
+            if (!worse(scores[0], positions[0], score, position)) {
+                return false;
+            }
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && worse(scores[child + 1], positions[child + 1], scores[child], positions[child])) {
+                    child++;
+                }
+                if (!worse(scores[child], positions[child], score, position)) {
+                    break;
+                }
+                positions[i] = positions[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            positions[i] = position;
+            scores[i] = score;
+            return true;
+        }
+
+        private static boolean worse(double score, int position, double otherScore, int otherPosition) {
+            return score < otherScore || (score == otherScore && position < otherPosition);
+        }
+
+        private int[] sorted() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> worse(scores[a], positions[a], scores[b], positions[b]) ? 1
+                    : worse(scores[b], positions[b], scores[a], positions[a]) ? -1 : 0);
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = positions[order[i]];
+            }
+            return result;
+        }
+    }
+}
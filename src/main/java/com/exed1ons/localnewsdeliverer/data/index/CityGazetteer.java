@@ -0,0 +1,448 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds mentions of known cities in article text.
+ * <p>
+ * City and state names are split into lower-case words, and every name becomes a path in an
+ * Aho-Corasick automaton whose alphabet is the vocabulary of those words. A text is scanned
+ * once, word by word, and every occurrence of every name is reported in a single pass whatever
+ * the number of cities. Working on words keeps the automaton small and makes every match start
+ * and end on a word boundary. Overlapping matches are resolved leftmost-longest, so "New York"
+ * is not also reported as "York", and only mentions written with a capital letter are kept.
+ * <p>
+ * A mention directly followed by a comma and a state, as in "Austin, Texas" or "Austin, TX",
+ * is qualified: it names one city without doubt. Other mentions are ambiguous when the name
+ * exists in several states and are ranked using the states named elsewhere in the text and
+ * the city's population. Cities sharing a name and a state are reported once, as the first of
+ * them in the table, the same city {@link CityIndex#findByNameAndStateCode} resolves to.
+ */
+public final class CityGazetteer {
+
+    private static final int ROOT = 0;
+    private static final int QUALIFIED = 3;
+    private static final int STATE_MENTIONED = 2;
+    private static final int MENTIONED = 1;
+
+    private final CityIndex cityIndex;
+    private final Map<String, Integer> words;
+    private final TransitionTable transitions;
+    private final int[] fail;
+    private final int[] nameOut;
+    private final int[] stateOut;
+    private final int[] outLink;
+    private final int[] nameLengths;
+    private final int[][] ordinalsByName;
+    private final int[][] stateWords;
+
+    private CityGazetteer(CityIndex cityIndex) {
+        this.cityIndex = cityIndex;
+        CityTable table = cityIndex.getTable();
+        this.words = new HashMap<>();
+        Trie trie = new Trie();
+
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<List<Integer>> ordinals = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (int ordinal = 0; ordinal < table.size(); ordinal++) {
+            int[] key = wordIds(table.name(ordinal));
+            if (key.length == 0) {
+                continue;
+            }
+            String name = Arrays.toString(key);
+            Integer nameId = nameIds.get(name);
+            if (nameId == null) {
+                nameId = ordinals.size();
+                nameIds.put(name, nameId);
+                ordinals.add(new ArrayList<>());
+                lengths.add(key.length);
+                trie.insert(key).nameOut = nameId;
+            }
+            List<Integer> sameName = ordinals.get(nameId);
+            boolean newState = true;
+            for (int i = 0; i < sameName.size() && newState; i++) {
+                newState = table.state(sameName.get(i)) != table.state(ordinal);
+            }
+            if (newState) {
+                sameName.add(ordinal);
+            }
+        }
+        this.stateWords = new int[table.stateCount()][];
+        for (int state = 0; state < table.stateCount(); state++) {
+            stateWords[state] = wordIds(table.stateNameAt(state));
+            if (stateWords[state].length > 0) {
+                trie.insert(stateWords[state]).stateOut = state;
+            }
+        }
+
+        this.ordinalsByName = new int[ordinals.size()][];
+        this.nameLengths = new int[ordinals.size()];
+        for (int nameId = 0; nameId < ordinalsByName.length; nameId++) {
+            ordinalsByName[nameId] = ordinals.get(nameId).stream().mapToInt(Integer::intValue).toArray();
+            nameLengths[nameId] = lengths.get(nameId);
+        }
+
+        int nodes = trie.nodes.size();
+        this.transitions = new TransitionTable(nodes);
+        this.fail = new int[nodes];
+        this.nameOut = new int[nodes];
+        this.stateOut = new int[nodes];
+        this.outLink = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            Trie.Node trieNode = trie.nodes.get(node);
+            nameOut[node] = trieNode.nameOut;
+            stateOut[node] = trieNode.stateOut;
+            trieNode.children.forEach((word, child) -> transitions.put(trieNode.id, word, child.id));
+        }
+        linkFailures(trie);
+    }
+
+    public static CityGazetteer build(CityIndex cityIndex) {
+        return new CityGazetteer(cityIndex);
+    }
+
+    public CityIndex getCityIndex() {
+        return cityIndex;
+    }
+
+    /**
+     * Scans {@code text} for city mentions. At most {@code maxCandidates} candidates are returned.
+     */
+    public Mentions scan(String text, int maxCandidates) {
+        Tokens tokens = tokenize(text);
+        CityTable table = cityIndex.getTable();
+
+        List<int[]> matches = new ArrayList<>();
+        boolean[] statesMentioned = new boolean[stateWords.length];
+        List<int[]> stateMatches = new ArrayList<>();
+        int node = ROOT;
+        for (int t = 0; t < tokens.count; t++) {
+            int word = tokens.ids[t];
+            if (word < 0) {
+                node = ROOT;
+                continue;
+            }
+            int next;
+            while ((next = transitions.get(node, word)) < 0 && node != ROOT) {
+                node = fail[node];
+            }
+            node = Math.max(next, ROOT);
+            for (int out = hasOutput(node) ? node : outLink[node]; out > ROOT; out = outLink[out]) {
+                if (nameOut[out] >= 0) {
+                    matches.add(new int[]{t - nameLengths[nameOut[out]] + 1, t, nameOut[out]});
+                }
+                if (stateOut[out] >= 0) {
+                    stateMatches.add(new int[]{t - stateWords[stateOut[out]].length + 1, t, stateOut[out]});
+                }
+            }
+        }
+
+        matches.sort(Comparator.<int[]>comparingInt(m -> m[0]).thenComparingInt(m -> m[0] - m[1]));
+        Map<Integer, Integer> scores = new HashMap<>();
+        Set<Integer> qualified = new LinkedHashSet<>();
+        List<int[]> unqualified = new ArrayList<>();
+        int[] coveredBy = new int[tokens.count];
+        Arrays.fill(coveredBy, -1);
+        int free = 0;
+        for (int[] match : matches) {
+            int start = match[0];
+            int end = match[1];
+            if (start < free || !Character.isUpperCase(text.charAt(tokens.starts[start]))) {
+                continue;
+            }
+            Arrays.fill(coveredBy, start, end + 1, start);
+            free = end + 1;
+            int qualifierEnd = -1;
+            for (int ordinal : ordinalsByName[match[2]]) {
+                int stateEnd = qualifierEnd(text, tokens, end, table.state(ordinal), table.stateCode(ordinal));
+                if (stateEnd >= 0) {
+                    qualified.add(ordinal);
+                    scores.merge(ordinal, QUALIFIED, Math::max);
+                    qualifierEnd = Math.max(qualifierEnd, stateEnd);
+                }
+            }
+            if (qualifierEnd >= 0) {
+                free = qualifierEnd + 1;
+            } else {
+                unqualified.add(match);
+            }
+        }
+        for (int[] state : stateMatches) {
+            // A state name inside a longer city name, like "Kansas" in "Kansas City", is no mention.
+            int cityStart = coveredBy[state[0]];
+            boolean insideCity = cityStart >= 0 && (cityStart != state[0]
+                    || state[1] + 1 < tokens.count && coveredBy[state[1] + 1] == cityStart);
+            if (!insideCity) {
+                statesMentioned[state[2]] = true;
+            }
+        }
+
+        Set<Integer> qualifiedStates = new LinkedHashSet<>();
+        for (int ordinal : qualified) {
+            qualifiedStates.add(table.state(ordinal));
+        }
+        Set<Integer> confident = new LinkedHashSet<>(qualified);
+        for (int[] match : unqualified) {
+            int inQualifiedState = -1;
+            int count = 0;
+            for (int ordinal : ordinalsByName[match[2]]) {
+                int state = table.state(ordinal);
+                if (qualifiedStates.contains(state)) {
+                    inQualifiedState = ordinal;
+                    count++;
+                }
+                scores.merge(ordinal, statesMentioned[state] ? STATE_MENTIONED : MENTIONED, Math::max);
+            }
+            if (count == 1) {
+                confident.add(inQualifiedState);
+            }
+        }
+
+        int[] candidates = scores.keySet().stream()
+                .sorted(Comparator.<Integer>comparingInt(scores::get).reversed()
+                        .thenComparing(Comparator.comparingLong(table::populationOrZero).reversed())
+                        .thenComparingInt(Integer::intValue))
+                .limit(Math.max(0, maxCandidates))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        return new Mentions(confident.stream().mapToInt(Integer::intValue).toArray(), candidates);
+    }
+
+    /**
+     * If the tokens after {@code end} are a comma followed by the given state's name or its
+     * upper-case code, returns the index of the last token of the state, otherwise -1.
+     */
+    private int qualifierEnd(String text, Tokens tokens, int end, int state, String stateCode) {
+        int next = end + 1;
+        if (next >= tokens.count || !separatedByComma(text, tokens.ends[end], tokens.starts[next])) {
+            return -1;
+        }
+        int[] name = stateWords[state];
+        if (name.length > 0 && next + name.length <= tokens.count) {
+            boolean same = true;
+            for (int i = 0; i < name.length && same; i++) {
+                same = tokens.ids[next + i] == name[i];
+            }
+            if (same) {
+                return next + name.length - 1;
+            }
+        }
+        if (stateCode != null && !stateCode.isEmpty()
+                && tokens.ends[next] - tokens.starts[next] == stateCode.length()
+                && text.startsWith(stateCode, tokens.starts[next])) {
+            return next;
+        }
+        return -1;
+    }
+
+    private static boolean separatedByComma(String text, int from, int to) {
+        boolean comma = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == ',' && !comma) {
+                comma = true;
+            } else if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return comma;
+    }
+
+    private boolean hasOutput(int node) {
+        return nameOut[node] >= 0 || stateOut[node] >= 0;
+    }
+
+    private void linkFailures(Trie trie) {
+        Deque<Trie.Node> queue = new ArrayDeque<>();
+        Arrays.fill(outLink, -1);
+        for (Trie.Node child : trie.root().children.values()) {
+            fail[child.id] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Trie.Node parent = queue.poll();
+            parent.children.forEach((word, child) -> {
+                int f = fail[parent.id];
+                int next;
+                while ((next = transitions.get(f, word)) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child.id] = next >= 0 ? next : ROOT;
+                int target = fail[child.id];
+                outLink[child.id] = hasOutput(target) ? target : outLink[target];
+                queue.add(child);
+            });
+        }
+    }
+
+    private int[] wordIds(String name) {
+        if (name == null) {
+            return new int[0];
+        }
+        Tokens tokens = tokenize(name, true);
+        return Arrays.copyOf(tokens.ids, tokens.count);
+    }
+
+    private Tokens tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * Splits text into lower-cased runs of letters and digits and looks each run up in the
+     * vocabulary, adding it when {@code register} is set and otherwise marking it {@code -1}
+     * when it is not part of any name.
+     */
+    private Tokens tokenize(String text, boolean register) {
+        Tokens tokens = new Tokens(Math.max(16, text.length() / 5));
+        StringBuilder word = new StringBuilder(32);
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter) {
+                if (start < 0) {
+                    start = i;
+                    word.setLength(0);
+                }
+                word.append(Character.toLowerCase(text.charAt(i)));
+            } else if (start >= 0) {
+                String key = word.toString();
+                Integer id = words.get(key);
+                if (id == null && register) {
+                    id = words.size();
+                    words.put(key, id);
+                }
+                tokens.add(start, i, id != null ? id : -1);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Result of {@link #scan}, as city ordinals. {@code confident} holds the cities named
+     * without doubt; {@code candidates} holds every plausible city, best first.
+     */
+    public record Mentions(int[] confident, int[] candidates) {
+    }
+
+    private static final class Tokens {
+        private int count;
+        private int[] starts;
+        private int[] ends;
+        private int[] ids;
+
+        private Tokens(int capacity) {
+            starts = new int[capacity];
+            ends = new int[capacity];
+            ids = new int[capacity];
+        }
+
+        private void add(int start, int end, int id) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            ids[count] = id;
+            count++;
+        }
+    }
+
+    /**
+     * Build-time trie; its nodes are numbered in insertion order and flattened into arrays.
+     */
+    private static final class Trie {
+        private final List<Node> nodes = new ArrayList<>();
+
+        private Trie() {
+            nodes.add(new Node(0));
+        }
+
+        private Node root() {
+            return nodes.get(ROOT);
+        }
+
+        private Node insert(int[] key) {
+            Node node = root();
+            for (int word : key) {
+                Node child = node.children.get(word);
+                if (child == null) {
+                    child = new Node(nodes.size());
+                    nodes.add(child);
+                    node.children.put(word, child);
+                }
+                node = child;
+            }
+            return node;
+        }
+
+        private static final class Node {
+            private final int id;
+            private final Map<Integer, Node> children = new HashMap<>(4);
+            private int nameOut = -1;
+            private int stateOut = -1;
+
+            private Node(int id) {
+                this.id = id;
+            }
+        }
+    }
+
+    /**
+     * Open-addressing map from (node, word) to the child node.
+     */
+    private static final class TransitionTable {
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+
+        private TransitionTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            Arrays.fill(keys, -1L);
+        }
+
+        private void put(int node, int word, int child) {
+            long key = key(node, word);
+            int i = slot(key);
+            while (keys[i] != -1L && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = child;
+        }
+
+        private int get(int node, int word) {
+            long key = key(node, word);
+            for (int i = slot(key); keys[i] != -1L; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        private static long key(int node, int word) {
+            return ((long) node << 32) | (word & 0xffffffffL);
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h >>> 32) & mask;
+        }
+    }
+}
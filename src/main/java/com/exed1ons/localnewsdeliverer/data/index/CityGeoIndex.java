@@ -0,0 +1,305 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.util.Arrays;
+
+/**
+ * Spatial index over the cities that have coordinates.
+ * <p>
+ * Every city is placed on the unit sphere as a 3D vector and stored in an implicit k-d tree: the
+ * points are arranged so that the middle of every range splits it on one axis, and the tree
+ * needs no node objects, only the ordinals and coordinates in tree order. The straight-line
+ * (chord) distance between two such vectors grows with the great-circle distance, so radius
+ * and nearest-neighbour queries prune whole subtrees exactly, with no special cases at the
+ * poles or the antimeridian. A query visits a few dozen nodes instead of every city.
+ */
+public final class CityGeoIndex {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final CityGeoIndex EMPTY = new CityGeoIndex(new int[0], new double[3][0]);
+
+    private final int[] ordinals;
+    private final double[][] coordinates;
+
+    private CityGeoIndex(int[] ordinals, double[][] coordinates) {
+        this.ordinals = ordinals;
+        this.coordinates = coordinates;
+    }
+
+    public static CityGeoIndex empty() {
+        return EMPTY;
+    }
+
+    public static CityGeoIndex build(CityIndex cityIndex) {
+        CityTable table = cityIndex.getTable();
+        int[] ordinals = new int[table.size()];
+        int count = 0;
+        for (int ordinal = 0; ordinal < table.size(); ordinal++) {
+            if (table.hasCoordinates(ordinal)) {
+                ordinals[count++] = ordinal;
+            }
+        }
+        ordinals = Arrays.copyOf(ordinals, count);
+        double[][] coordinates = new double[3][count];
+        for (int i = 0; i < count; i++) {
+            double[] point = toVector(table.latitude(ordinals[i]), table.longitude(ordinals[i]));
+            for (int axis = 0; axis < 3; axis++) {
+                coordinates[axis][i] = point[axis];
+            }
+        }
+        arrange(ordinals, coordinates, 0, count, 0);
+        return new CityGeoIndex(ordinals, coordinates);
+    }
+
+    public int size() {
+        return ordinals.length;
+    }
+
+    /**
+     * Returns the ordinals of all cities within {@code radiusKm} of the point, nearest first.
+     */
+    public int[] withinRadius(double latitude, double longitude, double radiusKm) {
+        double[] query = toVector(latitude, longitude);
+        double chord = chordOf(radiusKm);
+        Hits hits = new Hits(16);
+        collect(query, chord * chord, 0, ordinals.length, 0, hits);
+        return hits.sorted();
+    }
+
+    /**
+     * Returns the ordinals of the {@code count} cities nearest to the point, nearest first.
+     */
+    public int[] nearest(double latitude, double longitude, int count) {
+        int k = Math.min(count, ordinals.length);
+        if (k <= 0) {
+            return new int[0];
+        }
+        double[] query = toVector(latitude, longitude);
+        Nearest nearest = new Nearest(k);
+        search(query, 0, ordinals.length, 0, nearest);
+        return nearest.sorted();
+    }
+
+    /**
+     * Great-circle distance in kilometres between two points.
+     */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double[] a = toVector(latitude1, longitude1);
+        double[] b = toVector(latitude2, longitude2);
+        return kmOf(Math.sqrt(squaredDistance(a, b)));
+    }
+
+    private void collect(double[] query, double limit, int from, int to, int axis, Hits hits) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        double distance = squaredDistance(query, mid);
+        if (distance <= limit) {
+            hits.add(ordinals[mid], distance);
+        }
+        double delta = query[axis] - coordinates[axis][mid];
+        int next = (axis + 1) % 3;
+        if (delta <= 0) {
+            collect(query, limit, from, mid, next, hits);
+            if (delta * delta <= limit) {
+                collect(query, limit, mid + 1, to, next, hits);
+            }
+        } else {
+            collect(query, limit, mid + 1, to, next, hits);
+            if (delta * delta <= limit) {
+                collect(query, limit, from, mid, next, hits);
+            }
+        }
+    }
+
+    private void search(double[] query, int from, int to, int axis, Nearest nearest) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        nearest.offer(ordinals[mid], squaredDistance(query, mid));
+        double delta = query[axis] - coordinates[axis][mid];
+        int next = (axis + 1) % 3;
+        int nearFrom = delta <= 0 ? from : mid + 1;
+        int nearTo = delta <= 0 ? mid : to;
+        search(query, nearFrom, nearTo, next, nearest);
+        if (delta * delta < nearest.bound()) {
+            search(query, delta <= 0 ? mid + 1 : from, delta <= 0 ? to : mid, next, nearest);
+        }
+    }
+
+    private double squaredDistance(double[] query, int position) {
+        double dx = query[0] - coordinates[0][position];
+        double dy = query[1] - coordinates[1][position];
+        double dz = query[2] - coordinates[2][position];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double squaredDistance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static double[] toVector(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lng = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        return new double[]{cosLat * Math.cos(lng), cosLat * Math.sin(lng), Math.sin(lat)};
+    }
+
+    private static double chordOf(double km) {
+        double angle = Math.min(Math.max(km, 0) / EARTH_RADIUS_KM, Math.PI);
+        return 2 * Math.sin(angle / 2);
+    }
+
+    private static double kmOf(double chord) {
+        return 2 * Math.asin(Math.min(1, chord / 2)) * EARTH_RADIUS_KM;
+    }
+
+    /**
+     * Reorders {@code [from, to)} so that its middle element splits it on {@code axis}, then
+     * does the same for both halves on the next axis.
+     */
+    private static void arrange(int[] ordinals, double[][] coordinates, int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        select(ordinals, coordinates, from, to - 1, mid, axis);
+        int next = (axis + 1) % 3;
+        arrange(ordinals, coordinates, from, mid, next);
+        arrange(ordinals, coordinates, mid + 1, to, next);
+    }
+
+    private static void select(int[] ordinals, double[][] coordinates, int left, int right, int k, int axis) {
+        double[] values = coordinates[axis];
+        while (left < right) {
+            double pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(ordinals, coordinates, i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(int[] ordinals, double[][] coordinates, int i, int j) {
+        int ordinal = ordinals[i];
+        ordinals[i] = ordinals[j];
+        ordinals[j] = ordinal;
+        for (double[] values : coordinates) {
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    private static final class Hits {
+        private int[] ordinals;
+        private double[] distances;
+        private int size;
+
+        private Hits(int capacity) {
+            ordinals = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        private void add(int ordinal, double distance) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            ordinals[size] = ordinal;
+            distances[size] = distance;
+            size++;
+        }
+
+        private int[] sorted() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ordinals[order[i]];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Bounded max-heap keeping the {@code k} nearest points seen so far.
+     */
+    private static final class Nearest {
+        private final int[] ordinals;
+        private final double[] distances;
+        private int size;
+
+        private Nearest(int k) {
+            ordinals = new int[k];
+            distances = new double[k];
+        }
+
+        private double bound() {
+            return size < distances.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        private void offer(int ordinal, double distance) {
+            if (size < distances.length) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    ordinals[i] = ordinals[(i - 1) / 2];
+                    distances[i] = distances[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                ordinals[i] = ordinal;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && distances[child + 1] > distances[child]) {
+                        child++;
+                    }
+                    if (distances[child] <= distance) {
+                        break;
+                    }
+                    ordinals[i] = ordinals[child];
+                    distances[i] = distances[child];
+                    i = child;
+                }
+                ordinals[i] = ordinal;
+                distances[i] = distance;
+            }
+        }
+
+        private int[] sorted() {
+            Hits hits = new Hits(size);
+            for (int i = 0; i < size; i++) {
+                hits.add(ordinals[i], distances[i]);
+            }
+            return hits.sorted();
+        }
+    }
+}
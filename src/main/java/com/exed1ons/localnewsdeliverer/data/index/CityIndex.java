@@ -0,0 +1,257 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable lookup structure over the cities loaded from the CSV file.
+ * <p>
+ * Cities keep the position they had in the file (their ordinal) and are stored column-wise in a
+ * {@link CityTable}. Name and state keys are normalized once when the index is built. Lookups by
+ * name and state go through open-addressing tables of ordinals, and lookups by id through a
+ * sorted id array, so the index holds no per-city map entries, boxed keys or concatenated key
+ * strings. {@link City} objects are created only when a caller asks for one.
+ */
+public final class CityIndex {
+
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final CityIndex EMPTY = build(List.of());
+
+    private final CityTable table;
+    private final List<City> cities;
+    private final NameStateTable byNameAndStateCode;
+    private final NameStateTable byNameAndStateName;
+    private final long[] sortedIds;
+    private final int[] sortedIdOrdinals;
+    private final Map<String, int[]> byState;
+
+    private CityIndex(CityTable table) {
+        this.table = table;
+        this.cities = new CityList(table);
+
+        String[] stateCodes = new String[table.stateCount()];
+        String[] stateNames = new String[table.stateCount()];
+        for (int state = 0; state < stateCodes.length; state++) {
+            stateCodes[state] = normalize(table.stateCodeAt(state));
+            stateNames[state] = normalize(table.stateNameAt(state));
+        }
+        this.byNameAndStateCode = new NameStateTable(table, stateCodes);
+        this.byNameAndStateName = new NameStateTable(table, stateNames);
+
+        int size = table.size();
+        int withId = 0;
+        long[] ids = new long[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Long id = table.id(ordinal);
+            if (id != null) {
+                ids[withId++] = id;
+            }
+        }
+        this.sortedIds = Arrays.copyOf(ids, withId);
+        Arrays.sort(sortedIds);
+        this.sortedIdOrdinals = new int[withId];
+        Arrays.fill(sortedIdOrdinals, -1);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Long id = table.id(ordinal);
+            if (id != null) {
+                int position = Arrays.binarySearch(sortedIds, id);
+                while (position > 0 && sortedIds[position - 1] == id) {
+                    position--;
+                }
+                if (sortedIdOrdinals[position] < 0) {
+                    sortedIdOrdinals[position] = ordinal;
+                }
+            }
+        }
+
+        Map<String, List<Integer>> state = new HashMap<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            String stateName = stateNames[table.state(ordinal)];
+            String stateCode = stateCodes[table.state(ordinal)];
+            state.computeIfAbsent(stateCode, k -> new ArrayList<>()).add(ordinal);
+            if (!stateName.equals(stateCode)) {
+                state.computeIfAbsent(stateName, k -> new ArrayList<>()).add(ordinal);
+            }
+        }
+        this.byState = toArrays(state);
+    }
+
+    public static CityIndex build(List<City> cities) {
+        return new CityIndex(CityTable.of(cities == null ? List.of() : cities));
+    }
+
+    /**
+     * Builds the index over an existing table, such as one read back from a store snapshot.
+     */
+    public static CityIndex build(CityTable table) {
+        return new CityIndex(table);
+    }
+
+    public static CityIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Lower-cases and trims a city or state name the same way the index keys were built.
+     */
+    public static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public CityTable getTable() {
+        return table;
+    }
+
+    /**
+     * Returns all cities in file order. The list is a read-only view that creates each
+     * {@link City} as it is accessed.
+     */
+    public List<City> getCities() {
+        return cities;
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    public City get(int ordinal) {
+        return table.toCity(ordinal);
+    }
+
+    public City findByNameAndStateCode(String name, String stateCode) {
+        int ordinal = byNameAndStateCode.first(normalize(name), normalize(stateCode));
+        return ordinal >= 0 ? table.toCity(ordinal) : null;
+    }
+
+    public int[] findOrdinalsByNameAndStateName(String name, String stateName) {
+        return byNameAndStateName.all(normalize(name), normalize(stateName));
+    }
+
+    public City findById(long id) {
+        int ordinal = ordinalOf(id);
+        return ordinal >= 0 ? table.toCity(ordinal) : null;
+    }
+
+    /**
+     * Returns the ordinal of the city with the given id, or -1 if no such city was loaded.
+     */
+    public int ordinalOf(Long id) {
+        if (id == null) {
+            return -1;
+        }
+        int position = Arrays.binarySearch(sortedIds, id);
+        if (position < 0) {
+            return -1;
+        }
+        while (position > 0 && sortedIds[position - 1] == id) {
+            position--;
+        }
+        return sortedIdOrdinals[position];
+    }
+
+    /**
+     * Returns all cities of a state, matched by either its two-letter code or its full name.
+     */
+    public List<City> findByState(String state) {
+        return toCities(byState.getOrDefault(normalize(state), NO_ORDINALS));
+    }
+
+    public List<City> toCities(int[] ordinals) {
+        List<City> result = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            result.add(table.toCity(ordinal));
+        }
+        return result;
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, ordinals) -> arrays.put(key, ordinals.stream().mapToInt(Integer::intValue).toArray()));
+        return arrays;
+    }
+
+    /**
+     * Open-addressing hash table from a normalized (city name, state) pair to city ordinals.
+     * Slots hold {@code ordinal + 1}, and linear probing keeps cities with the same key in
+     * ordinal order along their probe sequence.
+     */
+    private static final class NameStateTable {
+        private final CityTable table;
+        private final String[] states;
+        private final int[] slots;
+        private final int mask;
+
+        private NameStateTable(CityTable table, String[] normalizedStates) {
+            this.table = table;
+            this.states = normalizedStates;
+            int capacity = Integer.highestOneBit(Math.max(4, table.size() * 2) - 1) << 1;
+            this.slots = new int[capacity];
+            this.mask = capacity - 1;
+            for (int ordinal = 0; ordinal < table.size(); ordinal++) {
+                int slot = hash(table.normalizedName(ordinal), states[table.state(ordinal)]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = ordinal + 1;
+            }
+        }
+
+        private int first(String name, String state) {
+            for (int slot = hash(name, state) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (matches(slots[slot] - 1, name, state)) {
+                    return slots[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        private int[] all(String name, String state) {
+            int[] found = NO_ORDINALS;
+            int count = 0;
+            for (int slot = hash(name, state) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                if (matches(slots[slot] - 1, name, state)) {
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, Math.max(2, count * 2));
+                    }
+                    found[count++] = slots[slot] - 1;
+                }
+            }
+            return count == found.length ? found : Arrays.copyOf(found, count);
+        }
+
+        private boolean matches(int ordinal, String name, String state) {
+            return table.normalizedName(ordinal).equals(name) && states[table.state(ordinal)].equals(state);
+        }
+
+        private static int hash(String name, String state) {
+            int h = name.hashCode() * 31 + state.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private static final class CityList extends AbstractList<City> implements RandomAccess {
+        private final CityTable table;
+
+        private CityList(CityTable table) {
+            this.table = table;
+        }
+
+        @Override
+        public City get(int index) {
+            return table.toCity(index);
+        }
+
+        @Override
+        public int size() {
+            return table.size();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autocomplete structure behind {@code /cities/search}.
+ * <p>
+ * Results are ranked in four tiers: exact city name, city name prefix, city name substring and
+ * finally cities whose state name contains the query. Inside a tier larger cities come first.
+ * <p>
+ * Every city gets a rank (0 = most populous). City names are indexed by all of their 1-, 2- and
+ * 3-character grams, and each posting list is kept in rank order. A substring query can then walk
+ * the shortest matching posting list and stop as soon as {@code limit} hits are found.
+ * Prefixes are answered from a name-sorted array with a binary search.
+ */
+public final class CitySearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int[] NONE = new int[0];
+    private static final CitySearchIndex EMPTY = build(CityIndex.empty());
+
+    private final CityIndex cityIndex;
+    private final String[] names;
+    private final int[] rankOf;
+    private final int[] byRank;
+    private final int[] byName;
+    private final Map<String, int[]> exact;
+    private final Map<String, int[]> grams;
+    private final String[] stateNames;
+    private final int[][] stateCitiesByRank;
+
+    private CitySearchIndex(CityIndex cityIndex) {
+        this.cityIndex = cityIndex;
+        CityTable table = cityIndex.getTable();
+        int size = table.size();
+        this.names = new String[size];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            names[ordinal] = table.normalizedName(ordinal);
+        }
+
+        this.byRank = sortedOrdinals(size, Comparator
+                .comparingLong((Integer ordinal) -> -table.populationOrZero(ordinal))
+                .thenComparingInt(ordinal -> ordinal));
+        this.rankOf = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            rankOf[byRank[rank]] = rank;
+        }
+        this.byName = sortedOrdinals(size, Comparator
+                .comparing((Integer ordinal) -> names[ordinal])
+                .thenComparingInt(ordinal -> rankOf[ordinal]));
+
+        Map<String, IntList> exactLists = new HashMap<>(size * 2);
+        Map<String, IntList> gramLists = new HashMap<>();
+        Map<String, IntList> stateLists = new HashMap<>();
+        for (int ordinal : byRank) {
+            String name = names[ordinal];
+            exactLists.computeIfAbsent(name, key -> new IntList()).add(ordinal);
+            for (int length = 1; length <= GRAM_LENGTH; length++) {
+                for (int start = 0; start + length <= name.length(); start++) {
+                    gramLists.computeIfAbsent(name.substring(start, start + length), key -> new IntList())
+                            .addIfLast(ordinal);
+                }
+            }
+            stateLists.computeIfAbsent(CityIndex.normalize(table.stateName(ordinal)), key -> new IntList())
+                    .add(ordinal);
+        }
+        this.exact = toArrays(exactLists);
+        this.grams = toArrays(gramLists);
+        this.stateNames = stateLists.keySet().toArray(new String[0]);
+        this.stateCitiesByRank = new int[stateNames.length][];
+        for (int i = 0; i < stateNames.length; i++) {
+            stateCitiesByRank[i] = stateLists.get(stateNames[i]).toArray();
+        }
+    }
+
+    public static CitySearchIndex build(CityIndex cityIndex) {
+        return new CitySearchIndex(cityIndex);
+    }
+
+    public static CitySearchIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns up to {@code limit} cities whose name or state name contains the query, best match first.
+     * A {@code null} query matches every city.
+     */
+    public List<City> search(String query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String q = query == null ? "" : CityIndex.normalize(query);
+        List<City> result = new ArrayList<>(Math.min(limit, 64));
+        if (q.isEmpty()) {
+            for (int rank = 0; rank < byRank.length && result.size() < limit; rank++) {
+                result.add(cityIndex.get(byRank[rank]));
+            }
+            return result;
+        }
+
+        addAll(exact.getOrDefault(q, NONE), result, limit);
+        addPrefixMatches(q, result, limit);
+        addSubstringMatches(q, result, limit);
+        addStateMatches(q, result, limit);
+        return result;
+    }
+
+    private void addPrefixMatches(String q, List<City> result, int limit) {
+        if (result.size() >= limit) {
+            return;
+        }
+        int from = lowerBound(q);
+        int to = from;
+        while (to < byName.length && names[byName[to]].startsWith(q)) {
+            to++;
+        }
+        int[] ranks = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (names[byName[i]].length() != q.length()) {
+                ranks[count++] = rankOf[byName[i]];
+            }
+        }
+        Arrays.sort(ranks, 0, count);
+        for (int i = 0; i < count && result.size() < limit; i++) {
+            result.add(cityIndex.get(byRank[ranks[i]]));
+        }
+    }
+
+    private void addSubstringMatches(String q, List<City> result, int limit) {
+        if (result.size() >= limit) {
+            return;
+        }
+        int[] candidates = shortestPostingList(q);
+        for (int i = 0; i < candidates.length && result.size() < limit; i++) {
+            String name = names[candidates[i]];
+            if (!name.startsWith(q) && name.contains(q)) {
+                result.add(cityIndex.get(candidates[i]));
+            }
+        }
+    }
+
+    private void addStateMatches(String q, List<City> result, int limit) {
+        if (result.size() >= limit) {
+            return;
+        }
+        List<int[]> matchingStates = new ArrayList<>();
+        for (int i = 0; i < stateNames.length; i++) {
+            if (stateNames[i].contains(q)) {
+                matchingStates.add(stateCitiesByRank[i]);
+            }
+        }
+        if (matchingStates.isEmpty()) {
+            return;
+        }
+        int[] positions = new int[matchingStates.size()];
+        while (result.size() < limit) {
+            int best = -1;
+            for (int s = 0; s < positions.length; s++) {
+                int[] cities = matchingStates.get(s);
+                while (positions[s] < cities.length && names[cities[positions[s]]].contains(q)) {
+                    positions[s]++;
+                }
+                if (positions[s] < cities.length && (best < 0
+                        || rankOf[cities[positions[s]]] < rankOf[matchingStates.get(best)[positions[best]]])) {
+                    best = s;
+                }
+            }
+            if (best < 0) {
+                return;
+            }
+            result.add(cityIndex.get(matchingStates.get(best)[positions[best]++]));
+        }
+    }
+
+    private int[] shortestPostingList(String q) {
+        if (q.length() <= GRAM_LENGTH) {
+            return grams.getOrDefault(q, NONE);
+        }
+        int[] shortest = null;
+        for (int start = 0; start + GRAM_LENGTH <= q.length(); start++) {
+            int[] postings = grams.getOrDefault(q.substring(start, start + GRAM_LENGTH), NONE);
+            if (shortest == null || postings.length < shortest.length) {
+                shortest = postings;
+            }
+            if (shortest.length == 0) {
+                break;
+            }
+        }
+        return shortest;
+    }
+
+    private int lowerBound(String q) {
+        int low = 0;
+        int high = byName.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names[byName[mid]].compareTo(q) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void addAll(int[] ordinals, List<City> result, int limit) {
+        for (int i = 0; i < ordinals.length && result.size() < limit; i++) {
+            result.add(cityIndex.get(ordinals[i]));
+        }
+    }
+
+    private static int[] sortedOrdinals(int size, Comparator<Integer> order) {
+        Integer[] ordinals = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = i;
+        }
+        Arrays.sort(ordinals, order);
+        return Arrays.stream(ordinals).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, IntList> lists) {
+        Map<String, int[]> arrays = new HashMap<>(lists.size() * 2);
+        lists.forEach((key, list) -> arrays.put(key, list.toArray()));
+        return arrays;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addIfLast(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                add(value);
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented storage for the loaded cities.
+ * <p>
+ * Instead of one {@link City} object per row with boxed ids and its own copy of the state
+ * strings, every attribute is kept in a parallel array addressed by the city's ordinal. States
+ * are stored once in a small dictionary and referenced by index, repeated city names share one
+ * string, and ids and populations are primitive. {@link City} objects are only created at the
+ * edge, by {@link #toCity(int)}.
+ * <p>
+ * The columns can be written to a store snapshot with {@link #writeTo} and read back with
+ * {@link #readFrom} without parsing the CSV again.
+ */
+public final class CityTable {
+
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final long[] ids;
+    private final String[] names;
+    private final String[] normalizedNames;
+    private final int[] states;
+    private final long[] populations;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final String[] stateNames;
+    private final String[] stateCodes;
+
+    private CityTable(List<City> cities) {
+        int size = cities.size();
+        this.ids = new long[size];
+        this.names = new String[size];
+        this.normalizedNames = new String[size];
+        this.states = new int[size];
+        this.populations = new long[size];
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+
+        Map<String, String> strings = new HashMap<>();
+        Map<List<String>, Integer> stateOrdinals = new HashMap<>();
+        List<String> stateNameList = new ArrayList<>();
+        List<String> stateCodeList = new ArrayList<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            City city = cities.get(ordinal);
+            ids[ordinal] = city.getId() != null ? city.getId() : MISSING;
+            populations[ordinal] = city.getPopulation() != null ? city.getPopulation() : MISSING;
+            latitudes[ordinal] = city.getLatitude() != null ? city.getLatitude() : Double.NaN;
+            longitudes[ordinal] = city.getLongitude() != null ? city.getLongitude() : Double.NaN;
+            names[ordinal] = intern(strings, city.getName());
+            normalizedNames[ordinal] = intern(strings, CityIndex.normalize(city.getName()));
+
+            List<String> state = new ArrayList<>(2);
+            state.add(city.getStateName());
+            state.add(city.getStateCode());
+            Integer stateOrdinal = stateOrdinals.get(state);
+            if (stateOrdinal == null) {
+                stateOrdinal = stateNameList.size();
+                stateOrdinals.put(state, stateOrdinal);
+                stateNameList.add(city.getStateName());
+                stateCodeList.add(city.getStateCode());
+            }
+            states[ordinal] = stateOrdinal;
+        }
+        this.stateNames = stateNameList.toArray(new String[0]);
+        this.stateCodes = stateCodeList.toArray(new String[0]);
+    }
+
+    private CityTable(long[] ids, String[] names, String[] normalizedNames, int[] states, long[] populations,
+                      double[] latitudes, double[] longitudes, String[] stateNames, String[] stateCodes) {
+        this.ids = ids;
+        this.names = names;
+        this.normalizedNames = normalizedNames;
+        this.states = states;
+        this.populations = populations;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.stateNames = stateNames;
+        this.stateCodes = stateCodes;
+    }
+
+    public static CityTable of(List<City> cities) {
+        return new CityTable(cities);
+    }
+
+    /**
+     * Reads a table written by {@link #writeTo}, starting at the buffer's position and leaving
+     * the position just past it.
+     */
+    public static CityTable readFrom(ByteBuffer in) {
+        String[] stateNames = readStrings(in, in.getInt(), new HashMap<>());
+        String[] stateCodes = readStrings(in, stateNames.length, new HashMap<>());
+        int size = in.getInt();
+        long[] ids = new long[size];
+        in.asLongBuffer().get(ids);
+        in.position(in.position() + size * Long.BYTES);
+        long[] populations = new long[size];
+        in.asLongBuffer().get(populations);
+        in.position(in.position() + size * Long.BYTES);
+        double[] latitudes = new double[size];
+        in.asDoubleBuffer().get(latitudes);
+        in.position(in.position() + size * Double.BYTES);
+        double[] longitudes = new double[size];
+        in.asDoubleBuffer().get(longitudes);
+        in.position(in.position() + size * Double.BYTES);
+        int[] states = new int[size];
+        in.asIntBuffer().get(states);
+        in.position(in.position() + size * Integer.BYTES);
+        Map<String, String> strings = new HashMap<>();
+        String[] names = readStrings(in, size, strings);
+        String[] normalizedNames = readStrings(in, size, strings);
+        return new CityTable(ids, names, normalizedNames, states, populations, latitudes, longitudes,
+                stateNames, stateCodes);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(stateNames.length);
+        writeStrings(out, stateNames);
+        writeStrings(out, stateCodes);
+        out.writeInt(ids.length);
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+        for (long population : populations) {
+            out.writeLong(population);
+        }
+        for (double latitude : latitudes) {
+            out.writeDouble(latitude);
+        }
+        for (double longitude : longitudes) {
+            out.writeDouble(longitude);
+        }
+        for (int state : states) {
+            out.writeInt(state);
+        }
+        writeStrings(out, names);
+        writeStrings(out, normalizedNames);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Long id(int ordinal) {
+        return ids[ordinal] != MISSING ? ids[ordinal] : null;
+    }
+
+    public String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    /**
+     * The name as normalized by {@link CityIndex#normalize(String)}.
+     */
+    public String normalizedName(int ordinal) {
+        return normalizedNames[ordinal];
+    }
+
+    public String stateName(int ordinal) {
+        return stateNames[states[ordinal]];
+    }
+
+    public String stateCode(int ordinal) {
+        return stateCodes[states[ordinal]];
+    }
+
+    public Long population(int ordinal) {
+        return populations[ordinal] != MISSING ? populations[ordinal] : null;
+    }
+
+    /**
+     * The population, or 0 when the CSV had none.
+     */
+    public long populationOrZero(int ordinal) {
+        return populations[ordinal] != MISSING ? populations[ordinal] : 0L;
+    }
+
+    /**
+     * Whether the CSV had valid coordinates for the city.
+     */
+    public boolean hasCoordinates(int ordinal) {
+        return !Double.isNaN(latitudes[ordinal]);
+    }
+
+    public Double latitude(int ordinal) {
+        return hasCoordinates(ordinal) ? latitudes[ordinal] : null;
+    }
+
+    public Double longitude(int ordinal) {
+        return hasCoordinates(ordinal) ? longitudes[ordinal] : null;
+    }
+
+    /**
+     * Index of the city's state in the state dictionary, shared by every city of that state.
+     */
+    public int state(int ordinal) {
+        return states[ordinal];
+    }
+
+    public int stateCount() {
+        return stateNames.length;
+    }
+
+    public String stateNameAt(int state) {
+        return stateNames[state];
+    }
+
+    public String stateCodeAt(int state) {
+        return stateCodes[state];
+    }
+
+    public City toCity(int ordinal) {
+        return City.builder()
+                .id(id(ordinal))
+                .name(names[ordinal])
+                .stateName(stateName(ordinal))
+                .stateCode(stateCode(ordinal))
+                .population(population(ordinal))
+                .latitude(latitude(ordinal))
+                .longitude(longitude(ordinal))
+                .build();
+    }
+
+    private static void writeStrings(DataOutput out, String[] values) throws IOException {
+        for (String value : values) {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in, int count, Map<String, String> strings) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                values[i] = intern(strings, new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    private static String intern(Map<String, String> strings, String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+}
@@ -0,0 +1,338 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.util.Arrays;
+
+/**
+ * The Porter stemming algorithm for lowercase English words, as published by Martin Porter in
+ * 1980. It strips suffixes in five steps ({@code connections}, {@code connected} and
+ * {@code connecting} all become {@code connect}). Words of two letters or less, and words with
+ * characters other than {@code a-z}, are returned unchanged.
+ */
+final class PorterStemmer {
+
+    private char[] b;
+    private int k;
+    private int j;
+
+    private PorterStemmer(String word) {
+        this.b = word.toCharArray();
+        this.k = b.length - 1;
+    }
+
+    static String stem(String word) {
+        if (word.length() <= 2) {
+            return word;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return word;
+            }
+        }
+        PorterStemmer stemmer = new PorterStemmer(word);
+        stemmer.step1ab();
+        if (stemmer.k > 0) {
+            stemmer.step1c();
+            stemmer.step2();
+            stemmer.step3();
+            stemmer.step4();
+            stemmer.step5();
+        }
+        return new String(stemmer.b, 0, stemmer.k + 1);
+    }
+
+    private boolean consonant(int i) {
+        switch (b[i]) {
+            case 'a', 'e', 'i', 'o', 'u':
+                return false;
+            case 'y':
+                return i == 0 || !consonant(i - 1);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * The number of vowel-consonant sequences between 0 and {@code j}.
+     */
+    private int measure() {
+        int n = 0;
+        int i = 0;
+        while (true) {
+            if (i > j) {
+                return n;
+            }
+            if (!consonant(i)) {
+                break;
+            }
+            i++;
+        }
+        i++;
+        while (true) {
+            while (true) {
+                if (i > j) {
+                    return n;
+                }
+                if (consonant(i)) {
+                    break;
+                }
+                i++;
+            }
+            i++;
+            n++;
+            while (true) {
+                if (i > j) {
+                    return n;
+                }
+                if (!consonant(i)) {
+                    break;
+                }
+                i++;
+            }
+            i++;
+        }
+    }
+
+    private boolean vowelInStem() {
+        for (int i = 0; i <= j; i++) {
+            if (!consonant(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean doubleConsonant(int i) {
+        return i >= 1 && b[i] == b[i - 1] && consonant(i);
+    }
+
+    /**
+     * Whether {@code i-2, i-1, i} is consonant-vowel-consonant and the last consonant is not
+     * {@code w}, {@code x} or {@code y}, as in {@code hop} but not {@code snow}.
+     */
+    private boolean cvc(int i) {
+        if (i < 2 || !consonant(i) || consonant(i - 1) || !consonant(i - 2)) {
+            return false;
+        }
+        char c = b[i];
+        return c != 'w' && c != 'x' && c != 'y';
+    }
+
+    private boolean ends(String suffix) {
+        int length = suffix.length();
+        int start = k - length + 1;
+        if (start < 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (b[start + i] != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        j = k - length;
+        return true;
+    }
+
+    private void setTo(String suffix) {
+        int length = suffix.length();
+        if (j + 1 + length > b.length) {
+            b = Arrays.copyOf(b, j + 1 + length);
+        }
+        for (int i = 0; i < length; i++) {
+            b[j + 1 + i] = suffix.charAt(i);
+        }
+        k = j + length;
+    }
+
+    private void replace(String suffix) {
+        if (measure() > 0) {
+            setTo(suffix);
+        }
+    }
+
+    private void step1ab() {
+        if (b[k] == 's') {
+            if (ends("sses")) {
+                k -= 2;
+            } else if (ends("ies")) {
+                setTo("i");
+            } else if (b[k - 1] != 's') {
+                k--;
+            }
+        }
+        if (ends("eed")) {
+            if (measure() > 0) {
+                k--;
+            }
+        } else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+            k = j;
+            if (ends("at")) {
+                setTo("ate");
+            } else if (ends("bl")) {
+                setTo("ble");
+            } else if (ends("iz")) {
+                setTo("ize");
+            } else if (doubleConsonant(k)) {
+                k--;
+                char c = b[k];
+                if (c == 'l' || c == 's' || c == 'z') {
+                    k++;
+                }
+            } else if (measure() == 1 && cvc(k)) {
+                setTo("e");
+            }
+        }
+    }
+
+    private void step1c() {
+        if (ends("y") && vowelInStem()) {
+            b[k] = 'i';
+        }
+    }
+
+    private void step2() {
+        if (k == 0) {
+            return;
+        }
+        switch (b[k - 1]) {
+            case 'a' -> {
+                if (ends("ational")) {
+                    replace("ate");
+                } else if (ends("tional")) {
+                    replace("tion");
+                }
+            }
+            case 'c' -> {
+                if (ends("enci")) {
+                    replace("ence");
+                } else if (ends("anci")) {
+                    replace("ance");
+                }
+            }
+            case 'e' -> {
+                if (ends("izer")) {
+                    replace("ize");
+                }
+            }
+            case 'l' -> {
+                if (ends("bli")) {
+                    replace("ble");
+                } else if (ends("alli")) {
+                    replace("al");
+                } else if (ends("entli")) {
+                    replace("ent");
+                } else if (ends("eli")) {
+                    replace("e");
+                } else if (ends("ousli")) {
+                    replace("ous");
+                }
+            }
+            case 'o' -> {
+                if (ends("ization")) {
+                    replace("ize");
+                } else if (ends("ation")) {
+                    replace("ate");
+                } else if (ends("ator")) {
+                    replace("ate");
+                }
+            }
+            case 's' -> {
+                if (ends("alism")) {
+                    replace("al");
+                } else if (ends("iveness")) {
+                    replace("ive");
+                } else if (ends("fulness")) {
+                    replace("ful");
+                } else if (ends("ousness")) {
+                    replace("ous");
+                }
+            }
+            case 't' -> {
+                if (ends("aliti")) {
+                    replace("al");
+                } else if (ends("iviti")) {
+                    replace("ive");
+                } else if (ends("biliti")) {
+                    replace("ble");
+                }
+            }
+            case 'g' -> {
+                if (ends("logi")) {
+                    replace("log");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void step3() {
+        switch (b[k]) {
+            case 'e' -> {
+                if (ends("icate")) {
+                    replace("ic");
+                } else if (ends("ative")) {
+                    replace("");
+                } else if (ends("alize")) {
+                    replace("al");
+                }
+            }
+            case 'i' -> {
+                if (ends("iciti")) {
+                    replace("ic");
+                }
+            }
+            case 'l' -> {
+                if (ends("ical")) {
+                    replace("ic");
+                } else if (ends("ful")) {
+                    replace("");
+                }
+            }
+            case 's' -> {
+                if (ends("ness")) {
+                    replace("");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void step4() {
+        if (k == 0) {
+            return;
+        }
+        boolean matched = switch (b[k - 1]) {
+            case 'a' -> ends("al");
+            case 'c' -> ends("ance") || ends("ence");
+            case 'e' -> ends("er");
+            case 'i' -> ends("ic");
+            case 'l' -> ends("able") || ends("ible");
+            case 'n' -> ends("ant") || ends("ement") || ends("ment") || ends("ent");
+            case 'o' -> (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) || ends("ou");
+            case 's' -> ends("ism");
+            case 't' -> ends("ate") || ends("iti");
+            case 'u' -> ends("ous");
+            case 'v' -> ends("ive");
+            case 'z' -> ends("ize");
+            default -> false;
+        };
+        if (matched && measure() > 1) {
+            k = j;
+        }
+    }
+
+    private void step5() {
+        j = k;
+        if (b[k] == 'e') {
+            int m = measure();
+            if (m > 1 || (m == 1 && !cvc(k - 1))) {
+                k--;
+            }
+        }
+        if (b[k] == 'l' && doubleConsonant(k) && measure() > 1) {
+            k--;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns article text and search queries into index terms.
+ * <p>
+ * Text is split into runs of letters and digits, lowercased, stripped of possessive
+ * {@code 's}, filtered against a short list of English stop words and reduced with
+ * {@link PorterStemmer}, so {@code "Flooding closes roads"} and {@code "road closed by flood"}
+ * share the terms {@code flood}, {@code close} and {@code road}.
+ */
+public final class TextAnalyzer {
+
+    private static final int MAX_TERM_LENGTH = 40;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "he",
+            "her", "his", "in", "into", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their",
+            "them", "they", "this", "to", "was", "were", "will", "with");
+
+    private TextAnalyzer() {
+    }
+
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && (Character.isLetterOrDigit(text.charAt(i)) || isInnerApostrophe(text, i))) {
+                i++;
+            }
+            if (i > start) {
+                String term = normalize(text.substring(start, i));
+                if (term != null) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String token) {
+        String word = token.toLowerCase(Locale.ROOT).replace('’', '\'');
+        if (word.endsWith("'s")) {
+            word = word.substring(0, word.length() - 2);
+        }
+        word = word.replace("'", "");
+        if (word.isEmpty() || word.length() > MAX_TERM_LENGTH || STOP_WORDS.contains(word)) {
+            return null;
+        }
+        return PorterStemmer.stem(word);
+    }
+
+    private static boolean isInnerApostrophe(String text, int i) {
+        char c = text.charAt(i);
+        return (c == '\'' || c == '’') && i + 1 < text.length() && Character.isLetter(text.charAt(i + 1));
+    }
+}
@@ -0,0 +1,128 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A pipeline step whose work finishes asynchronously. One thread takes items from the bounded
+ * input queue and starts the handler, and each item moves on when the handler's future
+ * completes. The handler decides how the work is scheduled, so items can finish in any order.
+ * At most {@code concurrency} handler futures are outstanding at once: the stage thread waits
+ * for one to complete before starting the next item. Without a limit the number of unfinished
+ * items is bounded by the pipeline's in-flight limit only.
+ */
+class AsyncStage implements IngestionStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncStage.class);
+
+    private final String name;
+    private final BlockingQueue<IngestionItem> queue;
+    private final Function<IngestionItem, CompletableFuture<?>> handler;
+    private final Semaphore permits;
+    // One count for the open input plus one for every item still being handled.
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    private ExecutorService executor;
+    private Downstream downstream;
+
+    AsyncStage(String name, int concurrency, int queueCapacity, Function<IngestionItem, CompletableFuture<?>> handler) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.handler = handler;
+        this.permits = new Semaphore(Math.max(1, concurrency));
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int queued() {
+        return queue.size();
+    }
+
+    @Override
+    public void start(Downstream downstream) {
+        this.downstream = downstream;
+        this.executor = Executors.newSingleThreadExecutor(new StageThreadFactory("ingest-" + name));
+        executor.execute(this::work);
+    }
+
+    @Override
+    public void put(IngestionItem item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    @Override
+    public void complete() throws InterruptedException {
+        queue.put(IngestionItem.END);
+    }
+
+    @Override
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                IngestionItem item = queue.take();
+                if (item == IngestionItem.END) {
+                    break;
+                }
+                if (item.isDropped() || item.isCompleted()) {
+                    downstream.put(item);
+                    continue;
+                }
+                permits.acquire();
+                pending.incrementAndGet();
+                CompletableFuture<?> future;
+                try {
+                    future = handler.apply(item);
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                future.whenComplete((result, error) -> {
+                    permits.release();
+                    finish(item, error);
+                });
+            }
+            release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finish(IngestionItem item, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            logger.error("Error in " + name + " stage for article: " + item.getArticle().getUrl() + " - " + cause.getMessage());
+            item.drop();
+        }
+        try {
+            downstream.put(item);
+            release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void release() throws InterruptedException {
+        if (pending.decrementAndGet() == 0) {
+            downstream.complete();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for RFC 4180 CSV files in UTF-8.
+ * <p>
+ * Records are parsed straight from the channel's bytes, one at a time: fields may be quoted,
+ * quoted fields may contain commas, line breaks and doubled quotes, and records may end with
+ * LF or CRLF. The raw bytes of the current record are kept in a buffer that is reused for every
+ * record, and a field is only decoded when {@link #field} or {@link #longField} asks for it, so
+ * columns that are never read cost nothing beyond being scanned. Memory stays bounded by the
+ * longest record, whatever the size of the file.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    private byte[] record = new byte[256];
+    private int recordLength;
+    private int[] fieldEnds = new int[32];
+    private int fieldCount;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static CsvReader open(Path path) throws IOException {
+        return new CsvReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Moves to the next record. Returns {@code false} at the end of the file.
+     */
+    public boolean next() throws IOException {
+        if (!started) {
+            started = true;
+            skipByteOrderMark();
+        }
+        recordLength = 0;
+        fieldCount = 0;
+        recordLine = line;
+        int b = read();
+        if (b < 0) {
+            return false;
+        }
+        boolean quoted = false;
+        boolean atFieldStart = true;
+        while (b >= 0) {
+            if (quoted) {
+                if (b != '"') {
+                    if (b == '\n') {
+                        line++;
+                    }
+                    append(b);
+                } else if (peek() == '"') {
+                    read();
+                    append('"');
+                } else {
+                    quoted = false;
+                }
+            } else if (b == '"' && atFieldStart) {
+                quoted = true;
+                atFieldStart = false;
+            } else if (b == ',') {
+                endField();
+                atFieldStart = true;
+            } else if (b == '\n') {
+                line++;
+                break;
+            } else if (b == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                line++;
+                break;
+            } else {
+                append(b);
+                atFieldStart = false;
+            }
+            b = read();
+        }
+        endField();
+        return true;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Line of the file on which the current record starts, counting from 1.
+     */
+    public long lineNumber() {
+        return recordLine;
+    }
+
+    /**
+     * Whether the current record is an empty line.
+     */
+    public boolean isBlankLine() {
+        return fieldCount == 1 && recordLength == 0;
+    }
+
+    /**
+     * Returns the field at {@code column} of the current record, or {@code null} if the record
+     * has fewer fields.
+     */
+    public String field(int column) {
+        if (column < 0 || column >= fieldCount) {
+            return null;
+        }
+        int start = fieldStart(column);
+        return new String(record, start, fieldEnds[column] - start, StandardCharsets.UTF_8);
+    }
+
+    public boolean isEmpty(int column) {
+        return column < 0 || column >= fieldCount || fieldStart(column) == fieldEnds[column];
+    }
+
+    /**
+     * Parses the field at {@code column} as a whole number without decoding it to a string.
+     * Decimal values such as {@code 1234.0} or {@code 1.2e6} are truncated. Returns
+     * {@code null} if the field is missing or empty.
+     *
+     * @throws NumberFormatException if the field is not a number
+     */
+    public Long longField(int column) {
+        if (isEmpty(column)) {
+            return null;
+        }
+        int start = fieldStart(column);
+        int end = fieldEnds[column];
+        boolean negative = record[start] == '-';
+        int i = negative ? start + 1 : start;
+        long value = 0;
+        while (i < end && record[i] >= '0' && record[i] <= '9' && value < Long.MAX_VALUE / 10 - 1) {
+            value = value * 10 + (record[i] - '0');
+            i++;
+        }
+        if (i == end && i > (negative ? start + 1 : start)) {
+            return negative ? -value : value;
+        }
+        return (long) Double.parseDouble(field(column).trim());
+    }
+
+    /**
+     * Parses the field at {@code column} as a decimal number. Returns {@code null} if the field
+     * is missing or empty.
+     *
+     * @throws NumberFormatException if the field is not a number
+     */
+    public Double doubleField(int column) {
+        if (isEmpty(column)) {
+            return null;
+        }
+        return Double.parseDouble(field(column).trim());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int fieldStart(int column) {
+        return column == 0 ? 0 : fieldEnds[column - 1];
+    }
+
+    private void append(int b) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = (byte) b;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (peek() == 0xef && buffer.remaining() >= 3
+                && (buffer.get(buffer.position() + 1) & 0xff) == 0xbb
+                && (buffer.get(buffer.position() + 2) & 0xff) == 0xbf) {
+            buffer.position(buffer.position() + 3);
+        }
+    }
+}
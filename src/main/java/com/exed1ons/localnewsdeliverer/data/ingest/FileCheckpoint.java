@@ -0,0 +1,25 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * How far a news input file has been ingested. {@code fingerprint} identifies the file's first
+ * bytes and the bytes just before {@code offset}, so that a replaced or truncated file is read
+ * again from the start.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FileCheckpoint {
+    String path;
+    long offset;
+    String fingerprint;
+    long updatedAt;
+}
@@ -0,0 +1,155 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import com.exed1ons.localnewsdeliverer.data.cache.ContentHash;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Byte-offset checkpoints for the news input files, stored as one small JSON file that is
+ * replaced atomically on every save. An empty {@code news.ingest.checkpoint.path} keeps the
+ * checkpoints in memory only.
+ */
+@Component
+public class IngestionCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionCheckpointStore.class);
+    private static final int FINGERPRINT_BYTES = 256;
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private final Map<String, FileCheckpoint> checkpoints = new ConcurrentHashMap<>();
+    private boolean loaded;
+
+    public IngestionCheckpointStore(ObjectMapper objectMapper,
+                                    @Value("${news.ingest.checkpoint.path:}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    public synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        try {
+            List<FileCheckpoint> stored = objectMapper.readValue(path.toFile(), new TypeReference<>() {
+            });
+            stored.forEach(checkpoint -> checkpoints.put(checkpoint.getPath(), checkpoint));
+            logger.info("Loaded " + checkpoints.size() + " ingestion checkpoints from " + path);
+        } catch (IOException e) {
+            logger.error("Error while reading ingestion checkpoints, starting over: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the offset to resume {@code file} from, or 0 when it was never read or its bytes
+     * at the start or just before the offset changed since the checkpoint was taken.
+     */
+    public long offsetOf(Path file) throws IOException {
+        FileCheckpoint checkpoint = checkpoints.get(keyOf(file));
+        if (checkpoint == null) {
+            return 0;
+        }
+        if (!matches(checkpoint)) {
+            logger.warn("News file " + file + " was replaced or truncated, reading it from the start");
+            return 0;
+        }
+        return checkpoint.getOffset();
+    }
+
+    public void update(Path file, long offset) throws IOException {
+        checkpoints.put(keyOf(file), FileCheckpoint.builder()
+                .path(keyOf(file))
+                .offset(offset)
+                .fingerprint(fingerprint(file, offset))
+                .updatedAt(System.currentTimeMillis())
+                .build());
+    }
+
+    /**
+     * Returns the current checkpoints, one per file read so far.
+     */
+    public List<FileCheckpoint> checkpoints() {
+        return List.copyOf(checkpoints.values());
+    }
+
+    /**
+     * Returns whether the file of {@code checkpoint} still has the bytes it had at its start and
+     * just before the offset when the checkpoint was taken, i.e. whether everything read up to
+     * the offset is still valid.
+     */
+    public static boolean matches(FileCheckpoint checkpoint) throws IOException {
+        Path file = Path.of(checkpoint.getPath());
+        return Files.isRegularFile(file)
+                && Files.size(file) >= checkpoint.getOffset()
+                && fingerprint(file, checkpoint.getOffset()).equals(checkpoint.getFingerprint());
+    }
+
+    public synchronized void save() {
+        if (path == null) {
+            return;
+        }
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), new ArrayList<>(checkpoints.values()));
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Error while saving ingestion checkpoints: " + e.getMessage());
+        }
+    }
+
+    private static String keyOf(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Hashes the first bytes of the file together with the bytes just before {@code offset},
+     * never reaching past it so that lines appended after the checkpoint do not change it.
+     * The bytes before the offset catch a file rewritten with the same header, such as a
+     * rotated log.
+     */
+    private static String fingerprint(Path file, long offset) throws IOException {
+        int headLength = (int) Math.min(FINGERPRINT_BYTES, offset);
+        long tailStart = Math.max(headLength, offset - FINGERPRINT_BYTES);
+        byte[] bytes = new byte[headLength + (int) (offset - tailStart)];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readFully(channel, ByteBuffer.wrap(bytes, 0, headLength), 0);
+            readFully(channel, ByteBuffer.wrap(bytes, headLength, bytes.length - headLength), tailStart);
+        }
+        return ContentHash.sha256(new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new EOFException("News file ended before byte " + position);
+            }
+            position += read;
+        }
+    }
+}
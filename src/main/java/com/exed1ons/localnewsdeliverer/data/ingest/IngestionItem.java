@@ -0,0 +1,53 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentRecord;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A single candidate article travelling through the {@link IngestionPipeline}.
+ * The sequence number is the position of the link in the input file and is used
+ * by the store stage to emit articles in the same order as a sequential read.
+ * An item marked completed is already fully enriched and passes the remaining stages untouched.
+ * A replayed item comes from input that was ingested before the last restart.
+ * The fingerprint is the {@link SimHash} of the article body, or {@link SimHash#NONE} if the
+ * body was never read.
+ */
+@Getter
+@Setter
+public class IngestionItem {
+
+    static final IngestionItem END = new IngestionItem(-1, null);
+
+    private final long sequence;
+    private final NewsArticle article;
+
+    private EnrichmentRecord cachedRecord;
+    private String body;
+    private String contentHash;
+    private long fingerprint;
+    private boolean completed;
+    private boolean dropped;
+    private boolean replay;
+
+    public IngestionItem(long sequence, NewsArticle article) {
+        this.sequence = sequence;
+        this.article = article;
+    }
+
+    public void drop() {
+        this.dropped = true;
+        release();
+    }
+
+    public void complete() {
+        this.completed = true;
+        release();
+    }
+
+    private void release() {
+        this.cachedRecord = null;
+        this.body = null;
+    }
+}
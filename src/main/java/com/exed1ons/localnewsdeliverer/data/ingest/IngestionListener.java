@@ -0,0 +1,17 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+
+/**
+ * Receives ingestion progress. {@link #onStored} is called in input order and never concurrently,
+ * with the {@link SimHash} fingerprint of the article body, or {@link SimHash#NONE}.
+ */
+public interface IngestionListener {
+    default void onSubmitted() {
+    }
+
+    void onStored(NewsArticle article, long fingerprint);
+
+    default void onDropped() {
+    }
+}
@@ -0,0 +1,212 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Staged ingestion pipeline. Every stage runs on its own threads and is connected to the
+ * next one through a bounded queue. Items finish out of order, so the final store step keeps a
+ * reorder buffer and hands articles to the sink strictly in submission order, which keeps the
+ * result identical to a sequential read of the same file.
+ */
+public class IngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    private final List<IngestionStage> stages;
+    private final IngestionListener listener;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final Map<Long, IngestionItem> reorderBuffer = new HashMap<>();
+    private long nextSequence;
+    private long submitted;
+
+    private IngestionPipeline(List<IngestionStage> stages, IngestionListener listener, int maxInFlight) {
+        this.stages = stages;
+        this.listener = listener;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new Semaphore(this.maxInFlight);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void start() {
+        for (int i = 0; i < stages.size(); i++) {
+            IngestionStage stage = stages.get(i);
+            stage.start(i + 1 < stages.size() ? downstreamOf(stages.get(i + 1)) : storeStep());
+        }
+    }
+
+    /**
+     * Submits the next candidate article. Blocks while the pipeline already holds the maximum
+     * number of in-flight items.
+     */
+    public void submit(NewsArticle article) throws InterruptedException {
+        submit(article, false);
+    }
+
+    /**
+     * Submits the next candidate article, marking it as a replay of input that was already
+     * ingested before a restart.
+     */
+    public void submit(NewsArticle article, boolean replay) throws InterruptedException {
+        inFlight.acquire();
+        listener.onSubmitted();
+        IngestionItem item = new IngestionItem(submitted++, article);
+        item.setReplay(replay);
+        stages.get(0).put(item);
+    }
+
+    /**
+     * Signals that no more articles will be submitted and waits until every submitted article
+     * has been stored or dropped.
+     */
+    public void finish() throws InterruptedException {
+        try {
+            stages.get(0).complete();
+            finished.await();
+        } finally {
+            stages.forEach(IngestionStage::shutdown);
+        }
+    }
+
+    /**
+     * Number of items waiting in the input queue of the stage called {@code name}, or 0 when
+     * there is no such stage.
+     */
+    public int queued(String name) {
+        for (IngestionStage stage : stages) {
+            if (stage.name().equals(name)) {
+                return stage.queued();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Number of submitted items that have not been stored or dropped yet.
+     */
+    public int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    private IngestionStage.Downstream downstreamOf(IngestionStage next) {
+        return new IngestionStage.Downstream() {
+            @Override
+            public void put(IngestionItem item) throws InterruptedException {
+                next.put(item);
+            }
+
+            @Override
+            public void complete() throws InterruptedException {
+                next.complete();
+            }
+        };
+    }
+
+    private IngestionStage.Downstream storeStep() {
+        return new IngestionStage.Downstream() {
+            @Override
+            public void put(IngestionItem item) {
+                store(item);
+            }
+
+            @Override
+            public void complete() {
+                synchronized (reorderBuffer) {
+                    if (!reorderBuffer.isEmpty()) {
+                        logger.warn("Ingestion finished with " + reorderBuffer.size() + " articles still waiting for earlier ones");
+                    }
+                }
+                finished.countDown();
+            }
+        };
+    }
+
+    private void store(IngestionItem item) {
+        synchronized (reorderBuffer) {
+            reorderBuffer.put(item.getSequence(), item);
+            IngestionItem next;
+            while ((next = reorderBuffer.remove(nextSequence)) != null) {
+                nextSequence++;
+                inFlight.release();
+                try {
+                    if (next.isDropped()) {
+                        listener.onDropped();
+                    } else {
+                        listener.onStored(next.getArticle(), next.getFingerprint());
+                    }
+                } catch (Exception e) {
+                    logger.error("Error while storing article: " + next.getArticle().getUrl() + " - " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private final List<IngestionStage> stages = new ArrayList<>();
+        private int queueCapacity = 64;
+        private int maxInFlight = 256;
+        private IngestionListener listener = (article, fingerprint) -> {
+        };
+
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder stage(String name, int concurrency, Consumer<IngestionItem> handler) {
+            stages.add(new WorkerPoolStage(name, concurrency, queueCapacity, handler));
+            return this;
+        }
+
+        /**
+         * Adds a stage whose handler only starts the work and returns a future for it. The item
+         * moves on when the future completes; a failed future drops the item.
+         */
+        public Builder asyncStage(String name, Function<IngestionItem, CompletableFuture<?>> handler) {
+            return asyncStage(name, Integer.MAX_VALUE, handler);
+        }
+
+        /**
+         * Adds an asynchronous stage that starts at most {@code concurrency} items before one of
+         * their futures has completed.
+         */
+        public Builder asyncStage(String name, int concurrency, Function<IngestionItem, CompletableFuture<?>> handler) {
+            stages.add(new AsyncStage(name, concurrency, queueCapacity, handler));
+            return this;
+        }
+
+        public Builder listener(IngestionListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public IngestionPipeline build() {
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("Ingestion pipeline needs at least one stage");
+            }
+            return new IngestionPipeline(List.copyOf(stages), listener, maxInFlight);
+        }
+    }
+}
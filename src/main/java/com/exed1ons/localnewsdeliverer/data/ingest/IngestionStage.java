@@ -0,0 +1,30 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+/**
+ * One step of the ingestion pipeline. A stage receives items through {@link #put}, hands every
+ * item to its {@link Downstream} exactly once, and completes the downstream after
+ * {@link #complete} was called and the last item has been passed on.
+ */
+interface IngestionStage {
+
+    String name();
+
+    /**
+     * Number of items waiting in the stage's input queue.
+     */
+    int queued();
+
+    void start(Downstream downstream);
+
+    void put(IngestionItem item) throws InterruptedException;
+
+    void complete() throws InterruptedException;
+
+    void shutdown();
+
+    interface Downstream {
+        void put(IngestionItem item) throws InterruptedException;
+
+        void complete() throws InterruptedException;
+    }
+}
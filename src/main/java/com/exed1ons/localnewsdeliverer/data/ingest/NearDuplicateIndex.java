@@ -0,0 +1,146 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Finds values registered under a {@link SimHash} fingerprint within a small Hamming distance
+ * of a query fingerprint.
+ * <p>
+ * This is locality-sensitive hashing by banding: the 64 bits are cut into
+ * {@code maxDistance + 1} bands, and every fingerprint is put into one bucket per band, chosen
+ * by that band's bits. Two fingerprints that differ in at most {@code maxDistance} bits agree
+ * entirely on at least one band, so scanning the query's buckets finds every near duplicate
+ * without comparing against all entries. Each bucket keeps its fingerprints in one array, so a
+ * scan runs over contiguous memory.
+ * <p>
+ * All methods are thread-safe.
+ */
+public class NearDuplicateIndex<T> {
+
+    private static final int MAX_BUCKET_BITS = 14;
+
+    private final int maxDistance;
+    private final int bands;
+    private final int bandBits;
+    private final long[][][] bucketFingerprints;
+    private final int[][][] bucketEntries;
+    private final int[][] bucketSizes;
+    private Object[] values = new Object[16];
+    private int size;
+
+    public NearDuplicateIndex(int maxDistance) {
+        if (maxDistance < 0 || maxDistance > 7) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 7, was " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        this.bands = maxDistance + 1;
+        this.bandBits = 64 / bands;
+        this.bucketFingerprints = new long[bands][][];
+        this.bucketEntries = new int[bands][][];
+        this.bucketSizes = new int[bands][];
+        for (int band = 0; band < bands; band++) {
+            int buckets = 1 << Math.min(width(band), MAX_BUCKET_BITS);
+            bucketFingerprints[band] = new long[buckets][];
+            bucketEntries[band] = new int[buckets][];
+            bucketSizes[band] = new int[buckets];
+        }
+    }
+
+    /**
+     * Returns the value of the closest fingerprint within the maximum distance, or
+     * {@code null}. Between equally close fingerprints the earliest added wins.
+     */
+    public synchronized T find(long fingerprint) {
+        int best = -1;
+        int bestDistance = maxDistance + 1;
+        for (int band = 0; band < bands; band++) {
+            int bucket = bucket(fingerprint, band);
+            long[] fingerprints = bucketFingerprints[band][bucket];
+            int[] entries = bucketEntries[band][bucket];
+            for (int i = 0; i < bucketSizes[band][bucket]; i++) {
+                int distance = SimHash.distance(fingerprint, fingerprints[i]);
+                if (distance <= bestDistance && values[entries[i]] != null
+                        && (distance < bestDistance || entries[i] < best)) {
+                    best = entries[i];
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best < 0 ? null : value(best);
+    }
+
+    public synchronized void add(long fingerprint, T value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int entry = size++;
+        values[entry] = value;
+        for (int band = 0; band < bands; band++) {
+            int bucket = bucket(fingerprint, band);
+            int count = bucketSizes[band][bucket];
+            if (count == 0 && bucketFingerprints[band][bucket] == null) {
+                bucketFingerprints[band][bucket] = new long[2];
+                bucketEntries[band][bucket] = new int[2];
+            } else if (count == bucketFingerprints[band][bucket].length) {
+                bucketFingerprints[band][bucket] = Arrays.copyOf(bucketFingerprints[band][bucket], count * 2);
+                bucketEntries[band][bucket] = Arrays.copyOf(bucketEntries[band][bucket], count * 2);
+            }
+            bucketFingerprints[band][bucket][count] = fingerprint;
+            bucketEntries[band][bucket][count] = entry;
+            bucketSizes[band][bucket] = count + 1;
+        }
+    }
+
+    /**
+     * Returns the value of a near duplicate of {@code fingerprint} if there is one, and
+     * otherwise adds {@code value} and returns {@code null}, as one atomic step.
+     */
+    public synchronized T findOrAdd(long fingerprint, T value) {
+        T existing = find(fingerprint);
+        if (existing == null) {
+            add(fingerprint, value);
+        }
+        return existing;
+    }
+
+    /**
+     * Removes the entry added with exactly {@code fingerprint} and {@code value}, so it is never
+     * found again. Its slot is not reclaimed.
+     */
+    public synchronized void remove(long fingerprint, T value) {
+        int bucket = bucket(fingerprint, 0);
+        for (int i = 0; i < bucketSizes[0][bucket]; i++) {
+            int entry = bucketEntries[0][bucket][i];
+            if (bucketFingerprints[0][bucket][i] == fingerprint && values[entry] == value) {
+                values[entry] = null;
+                return;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int entry) {
+        return (T) values[entry];
+    }
+
+    /**
+     * Number of bits in {@code band}; the last band takes the bits left over.
+     */
+    private int width(int band) {
+        return band == bands - 1 ? 64 - band * bandBits : bandBits;
+    }
+
+    private int bucket(long fingerprint, int band) {
+        int width = width(band);
+        long bits = fingerprint >>> (band * bandBits);
+        if (width < 64) {
+            bits &= (1L << width) - 1;
+        }
+        int mask = bucketSizes[band].length - 1;
+        return width <= MAX_BUCKET_BITS ? (int) bits : (int) SimHash.mix(bits) & mask;
+    }
+}
@@ -0,0 +1,94 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 lines from a file starting at a byte offset and keeps track of the byte offset
+ * just past the last line returned, so that reading can resume there later.
+ */
+public class OffsetLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private int position;
+    private int limit;
+    private long offset;
+    private boolean terminated;
+
+    public OffsetLineReader(Path path, long offset) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(offset);
+        this.in = Channels.newInputStream(channel);
+        this.offset = offset;
+    }
+
+    /**
+     * Returns the next line without its terminator, or {@code null} at the end of the file.
+     */
+    public String readLine() throws IOException {
+        line.reset();
+        terminated = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return line.size() > 0 ? decode() : null;
+                }
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            line.write(buffer, start, position - start);
+            offset += position - start;
+            if (position < limit) {
+                position++;
+                offset++;
+                terminated = true;
+                return decode();
+            }
+        }
+    }
+
+    /**
+     * Whether the last line returned ended with a line break. An unterminated last line may
+     * still be in the middle of being written.
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Byte offset just past the last line returned.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String decode() {
+        int length = line.size();
+        byte[] bytes = line.toByteArray();
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
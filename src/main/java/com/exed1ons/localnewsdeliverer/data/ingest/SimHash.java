@@ -0,0 +1,108 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.util.Arrays;
+
+/**
+ * 64-bit SimHash fingerprints of article text.
+ * <p>
+ * The text is lowercased and split into words, and every run of {@value #SHINGLE_WORDS}
+ * consecutive words is hashed to 64 bits. Each bit of the fingerprint is set when most distinct
+ * shingle hashes have it set, so texts that share most of their shingles, such as one wire story
+ * republished with a different header or footer, get fingerprints that differ in only a few
+ * bits, while unrelated texts differ in about half of them.
+ */
+public final class SimHash {
+
+    /**
+     * Returned for texts too short to tell copies from articles that merely share a few phrases.
+     */
+    public static final long NONE = 0;
+
+    private static final int SHINGLE_WORDS = 3;
+    private static final int MIN_SHINGLES = 16;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    public static long of(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        long[] shingles = new long[64];
+        int count = 0;
+        long[] window = new long[SHINGLE_WORDS];
+        int words = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            long hash = FNV_OFFSET;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                hash = (hash ^ Character.toLowerCase(text.charAt(i))) * FNV_PRIME;
+                i++;
+            }
+            window[words % SHINGLE_WORDS] = hash;
+            words++;
+            if (words >= SHINGLE_WORDS) {
+                long shingle = FNV_OFFSET;
+                for (int w = words - SHINGLE_WORDS; w < words; w++) {
+                    shingle = (shingle ^ window[w % SHINGLE_WORDS]) * FNV_PRIME;
+                }
+                if (count == shingles.length) {
+                    shingles = Arrays.copyOf(shingles, count * 2);
+                }
+                shingles[count++] = mix(shingle);
+            }
+        }
+
+        // Every distinct shingle votes once, so repeated boilerplate does not outweigh the story.
+        Arrays.sort(shingles, 0, count);
+        int[] votes = new int[64];
+        int distinct = 0;
+        for (int s = 0; s < count; s++) {
+            if (s > 0 && shingles[s] == shingles[s - 1]) {
+                continue;
+            }
+            distinct++;
+            for (int bit = 0; bit < 64; bit++) {
+                votes[bit] += ((shingles[s] >>> bit) & 1) != 0 ? 1 : -1;
+            }
+        }
+        if (distinct < MIN_SHINGLES) {
+            return NONE;
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint == NONE ? 1 : fingerprint;
+    }
+
+    /**
+     * Number of bits in which two fingerprints differ.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * The finalizer of MurmurHash3, which spreads every input bit over the whole output.
+     */
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93e5a2ba3abL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,54 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The copies of one story, as kept in the {@link NearDuplicateIndex}: the cities of its first
+ * copy, so that later copies reuse them instead of being classified again, and the position at
+ * which the first copy was stored, so that later copies are added to it as alternate URLs.
+ */
+public final class StoryCluster {
+
+    public static final int NOT_STORED = -1;
+
+    private final CompletableFuture<List<String>> cityNames;
+    private volatile int position;
+
+    private StoryCluster(CompletableFuture<List<String>> cityNames, int position) {
+        this.cityNames = cityNames;
+        this.position = position;
+    }
+
+    /**
+     * A story whose first copy is being classified, with the future of its cities.
+     */
+    public static StoryCluster classifying(CompletableFuture<List<String>> cityNames) {
+        return new StoryCluster(cityNames, NOT_STORED);
+    }
+
+    /**
+     * A story already stored at {@code position}, whose cities are not known as names.
+     */
+    public static StoryCluster stored(int position) {
+        return new StoryCluster(null, position);
+    }
+
+    /**
+     * The cities of the first copy, or {@code null} when they are not known.
+     */
+    public CompletableFuture<List<String>> getCityNames() {
+        return cityNames;
+    }
+
+    /**
+     * Position of the stored first copy, or {@link #NOT_STORED}.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+}
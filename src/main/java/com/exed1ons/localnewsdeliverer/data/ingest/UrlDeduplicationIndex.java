@@ -0,0 +1,175 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe set of article URLs seen during ingestion.
+ * <p>
+ * URLs are reduced with {@link UrlNormalizer} and stored as 64-bit hashes in open-addressing
+ * tables, so a membership check is O(1) and costs no allocation beyond the normalized key.
+ * At the maximum load factor of 0.75 an entry takes 11 to 21 bytes of heap, i.e. three million URLs
+ * fit in roughly 32 to 64 MB. The probability of two different URLs sharing a hash stays below
+ * one in a million for that many entries.
+ * The table is split into independently locked segments so parallel producers rarely contend.
+ */
+public class UrlDeduplicationIndex {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final long EMPTY = 0L;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public UrlDeduplicationIndex() {
+        this(1024);
+    }
+
+    public UrlDeduplicationIndex(int expectedUrls) {
+        int perSegment = Math.max(16, expectedUrls / segments.length);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Records the URL and returns {@code true} if no equivalent URL was recorded before.
+     */
+    public boolean add(String url) {
+        long hash = hash(UrlNormalizer.normalize(url));
+        return segmentOf(hash).add(hash);
+    }
+
+    public boolean contains(String url) {
+        long hash = hash(UrlNormalizer.normalize(url));
+        return segmentOf(hash).contains(hash);
+    }
+
+    /**
+     * Returns the stored URL hashes, for persisting the index with {@link #addHashes}.
+     */
+    public long[] hashes() {
+        long[] hashes = new long[(int) size()];
+        int count = 0;
+        for (Segment segment : segments) {
+            count = segment.copyTo(hashes, count);
+        }
+        return count == hashes.length ? hashes : Arrays.copyOf(hashes, count);
+    }
+
+    /**
+     * Adds hashes previously returned by {@link #hashes()}.
+     */
+    public void addHashes(long[] hashes) {
+        for (long hash : hashes) {
+            segmentOf(hash).add(hash);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long memoryFootprintBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.capacity() * (long) Long.BYTES;
+        }
+        return bytes;
+    }
+
+    private Segment segmentOf(long hash) {
+        return segments[(int) (hash >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    /**
+     * 64-bit hash of an already normalized URL, never 0.
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1L : h;
+    }
+
+    private static final class Segment {
+        private long[] table;
+        private int size;
+
+        Segment(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 4 / 3) - 1) << 1;
+            this.table = new long[capacity];
+        }
+
+        synchronized boolean add(long hash) {
+            if (size + 1 > table.length * 3 / 4) {
+                resize();
+            }
+            if (insert(table, hash)) {
+                size++;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean contains(long hash) {
+            int mask = table.length - 1;
+            for (int i = (int) hash & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+                if (table[i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized int copyTo(long[] target, int from) {
+            int count = from;
+            for (long hash : table) {
+                if (hash != EMPTY && count < target.length) {
+                    target[count++] = hash;
+                }
+            }
+            return count;
+        }
+
+        synchronized int capacity() {
+            return table.length;
+        }
+
+        private void resize() {
+            long[] resized = new long[table.length << 1];
+            for (long hash : table) {
+                if (hash != EMPTY) {
+                    insert(resized, hash);
+                }
+            }
+            table = resized;
+        }
+
+        private static boolean insert(long[] table, long hash) {
+            int mask = table.length - 1;
+            int i = (int) hash & mask;
+            while (table[i] != EMPTY) {
+                if (table[i] == hash) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = hash;
+            return true;
+        }
+    }
+}
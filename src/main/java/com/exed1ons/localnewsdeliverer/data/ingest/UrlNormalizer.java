@@ -0,0 +1,89 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Reduces article URLs to a canonical key so that links which only differ by scheme,
+ * default port, trailing slash, tracking parameters or fragment are treated as the same article.
+ * The key is only used for comparisons; articles keep the URL they were published with.
+ */
+public final class UrlNormalizer {
+
+    // Only keys that never identify content. A generic name such as "ref" is kept, since some
+    // publishers use it to address the article itself.
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "dclid", "msclkid", "igshid", "mc_cid", "mc_eid",
+            "_ga", "_gl", "ref_src", "cmpid", "ocid", "smid", "taid", "sr_share"
+    );
+
+    private UrlNormalizer() {
+    }
+
+    public static String normalize(String url) {
+        if (url == null) {
+            return "";
+        }
+        String trimmed = url.trim();
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getRawAuthority() == null) {
+                return trimmed.toLowerCase(Locale.ROOT);
+            }
+
+            StringBuilder key = new StringBuilder(trimmed.length());
+            key.append(uri.getRawAuthority().toLowerCase(Locale.ROOT));
+            stripDefaultPort(key, uri.getScheme());
+
+            String path = uri.getRawPath();
+            int end = path == null ? 0 : path.length();
+            while (end > 0 && path.charAt(end - 1) == '/') {
+                end--;
+            }
+            key.append('/');
+            if (end > 0) {
+                key.append(path, path.charAt(0) == '/' ? 1 : 0, end);
+            }
+
+            appendQuery(key, uri.getRawQuery());
+            return key.toString();
+        } catch (URISyntaxException e) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static void stripDefaultPort(StringBuilder authority, String scheme) {
+        int length = authority.length();
+        if (endsWith(authority, ":80") && "http".equalsIgnoreCase(scheme)) {
+            authority.setLength(length - 3);
+        } else if (endsWith(authority, ":443") && "https".equalsIgnoreCase(scheme)) {
+            authority.setLength(length - 4);
+        }
+    }
+
+    private static boolean endsWith(StringBuilder builder, String suffix) {
+        int offset = builder.length() - suffix.length();
+        return offset >= 0 && builder.indexOf(suffix, offset) == offset;
+    }
+
+    private static void appendQuery(StringBuilder key, String query) {
+        if (query == null || query.isEmpty()) {
+            return;
+        }
+        char separator = '?';
+        for (String param : query.split("&")) {
+            if (param.isEmpty()) {
+                continue;
+            }
+            int equals = param.indexOf('=');
+            String name = (equals < 0 ? param : param.substring(0, equals)).toLowerCase(Locale.ROOT);
+            if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name)) {
+                continue;
+            }
+            key.append(separator).append(param);
+            separator = '&';
+        }
+    }
+}
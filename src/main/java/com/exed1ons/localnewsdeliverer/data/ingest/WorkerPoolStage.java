@@ -0,0 +1,101 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * A pipeline step run by a fixed number of workers. Items are taken from a bounded input queue,
+ * handled and handed to the next stage. Because the queue is bounded, a slow stage blocks the
+ * stages in front of it instead of letting work pile up.
+ */
+class WorkerPoolStage implements IngestionStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPoolStage.class);
+
+    private final String name;
+    private final int concurrency;
+    private final BlockingQueue<IngestionItem> queue;
+    private final Consumer<IngestionItem> handler;
+    private final AtomicInteger activeWorkers;
+
+    private ExecutorService executor;
+    private Downstream downstream;
+
+    WorkerPoolStage(String name, int concurrency, int queueCapacity, Consumer<IngestionItem> handler) {
+        this.name = name;
+        this.concurrency = Math.max(1, concurrency);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.handler = handler;
+        this.activeWorkers = new AtomicInteger(this.concurrency);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int queued() {
+        return queue.size();
+    }
+
+    @Override
+    public void start(Downstream downstream) {
+        this.downstream = downstream;
+        this.executor = Executors.newFixedThreadPool(concurrency, new StageThreadFactory("ingest-" + name));
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    @Override
+    public void put(IngestionItem item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    @Override
+    public void complete() throws InterruptedException {
+        for (int i = 0; i < concurrency; i++) {
+            queue.put(IngestionItem.END);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                IngestionItem item = queue.take();
+                if (item == IngestionItem.END) {
+                    break;
+                }
+                if (!item.isDropped() && !item.isCompleted()) {
+                    try {
+                        handler.accept(item);
+                    } catch (Exception e) {
+                        logger.error("Error in " + name + " stage for article: " + item.getArticle().getUrl() + " - " + e.getMessage());
+                        item.drop();
+                    }
+                }
+                downstream.put(item);
+            }
+            if (activeWorkers.decrementAndGet() == 0) {
+                downstream.complete();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.exed1ons.localnewsdeliverer.data.snapshot;
+
+import com.exed1ons.localnewsdeliverer.data.index.ArticleAlternates;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleCityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleTextIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityTable;
+import com.exed1ons.localnewsdeliverer.data.ingest.FileCheckpoint;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionCheckpointStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Store snapshot kept in a single binary file that is memory-mapped when the service starts.
+ * <p>
+ * The file starts with a fixed header (magic, format version, payload length and a CRC32C of
+ * the payload), followed by the city CSV's size and modification time, the news file
+ * checkpoints, the URL hashes, the city columns, the article city and text indexes, the article
+ * body fingerprints and alternate URLs and finally the article records behind an offset table.
+ * Opening reads everything up to the offset table onto the heap; the article records stay in
+ * the mapped file and are decoded only when read, and the indexes are restored as they were
+ * saved, so no article has to be decoded or analyzed again at startup.
+ * <p>
+ * A new snapshot is written to a temporary file and moved into place, so a crash never leaves a
+ * half-written snapshot behind. An empty {@code news.snapshot.path} disables snapshots.
+ */
+@Component
+public class BinarySnapshotStore implements SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinarySnapshotStore.class);
+    private static final int MAGIC = 0x4c4e4453;
+    private static final int FORMAT_VERSION = 5;
+    private static final int HEADER_BYTES = 20;
+
+    private final Path path;
+
+    public BinarySnapshotStore(@Value("${news.snapshot.path:}") String path) {
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    @Override
+    public SnapshotContent open(String cityFilePath, List<Path> newsFiles) {
+        if (path == null || !Files.exists(path)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                logger.warn("Ignoring store snapshot " + path + " of unexpected size " + channel.size());
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            String problem = checkHeader(buffer);
+            if (problem != null) {
+                logger.warn("Ignoring store snapshot " + path + ": " + problem);
+                return null;
+            }
+
+            ByteBuffer in = buffer.duplicate().position(HEADER_BYTES);
+            long createdAt = in.getLong();
+            Path cityFile = Path.of(cityFilePath);
+            if (!readString(in).equals(keyOf(cityFile))
+                    || in.getLong() != Files.size(cityFile)
+                    || in.getLong() != Files.getLastModifiedTime(cityFile).toMillis()) {
+                logger.info("Ignoring store snapshot " + path + ", the city file has changed");
+                return null;
+            }
+            List<FileCheckpoint> checkpoints = readCheckpoints(in);
+            if (!covers(checkpoints, newsFiles)) {
+                logger.info("Ignoring store snapshot " + path + ", the news files have changed");
+                return null;
+            }
+            long[] urlHashes = new long[in.getInt()];
+            in.asLongBuffer().get(urlHashes);
+            in.position(in.position() + urlHashes.length * Long.BYTES);
+            CityTable cities = CityTable.readFrom(in);
+            ArticleCityIndex articleCityIndex = ArticleCityIndex.readFrom(in);
+            ArticleTextIndex articleTextIndex = ArticleTextIndex.readFrom(in);
+            long[] fingerprints = new long[in.getInt()];
+            in.asLongBuffer().get(fingerprints);
+            in.position(in.position() + fingerprints.length * Long.BYTES);
+            ArticleAlternates alternates = ArticleAlternates.readFrom(in);
+            int[] offsets = new int[in.getInt()];
+            in.asIntBuffer().get(offsets);
+
+            logger.info("Opened store snapshot " + path + " from " + createdAt + " with " + cities.size()
+                    + " cities and " + offsets.length + " articles in " + (System.currentTimeMillis() - start) + " ms");
+            return SnapshotContent.builder()
+                    .cities(cities)
+                    .urlHashes(urlHashes)
+                    .articleCityIndex(articleCityIndex)
+                    .articleTextIndex(articleTextIndex)
+                    .articles(new MappedArticleList(buffer, offsets))
+                    .fingerprints(fingerprints)
+                    .alternates(alternates)
+                    .checkpoints(checkpoints)
+                    .build();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error while opening store snapshot " + path + ", ingesting from scratch: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void save(SnapshotContent content, String cityFilePath) {
+        if (path == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<ArticleRecord> articles = content.getArticles();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.setLength(0);
+                file.seek(HEADER_BYTES);
+                CRC32C crc = new CRC32C();
+                OutputStream stream = Channels.newOutputStream(file.getChannel());
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(stream, crc), 1 << 16));
+
+                Path cityFile = Path.of(cityFilePath);
+                out.writeLong(System.currentTimeMillis());
+                writeString(out, keyOf(cityFile));
+                out.writeLong(Files.size(cityFile));
+                out.writeLong(Files.getLastModifiedTime(cityFile).toMillis());
+                out.writeInt(content.getCheckpoints().size());
+                for (FileCheckpoint checkpoint : content.getCheckpoints()) {
+                    writeString(out, checkpoint.getPath());
+                    out.writeLong(checkpoint.getOffset());
+                    writeString(out, checkpoint.getFingerprint());
+                    out.writeLong(checkpoint.getUpdatedAt());
+                }
+                out.writeInt(content.getUrlHashes().length);
+                for (long hash : content.getUrlHashes()) {
+                    out.writeLong(hash);
+                }
+                content.getCities().writeTo(out);
+                content.getArticleCityIndex().writeTo(out);
+                content.getArticleTextIndex().writeTo(out);
+                out.writeInt(content.getFingerprints().length);
+                for (long fingerprint : content.getFingerprints()) {
+                    out.writeLong(fingerprint);
+                }
+                content.getAlternates().writeTo(out);
+
+                long offset = HEADER_BYTES + out.size() + Integer.BYTES + (long) articles.size() * Integer.BYTES;
+                out.writeInt(articles.size());
+                for (ArticleRecord article : articles) {
+                    if (offset > Integer.MAX_VALUE) {
+                        throw new IOException("snapshot would exceed 2 GB");
+                    }
+                    out.writeInt((int) offset);
+                    offset += article.serializedSize();
+                }
+                for (ArticleRecord article : articles) {
+                    article.writeTo(out);
+                }
+                out.flush();
+
+                long payloadLength = file.length() - HEADER_BYTES;
+                file.seek(0);
+                file.writeInt(MAGIC);
+                file.writeInt(FORMAT_VERSION);
+                file.writeLong(payloadLength);
+                file.writeInt((int) crc.getValue());
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved store snapshot with " + articles.size() + " articles to " + path + " in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (IOException e) {
+            logger.error("Error while saving store snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns why the snapshot in {@code buffer} cannot be used, or {@code null} if its header
+     * matches and the payload checksum is correct.
+     */
+    private static String checkHeader(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            return "not a store snapshot";
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            return "format version " + buffer.getInt(4) + " instead of " + FORMAT_VERSION;
+        }
+        if (buffer.getLong(8) != buffer.capacity() - HEADER_BYTES) {
+            return "file is incomplete";
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(HEADER_BYTES));
+        if ((int) crc.getValue() != buffer.getInt(16)) {
+            return "checksum mismatch";
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether every file in the snapshot is still one of the news files and still
+     * starts with the bytes that were read from it.
+     */
+    private static boolean covers(List<FileCheckpoint> checkpoints, List<Path> newsFiles) throws IOException {
+        Set<String> current = new HashSet<>();
+        for (Path file : newsFiles) {
+            current.add(keyOf(file));
+        }
+        for (FileCheckpoint checkpoint : checkpoints) {
+            if (!current.contains(checkpoint.getPath()) || !IngestionCheckpointStore.matches(checkpoint)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<FileCheckpoint> readCheckpoints(ByteBuffer in) {
+        int count = in.getInt();
+        List<FileCheckpoint> checkpoints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            checkpoints.add(FileCheckpoint.builder()
+                    .path(readString(in))
+                    .offset(in.getLong())
+                    .fingerprint(readString(in))
+                    .updatedAt(in.getLong())
+                    .build());
+        }
+        return checkpoints;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String keyOf(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+}
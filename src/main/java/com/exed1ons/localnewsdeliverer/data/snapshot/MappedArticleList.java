@@ -0,0 +1,33 @@
+package com.exed1ons.localnewsdeliverer.data.snapshot;
+
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list over the article records of a memory-mapped snapshot. Only the record offsets
+ * are held on the heap; each {@link ArticleRecord} is created when it is read and keeps its text
+ * in the mapped buffer.
+ */
+final class MappedArticleList extends AbstractList<ArticleRecord> implements RandomAccess {
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+
+    MappedArticleList(ByteBuffer buffer, int[] offsets) {
+        this.buffer = buffer;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public ArticleRecord get(int index) {
+        return ArticleRecord.readFrom(buffer, offsets[index]);
+    }
+
+    @Override
+    public int size() {
+        return offsets.length;
+    }
+}
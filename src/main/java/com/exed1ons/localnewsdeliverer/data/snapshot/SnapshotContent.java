@@ -0,0 +1,33 @@
+package com.exed1ons.localnewsdeliverer.data.snapshot;
+
+import com.exed1ons.localnewsdeliverer.data.index.ArticleAlternates;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleCityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleTextIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityTable;
+import com.exed1ons.localnewsdeliverer.data.ingest.FileCheckpoint;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Everything a store snapshot holds: the city columns, the URLs seen during ingestion, the
+ * article records with their city and text indexes, body fingerprints and alternate URLs, and how far each
+ * news file had been read when the snapshot was taken.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SnapshotContent {
+    CityTable cities;
+    long[] urlHashes;
+    ArticleCityIndex articleCityIndex;
+    ArticleTextIndex articleTextIndex;
+    List<ArticleRecord> articles;
+    long[] fingerprints;
+    ArticleAlternates alternates;
+    List<FileCheckpoint> checkpoints;
+}
@@ -0,0 +1,16 @@
+package com.exed1ons.localnewsdeliverer.data.snapshot;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface SnapshotStore {
+
+    /**
+     * Opens the stored snapshot, or returns {@code null} when there is none or it is corrupt or
+     * stale: written in another format, taken from another city file, or covering a news file
+     * that has since been replaced, truncated or is no longer among {@code newsFiles}.
+     */
+    SnapshotContent open(String cityFilePath, List<Path> newsFiles);
+
+    void save(SnapshotContent content, String cityFilePath);
+}
@@ -0,0 +1,254 @@
+package com.exed1ons.localnewsdeliverer.data.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only JSONL file of keyed records, of which only the byte offset of each key's latest
+ * line is kept in memory, indexed by a 64-bit hash of the key. Records are read back from the
+ * file on demand, and a later line for the same key replaces an earlier one.
+ * <p>
+ * Once the file holds {@code 2 * maxRecords} lines, or superseded lines make up more than half
+ * of it, it is rewritten with the newest {@code maxRecords} records that are still live.
+ * A last line without its newline was cut short by a crash and is truncated on open, so the
+ * next record does not get appended to it.
+ * <p>
+ * Subclasses say how a record is keyed, hashed and dated and when it has expired. All methods
+ * are thread-safe.
+ */
+public abstract class JsonLinesStore<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonLinesStore.class);
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+    private final Class<T> type;
+    private final int maxRecords;
+    private final String name;
+    private final Map<Long, Long> offsets = new HashMap<>();
+    private RandomAccessFile file;
+    private long lines;
+
+    protected JsonLinesStore(ObjectMapper objectMapper, Path path, Class<T> type, int maxRecords, String name) {
+        this.objectMapper = objectMapper;
+        this.path = path;
+        this.type = type;
+        this.maxRecords = Math.max(1, maxRecords);
+        this.name = name;
+    }
+
+    /**
+     * Key the record is stored under.
+     */
+    protected abstract String keyOf(T record);
+
+    /**
+     * 64-bit hash of a key, under which its offset is indexed.
+     */
+    protected abstract long hash(String key);
+
+    /**
+     * Time the record was created, in epoch milliseconds; compaction keeps the newest records.
+     */
+    protected abstract long timestampOf(T record);
+
+    /**
+     * Whether the record is still worth keeping when the file is compacted at {@code now}.
+     */
+    protected abstract boolean isLive(T record, long now);
+
+    public synchronized void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        long end = 0;
+        if (Files.exists(path)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+                long offset = 0;
+                int b;
+                while ((b = in.read()) != -1) {
+                    offset++;
+                    if (b == '\n') {
+                        index(line.toByteArray(), end);
+                        lines++;
+                        line.reset();
+                        end = offset;
+                    } else {
+                        line.write(b);
+                    }
+                }
+            }
+        }
+        file = new RandomAccessFile(path.toFile(), "rw");
+        if (file.length() > end) {
+            logger.warn("Truncating incomplete last line of " + name + " " + path + " at byte " + end);
+            file.setLength(end);
+        }
+        logger.info("Loaded " + offsets.size() + " records from " + lines + " lines of " + name + " " + path);
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    /**
+     * Whether the file is open; after a failed open or reopen it is not, and the store holds
+     * nothing.
+     */
+    public synchronized boolean isOpen() {
+        return file != null;
+    }
+
+    public synchronized T get(String key) {
+        Long offset = offsets.get(hash(key));
+        if (offset == null || file == null) {
+            return null;
+        }
+        T record = read(offset);
+        return record != null && key.equals(keyOf(record)) ? record : null;
+    }
+
+    public synchronized void put(T record) {
+        if (file == null) {
+            return;
+        }
+        try {
+            long offset = file.length();
+            file.seek(offset);
+            file.write(objectMapper.writeValueAsBytes(record));
+            file.write('\n');
+            offsets.put(hash(keyOf(record)), offset);
+            lines++;
+        } catch (IOException e) {
+            logger.error("Error while appending to " + name + ": " + e.getMessage());
+            return;
+        }
+        if (needsCompaction()) {
+            compact();
+        }
+    }
+
+    public synchronized int size() {
+        return offsets.size();
+    }
+
+    public synchronized void close() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing " + name + ": " + e.getMessage());
+            }
+            file = null;
+        }
+    }
+
+    private boolean needsCompaction() {
+        return lines >= 2L * maxRecords || lines > 2L * offsets.size();
+    }
+
+    /**
+     * Rewrites the file with the newest live records, at most {@code maxRecords} of them.
+     * On failure the current file stays in use.
+     */
+    private void compact() {
+        long now = System.currentTimeMillis();
+        List<T> live = new ArrayList<>(offsets.size());
+        for (long offset : offsets.values()) {
+            T record = read(offset);
+            if (record != null && isLive(record, now)) {
+                live.add(record);
+            }
+        }
+        live.sort(Comparator.comparingLong(this::timestampOf).reversed());
+        List<T> kept = live.subList(0, Math.min(live.size(), maxRecords));
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Map<Long, Long> compactedOffsets = new HashMap<>(kept.size() * 2);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(compacted))) {
+            long offset = 0;
+            for (T record : kept) {
+                byte[] bytes = objectMapper.writeValueAsBytes(record);
+                out.write(bytes);
+                out.write('\n');
+                compactedOffsets.put(hash(keyOf(record)), offset);
+                offset += bytes.length + 1;
+            }
+        } catch (IOException e) {
+            logger.error("Error while compacting " + name + ": " + e.getMessage());
+            return;
+        }
+
+        close();
+        try {
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            offsets.clear();
+            offsets.putAll(compactedOffsets);
+            lines = kept.size();
+            logger.info("Compacted " + name + " " + path + " to " + kept.size() + " records");
+        } catch (IOException e) {
+            logger.error("Error while replacing " + name + ": " + e.getMessage());
+        }
+        try {
+            file = new RandomAccessFile(path.toFile(), "rw");
+        } catch (IOException e) {
+            logger.error("Error while reopening " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void index(byte[] line, long offset) {
+        try {
+            offsets.put(hash(keyOf(objectMapper.readValue(line, type))), offset);
+        } catch (IOException e) {
+            logger.warn("Skipping unreadable line of " + name + " " + path + " at byte " + offset);
+        }
+    }
+
+    private T read(long offset) {
+        try {
+            return objectMapper.readValue(readLineAt(offset), type);
+        } catch (IOException e) {
+            logger.warn("Error while reading " + name + " record: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] readLineAt(long offset) throws IOException {
+        file.seek(offset);
+        byte[] buffer = new byte[1024];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = file.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                return Arrays.copyOf(buffer, length);
+            }
+            for (int i = length; i < length + read; i++) {
+                if (buffer[i] == '\n') {
+                    return Arrays.copyOf(buffer, i);
+                }
+            }
+            length += read;
+        }
+    }
+}
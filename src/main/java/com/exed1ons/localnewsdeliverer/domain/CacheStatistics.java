@@ -0,0 +1,17 @@
+package com.exed1ons.localnewsdeliverer.domain;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CacheStatistics {
+    String name;
+    long hits;
+    long misses;
+    long size;
+    double hitRatio;
+}
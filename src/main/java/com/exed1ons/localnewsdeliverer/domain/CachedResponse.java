@@ -0,0 +1,19 @@
+package com.exed1ons.localnewsdeliverer.domain;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CachedResponse {
+    String contentType;
+    Map<String, String> headers;
+    byte[] body;
+    byte[] gzipBody;
+    String etag;
+}
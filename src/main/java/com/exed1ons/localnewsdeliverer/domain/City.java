@@ -13,4 +13,7 @@ public class City {
     String name;
     String stateName;
     String stateCode;
+    Long population;
+    Double latitude;
+    Double longitude;
 }
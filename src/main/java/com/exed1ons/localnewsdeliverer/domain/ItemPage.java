@@ -0,0 +1,16 @@
+package com.exed1ons.localnewsdeliverer.domain;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ItemPage<T> {
+    List<T> items;
+    Integer nextOffset;
+}
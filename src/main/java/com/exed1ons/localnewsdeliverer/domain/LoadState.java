@@ -0,0 +1,9 @@
+package com.exed1ons.localnewsdeliverer.domain;
+
+public enum LoadState {
+    STARTING,
+    LOADING_CITIES,
+    LOADING_NEWS,
+    READY,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.exed1ons.localnewsdeliverer.domain;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LoadStatus {
+    LoadState state;
+    boolean ready;
+    long version;
+    int cities;
+    int articles;
+    long queued;
+    long processed;
+    long failed;
+}
@@ -17,4 +17,5 @@ public class NewsArticle {
     String urlToImage;
     boolean isLocal;
     List<City> cities;
+    List<String> alternateUrls;
 }
@@ -0,0 +1,9 @@
+package com.exed1ons.localnewsdeliverer.service;
+
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+
+import java.util.List;
+
+public interface CacheStatisticsService {
+    List<CacheStatistics> getCacheStatistics();
+}
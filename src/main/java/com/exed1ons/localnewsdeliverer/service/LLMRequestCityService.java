@@ -1,7 +1,37 @@
 package com.exed1ons.localnewsdeliverer.service;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public interface LLMRequestCityService {
-    List<String> requestCity(String description);
+
+    /**
+     * Asks which cities the article is about. The future completes with the cities as
+     * "City, ST" names, or {@code null} for a global article; no thread is held while the
+     * request waits for an API key or for its batch.
+     */
+    CompletableFuture<List<String>> requestCityAsync(String description);
+
+    /**
+     * Classifies several articles at once. The result has one entry per description, in the same
+     * order, with the same meaning as the result of {@link #requestCityAsync(String)}.
+     */
+    CompletableFuture<List<List<String>>> requestCitiesAsync(List<String> descriptions);
+
+    default List<String> requestCity(String description) {
+        return join(requestCityAsync(description));
+    }
+
+    default List<List<String>> requestCities(List<String> descriptions) {
+        return join(requestCitiesAsync(descriptions));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
 }
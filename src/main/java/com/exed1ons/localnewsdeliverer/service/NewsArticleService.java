@@ -1,6 +1,8 @@
 package com.exed1ons.localnewsdeliverer.service;
 
 import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
+import com.exed1ons.localnewsdeliverer.domain.LoadStatus;
 import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
 
 import java.util.List;
@@ -8,6 +10,15 @@ import java.util.List;
 public interface NewsArticleService {
     List<NewsArticle> getAllNewsArticles();
     List<City> getAllCities();
-    List<City> searchCities(String name);
+    ItemPage<NewsArticle> getNewsArticles(int offset, int limit);
+    ItemPage<City> getCities(int offset, int limit);
+    LoadStatus getLoadStatus();
+    long getDataVersion();
+    List<City> searchCities(String name, int limit);
     List<NewsArticle> searchNewsByCity(String cityName, String stateName, boolean includeGlobalNews);
+    List<NewsArticle> searchNewsNearby(double latitude, double longitude, double radiusKm, Integer nearest,
+                                       boolean includeGlobalNews);
+    List<NewsArticle> searchNewsNearCity(String cityName, String stateName, double radiusKm, Integer nearest,
+                                         boolean includeGlobalNews);
+    List<NewsArticle> queryNews(String query, String cityName, String stateName, boolean includeGlobalNews, int limit);
 }
@@ -0,0 +1,17 @@
+package com.exed1ons.localnewsdeliverer.service;
+
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.domain.CachedResponse;
+
+import java.util.function.Supplier;
+
+public interface ResponseCacheService {
+
+    /**
+     * Returns the response cached under {@code key} for data {@code version}, or serializes it
+     * with {@code loader}, fills in its ETag and compressed body, and caches it.
+     */
+    CachedResponse get(String key, long version, Supplier<CachedResponse> loader);
+
+    CacheStatistics getStatistics();
+}
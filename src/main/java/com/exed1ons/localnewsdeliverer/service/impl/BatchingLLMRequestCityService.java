@@ -0,0 +1,153 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.ingest.StageThreadFactory;
+import com.exed1ons.localnewsdeliverer.service.LLMRequestCityService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups concurrent {@link #requestCityAsync} calls into multi-article LLM requests.
+ * <p>
+ * A batch is sent when it holds {@code llm.batch.size} articles or when its oldest article
+ * has waited {@code llm.batch.max-wait}, whichever comes first. Each caller gets a future that
+ * completes with its own answer when the batch does. Batches only fill up when at least that
+ * many articles are classified at the same time, so the classify stage concurrency should be
+ * at least the batch size.
+ * A batch size of 1 sends every article on its own, as before.
+ */
+@Service
+public class BatchingLLMRequestCityService implements LLMRequestCityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingLLMRequestCityService.class);
+
+    private final LLMRequestCityService delegate;
+    private final int batchSize;
+    private final long maxWaitMillis;
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(new StageThreadFactory("llm-batch-timer"));
+    private final DistributionSummary batchSizes;
+
+    private List<PendingRequest> pending = new ArrayList<>();
+    private ScheduledFuture<?> pendingTimeout;
+
+    public BatchingLLMRequestCityService(LLMRequestCityServiceImpl delegate,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${llm.batch.size:1}") int batchSize,
+                                         @Value("${llm.batch.max-wait:500ms}") Duration maxWait) {
+        this.delegate = delegate;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWaitMillis = maxWait.toMillis();
+        this.batchSizes = DistributionSummary.builder("llm.batch.size")
+                .description("Articles per batched LLM request")
+                .register(meterRegistry);
+        Gauge.builder("llm.batch.pending", this, BatchingLLMRequestCityService::pending)
+                .description("Articles waiting for their batch to be sent")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> requestCityAsync(String description) {
+        if (batchSize == 1) {
+            return delegate.requestCityAsync(description);
+        }
+        PendingRequest request = new PendingRequest(description);
+        List<PendingRequest> full = null;
+        synchronized (this) {
+            pending.add(request);
+            if (pending.size() >= batchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                pendingTimeout = timer.schedule(this::flushExpired, maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        return request.result;
+    }
+
+    @Override
+    public CompletableFuture<List<List<String>>> requestCitiesAsync(List<String> descriptions) {
+        return delegate.requestCitiesAsync(descriptions);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private synchronized int pending() {
+        return pending.size();
+    }
+
+    private void flushExpired() {
+        List<PendingRequest> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        send(batch);
+    }
+
+    private List<PendingRequest> takePending() {
+        List<PendingRequest> batch = pending;
+        pending = new ArrayList<>(batchSize);
+        if (pendingTimeout != null) {
+            pendingTimeout.cancel(false);
+            pendingTimeout = null;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingRequest> batch) {
+        batchSizes.record(batch.size());
+        List<String> descriptions = new ArrayList<>(batch.size());
+        for (PendingRequest request : batch) {
+            descriptions.add(request.description);
+        }
+        CompletableFuture<List<List<String>>> answers;
+        try {
+            answers = delegate.requestCitiesAsync(descriptions);
+        } catch (RuntimeException e) {
+            answers = CompletableFuture.failedFuture(e);
+        }
+        answers.whenComplete((results, error) -> {
+            if (error != null) {
+                logger.error("Batch of {} LLM requests failed: {}", batch.size(), error.getMessage());
+                for (PendingRequest request : batch) {
+                    request.result.completeExceptionally(error);
+                }
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        });
+    }
+
+    private static final class PendingRequest {
+        private final String description;
+        private final CompletableFuture<List<String>> result = new CompletableFuture<>();
+
+        private PendingRequest(String description) {
+            this.description = description;
+        }
+    }
+}
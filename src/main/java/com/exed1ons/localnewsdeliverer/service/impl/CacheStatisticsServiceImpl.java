@@ -0,0 +1,25 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.service.CacheStatisticsService;
+import com.exed1ons.localnewsdeliverer.service.ResponseCacheService;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class CacheStatisticsServiceImpl implements CacheStatisticsService {
+
+    private final MemoizingLLMRequestCityService llmCache;
+    private final ResponseCacheService responseCache;
+
+    public CacheStatisticsServiceImpl(MemoizingLLMRequestCityService llmCache, ResponseCacheService responseCache) {
+        this.llmCache = llmCache;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public List<CacheStatistics> getCacheStatistics() {
+        return List.of(llmCache.getStatistics(), responseCache.getStatistics());
+    }
+}
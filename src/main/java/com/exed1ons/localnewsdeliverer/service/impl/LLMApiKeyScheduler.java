@@ -0,0 +1,291 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.ingest.StageThreadFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out LLM API keys so that concurrent callers stay inside every key's rate limit.
+ * <p>
+ * Each key has two token buckets, one for requests per minute and one for tokens per minute,
+ * refilled continuously. {@link #acquire} takes the key with the most remaining budget.
+ * If no key can take the request, the caller gets a pending future, which is completed in
+ * FIFO order once a bucket has refilled. Callers are never put to sleep.
+ * A key that was answered with 429 sits out for the {@code Retry-After} period.
+ * A limit of 0 or less disables that bucket.
+ */
+@Component
+public class LLMApiKeyScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LLMApiKeyScheduler.class);
+
+    private final List<KeyState> keys;
+    private final Duration defaultRetryAfter;
+    private final Deque<PendingAcquire> waiting = new ArrayDeque<>();
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(new StageThreadFactory("llm-key-scheduler"));
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt = Long.MAX_VALUE;
+
+    public LLMApiKeyScheduler(MeterRegistry meterRegistry,
+                              @Value("#{'${llm.api.keys}'.split(',')}") List<String> apiKeys,
+                              @Value("${llm.rate-limit.requests-per-minute:0}") int requestsPerMinute,
+                              @Value("${llm.rate-limit.tokens-per-minute:0}") int tokensPerMinute,
+                              @Value("${llm.rate-limit.default-retry-after:60s}") Duration defaultRetryAfter) {
+        this.defaultRetryAfter = defaultRetryAfter;
+        this.keys = new ArrayList<>(apiKeys.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < apiKeys.size(); i++) {
+            keys.add(new KeyState(i, apiKeys.get(i).trim(), new TokenBucket(requestsPerMinute, now),
+                    new TokenBucket(tokensPerMinute, now)));
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No LLM API keys configured");
+        }
+        Gauge.builder("llm.key.waiting", this, LLMApiKeyScheduler::waiting)
+                .description("LLM requests waiting for an API key with budget left")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves one request and {@code tokens} tokens on the key with the most remaining budget.
+     * The returned future completes as soon as some key can take the request.
+     */
+    public CompletableFuture<ApiKeyLease> acquire(int tokens) {
+        CompletableFuture<ApiKeyLease> future = new CompletableFuture<>();
+        ApiKeyLease lease;
+        synchronized (this) {
+            lease = waiting.isEmpty() ? tryAcquire(tokens, System.nanoTime()) : null;
+            if (lease == null) {
+                waiting.add(new PendingAcquire(tokens, future));
+                scheduleWakeUp(System.nanoTime());
+                return future;
+            }
+        }
+        future.complete(lease);
+        return future;
+    }
+
+    /**
+     * Takes the key out of rotation for {@code retryAfter}, or the default period when the
+     * server did not say, and empties its buckets so it restarts slowly.
+     */
+    public void rateLimited(ApiKeyLease lease, Duration retryAfter) {
+        Duration pause = retryAfter != null ? retryAfter : defaultRetryAfter;
+        logger.warn("Rate limit reached for API key at index {}, pausing it for {} seconds",
+                lease.index(), pause.toSeconds());
+        synchronized (this) {
+            long now = System.nanoTime();
+            KeyState key = keys.get(lease.index());
+            key.blockedUntil = Math.max(key.blockedUntil, now + pause.toNanos());
+            key.requests.drain(now);
+            key.tokens.drain(now);
+            if (!waiting.isEmpty()) {
+                scheduleWakeUp(now);
+            }
+        }
+    }
+
+    /**
+     * Number of configured keys; lease indexes run from 0 to one less than this.
+     */
+    public int keyCount() {
+        return keys.size();
+    }
+
+    /**
+     * Number of callers waiting for a key.
+     */
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private ApiKeyLease tryAcquire(int tokens, long now) {
+        KeyState best = null;
+        double bestBudget = 0;
+        for (KeyState key : keys) {
+            if (key.blockedUntil > now) {
+                continue;
+            }
+            key.requests.refill(now);
+            key.tokens.refill(now);
+            if (!key.requests.canTake(1) || !key.tokens.canTake(tokens)) {
+                continue;
+            }
+            double budget = Math.min(key.requests.remainingFraction(), key.tokens.remainingFraction());
+            if (best == null || budget > bestBudget
+                    || (budget == bestBudget && key.lastUsed < best.lastUsed)) {
+                best = key;
+                bestBudget = budget;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        best.requests.take(1);
+        best.tokens.take(tokens);
+        best.lastUsed = now;
+        return new ApiKeyLease(best.index, best.apiKey);
+    }
+
+    private long nextAvailableAt(int tokens, long now) {
+        long earliest = Long.MAX_VALUE;
+        for (KeyState key : keys) {
+            long at = Math.max(key.blockedUntil,
+                    Math.max(key.requests.availableAt(1, now), key.tokens.availableAt(tokens, now)));
+            earliest = Math.min(earliest, at);
+        }
+        return Math.max(earliest, now);
+    }
+
+    private void scheduleWakeUp(long now) {
+        long at = nextAvailableAt(waiting.peek().tokens, now);
+        if (wakeUp != null && !wakeUp.isDone() && wakeUpAt <= at) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = at;
+        wakeUp = timer.schedule(this::serveWaiting, at - now, TimeUnit.NANOSECONDS);
+    }
+
+    private void serveWaiting() {
+        List<PendingAcquire> ready = new ArrayList<>();
+        List<ApiKeyLease> leases = new ArrayList<>();
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = Long.MAX_VALUE;
+            long now = System.nanoTime();
+            while (!waiting.isEmpty()) {
+                PendingAcquire next = waiting.peek();
+                if (next.future.isDone()) {
+                    waiting.poll();
+                    continue;
+                }
+                ApiKeyLease lease = tryAcquire(next.tokens, now);
+                if (lease == null) {
+                    break;
+                }
+                waiting.poll();
+                ready.add(next);
+                leases.add(lease);
+            }
+            if (!waiting.isEmpty()) {
+                scheduleWakeUp(now);
+            }
+        }
+        for (int i = 0; i < ready.size(); i++) {
+            ready.get(i).future.complete(leases.get(i));
+        }
+    }
+
+    /**
+     * A key granted by {@link #acquire}; pass it back to {@link #rateLimited} on a 429.
+     */
+    public record ApiKeyLease(int index, String apiKey) {
+    }
+
+    private record PendingAcquire(int tokens, CompletableFuture<ApiKeyLease> future) {
+    }
+
+    private static final class KeyState {
+        private final int index;
+        private final String apiKey;
+        private final TokenBucket requests;
+        private final TokenBucket tokens;
+        private long blockedUntil = Long.MIN_VALUE;
+        private long lastUsed = Long.MIN_VALUE;
+
+        private KeyState(int index, String apiKey, TokenBucket requests, TokenBucket tokens) {
+            this.index = index;
+            this.apiKey = apiKey;
+            this.requests = requests;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * A bucket holding up to one minute of budget, refilled continuously. Not thread-safe.
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double perNano;
+        private double available;
+        private long refilledAt;
+
+        private TokenBucket(int perMinute, long now) {
+            this.capacity = perMinute;
+            this.perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.available = perMinute;
+            this.refilledAt = now;
+        }
+
+        private boolean unlimited() {
+            return capacity <= 0;
+        }
+
+        private void refill(long now) {
+            if (unlimited() || now <= refilledAt) {
+                return;
+            }
+            available = Math.min(capacity, available + (now - refilledAt) * perNano);
+            refilledAt = now;
+        }
+
+        private double cost(int amount) {
+            return Math.min(amount, capacity);
+        }
+
+        private boolean canTake(int amount) {
+            return unlimited() || available >= cost(amount);
+        }
+
+        private void take(int amount) {
+            if (!unlimited()) {
+                available -= cost(amount);
+            }
+        }
+
+        private void drain(long now) {
+            if (!unlimited()) {
+                available = 0;
+                refilledAt = now;
+            }
+        }
+
+        private double remainingFraction() {
+            return unlimited() ? 1.0 : available / capacity;
+        }
+
+        private long availableAt(int amount, long now) {
+            if (unlimited()) {
+                return now;
+            }
+            refill(now);
+            double missing = cost(amount) - available;
+            return missing <= 0 ? now : now + (long) Math.ceil(missing / perNano);
+        }
+    }
+}
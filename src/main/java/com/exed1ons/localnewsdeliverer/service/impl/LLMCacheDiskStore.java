@@ -0,0 +1,40 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.store.JsonLinesStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+
+/**
+ * Disk tier of the LLM cache: a {@link JsonLinesStore} of {@link LLMCacheRecord}s indexed by the
+ * first 64 bits of their key, from which records older than the TTL are dropped on compaction.
+ */
+class LLMCacheDiskStore extends JsonLinesStore<LLMCacheRecord> {
+
+    private final long ttlMillis;
+
+    LLMCacheDiskStore(ObjectMapper objectMapper, Path path, int maxRecords, long ttlMillis) {
+        super(objectMapper, path, LLMCacheRecord.class, maxRecords, "LLM cache");
+        this.ttlMillis = ttlMillis;
+    }
+
+    @Override
+    protected String keyOf(LLMCacheRecord record) {
+        return record.getKey();
+    }
+
+    @Override
+    protected long hash(String key) {
+        return Long.parseUnsignedLong(key.substring(0, 16), 16);
+    }
+
+    @Override
+    protected long timestampOf(LLMCacheRecord record) {
+        return record.getCreatedAt();
+    }
+
+    @Override
+    protected boolean isLive(LLMCacheRecord record, long now) {
+        return now - record.getCreatedAt() < ttlMillis;
+    }
+}
@@ -0,0 +1,22 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Memoized LLM answer. A {@code null} city list means the article was classified as global.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonPropertyOrder({"key", "createdAt", "cityNames"})
+public class LLMCacheRecord {
+    String key;
+    long createdAt;
+    List<String> cityNames;
+}
@@ -1,9 +1,13 @@
 package com.exed1ons.localnewsdeliverer.service.impl;
 
+import com.exed1ons.localnewsdeliverer.data.ingest.StageThreadFactory;
 import com.exed1ons.localnewsdeliverer.service.LLMRequestCityService;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,20 +19,53 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
+/**
+ * Asks the LLM API which cities an article is about.
+ * <p>
+ * A request is chained on the lease of an API key rather than waiting for it, and the HTTP call
+ * then runs on the {@code llm-request} threads, so callers are never blocked by rate limits.
+ * <p>
+ * Every API call is timed as {@code llm.request}, tagged with the index of the key it used and
+ * its outcome, so the 429 rate per key is the rate of {@code outcome=rate_limited}. The time
+ * spent waiting for a key is recorded as {@code llm.key.wait}. Article text and raw responses
+ * are only logged at DEBUG.
+ */
 @Service
-@RequiredArgsConstructor
 public class LLMRequestCityServiceImpl implements LLMRequestCityService {
 
     private static final Logger logger = LoggerFactory.getLogger(LLMRequestCityServiceImpl.class);
 
+    private static final String BATCH_INSTRUCTIONS = """
+
+            You will receive several articles in one message. Each article starts with a line \
+            "### ARTICLE <id>". Apply the instructions above to every article separately and reply \
+            with a single JSON object and nothing else, in the form \
+            {"results": [{"id": <id>, "answer": "<your answer for that article>"}]}, \
+            with exactly one result per article.""";
+    private static final int MAX_TOKENS_PER_ARTICLE = 100;
+
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final LLMApiKeyScheduler apiKeyScheduler;
+    private final Timer keyWaitTimer;
+    private final Timer[][] requestTimers;
+    private final ExecutorService requestExecutor =
+            Executors.newCachedThreadPool(new StageThreadFactory("llm-request"));
 
     @Value("${llm.api.url}")
     private String apiUrl;
@@ -37,17 +74,83 @@ public class LLMRequestCityServiceImpl implements LLMRequestCityService {
     @Value("${llm.model}")
     private String model;
 
-    @Value("#{'${llm.api.keys}'.split(',')}")
-    private List<String> apiKeys;
+    public LLMRequestCityServiceImpl(RestTemplate restTemplate,
+                                     ObjectMapper objectMapper,
+                                     LLMApiKeyScheduler apiKeyScheduler,
+                                     MeterRegistry meterRegistry) {
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.apiKeyScheduler = apiKeyScheduler;
+        this.keyWaitTimer = meterRegistry.timer("llm.key.wait");
+        // Indexed by key index, then by outcome.
+        this.requestTimers = new Timer[apiKeyScheduler.keyCount()][Outcome.values().length];
+        for (int key = 0; key < requestTimers.length; key++) {
+            for (Outcome outcome : Outcome.values()) {
+                requestTimers[key][outcome.ordinal()] = Timer.builder("llm.request")
+                        .description("LLM API calls by key and outcome")
+                        .tag("key", String.valueOf(key))
+                        .tag("outcome", outcome.tag)
+                        .register(meterRegistry);
+            }
+        }
+    }
 
-    private final AtomicInteger apiKeyIndex = new AtomicInteger(0);
+    @Override
+    public CompletableFuture<List<String>> requestCityAsync(String description) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending message to LLM API with description: {}", description);
+        }
+        return sendMessageToLLM(description).thenApply(response -> {
+            logger.debug("Received response from LLM API: {}", response);
+            return parseAnswer(response);
+        });
+    }
 
     @Override
-    public List<String> requestCity(String description) {
-        logger.info("Sending message to LLM API with description: {}", description);
-        String response = sendMessageToLLM(description);
-        logger.info("Received response from LLM API: {}", response);
-        if (!response.equalsIgnoreCase("global")) {
+    public CompletableFuture<List<List<String>>> requestCitiesAsync(List<String> descriptions) {
+        if (descriptions.size() == 1) {
+            return requestCityAsync(descriptions.get(0)).thenApply(Collections::singletonList);
+        }
+
+        logger.debug("Sending batch of {} articles to LLM API", descriptions.size());
+        return sendApiRequest(createBatchRequestEntity(descriptions), MAX_TOKENS_PER_ARTICLE * descriptions.size())
+                .thenApply(this::processApiResponse)
+                .thenCompose(response -> {
+                    logger.debug("Received batch response from LLM API: {}", response);
+                    List<String> answers = parseBatchAnswers(response, descriptions.size());
+                    if (answers == null) {
+                        logger.warn("Malformed batch response from LLM API, falling back to one request per article");
+                        return requestEach(descriptions);
+                    }
+                    List<List<String>> results = new ArrayList<>(answers.size());
+                    for (String answer : answers) {
+                        results.add(parseAnswer(answer));
+                    }
+                    return CompletableFuture.completedFuture(results);
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdownNow();
+    }
+
+    private CompletableFuture<List<List<String>>> requestEach(List<String> descriptions) {
+        List<CompletableFuture<List<String>>> answers = new ArrayList<>(descriptions.size());
+        for (String description : descriptions) {
+            answers.add(requestCityAsync(description));
+        }
+        return CompletableFuture.allOf(answers.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<List<String>> results = new ArrayList<>(answers.size());
+            for (CompletableFuture<List<String>> answer : answers) {
+                results.add(answer.join());
+            }
+            return results;
+        });
+    }
+
+    private List<String> parseAnswer(String response) {
+        if (!response.trim().equalsIgnoreCase("global")) {
             return Stream.of(response.split(";"))
                     .map(String::trim)
                     .toList();
@@ -55,86 +158,158 @@ public class LLMRequestCityServiceImpl implements LLMRequestCityService {
         return null;
     }
 
-    public String sendMessageToLLM(String description) {
-        logger.info("Creating request entity to send to LLM API.");
+    private List<String> parseBatchAnswers(String response, int expected) {
+        String json = response.trim();
+        int start = json.indexOf('{');
+        int end = json.lastIndexOf('}');
+        if (start < 0 || end < start) {
+            return null;
+        }
+        try {
+            JsonNode results = objectMapper.readTree(json.substring(start, end + 1)).get("results");
+            if (results == null || !results.isArray()) {
+                return null;
+            }
+            Map<Integer, String> answersById = new HashMap<>();
+            for (JsonNode result : results) {
+                JsonNode id = result.get("id");
+                JsonNode answer = result.get("answer");
+                if (id == null || !id.canConvertToInt() || answer == null || !answer.isTextual()) {
+                    return null;
+                }
+                answersById.put(id.asInt(), answer.asText());
+            }
+            List<String> answers = new ArrayList<>(expected);
+            for (int id = 1; id <= expected; id++) {
+                String answer = answersById.get(id);
+                if (answer == null) {
+                    return null;
+                }
+                answers.add(answer);
+            }
+            return answers;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    public CompletableFuture<String> sendMessageToLLM(String description) {
+        logger.debug("Creating request entity to send to LLM API.");
         HttpEntity<String> request = createRequestEntity(description);
 
-        logger.info("Sending request to LLM API at {}", apiUrl);
-        return processApiResponse(sendApiRequest(request));
+        logger.debug("Sending request to LLM API at {}", apiUrl);
+        return sendApiRequest(request, MAX_TOKENS_PER_ARTICLE).thenApply(this::processApiResponse);
     }
 
     private HttpEntity<String> createRequestEntity(String description) {
-        logger.info("Building the JSON payload for the request.");
+        logger.debug("Building the JSON payload for the request.");
+        return createRequestEntity(systemPrompt, description, MAX_TOKENS_PER_ARTICLE);
+    }
+
+    private HttpEntity<String> createBatchRequestEntity(List<String> descriptions) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < descriptions.size(); i++) {
+            content.append("### ARTICLE ").append(i + 1).append('\n')
+                    .append(descriptions.get(i)).append("\n\n");
+        }
+        return createRequestEntity(systemPrompt + BATCH_INSTRUCTIONS, content.toString(),
+                MAX_TOKENS_PER_ARTICLE * descriptions.size());
+    }
+
+    private HttpEntity<String> createRequestEntity(String instructions, String content, int maxTokens) {
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Type", "application/json; charset=utf-8");
 
         List<Map<String, String>> messages = new ArrayList<>();
-        messages.add(Map.of("role", "system", "content", systemPrompt));
-        messages.add(Map.of("role", "user", "content", description));
+        messages.add(Map.of("role", "system", "content", instructions));
+        messages.add(Map.of("role", "user", "content", content));
 
         Map<String, Object> requestBody = Map.of(
                 "model", model,
                 "messages", messages,
-                "max_tokens", 100
+                "max_tokens", maxTokens
         );
 
         try {
-            logger.debug("Serialized request body: {}", objectMapper.writeValueAsString(requestBody));
-            return new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+            String body = objectMapper.writeValueAsString(requestBody);
+            logger.debug("Serialized request body: {}", body);
+            return new HttpEntity<>(body, headers);
         } catch (JsonProcessingException e) {
             logger.error("Failed to serialize request body", e);
             throw new RuntimeException("Error creating JSON request body", e);
         }
     }
 
-    private ResponseEntity<String> sendApiRequest(HttpEntity<String> originalRequest) {
-        int attempts = 0;
-        int retryAfterAllKeysExhausted = 60_000;
-        int maxRetriesPerKey = 3;
+    private CompletableFuture<ResponseEntity<String>> sendApiRequest(HttpEntity<String> originalRequest, int maxTokens) {
+        return sendWithApiKey(originalRequest, originalRequest.getBody().length() / 4 + maxTokens);
+    }
 
-        while (true) {
+    /**
+     * Sends the request once a key with enough budget is leased. After a 429 the key is put
+     * aside and the request is chained on a new lease.
+     */
+    private CompletableFuture<ResponseEntity<String>> sendWithApiKey(HttpEntity<String> originalRequest,
+                                                                     int estimatedTokens) {
+        long waitStart = System.nanoTime();
+        return apiKeyScheduler.acquire(estimatedTokens).thenComposeAsync(lease -> {
+            keyWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            long start = System.nanoTime();
             try {
-                String currentApiKey = apiKeys.get(apiKeyIndex.get());
-
                 HttpHeaders updatedHeaders = new HttpHeaders();
                 updatedHeaders.addAll(originalRequest.getHeaders());
-                updatedHeaders.set("Authorization", "Bearer " + currentApiKey);
+                updatedHeaders.set("Authorization", "Bearer " + lease.apiKey());
 
                 HttpEntity<String> updatedRequest = new HttpEntity<>(originalRequest.getBody(), updatedHeaders);
 
-                logger.info("Executing API request to LLM using API key index {}", apiKeyIndex.get());
-                return restTemplate.exchange(apiUrl, HttpMethod.POST, updatedRequest, String.class);
+                logger.debug("Executing API request to LLM using API key index {}", lease.index());
+                ResponseEntity<String> response = restTemplate.exchange(apiUrl, HttpMethod.POST, updatedRequest, String.class);
+                recordRequest(lease, Outcome.SUCCESS, start);
+                return CompletableFuture.completedFuture(response);
             } catch (HttpClientErrorException.TooManyRequests e) {
-                logger.warn("Rate limit reached for API key at index {}, attempt {}. Switching to next key...", apiKeyIndex.get(), attempts + 1);
-                apiKeyIndex.set((apiKeyIndex.get() + 1) % apiKeys.size());
-                attempts++;
-
-                if (attempts >= maxRetriesPerKey * apiKeys.size()) {
-                    logger.warn("All API keys exhausted. Waiting for {} seconds before retrying...", retryAfterAllKeysExhausted / 1000);
-                    try {
-                        Thread.sleep(retryAfterAllKeysExhausted);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Thread interrupted while waiting", ie);
-                    }
-                    attempts = 0;
-                }
+                recordRequest(lease, Outcome.RATE_LIMITED, start);
+                apiKeyScheduler.rateLimited(lease, parseRetryAfter(e.getResponseHeaders()));
+                return sendWithApiKey(originalRequest, estimatedTokens);
             } catch (HttpClientErrorException.BadRequest e) {
-                logger.error("Bad request sent to API: {}. Payload: {}", e.getResponseBodyAsString(), e.getResponseBodyAsString());
-                throw new RuntimeException("Bad request sent to API", e);
+                recordRequest(lease, Outcome.BAD_REQUEST, start);
+                logger.error("Bad request sent to API: {}", e.getResponseBodyAsString());
+                return CompletableFuture.failedFuture(new RuntimeException("Bad request sent to API", e));
             } catch (Exception e) {
+                recordRequest(lease, Outcome.ERROR, start);
                 logger.error("Exception occurred during API request: {}", e.getMessage(), e);
-                throw new RuntimeException("API request failed", e);
+                return CompletableFuture.failedFuture(new RuntimeException("API request failed", e));
+            }
+        }, requestExecutor);
+    }
+
+    private void recordRequest(LLMApiKeyScheduler.ApiKeyLease lease, Outcome outcome, long start) {
+        requestTimers[lease.index()][outcome.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Duration parseRetryAfter(HttpHeaders headers) {
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration wait = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (DateTimeParseException ignored) {
+                logger.warn("Ignoring unparseable Retry-After header: {}", retryAfter);
+                return null;
             }
         }
     }
 
     private String processApiResponse(ResponseEntity<String> response) {
-        logger.info("Processing the API response.");
+        logger.debug("Processing the API response.");
         try {
             Map<String, Object> responseBody = objectMapper.readValue(response.getBody(), Map.class);
             String assistantMessage = extractMessageFromResponse(responseBody);
-            logger.info("Successfully extracted message from API response.");
+            logger.debug("Successfully extracted message from API response.");
             return assistantMessage;
         } catch (JsonProcessingException e) {
             logger.error("Failed to parse API response", e);
@@ -161,4 +336,17 @@ public class LLMRequestCityServiceImpl implements LLMRequestCityService {
 
         return (String) message.get("content");
     }
+
+    private enum Outcome {
+        SUCCESS("success"),
+        RATE_LIMITED("rate_limited"),
+        BAD_REQUEST("bad_request"),
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+    }
 }
@@ -0,0 +1,240 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.cache.ContentHash;
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.service.LLMRequestCityService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes LLM city answers by article content so syndicated copies of the same story are
+ * classified once.
+ * <p>
+ * The key is a SHA-256 hash of the model, a hash of the system prompt and the article body
+ * reduced to lower-case words. Bodies that differ only in case, punctuation or whitespace
+ * share one answer, and changing the model or prompt starts a fresh cache. Answers are held in
+ * a bounded LRU map, optionally backed by an append-only file that is compacted to at most
+ * {@code llm.cache.disk.max-entries} records, and both tiers honour the same TTL.
+ * Identical bodies classified at the same time share the future of a single request.
+ */
+@Service
+@Primary
+public class MemoizingLLMRequestCityService implements LLMRequestCityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoizingLLMRequestCityService.class);
+
+    private final LLMRequestCityService delegate;
+    private final String keyPrefix;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LLMCacheDiskStore diskStore;
+
+    private final Map<String, LLMCacheRecord> memory;
+    private final Map<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public MemoizingLLMRequestCityService(BatchingLLMRequestCityService delegate,
+                                          ObjectMapper objectMapper,
+                                          @Value("${llm.model}") String model,
+                                          @Value("${llm.system.prompt}") String systemPrompt,
+                                          @Value("${llm.cache.max-entries:10000}") int maxEntries,
+                                          @Value("${llm.cache.ttl:30d}") Duration ttl,
+                                          @Value("${llm.cache.path:}") String path,
+                                          @Value("${llm.cache.disk.max-entries:100000}") int maxDiskEntries) {
+        this.delegate = delegate;
+        this.keyPrefix = model + '\n' + ContentHash.sha256(systemPrompt) + '\n';
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttl.toMillis();
+        this.diskStore = path == null || path.isBlank()
+                ? null
+                : new LLMCacheDiskStore(objectMapper, Path.of(path), maxDiskEntries, ttlMillis);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LLMCacheRecord> eldest) {
+                return size() > MemoizingLLMRequestCityService.this.maxEntries;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void open() {
+        if (diskStore == null) {
+            return;
+        }
+        try {
+            diskStore.open();
+        } catch (IOException e) {
+            logger.error("Error while opening LLM cache, continuing without disk tier: {}", e.getMessage());
+            diskStore.close();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (diskStore != null) {
+            diskStore.close();
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<String>> requestCityAsync(String description) {
+        String key = keyOf(description);
+        LLMCacheRecord cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.getCityNames());
+        }
+
+        CompletableFuture<List<String>> mine = new CompletableFuture<>();
+        CompletableFuture<List<String>> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            memoryHits.incrementAndGet();
+            return running;
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<List<String>> answer;
+        try {
+            answer = delegate.requestCityAsync(description);
+        } catch (RuntimeException e) {
+            answer = CompletableFuture.failedFuture(e);
+        }
+        answer.whenComplete((cityNames, error) -> {
+            if (error == null) {
+                store(key, cityNames);
+            }
+            inFlight.remove(key, mine);
+            if (error == null) {
+                mine.complete(cityNames);
+            } else {
+                mine.completeExceptionally(error);
+            }
+        });
+        return mine;
+    }
+
+    @Override
+    public CompletableFuture<List<List<String>>> requestCitiesAsync(List<String> descriptions) {
+        List<List<String>> results = new ArrayList<>(descriptions.size());
+        List<String> missingKeys = new ArrayList<>();
+        List<String> missingDescriptions = new ArrayList<>();
+        List<Integer> missingPositions = new ArrayList<>();
+        for (int i = 0; i < descriptions.size(); i++) {
+            String key = keyOf(descriptions.get(i));
+            LLMCacheRecord cached = lookup(key);
+            results.add(cached != null ? cached.getCityNames() : null);
+            if (cached == null) {
+                misses.incrementAndGet();
+                missingKeys.add(key);
+                missingDescriptions.add(descriptions.get(i));
+                missingPositions.add(i);
+            }
+        }
+        if (missingDescriptions.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+        return delegate.requestCitiesAsync(missingDescriptions).thenApply(answers -> {
+            for (int i = 0; i < answers.size(); i++) {
+                store(missingKeys.get(i), answers.get(i));
+                results.set(missingPositions.get(i), answers.get(i));
+            }
+            return results;
+        });
+    }
+
+    public CacheStatistics getStatistics() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        long size;
+        synchronized (memory) {
+            size = memory.size();
+        }
+        return CacheStatistics.builder()
+                .name("llm-city")
+                .hits(hits)
+                .misses(misses.get())
+                .size(diskStore != null ? Math.max(size, diskStore.size()) : size)
+                .hitRatio(total == 0 ? 0.0 : (double) hits / total)
+                .build();
+    }
+
+    private LLMCacheRecord lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            LLMCacheRecord record = memory.get(key);
+            if (record != null) {
+                if (now - record.getCreatedAt() < ttlMillis) {
+                    memoryHits.incrementAndGet();
+                    return record;
+                }
+                memory.remove(key);
+            }
+        }
+        if (diskStore != null) {
+            LLMCacheRecord record = diskStore.get(key);
+            if (record != null && now - record.getCreatedAt() < ttlMillis) {
+                diskHits.incrementAndGet();
+                synchronized (memory) {
+                    memory.put(key, record);
+                }
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private void store(String key, List<String> cityNames) {
+        LLMCacheRecord record = LLMCacheRecord.builder()
+                .key(key)
+                .createdAt(System.currentTimeMillis())
+                .cityNames(cityNames)
+                .build();
+        synchronized (memory) {
+            memory.put(key, record);
+        }
+        if (diskStore != null) {
+            diskStore.put(record);
+        }
+    }
+
+    private String keyOf(String description) {
+        return ContentHash.sha256(keyPrefix + normalize(description));
+    }
+
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,13 +1,16 @@
 package com.exed1ons.localnewsdeliverer.service.impl;
 
+import com.exed1ons.localnewsdeliverer.data.DataSnapshot;
 import com.exed1ons.localnewsdeliverer.data.DataStore;
+import com.exed1ons.localnewsdeliverer.data.index.CityTable;
 import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
+import com.exed1ons.localnewsdeliverer.domain.LoadStatus;
 import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
 import com.exed1ons.localnewsdeliverer.service.*;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class NewsArticleServiceImpl implements NewsArticleService {
@@ -16,7 +19,6 @@ public class NewsArticleServiceImpl implements NewsArticleService {
 
     public NewsArticleServiceImpl(DataStore dataStore) {
         this.dataStore = dataStore;
-        dataStore.init();
     }
 
     @Override
@@ -29,25 +31,94 @@ public class NewsArticleServiceImpl implements NewsArticleService {
         return dataStore.getCities();
     }
 
-    public List<City> searchCities(String name) {
-        List<City> allCities = dataStore.getCities();
+    @Override
+    public ItemPage<NewsArticle> getNewsArticles(int offset, int limit) {
+        return page(dataStore.getNewsArticles(), offset, limit);
+    }
+
+    @Override
+    public ItemPage<City> getCities(int offset, int limit) {
+        return page(dataStore.getCities(), offset, limit);
+    }
+
+    @Override
+    public LoadStatus getLoadStatus() {
+        return dataStore.getLoadStatus();
+    }
+
+    @Override
+    public long getDataVersion() {
+        return dataStore.getSnapshot().getVersion();
+    }
 
-        return allCities.stream()
-                .filter(city -> name == null || city.getName().toLowerCase().contains(name.toLowerCase()) ||
-                        city.getStateName().toLowerCase().contains(name.toLowerCase()))
-                .collect(Collectors.toList());
+    public List<City> searchCities(String name, int limit) {
+        return dataStore.getCitySearchIndex().search(name, limit);
     }
 
     public List<NewsArticle> searchNewsByCity(String cityName, String stateName, boolean includeGlobalNews) {
-        List<NewsArticle> allArticles = dataStore.getNewsArticles();
-
-        return allArticles.stream()
-                .filter(article ->
-                        article.getCities().stream().anyMatch(city ->
-                                city.getName().equalsIgnoreCase(cityName) &&
-                                        city.getStateName().equalsIgnoreCase(stateName)
-                        ) || (includeGlobalNews && !article.isLocal())
-                )
-                .collect(Collectors.toList());
+        DataSnapshot snapshot = dataStore.getSnapshot();
+        int[] cityOrdinals = snapshot.getCityIndex().findOrdinalsByNameAndStateName(cityName, stateName);
+        int[] positions = snapshot.getArticleCityIndex().search(cityOrdinals, includeGlobalNews);
+        return snapshot.articlesAt(positions);
+    }
+
+    /**
+     * Returns the articles linked to the {@code nearest} cities closest to the point, or, when
+     * {@code nearest} is {@code null}, to all cities within {@code radiusKm} of it.
+     */
+    public List<NewsArticle> searchNewsNearby(double latitude, double longitude, double radiusKm, Integer nearest,
+                                              boolean includeGlobalNews) {
+        return searchNearby(dataStore.getSnapshot(), latitude, longitude, radiusKm, nearest, includeGlobalNews);
+    }
+
+    /**
+     * Like {@link #searchNewsNearby}, around the first city with coordinates that matches the
+     * name and state. Returns an empty list if there is no such city.
+     */
+    public List<NewsArticle> searchNewsNearCity(String cityName, String stateName, double radiusKm, Integer nearest,
+                                                boolean includeGlobalNews) {
+        DataSnapshot snapshot = dataStore.getSnapshot();
+        CityTable table = snapshot.getCityIndex().getTable();
+        for (int ordinal : snapshot.getCityIndex().findOrdinalsByNameAndStateName(cityName, stateName)) {
+            if (table.hasCoordinates(ordinal)) {
+                return searchNearby(snapshot, table.latitude(ordinal), table.longitude(ordinal), radiusKm, nearest,
+                        includeGlobalNews);
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Returns the {@code limit} articles that best match {@code query}, best first. When a city
+     * is given, only its articles and, with {@code includeGlobalNews}, the non-local ones are
+     * considered.
+     */
+    public List<NewsArticle> queryNews(String query, String cityName, String stateName, boolean includeGlobalNews,
+                                       int limit) {
+        DataSnapshot snapshot = dataStore.getSnapshot();
+        int[] filter = null;
+        if (cityName != null && stateName != null) {
+            int[] cityOrdinals = snapshot.getCityIndex().findOrdinalsByNameAndStateName(cityName, stateName);
+            filter = snapshot.getArticleCityIndex().search(cityOrdinals, includeGlobalNews);
+        }
+        return snapshot.articlesAt(snapshot.getArticleTextIndex().search(query, filter, limit));
+    }
+
+    private static List<NewsArticle> searchNearby(DataSnapshot snapshot, double latitude, double longitude,
+                                                  double radiusKm, Integer nearest, boolean includeGlobalNews) {
+        int[] cityOrdinals = nearest != null
+                ? snapshot.getCityGeoIndex().nearest(latitude, longitude, nearest)
+                : snapshot.getCityGeoIndex().withinRadius(latitude, longitude, radiusKm);
+        int[] positions = snapshot.getArticleCityIndex().search(cityOrdinals, includeGlobalNews);
+        return snapshot.articlesAt(positions);
+    }
+
+    private static <T> ItemPage<T> page(List<T> items, int offset, int limit) {
+        int from = Math.min(offset, items.size());
+        int to = (int) Math.min((long) from + limit, items.size());
+        return ItemPage.<T>builder()
+                .items(items.subList(from, to))
+                .nextOffset(to < items.size() ? to : null)
+                .build();
     }
 }
@@ -0,0 +1,168 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.cache.ContentHash;
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.domain.CachedResponse;
+import com.exed1ons.localnewsdeliverer.service.ResponseCacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps serialized API responses between data reloads.
+ * <p>
+ * Entries belong to one data store version. The first request that sees a newer version
+ * replaces the whole generation, so nothing is invalidated piece by piece and a response is
+ * never served for data it was not built from. Within a generation, entries are evicted in LRU
+ * order once their bodies exceed {@code api.response-cache.max-size}; full listings and hot
+ * searches stay, one-off queries fall out. Bodies of at least {@code api.response-cache.gzip-min-size}
+ * are also kept gzip-compressed so that compressed responses cost no work per request.
+ * ETags are derived from the body bytes and are therefore strong and stable across restarts.
+ * <p>
+ * A hit takes no lock: it is a concurrent map lookup plus a timestamp and counter update.
+ * Only requests that store a response touch the LRU order, evicting the least recently used
+ * entries down to seven eighths of the limit so that the scan is not repeated on every store.
+ */
+@Service
+public class ResponseCacheServiceImpl implements ResponseCacheService {
+
+    private final long maxBytes;
+    private final int gzipMinSize;
+
+    private final AtomicReference<Generation> generation = new AtomicReference<>(new Generation(-1));
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseCacheServiceImpl(@Value("${api.response-cache.max-size:64MB}") DataSize maxSize,
+                                    @Value("${api.response-cache.gzip-min-size:1KB}") DataSize gzipMinSize) {
+        this.maxBytes = maxSize.toBytes();
+        this.gzipMinSize = (int) Math.min(Integer.MAX_VALUE, gzipMinSize.toBytes());
+    }
+
+    @Override
+    public CachedResponse get(String key, long version, Supplier<CachedResponse> loader) {
+        Generation current = generation.updateAndGet(g -> version > g.version ? new Generation(version) : g);
+        if (current.version == version) {
+            Entry cached = current.entries.get(key);
+            if (cached != null) {
+                cached.lastUsed = System.nanoTime();
+                hits.increment();
+                return cached.response;
+            }
+        }
+        misses.increment();
+
+        CachedResponse response = prepare(loader.get());
+        long size = sizeOf(response);
+        if (current.version != version || size > maxBytes) {
+            return response;
+        }
+        Entry previous = current.entries.put(key, new Entry(response, size));
+        long bytes = current.bytes.addAndGet(size - (previous != null ? previous.size : 0));
+        if (bytes > maxBytes) {
+            current.evictTo(maxBytes - maxBytes / 8);
+        }
+        return response;
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return CacheStatistics.builder()
+                .name("api-response")
+                .hits(hitCount)
+                .misses(missCount)
+                .size(generation.get().entries.size())
+                .hitRatio(total == 0 ? 0.0 : (double) hitCount / total)
+                .build();
+    }
+
+    private CachedResponse prepare(CachedResponse response) {
+        byte[] body = response.getBody();
+        response.setEtag(ContentHash.sha256(body).substring(0, 32));
+        if (body.length >= gzipMinSize) {
+            response.setGzipBody(gzip(body));
+        }
+        return response;
+    }
+
+    private static long sizeOf(CachedResponse response) {
+        return response.getBody().length + (response.getGzipBody() != null ? response.getGzipBody().length : 0);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * The responses of one data version. The version never changes; a newer one gets a new
+     * generation.
+     */
+    private static final class Generation {
+        private final long version;
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private Generation(long version) {
+            this.version = version;
+        }
+
+        /**
+         * Removes the least recently used entries until their bodies fit in {@code target}
+         * bytes. Stores that overflow at the same time wait here, and find little left to do.
+         */
+        private synchronized void evictTo(long target) {
+            if (bytes.get() <= target) {
+                return;
+            }
+            // Hits keep updating the timestamps, so the order is taken from a copy of them.
+            List<Candidate> byAge = new ArrayList<>(entries.size());
+            entries.forEach((key, entry) -> byAge.add(new Candidate(key, entry, entry.lastUsed)));
+            byAge.sort(Comparator.comparingLong(Candidate::lastUsed));
+            for (Candidate eldest : byAge) {
+                if (bytes.get() <= target) {
+                    break;
+                }
+                if (entries.remove(eldest.key(), eldest.entry())) {
+                    bytes.addAndGet(-eldest.entry().size);
+                }
+            }
+        }
+    }
+
+    private record Candidate(String key, Entry entry, long lastUsed) {
+    }
+
+    private static final class Entry {
+        private final CachedResponse response;
+        private final long size;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(CachedResponse response, long size) {
+            this.response = response;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.exed1ons.localnewsdeliverer.controller;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import com.exed1ons.localnewsdeliverer.service.NewsArticleService;
+import com.exed1ons.localnewsdeliverer.service.impl.ResponseCacheServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CityControllerTest {
+
+    private final NewsArticleService newsArticleService = mock(NewsArticleService.class);
+    private final CityController controller = new CityController(newsArticleService, null);
+
+    @Test
+    void searchesCitiesWithTheGivenLimitOrAllMatches() {
+        List<City> cities = List.of(City.builder().id(1L).name("Portland").build());
+        when(newsArticleService.searchCities("port", 5)).thenReturn(cities);
+
+        assertThat(controller.searchCities("port", 5).getBody()).isEqualTo(cities);
+        controller.searchCities("port", null);
+        verify(newsArticleService).searchCities("port", Integer.MAX_VALUE);
+    }
+
+    @Test
+    void rejectsANonPositiveSearchLimit() {
+        for (int limit : new int[]{0, -3}) {
+            assertThatThrownBy(() -> controller.searchCities("port", limit))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+        verifyNoInteractions(newsArticleService);
+    }
+
+    @Test
+    void rejectsNearbySearchesWithoutAValidPlaceOrRange() {
+        assertBadRequest(() -> controller.getNearbyNews(null, null, null, null, 50, null, false, null));
+        assertBadRequest(() -> controller.getNearbyNews(30.0, null, "Austin", null, 50, null, false, null));
+        assertBadRequest(() -> controller.getNearbyNews(91.0, 0.0, null, null, 50, null, false, null));
+        assertBadRequest(() -> controller.getNearbyNews(30.0, -97.0, null, null, 0, null, false, null));
+        assertBadRequest(() -> controller.getNearbyNews(30.0, -97.0, null, null, 50, 0, false, null));
+        verifyNoInteractions(newsArticleService);
+    }
+
+    @Test
+    void rejectsQueriesWithAnUnpairedCityOrAnOutOfRangeLimit() {
+        assertBadRequest(() -> controller.queryNews("storm", "Austin", null, false, null, null));
+        assertBadRequest(() -> controller.queryNews("storm", null, null, false, 0, null));
+        assertBadRequest(() -> controller.queryNews("storm", null, null, false, 101, null));
+        verifyNoInteractions(newsArticleService);
+    }
+
+    @Test
+    void answersRepeatRequestsWithNotModifiedWhileTheETagMatches() throws Exception {
+        ItemResponseWriter writer = new ItemResponseWriter(new ObjectMapper(),
+                new ResponseCacheServiceImpl(DataSize.ofMegabytes(1), DataSize.ofKilobytes(1)));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new CityController(newsArticleService, writer)).build();
+        when(newsArticleService.getDataVersion()).thenReturn(1L);
+        when(newsArticleService.getNewsArticles(0, Integer.MAX_VALUE)).thenReturn(ItemPage.<NewsArticle>builder()
+                .items(List.of(NewsArticle.builder().title("One").url("http://example.com/1").build()))
+                .build());
+
+        String etag = mvc.perform(get("/news").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"title\":\"One\"}]", true))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"");
+
+        mvc.perform(get("/news").param("fields", "title").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(newsArticleService, times(1)).getNewsArticles(0, Integer.MAX_VALUE);
+
+        when(newsArticleService.getDataVersion()).thenReturn(2L);
+        when(newsArticleService.getNewsArticles(0, Integer.MAX_VALUE)).thenReturn(ItemPage.<NewsArticle>builder()
+                .items(List.of(NewsArticle.builder().title("Two").url("http://example.com/2").build()))
+                .build());
+        mvc.perform(get("/news").param("fields", "title").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"title\":\"Two\"}]", true));
+    }
+
+    private static void assertBadRequest(ThrowingCallable call) {
+        assertThatThrownBy(call).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,111 @@
+package com.exed1ons.localnewsdeliverer.controller;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import com.exed1ons.localnewsdeliverer.service.impl.ResponseCacheServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemResponseWriterTest {
+
+    private static final List<NewsArticle> ARTICLES = List.of(
+            NewsArticle.builder().title("One").url("http://example.com/1").isLocal(true)
+                    .cities(List.of(City.builder().id(1L).name("Chicago").stateCode("IL").build())).build(),
+            NewsArticle.builder().title("Two").url("http://example.com/2").build());
+
+    private final ItemResponseWriter writer = new ItemResponseWriter(new ObjectMapper(),
+            new ResponseCacheServiceImpl(DataSize.ofMegabytes(1), DataSize.ofBytes(64)));
+
+    @Test
+    void streamsOneProjectedItemPerLineWithTheNextCursor() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = writer.ndjson(
+                ItemPage.<NewsArticle>builder().items(ARTICLES).nextOffset(2).build(), NewsArticle.class, "title, url");
+
+        assertThat(response.getHeaders().getContentType()).hasToString(ItemResponseWriter.NDJSON_VALUE);
+        assertThat(response.getHeaders().getFirst(ItemResponseWriter.NEXT_CURSOR_HEADER))
+                .isEqualTo(PageCursor.encode(2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"title":"One","url":"http://example.com/1"}
+                {"title":"Two","url":"http://example.com/2"}
+                """);
+    }
+
+    @Test
+    void rejectsUnknownFields() {
+        ItemPage<City> page = ItemPage.<City>builder().items(List.of()).build();
+
+        assertThatThrownBy(() -> writer.ndjson(page, City.class, "name,secret"))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    @Test
+    void buildsAJsonArrayOncePerVersionAndRequest() {
+        AtomicInteger builds = new AtomicInteger();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/news");
+        request.setQueryString("limit=1&fields=url");
+
+        ResponseEntity<byte[]> first = writer.cachedJson(request, 1, () -> {
+            builds.incrementAndGet();
+            return ItemPage.<NewsArticle>builder().items(ARTICLES.subList(0, 1)).nextOffset(1).build();
+        }, NewsArticle.class, "url");
+        ResponseEntity<byte[]> second = writer.cachedJson(request, 1, () -> {
+            throw new AssertionError("served from the cache");
+        }, NewsArticle.class, "url");
+
+        assertThat(new String(first.getBody(), StandardCharsets.UTF_8)).isEqualTo("[{\"url\":\"http://example.com/1\"}]");
+        assertThat(first.getHeaders().getFirst(ItemResponseWriter.NEXT_CURSOR_HEADER)).isEqualTo(PageCursor.encode(1));
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag()).isNotBlank();
+        assertThat(builds).hasValue(1);
+
+        writer.cachedJson(request, 2, () -> {
+            builds.incrementAndGet();
+            return ItemPage.<NewsArticle>builder().items(ARTICLES).build();
+        }, NewsArticle.class, "url");
+        assertThat(builds).hasValue(2);
+    }
+
+    @Test
+    void servesTheGzipBodyWhenTheClientAcceptsIt() throws IOException {
+        ItemPage<NewsArticle> page = ItemPage.<NewsArticle>builder().items(ARTICLES).build();
+        MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/news");
+        MockHttpServletRequest compressed = new MockHttpServletRequest("GET", "/news");
+        compressed.addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+        MockHttpServletRequest refused = new MockHttpServletRequest("GET", "/news");
+        refused.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+
+        ResponseEntity<byte[]> identity = writer.cachedJson(plain, 1, () -> page, NewsArticle.class, null);
+        ResponseEntity<byte[]> gzip = writer.cachedJson(compressed, 1, () -> page, NewsArticle.class, null);
+
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getETag()).isNotEqualTo(identity.getHeaders().getETag());
+        assertThat(gzip.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertThat(in.readAllBytes()).isEqualTo(identity.getBody());
+        }
+        assertThat(writer.cachedJson(refused, 1, () -> page, NewsArticle.class, null).getHeaders()
+                .getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+}
@@ -0,0 +1,42 @@
+package com.exed1ons.localnewsdeliverer.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void roundTripsOffsets() {
+        for (int offset : new int[]{0, 1, 20, Integer.MAX_VALUE}) {
+            String cursor = PageCursor.encode(offset);
+            assertThat(cursor).doesNotContain("=", "+", "/");
+            assertThat(PageCursor.decode(cursor)).isEqualTo(offset);
+        }
+    }
+
+    @Test
+    void startsAtTheBeginningWithoutACursor() {
+        assertThat(PageCursor.decode(null)).isZero();
+        assertThat(PageCursor.decode("")).isZero();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String cursor : new String[]{"not base64!", encoded("p:-1"), encoded("x:5"), encoded("p:abc"), encoded("p:")}) {
+            assertThatThrownBy(() -> PageCursor.decode(cursor))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+    }
+
+    private static String encoded(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,66 @@
+package com.exed1ons.localnewsdeliverer.data;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CityCSVReaderImplTest {
+
+    @TempDir
+    Path dir;
+
+    private final CityCSVReaderImpl reader = new CityCSVReaderImpl();
+
+    @Test
+    void readsTheUsedColumnsInAnyOrder() throws IOException {
+        Path file = Files.writeString(dir.resolve("cities.csv"), "\"city\",\"state_id\",\"state_name\",\"lat\",\"lng\",\"population\",\"id\"\n"
+                + "\"Winston-Salem, North\",\"NC\",\"North Carolina\",\"36.1\",\"-80.2\",\"250765\",\"1840015324\"\n"
+                + "\n"
+                + "\"Nowhere\",\"NV\",\"Nevada\",\"\",\"\",\"\",\"1840000001\"\n");
+
+        List<City> cities = reader.readCities(file.toString());
+
+        assertThat(cities).containsExactly(
+                City.builder().id(1840015324L).name("Winston-Salem, North").stateCode("NC")
+                        .stateName("North Carolina").population(250765L).latitude(36.1).longitude(-80.2).build(),
+                City.builder().id(1840000001L).name("Nowhere").stateCode("NV").stateName("Nevada").build());
+    }
+
+    @Test
+    void skipsRowsWithoutAValidIdAndDropsInvalidCoordinates() throws IOException {
+        Path file = Files.writeString(dir.resolve("cities.csv"), "id,city,state_name,state_id,lat,lng\n"
+                + ",No id,Texas,TX,30,-97\n"
+                + "abc,Bad id,Texas,TX,30,-97\n"
+                + "7,Austin,Texas,TX,95,-97\n");
+
+        List<City> cities = reader.readCities(file.toString());
+
+        assertThat(cities).containsExactly(
+                City.builder().id(7L).name("Austin").stateName("Texas").stateCode("TX").build());
+    }
+
+    @Test
+    void failsClearlyWhenARequiredColumnIsMissing() throws IOException {
+        Path file = Files.writeString(dir.resolve("cities.csv"), "id,city,state_name\n1,Austin,Texas\n");
+
+        assertThatThrownBy(() -> reader.readCities(file.toString()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("state_id");
+    }
+
+    @Test
+    void returnsNoCitiesForAnEmptyOrMissingFile() throws IOException {
+        Path empty = Files.writeString(dir.resolve("empty.csv"), "");
+
+        assertThat(reader.readCities(empty.toString())).isEmpty();
+        assertThat(reader.readCities(dir.resolve("missing.csv").toString())).isEmpty();
+    }
+}
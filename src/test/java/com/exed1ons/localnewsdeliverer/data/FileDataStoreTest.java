@@ -0,0 +1,212 @@
+package com.exed1ons.localnewsdeliverer.data;
+
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionCheckpointStore;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionListener;
+import com.exed1ons.localnewsdeliverer.data.ingest.NearDuplicateIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.SimHash;
+import com.exed1ons.localnewsdeliverer.data.ingest.StoryCluster;
+import com.exed1ons.localnewsdeliverer.data.ingest.UrlDeduplicationIndex;
+import com.exed1ons.localnewsdeliverer.data.snapshot.SnapshotStore;
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.LoadState;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class FileDataStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final CountDownLatch readerReleased = new CountDownLatch(1);
+    private FileDataStore store;
+
+    @AfterEach
+    void shutdown() {
+        readerReleased.countDown();
+        if (store != null) {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void servesCitiesAndFirstArticlesWhileNewsAreStillLoading() throws Exception {
+        Path newsFile = Files.writeString(directory.resolve("news.jsonl"), "{}\n{}\n{}\n");
+        store = store(newsFile, new BlockingReader(3));
+
+        store.init();
+
+        awaitTrue(() -> store.getLoadStatus().getState() == LoadState.LOADING_NEWS
+                && store.getNewsArticles().size() >= 2);
+        assertThat(store.getCities()).extracting(City::getName).containsExactly("Chicago");
+        assertThat(store.getLoadStatus().isReady()).isFalse();
+
+        readerReleased.countDown();
+        awaitTrue(() -> store.getLoadStatus().isReady());
+        assertThat(store.getNewsArticles()).extracting(NewsArticle::getUrl)
+                .containsExactly("https://example.com/0", "https://example.com/1", "https://example.com/2");
+        assertThat(store.getLoadStatus().getArticles()).isEqualTo(3);
+        assertThat(store.getLoadStatus().getProcessed()).isEqualTo(3);
+    }
+
+    @Test
+    void startsLoadingOnlyOnce() throws Exception {
+        Path newsFile = Files.writeString(directory.resolve("news.jsonl"), "{}\n");
+        BlockingReader reader = new BlockingReader(1);
+        store = store(newsFile, reader);
+        readerReleased.countDown();
+
+        store.init();
+        store.init();
+
+        awaitTrue(() -> store.getLoadStatus().isReady());
+        assertThat(reader.calls).isEqualTo(1);
+        assertThat(store.getNewsArticles()).hasSize(1);
+    }
+
+    @Test
+    void reportsAFailedLoad() throws Exception {
+        store = new FileDataStore("cities.csv", directory.resolve("news.jsonl").toString(), "*.jsonl",
+                2, Duration.ofSeconds(10), Duration.ZERO, Duration.ZERO,
+                new BlockingReader(0),
+                path -> {
+                    throw new IllegalStateException("unreadable");
+                },
+                new IngestionCheckpointStore(new ObjectMapper(), ""), mock(SnapshotStore.class));
+
+        store.init();
+
+        awaitTrue(() -> store.getLoadStatus().getState() == LoadState.FAILED);
+        assertThat(store.getCities()).isEmpty();
+    }
+
+    @Test
+    void foldsNearDuplicatesIntoTheFirstStoredCopy() throws Exception {
+        Path newsFile = Files.writeString(directory.resolve("news.jsonl"), "{}\n".repeat(6));
+        long story = 0x0f0f_0f0f_0f0f_0f0fL;
+        long other = 0x7777_0000_ffff_1234L;
+        store = store(newsFile, new BlockingReader(6, story, other, story ^ 0b101, SimHash.NONE, story ^ 0b11, other));
+        readerReleased.countDown();
+
+        store.init();
+
+        awaitTrue(() -> store.getLoadStatus().isReady());
+        List<NewsArticle> articles = store.getNewsArticles();
+        assertThat(articles).extracting(NewsArticle::getUrl)
+                .containsExactly("https://example.com/0", "https://example.com/1", "https://example.com/3");
+        assertThat(articles.get(0).getAlternateUrls()).containsExactly("https://example.com/2", "https://example.com/4");
+        assertThat(articles.get(1).getAlternateUrls()).containsExactly("https://example.com/5");
+        assertThat(articles.get(2).getAlternateUrls()).isEmpty();
+        assertThat(store.getSnapshot().getAlternates().count()).isEqualTo(3);
+    }
+
+    @Test
+    void savesTheSnapshotAfterPollsOnlyOnceItsIntervalHasPassedAndAtShutdown() throws Exception {
+        Path newsFile = Files.writeString(directory.resolve("news.jsonl"), "{}\n");
+        BlockingReader reader = new BlockingReader(1);
+        SnapshotStore snapshotStore = mock(SnapshotStore.class);
+        store = store(newsFile, reader, Duration.ofMillis(10), Duration.ofHours(1), snapshotStore);
+        readerReleased.countDown();
+
+        store.init();
+        awaitTrue(() -> store.getLoadStatus().isReady());
+        verify(snapshotStore, times(1)).save(any(), anyString());
+
+        Files.writeString(newsFile, "{}\n", StandardOpenOption.APPEND);
+        awaitTrue(() -> reader.calls == 2 && store.getNewsArticles().size() == 2);
+        Files.writeString(newsFile, "{}\n", StandardOpenOption.APPEND);
+        awaitTrue(() -> reader.calls == 3 && store.getNewsArticles().size() == 3);
+        verify(snapshotStore, times(1)).save(any(), anyString());
+
+        store.shutdown();
+        verify(snapshotStore, times(2)).save(any(), anyString());
+    }
+
+    private FileDataStore store(Path newsFile, NewsArticleReader reader) {
+        return store(newsFile, reader, Duration.ZERO, Duration.ZERO, mock(SnapshotStore.class));
+    }
+
+    private FileDataStore store(Path newsFile, NewsArticleReader reader, Duration pollInterval,
+                                Duration snapshotInterval, SnapshotStore snapshotStore) {
+        City chicago = City.builder().id(1L).name("Chicago").stateName("Illinois").stateCode("IL").build();
+        return new FileDataStore("cities.csv", newsFile.toString(), "*.jsonl",
+                2, Duration.ofSeconds(10), pollInterval, snapshotInterval,
+                reader, path -> List.of(chicago),
+                new IngestionCheckpointStore(new ObjectMapper(), ""), snapshotStore);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Stores {@code articles} articles and then waits for the test to release it before returning.
+     */
+    private class BlockingReader implements NewsArticleReader {
+        private final int articles;
+        private final long[] fingerprints;
+        private final UrlDeduplicationIndex urlIndex = new UrlDeduplicationIndex();
+        private final NearDuplicateIndex<StoryCluster> stories = new NearDuplicateIndex<>(5);
+        private volatile int calls;
+
+        private BlockingReader(int articles, long... fingerprints) {
+            this.articles = articles;
+            this.fingerprints = fingerprints;
+        }
+
+        @Override
+        public long readNews(String filePath, long fromOffset, long replayUntil, CityIndex cityIndex,
+                             IngestionListener listener) {
+            calls++;
+            for (int i = 0; i < articles; i++) {
+                listener.onSubmitted();
+                listener.onStored(NewsArticle.builder().url("https://example.com/" + i).title("Story " + i).build(),
+                        i < fingerprints.length ? fingerprints[i] : SimHash.NONE);
+            }
+            try {
+                readerReleased.await();
+                return Files.size(Path.of(filePath));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fromOffset;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public UrlDeduplicationIndex getUrlIndex() {
+            return urlIndex;
+        }
+
+        @Override
+        public NearDuplicateIndex<StoryCluster> getStories() {
+            return stories;
+        }
+    }
+}
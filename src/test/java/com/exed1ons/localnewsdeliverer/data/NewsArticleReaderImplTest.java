@@ -0,0 +1,210 @@
+package com.exed1ons.localnewsdeliverer.data;
+
+import com.exed1ons.localnewsdeliverer.data.cache.ContentHash;
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentCache;
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentRecord;
+import com.exed1ons.localnewsdeliverer.data.cache.EnrichmentStatus;
+import com.exed1ons.localnewsdeliverer.data.fetch.ArticlePage;
+import com.exed1ons.localnewsdeliverer.data.fetch.PageFetcher;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionListener;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import com.exed1ons.localnewsdeliverer.service.LLMRequestCityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NewsArticleReaderImplTest {
+
+    private static final String URL = "http://example.com/story";
+    private static final String BODY = "The council met downtown on Monday.";
+
+    @TempDir
+    Path dir;
+
+    private final MemoryEnrichmentCache cache = new MemoryEnrichmentCache();
+    private final RecordingFetcher fetcher = new RecordingFetcher();
+    private final LLMRequestCityService llm = mock(LLMRequestCityService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NewsArticleReaderImpl reader;
+    private Path newsFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(llm.requestCityAsync(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        reader = new NewsArticleReaderImpl(llm, cache, fetcher, meterRegistry,
+                4, 2, 16, 64, 2, Duration.ZERO, 5, Duration.ofMinutes(5), false, "test-bot", Duration.ofSeconds(1),
+                false, false, 10, true, 5);
+        newsFile = dir.resolve("news.jsonl");
+        Files.writeString(newsFile, "{\"http://source\": {\"links\": [{\"link\": \"" + URL + "\", \"snippet\": \"s\"}]}}\n");
+    }
+
+    @AfterEach
+    void close() {
+        reader.close();
+    }
+
+    @Test
+    void replayReusesFreshEnrichedRecordsWithoutFetching() {
+        cache.put(enriched(), true);
+
+        List<NewsArticle> stored = read(true);
+
+        assertThat(stored).extracting(NewsArticle::getTitle).containsExactly("Cached title");
+        assertThat(fetcher.fetched).isEmpty();
+        verify(llm, never()).requestCityAsync(anyString());
+        assertThat(cacheLookups("hit")).isEqualTo(1);
+        assertThat(cacheLookups("stale")).isZero();
+        assertThat(cacheLookups("miss")).isZero();
+    }
+
+    @Test
+    void replayFetchesExpiredRecordsAgainAndKeepsTheirCitiesWhenUnchanged() {
+        cache.put(enriched(), false);
+
+        List<NewsArticle> stored = read(true);
+
+        assertThat(fetcher.fetched).containsExactly(URL);
+        assertThat(stored).extracting(NewsArticle::getTitle).containsExactly("Fetched title");
+        verify(llm, never()).requestCityAsync(anyString());
+        assertThat(cacheLookups("stale")).isEqualTo(1);
+        assertThat(cacheLookups("hit")).isZero();
+    }
+
+    @Test
+    void replayFetchesPagesThatWereUnreachable() {
+        cache.put(EnrichmentRecord.builder().url(URL).status(EnrichmentStatus.UNREACHABLE).build(), true);
+
+        List<NewsArticle> stored = read(true);
+
+        assertThat(fetcher.fetched).containsExactly(URL);
+        assertThat(stored).hasSize(1);
+        assertThat(cache.records.get(URL).getStatus()).isEqualTo(EnrichmentStatus.ENRICHED);
+    }
+
+    @Test
+    void newInputSkipsPagesWhoseFailureIsStillCached() {
+        cache.put(EnrichmentRecord.builder().url(URL).status(EnrichmentStatus.UNREACHABLE).build(), true);
+
+        assertThat(read(false)).isEmpty();
+        assertThat(fetcher.fetched).isEmpty();
+    }
+
+    @Test
+    void classifiesNearDuplicateCopiesOnce() throws IOException {
+        fetcher.body = "Officials said the storm damaged dozens of homes along the river and closed three schools "
+                + "while crews worked through the night to restore power to the neighborhood. ";
+        Files.writeString(newsFile, "{\"http://source\": {\"links\": ["
+                + "{\"link\": \"http://a.example.com/1\", \"snippet\": \"s\"}, "
+                + "{\"link\": \"http://b.example.com/1\", \"snippet\": \"s\"}, "
+                + "{\"link\": \"http://c.example.com/1\", \"snippet\": \"s\"}]}}\n");
+        CompletableFuture<List<String>> answer = new CompletableFuture<>();
+        when(llm.requestCityAsync(anyString())).thenReturn(answer);
+        CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(() -> answer.complete(null));
+
+        List<NewsArticle> stored = read(false);
+
+        assertThat(stored).hasSize(3);
+        verify(llm, times(1)).requestCityAsync(anyString());
+        assertThat(reader.getStories().size()).isEqualTo(1);
+    }
+
+    private List<NewsArticle> read(boolean replay) {
+        List<NewsArticle> stored = new ArrayList<>();
+        IngestionListener listener = (article, fingerprint) -> stored.add(article);
+        long end = reader.readNews(newsFile.toString(), 0, replay ? Long.MAX_VALUE : 0, CityIndex.empty(), listener);
+        assertThat(end).isEqualTo(newsFile.toFile().length());
+        return stored;
+    }
+
+    private static EnrichmentRecord enriched() {
+        return EnrichmentRecord.builder()
+                .url(URL)
+                .status(EnrichmentStatus.ENRICHED)
+                .title("Cached title")
+                .description("Cached description")
+                .contentHash(ContentHash.sha256(BODY))
+                .cityNames(List.of())
+                .build();
+    }
+
+    private static class RecordingFetcher implements PageFetcher {
+        private final List<String> fetched = new CopyOnWriteArrayList<>();
+        private volatile String body = BODY;
+
+        @Override
+        public ArticlePage fetch(String url) {
+            fetched.add(url);
+            return ArticlePage.builder().title("Fetched title").description("Fetched description").body(body).build();
+        }
+
+        @Override
+        public String fetchText(String url) {
+            return "";
+        }
+    }
+
+    private double cacheLookups(String result) {
+        return meterRegistry.get("news.enrichment.cache").tag("result", result).counter().count();
+    }
+
+    private static class MemoryEnrichmentCache implements EnrichmentCache {
+        private final Map<String, EnrichmentRecord> records = new HashMap<>();
+        private final Map<String, Boolean> fresh = new HashMap<>();
+
+        void put(EnrichmentRecord record, boolean isFresh) {
+            records.put(record.getUrl(), record);
+            fresh.put(record.getUrl(), isFresh);
+        }
+
+        @Override
+        public void open() {
+        }
+
+        @Override
+        public synchronized EnrichmentRecord get(String url) {
+            return records.get(url);
+        }
+
+        @Override
+        public synchronized boolean isFresh(EnrichmentRecord record) {
+            return fresh.getOrDefault(record.getUrl(), true);
+        }
+
+        @Override
+        public synchronized void put(EnrichmentRecord record) {
+            put(record, true);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public int size() {
+            return records.size();
+        }
+    }
+}
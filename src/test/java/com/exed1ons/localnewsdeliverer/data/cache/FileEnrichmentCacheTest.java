@@ -0,0 +1,208 @@
+package com.exed1ons.localnewsdeliverer.data.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileEnrichmentCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reloadsTheLatestRecordPerNormalizedUrl() {
+        Path file = directory.resolve("cache/enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file);
+        cache.open();
+        cache.put(enriched("https://Example.com/story?utm_source=feed", "Old title"));
+        cache.put(enriched("https://example.com/story", "New title"));
+        cache.put(record("https://example.com/gone", EnrichmentStatus.UNREACHABLE, 0));
+        cache.flush();
+
+        FileEnrichmentCache reopened = cache(file);
+        reopened.open();
+
+        assertThat(reopened.size()).isEqualTo(2);
+        EnrichmentRecord record = reopened.get("https://example.com/story/");
+        assertThat(record.getTitle()).isEqualTo("New title");
+        assertThat(record.getCityNames()).containsExactly("Chicago, IL");
+        assertThat(record.getFetchedAt()).isPositive();
+        assertThat(reopened.get("https://example.com/gone").getStatus()).isEqualTo(EnrichmentStatus.UNREACHABLE);
+        assertThat(reopened.get("https://example.com/other")).isNull();
+    }
+
+    @Test
+    void expiresFailuresSoonerThanResults() {
+        FileEnrichmentCache cache = cache(null);
+        long twoHoursAgo = System.currentTimeMillis() - Duration.ofHours(2).toMillis();
+
+        assertThat(cache.isFresh(record("https://a.com/", EnrichmentStatus.ENRICHED, twoHoursAgo))).isTrue();
+        assertThat(cache.isFresh(record("https://a.com/", EnrichmentStatus.REJECTED, twoHoursAgo))).isTrue();
+        assertThat(cache.isFresh(record("https://a.com/", EnrichmentStatus.UNREACHABLE, twoHoursAgo))).isFalse();
+        long twoDaysAgo = System.currentTimeMillis() - Duration.ofDays(2).toMillis();
+        assertThat(cache.isFresh(record("https://a.com/", EnrichmentStatus.ENRICHED, twoDaysAgo))).isFalse();
+    }
+
+    @Test
+    void compactsSupersededLinesAsRecordsArePut() throws IOException {
+        Path file = directory.resolve("enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file);
+        cache.open();
+        cache.put(enriched("https://example.com/other", "Other"));
+        for (int i = 0; i < 10; i++) {
+            cache.put(enriched("https://example.com/story", "Title " + i));
+        }
+
+        assertThat(Files.readAllLines(file)).hasSizeLessThanOrEqualTo(4);
+        assertThat(cache.get("https://example.com/story").getTitle()).isEqualTo("Title 9");
+        cache.close();
+
+        FileEnrichmentCache reopened = cache(file);
+        reopened.open();
+
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get("https://example.com/story").getTitle()).isEqualTo("Title 9");
+        assertThat(reopened.get("https://example.com/other").getTitle()).isEqualTo("Other");
+    }
+
+    @Test
+    void compactsWhileRunningOnceTheFileReachesItsBound() throws IOException {
+        Path file = directory.resolve("enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file, 3);
+        cache.open();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 6; i++) {
+            cache.put(record("https://example.com/" + i, EnrichmentStatus.ENRICHED, now + i));
+        }
+
+        assertThat(Files.readAllLines(file)).hasSize(3);
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get("https://example.com/2")).isNull();
+        assertThat(cache.get("https://example.com/5").getFetchedAt()).isEqualTo(now + 5);
+        cache.put(record("https://example.com/6", EnrichmentStatus.ENRICHED, now + 6));
+        assertThat(cache.get("https://example.com/6").getFetchedAt()).isEqualTo(now + 6);
+        cache.close();
+    }
+
+    @Test
+    void dropsExpiredResultsAndFailuresWhenCompacting() throws IOException {
+        Path file = directory.resolve("enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file);
+        cache.open();
+        long now = System.currentTimeMillis();
+        long twoHoursAgo = now - Duration.ofHours(2).toMillis();
+        cache.put(record("https://example.com/old", EnrichmentStatus.ENRICHED, now - Duration.ofDays(2).toMillis()));
+        cache.put(record("https://example.com/failed", EnrichmentStatus.UNREACHABLE, twoHoursAgo));
+        cache.put(record("https://example.com/rejected", EnrichmentStatus.REJECTED, twoHoursAgo));
+        for (int i = 0; i < 6; i++) {
+            cache.put(enriched("https://example.com/story", "Title " + i));
+        }
+        cache.close();
+
+        assertThat(Files.readAllLines(file)).hasSize(2);
+        FileEnrichmentCache reopened = cache(file);
+        reopened.open();
+
+        assertThat(reopened.get("https://example.com/old")).isNull();
+        assertThat(reopened.get("https://example.com/failed")).isNull();
+        assertThat(reopened.get("https://example.com/rejected").getStatus()).isEqualTo(EnrichmentStatus.REJECTED);
+        assertThat(reopened.get("https://example.com/story").getTitle()).isEqualTo("Title 5");
+        reopened.close();
+    }
+
+    @Test
+    void skipsUnreadableLines() throws IOException {
+        Path file = directory.resolve("enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file);
+        cache.open();
+        cache.put(enriched("https://example.com/story", "Title"));
+        cache.flush();
+        Files.writeString(file, "{\"key\":\"https://exam", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileEnrichmentCache reopened = cache(file);
+        reopened.open();
+
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(reopened.get("https://example.com/story").getTitle()).isEqualTo("Title");
+    }
+
+    @Test
+    void appendsAfterATruncatedTornLine() throws IOException {
+        Path file = directory.resolve("enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file);
+        cache.open();
+        cache.put(enriched("https://example.com/story", "Title"));
+        cache.close();
+        Files.writeString(file, "{\"key\":\"https://exam", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        FileEnrichmentCache reopened = cache(file);
+        reopened.open();
+        reopened.put(enriched("https://example.com/next", "Next"));
+        reopened.close();
+
+        assertThat(Files.readAllLines(file)).hasSize(2).allSatisfy(line -> assertThat(line).startsWith("{\"key\""));
+        FileEnrichmentCache third = cache(file);
+        third.open();
+        assertThat(third.size()).isEqualTo(2);
+        assertThat(third.get("https://example.com/next").getTitle()).isEqualTo("Next");
+    }
+
+    @Test
+    void readsRecordsWrittenSinceOpenFromTheFile() throws IOException {
+        Path file = directory.resolve("enrichment.jsonl");
+        FileEnrichmentCache cache = cache(file);
+        cache.open();
+        cache.put(enriched("https://example.com/story", "First"));
+        cache.put(enriched("https://example.com/story", "Second"));
+
+        assertThat(cache.get("https://example.com/story").getTitle()).isEqualTo("Second");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(Files.readAllLines(file)).hasSize(2);
+    }
+
+    @Test
+    void keepsRecordsInMemoryWithoutAPath() {
+        FileEnrichmentCache cache = new FileEnrichmentCache(OBJECT_MAPPER, "", Duration.ofDays(1), Duration.ofHours(1), 10);
+        cache.open();
+        cache.put(enriched("https://example.com/story", "Title"));
+        cache.flush();
+
+        assertThat(cache.get("https://example.com/story").getTitle()).isEqualTo("Title");
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    private static FileEnrichmentCache cache(Path file) {
+        return cache(file, 100);
+    }
+
+    private static FileEnrichmentCache cache(Path file, int maxEntries) {
+        return new FileEnrichmentCache(OBJECT_MAPPER, file == null ? null : file.toString(),
+                Duration.ofDays(1), Duration.ofHours(1), maxEntries);
+    }
+
+    private static EnrichmentRecord enriched(String url, String title) {
+        return EnrichmentRecord.builder()
+                .url(url)
+                .status(EnrichmentStatus.ENRICHED)
+                .title(title)
+                .description("Description")
+                .cityNames(List.of("Chicago, IL"))
+                .build();
+    }
+
+    private static EnrichmentRecord record(String url, EnrichmentStatus status, long fetchedAt) {
+        return EnrichmentRecord.builder().url(url).status(status).fetchedAt(fetchedAt).build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HostFetchSchedulerTest {
+
+    private HostFetchScheduler scheduler;
+
+    @AfterEach
+    void close() {
+        scheduler.close();
+    }
+
+    @Test
+    void limitsRequestsPerHostWhileOtherHostsProceed() throws Exception {
+        scheduler = HostFetchScheduler.builder().concurrency(4).maxPerHost(1).hostDelay(Duration.ZERO).build();
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> maxRunning = new ConcurrentHashMap<>();
+        CountDownLatch otherHostDone = new CountDownLatch(1);
+
+        List<CompletableFuture<String>> slow = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            slow.add(scheduler.submit("http://slow.example.com/" + i, () -> {
+                track("slow", running, maxRunning);
+                release.await();
+                running.get("slow").decrementAndGet();
+                return "slow";
+            }));
+        }
+        CompletableFuture<String> fast = scheduler.submit("http://fast.example.com/", () -> {
+            otherHostDone.countDown();
+            return "fast";
+        });
+
+        assertThat(otherHostDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fast.get(5, TimeUnit.SECONDS)).isEqualTo("fast");
+        release.countDown();
+        for (CompletableFuture<String> future : slow) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        }
+        assertThat(maxRunning.get("slow")).hasValue(1);
+        assertThat(scheduler.queued()).isZero();
+    }
+
+    @Test
+    void spacesRequestsToTheSameHost() throws Exception {
+        scheduler = HostFetchScheduler.builder().concurrency(4).maxPerHost(4).hostDelay(Duration.ofMillis(60)).build();
+        List<Long> starts = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit("http://example.com/" + i, () -> {
+                long now = System.nanoTime();
+                starts.add(now);
+                return now;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        List<Long> sorted = starts.stream().sorted().toList();
+        for (int i = 1; i < sorted.size(); i++) {
+            assertThat(sorted.get(i) - sorted.get(i - 1)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(55));
+        }
+    }
+
+    @Test
+    void opensTheCircuitAfterRepeatedHostFailures() throws Exception {
+        scheduler = HostFetchScheduler.builder().concurrency(2).maxPerHost(1).hostDelay(Duration.ZERO)
+                .circuitBreaker(2, Duration.ofMinutes(5)).build();
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<String> failing = scheduler.submit("http://down.example.com/" + i, () -> {
+                calls.incrementAndGet();
+                throw new HttpStatusException(503);
+            });
+            assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpStatusException.class);
+        }
+        CompletableFuture<String> rejected = scheduler.submit("http://down.example.com/next", () -> {
+            calls.incrementAndGet();
+            return "never";
+        });
+
+        assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IOException.class)
+                .hasMessageContaining("unavailable");
+        assertThat(calls).hasValue(2);
+        assertThat(scheduler.submit("http://up.example.com/", () -> "ok").get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    void doesNotCountClientErrorsAsHostFailures() throws Exception {
+        scheduler = HostFetchScheduler.builder().concurrency(2).hostDelay(Duration.ZERO)
+                .circuitBreaker(1, Duration.ofMinutes(5)).build();
+        CompletableFuture<String> missing = scheduler.submit("http://example.com/missing", () -> {
+            throw new HttpStatusException(404);
+        });
+        assertThatThrownBy(() -> missing.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HttpStatusException.class);
+
+        assertThat(scheduler.submit("http://example.com/ok", () -> "ok").get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    @Test
+    void readsRobotsOncePerHostAndSkipsDisallowedUrls() throws Exception {
+        RobotsFetcher robots = new RobotsFetcher("User-agent: *\nDisallow: /private\n");
+        scheduler = HostFetchScheduler.builder().concurrency(2).hostDelay(Duration.ZERO)
+                .robots(robots, "test-bot", Duration.ofSeconds(10)).build();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> disallowed = scheduler.submit("http://example.com/private/1", () -> {
+            calls.incrementAndGet();
+            return "private";
+        });
+        CompletableFuture<String> allowed = scheduler.submit("http://example.com/public", () -> {
+            calls.incrementAndGet();
+            return "public";
+        });
+
+        assertThat(allowed.get(5, TimeUnit.SECONDS)).isEqualTo("public");
+        assertThatThrownBy(() -> disallowed.get(5, TimeUnit.SECONDS)).hasMessageContaining("Disallowed by robots.txt");
+        assertThat(scheduler.submit("http://example.com/again", () -> "again").get(5, TimeUnit.SECONDS))
+                .isEqualTo("again");
+        assertThat(calls).hasValue(1);
+        assertThat(robots.requested).containsExactly("http://example.com/robots.txt");
+    }
+
+    @Test
+    void failsUrlsWithoutAHostImmediately() {
+        scheduler = HostFetchScheduler.builder().build();
+
+        assertThat(scheduler.submit("not a url", () -> "x")).isCompletedExceptionally();
+        assertThat(scheduler.submit("/relative/path", () -> "x")).isCompletedExceptionally();
+    }
+
+    @Test
+    void rejectsWorkAfterClose() {
+        scheduler = HostFetchScheduler.builder().build();
+        scheduler.close();
+
+        assertThat(scheduler.submit("http://example.com/", () -> "x")).isCompletedExceptionally();
+    }
+
+    private static void track(String host, Map<String, AtomicInteger> running, Map<String, AtomicInteger> max) {
+        int now = running.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet();
+        max.computeIfAbsent(host, h -> new AtomicInteger()).accumulateAndGet(now, Math::max);
+    }
+
+    private static class RobotsFetcher implements PageFetcher {
+        private final String robotsTxt;
+        private final List<String> requested = new CopyOnWriteArrayList<>();
+
+        RobotsFetcher(String robotsTxt) {
+            this.robotsTxt = robotsTxt;
+        }
+
+        @Override
+        public ArticlePage fetch(String url) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String fetchText(String url) {
+            requested.add(url);
+            return robotsTxt;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpPageFetcherTest {
+
+    private static final String ARTICLE = """
+            <html><head>
+            <meta property="og:title" content="Storm hits Chicago">
+            <meta property="og:description" content="Heavy rain overnight.">
+            <meta property="og:image" content="https://img.example.com/storm.jpg">
+            </head><body><nav>Home | Weather</nav><p>Streets in Chicago flooded.</p></body></html>""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private HttpPageFetcher fetcher;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath()
+                    + " " + exchange.getRequestHeaders().getFirst("User-Agent"));
+            switch (exchange.getRequestURI().getPath()) {
+                case "/article" -> respond(exchange, 200, "text/html; charset=utf-8", ARTICLE);
+                case "/moved" -> {
+                    exchange.getResponseHeaders().set("Location", "/article");
+                    respond(exchange, 301, "text/plain", "");
+                }
+                case "/image" -> respond(exchange, 200, "image/png", "not html");
+                case "/robots.txt" -> respond(exchange, 200, "text/plain", "User-agent: *\nDisallow: /private\n");
+                default -> respond(exchange, 404, "text/html", "<html><body>Not found</body></html>");
+            }
+        });
+        server.start();
+        fetcher = new HttpPageFetcher(meterRegistry, Duration.ofSeconds(2), Duration.ofSeconds(5), "test-agent",
+                DataSize.ofMegabytes(1), 1000);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesAndExtractsAPageWithASingleGet() throws IOException {
+        ArticlePage page = fetcher.fetch(url("/article"));
+
+        assertThat(page.getTitle()).isEqualTo("Storm hits Chicago");
+        assertThat(page.getDescription()).isEqualTo("Heavy rain overnight.");
+        assertThat(page.getUrlToImage()).isEqualTo("https://img.example.com/storm.jpg");
+        assertThat(page.getBody()).isEqualTo("Streets in Chicago flooded.");
+        assertThat(requests).containsExactly("GET /article test-agent");
+        assertThat(meterRegistry.get("news.fetch.response").tag("status", "2xx").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("news.fetch.extract").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void registersTheResponseTimersUpFront() {
+        assertThat(meterRegistry.get("news.fetch.response").timers())
+                .extracting(timer -> timer.getId().getTag("status"))
+                .containsExactlyInAnyOrder("1xx", "2xx", "3xx", "4xx", "5xx", "error");
+        assertThat(meterRegistry.get("news.fetch.response").timers()).allMatch(timer -> timer.count() == 0);
+    }
+
+    @Test
+    void followsRedirects() throws IOException {
+        assertThat(fetcher.fetch(url("/moved")).getTitle()).isEqualTo("Storm hits Chicago");
+        assertThat(requests).extracting(request -> request.split(" ")[1]).containsExactly("/moved", "/article");
+    }
+
+    @Test
+    void reportsTheStatusOfAnErrorPage() {
+        assertThatThrownBy(() -> fetcher.fetch(url("/missing")))
+                .isInstanceOfSatisfying(HttpStatusException.class, e -> assertThat(e.getStatus()).isEqualTo(404));
+        assertThat(meterRegistry.get("news.fetch.response").tag("status", "4xx").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsContentThatIsNotHtml() {
+        assertThatThrownBy(() -> fetcher.fetch(url("/image")))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("image/png");
+    }
+
+    @Test
+    void rejectsUrlsWithoutAHost() {
+        assertThatThrownBy(() -> fetcher.fetch("not a url")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> fetcher.fetch("file:///etc/hosts")).isInstanceOf(IOException.class);
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void fetchesPlainText() throws IOException {
+        assertThat(fetcher.fetchText(url("/robots.txt"))).isEqualTo("User-agent: *\nDisallow: /private\n");
+        assertThatThrownBy(() -> fetcher.fetchText(url("/missing"))).isInstanceOf(HttpStatusException.class);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
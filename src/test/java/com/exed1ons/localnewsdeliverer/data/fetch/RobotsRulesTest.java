@@ -0,0 +1,90 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RobotsRulesTest {
+
+    private static final String ROBOTS = """
+            # comments are ignored
+            User-agent: *
+            Disallow: /private
+            Crawl-delay: 1
+
+            User-agent: news
+            Disallow: /family
+
+            User-agent: NEWS-BOT
+            User-agent: other-bot
+            Disallow: /archive
+            Allow: /archive/today
+            Crawl-delay: 2.5
+
+            User-agent: news-bot-extra
+            Disallow: /
+
+            User-agent: news-bot
+            Disallow: /drafts
+            """;
+
+    @Test
+    void picksTheGroupNamingTheProductTokenIgnoringCaseAndVersion() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "News-Bot/1.2 (+https://example.com/bot)");
+
+        assertThat(rules.isAllowed("/archive/old")).isFalse();
+        assertThat(rules.isAllowed("/archive/today/story")).isTrue();
+        assertThat(rules.isAllowed("/drafts/1")).isFalse();
+        assertThat(rules.isAllowed("/private")).isTrue();
+        assertThat(rules.isAllowed("/family")).isTrue();
+        assertThat(rules.getCrawlDelay()).isEqualTo(Duration.ofMillis(2500));
+    }
+
+    @Test
+    void doesNotMatchAgentsThatOnlyContainTheName() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "local-news-reader");
+
+        assertThat(rules.isAllowed("/private")).isFalse();
+        assertThat(rules.isAllowed("/archive")).isTrue();
+        assertThat(rules.getCrawlDelay()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void fallsBackToTheLongestFamilyName() {
+        RobotsRules rules = RobotsRules.parse(ROBOTS, "news-reader");
+
+        assertThat(rules.isAllowed("/family")).isFalse();
+        assertThat(rules.isAllowed("/private")).isTrue();
+        assertThat(rules.getCrawlDelay()).isNull();
+    }
+
+    @Test
+    void resolvesPathRulesByLengthWithAllowWinningTies() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*.pdf$
+                Disallow: /news
+                Allow: /news
+                Disallow: /blog/
+                Allow: /blog/*/public
+                Disallow:
+                """, "bot");
+
+        assertThat(rules.isAllowed("/files/a.pdf")).isFalse();
+        assertThat(rules.isAllowed("/files/a.pdf?x=1")).isTrue();
+        assertThat(rules.isAllowed("/news/today")).isTrue();
+        assertThat(rules.isAllowed("/blog/2024/secret")).isFalse();
+        assertThat(rules.isAllowed("/blog/2024/public")).isTrue();
+        assertThat(rules.isAllowed("")).isTrue();
+    }
+
+    @Test
+    void allowsEverythingWithoutAMatchingGroup() {
+        RobotsRules rules = RobotsRules.parse("User-agent: other\nDisallow: /\n", "bot");
+
+        assertThat(rules.isAllowed("/anything")).isTrue();
+        assertThat(rules.getCrawlDelay()).isNull();
+    }
+}
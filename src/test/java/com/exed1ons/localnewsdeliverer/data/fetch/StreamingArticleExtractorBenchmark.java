@@ -0,0 +1,118 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Compares {@link StreamingArticleExtractor} with parsing the whole document and reading it with
+ * {@code selectFirst}, {@code remove} and {@code text()}, on synthetic news pages of about 145KB
+ * and 655KB. Reports the mean time and the bytes allocated per page on one thread, with the
+ * default 3000-token body budget. Not part of the regular build; run with
+ * {@code mvn test -Dtest=StreamingArticleExtractorBenchmark}.
+ */
+class StreamingArticleExtractorBenchmark {
+
+    private static final int MAX_BODY_CHARS = 3000 * 4;
+    private static final int ROUNDS = 300;
+    private static final String[] WORDS = {
+            "city", "council", "voted", "on", "the", "new", "budget", "after", "residents", "said",
+            "school", "road", "police", "mayor", "weather", "storm", "park", "river", "downtown", "week"};
+
+    @Test
+    void syntheticNewsPages() throws IOException {
+        run("normal page", newsPage(1, true, 172));
+        run("page without description", newsPage(2, false, 172));
+        run("long-form page", newsPage(3, true, 850));
+    }
+
+    private static void run(String name, String html) throws IOException {
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        StreamingArticleExtractor extractor = new StreamingArticleExtractor(2L << 20, MAX_BODY_CHARS);
+        for (int i = 0; i < ROUNDS; i++) {
+            wholeDocument(bytes);
+            extractor.extract(new ByteArrayInputStream(bytes), "UTF-8", "http://example.com/");
+        }
+        long[] whole = measure(() -> wholeDocument(bytes));
+        long[] streaming = measure(() -> extractor.extract(new ByteArrayInputStream(bytes), "UTF-8", "http://example.com/"));
+        System.out.printf("%s (%d KB): %.2f -> %.2f ms, %d -> %d KB allocated%n", name, bytes.length / 1024,
+                whole[0] / 1e6, streaming[0] / 1e6, whole[1] / 1024, streaming[1] / 1024);
+    }
+
+    private static String wholeDocument(byte[] bytes) throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(bytes), "UTF-8", "http://example.com/");
+        Element description = document.selectFirst("meta[property=og:description]");
+        if (description == null) {
+            return null;
+        }
+        document.selectFirst("meta[property=og:title]");
+        document.selectFirst("meta[property=og:image]");
+        document.select("menu, header, nav, footer").remove();
+        return document.body().text();
+    }
+
+    /**
+     * Returns the mean nanoseconds and allocated bytes per call.
+     */
+    private static long[] measure(Extraction extraction) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            extraction.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new long[]{nanos / ROUNDS, allocated / ROUNDS};
+    }
+
+    /**
+     * Builds a news page with scripts and styles in the head, navigation, a header and footer,
+     * and {@code paragraphs} paragraphs of article text.
+     */
+    static String newsPage(long seed, boolean withDescription, int paragraphs) {
+        Random random = new Random(seed);
+        StringBuilder html = new StringBuilder("<!doctype html><html><head><meta charset=\"utf-8\">");
+        html.append("<meta property=\"og:title\" content=\"Council votes on budget\">");
+        if (withDescription) {
+            html.append("<meta property=\"og:description\" content=\"The city council voted on the budget.\">");
+        }
+        html.append("<meta property=\"og:image\" content=\"https://img.example.com/council.jpg\">");
+        for (int i = 0; i < 20; i++) {
+            html.append("<script>window.dataLayer=window.dataLayer||[];function track").append(i)
+                    .append("(e){dataLayer.push({event:e,id:").append(i).append("});}</script>");
+            html.append("<style>.block-").append(i).append("{margin:0 auto;padding:4px 8px;color:#333;}</style>");
+            html.append("<link rel=\"preload\" href=\"/assets/chunk-").append(i).append(".js\" as=\"script\">");
+        }
+        html.append("</head><body><header><div class=\"logo\">Daily News</div></header><nav><ul>");
+        for (int i = 0; i < 150; i++) {
+            html.append("<li><a href=\"/section/").append(i).append("\">Section ").append(i).append("</a></li>");
+        }
+        html.append("</ul></nav><main><article><h1>Council votes on budget</h1>");
+        for (int i = 0; i < paragraphs; i++) {
+            html.append("<div class=\"block-").append(i % 20).append("\"><p>");
+            for (int w = 60 + random.nextInt(60); w > 0; w--) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                html.append(random.nextInt(12) == 0 ? "<a href=\"/tag/" + word + "\">" + word + "</a>" : word).append(' ');
+            }
+            html.append("</p></div>\n");
+        }
+        html.append("</article></main><footer>");
+        for (int i = 0; i < 100; i++) {
+            html.append("<a href=\"/about/").append(i).append("\">Link ").append(i).append("</a> ");
+        }
+        return html.append("</footer></body></html>").toString();
+    }
+
+    private interface Extraction {
+        Object run() throws IOException;
+    }
+}
@@ -0,0 +1,133 @@
+package com.exed1ons.localnewsdeliverer.data.fetch;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingArticleExtractorTest {
+
+    private static final String HEAD = """
+            <head><title>ignored</title>
+            <meta property="og:title" content="Storm hits Chicago">
+            <meta property="og:description" content="Heavy rain overnight.">
+            <meta property="og:image" content="https://img.example.com/storm.jpg">
+            </head>""";
+
+    private final StreamingArticleExtractor extractor = new StreamingArticleExtractor(1 << 20, 10_000);
+
+    @Test
+    void readsOgMetadataAndBodyText() throws IOException {
+        ArticlePage page = extract(extractor, "<html>" + HEAD + """
+                <body><header>Site header</header><nav><a href="/">Home</a></nav>
+                <h1>Storm</h1><div>Streets in <b>Chicago</b>   flooded.<br>Schools closed.</div>
+                <footer>Copyright</footer></body></html>""");
+
+        assertThat(page.getTitle()).isEqualTo("Storm hits Chicago");
+        assertThat(page.getDescription()).isEqualTo("Heavy rain overnight.");
+        assertThat(page.getUrlToImage()).isEqualTo("https://img.example.com/storm.jpg");
+        assertThat(page.getBody()).isEqualTo("Storm Streets in Chicago flooded. Schools closed.");
+        assertThat(page.isTruncated()).isFalse();
+    }
+
+    @Test
+    void readsOgMetadataFoundInTheBody() throws IOException {
+        ArticlePage page = extract(extractor, """
+                <html><head><meta property="og:title" content="Head title"></head>
+                <body><p>First paragraph.</p>
+                <meta property="og:description" content="Late description.">
+                <meta property="og:title" content="Body title">
+                <p>Second paragraph.</p></body></html>""");
+
+        assertThat(page.getDescription()).isEqualTo("Late description.");
+        assertThat(page.getTitle()).isEqualTo("Head title");
+        assertThat(page.getBody()).isEqualTo("First paragraph. Second paragraph.");
+    }
+
+    @Test
+    void returnsNoBodyForAPageWithoutDescription() throws IOException {
+        ArticlePage page = extract(extractor, """
+                <html><head><meta property="og:title" content="Title"></head>
+                <body><p>Some text.</p></body></html>""");
+
+        assertThat(page.getTitle()).isEqualTo("Title");
+        assertThat(page.getDescription()).isNull();
+        assertThat(page.getBody()).isNull();
+    }
+
+    @Test
+    void cutsTheBodyAtAWordBoundaryOnceTheBudgetIsReached() throws IOException {
+        StreamingArticleExtractor small = new StreamingArticleExtractor(1 << 20, 40);
+        ArticlePage page = extract(small, "<html>" + HEAD + "<body>"
+                + "<p>alpha beta gamma delta epsilon zeta eta theta iota kappa</p>".repeat(20)
+                + "</body></html>");
+
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getBody()).isEqualTo("alpha beta gamma delta epsilon zeta eta");
+    }
+
+    @Test
+    void keepsLookingForADescriptionAfterTheBudgetIsSpent() throws IOException {
+        StreamingArticleExtractor small = new StreamingArticleExtractor(1 << 20, 20);
+        ArticlePage page = extract(small, "<html><head></head><body>"
+                + "<p>one two three four five six</p>".repeat(10)
+                + "<meta property=\"og:description\" content=\"Found late.\"></body></html>");
+
+        assertThat(page.getDescription()).isEqualTo("Found late.");
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getBody()).isEqualTo("one two three four");
+    }
+
+    @Test
+    void marksThePageTruncatedWhenTheByteCapIsHit() throws IOException {
+        String html = "<html>" + HEAD + "<body>" + "<p>word word word</p>".repeat(1000) + "</body></html>";
+        StreamingArticleExtractor capped = new StreamingArticleExtractor(HEAD.length() + 200, 100_000);
+        ArticlePage page = extract(capped, html);
+
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getBody()).startsWith("word word").hasSizeLessThan(200);
+    }
+
+    @Test
+    void decodesWithTheDeclaredOrSniffedCharset() throws IOException {
+        String html = "<html><head><meta charset=\"iso-8859-1\">"
+                + "<meta property=\"og:description\" content=\"Café\"></head><body><p>Crème</p></body></html>";
+        byte[] latin1 = html.getBytes(StandardCharsets.ISO_8859_1);
+
+        assertThat(extractor.extract(new ByteArrayInputStream(latin1), null, "http://example.com/").getBody())
+                .isEqualTo("Crème");
+        assertThat(extractor.extract(new ByteArrayInputStream(latin1), "ISO-8859-1", "http://example.com/")
+                .getDescription()).isEqualTo("Café");
+
+        byte[] utf8 = html.replace("iso-8859-1", "utf-8").getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[utf8.length + 3];
+        withBom[0] = (byte) 0xef;
+        withBom[1] = (byte) 0xbb;
+        withBom[2] = (byte) 0xbf;
+        System.arraycopy(utf8, 0, withBom, 3, utf8.length);
+        assertThat(extractor.extract(new ByteArrayInputStream(withBom), "ISO-8859-1", "http://example.com/")
+                .getBody()).isEqualTo("Crème");
+    }
+
+    @Test
+    void matchesTheTextOfTheWholeDocumentParse() throws IOException {
+        String html = StreamingArticleExtractorBenchmark.newsPage(7, true, 20);
+        Document document = Jsoup.parse(html, "http://example.com/");
+        document.select("menu, header, nav, footer").remove();
+
+        ArticlePage page = extract(new StreamingArticleExtractor(1 << 22, 1_000_000), html);
+
+        assertThat(page.getBody()).isEqualTo(document.body().text());
+    }
+
+    private static ArticlePage extract(StreamingArticleExtractor extractor, String html) throws IOException {
+        Charset charset = StandardCharsets.UTF_8;
+        return extractor.extract(new ByteArrayInputStream(html.getBytes(charset)), charset.name(), "http://example.com/");
+    }
+}
@@ -0,0 +1,55 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArticleAlternatesTest {
+
+    @Test
+    void appendsNewUrlsAfterTheExistingOnes() {
+        ArticleAlternates first = ArticleAlternates.of(Map.of(0, List.of("a1"), 3, List.of("d1")));
+        ArticleAlternates second = first.append(Map.of(0, List.of("a2"), 5, List.of("f1", "f2")));
+
+        assertThat(second.get(0)).containsExactly("a1", "a2");
+        assertThat(second.get(3)).containsExactly("d1");
+        assertThat(second.get(5)).containsExactly("f1", "f2");
+        assertThat(second.get(1)).isEmpty();
+        assertThat(second.count()).isEqualTo(5);
+        assertThat(first.get(0)).containsExactly("a1");
+        assertThat(first.count()).isEqualTo(2);
+        assertThat(second.append(Map.of())).isSameAs(second);
+    }
+
+    @Test
+    void keepsTheSegmentCountLogarithmic() {
+        ArticleAlternates alternates = ArticleAlternates.empty();
+        for (int batch = 0; batch < 1000; batch++) {
+            alternates = alternates.append(Map.of(batch % 50, List.of("url" + batch)));
+        }
+
+        assertThat(alternates.count()).isEqualTo(1000);
+        assertThat(alternates.segmentCount()).isLessThanOrEqualTo(6);
+        assertThat(alternates.get(7)).hasSize(20).startsWith("url7", "url57").endsWith("url957");
+    }
+
+    @Test
+    void readsBackWhatItWrote() throws IOException {
+        ArticleAlternates alternates = ArticleAlternates.of(Map.of(2, List.of("b1")))
+                .append(Map.of(2, List.of("b2"), 9, List.of("é")));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        alternates.writeTo(new DataOutputStream(bytes));
+
+        ArticleAlternates read = ArticleAlternates.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(read.asMap()).isEqualTo(Map.of(2, List.of("b1", "b2"), 9, List.of("é")));
+        assertThat(read.count()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,124 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArticleCityIndexTest {
+
+    private static final CityIndex CITIES = CityIndex.build(List.of(
+            CityIndexTest.city(1, "Chicago", "Illinois", "IL"),
+            CityIndexTest.city(2, "Springfield", "Illinois", "IL"),
+            CityIndexTest.city(3, "Anchorage", "Alaska", "AK")));
+
+    @Test
+    void listsArticlesPerCityInPositionOrder() {
+        ArticleCityIndex index = ArticleCityIndex.build(List.of(
+                article(0), article(-1), article(0, 1), article(1, 1), article(2)), CITIES);
+
+        assertThat(index.articlesForCity(0)).containsExactly(0, 2);
+        assertThat(index.articlesForCity(1)).containsExactly(2, 3);
+        assertThat(index.articlesForCity(2)).containsExactly(4);
+        assertThat(index.articlesForCity(-1)).isEmpty();
+        assertThat(index.articlesForCity(3)).isEmpty();
+        assertThat(index.globalArticles()).containsExactly(1);
+    }
+
+    @Test
+    void searchMergesCitiesAndGlobalNewsWithoutDuplicates() {
+        ArticleCityIndex index = ArticleCityIndex.build(List.of(
+                article(0), article(-1), article(0, 1), article(1), article(2), article(-1)), CITIES);
+
+        assertThat(index.search(new int[]{0, 1}, false)).containsExactly(0, 2, 3);
+        assertThat(index.search(new int[]{0, 1}, true)).containsExactly(0, 1, 2, 3, 5);
+        assertThat(index.search(new int[0], true)).containsExactly(1, 5);
+        assertThat(index.search(new int[]{2}, false)).containsExactly(4);
+        assertThat(ArticleCityIndex.empty().search(new int[]{0}, true)).isEmpty();
+    }
+
+    @Test
+    void appendingBatchesMatchesBuildingAtOnce() {
+        java.util.Random random = new Random(7);
+        List<ArticleRecord> articles = new ArrayList<>();
+        ArticleCityIndex index = ArticleCityIndex.empty();
+        for (int batch = 0; batch < 60; batch++) {
+            int count = 1 + random.nextInt(20);
+            for (int i = 0; i < count; i++) {
+                articles.add(random.nextInt(4) == 0 ? article(-1)
+                        : article(random.nextInt(3), random.nextInt(3)));
+            }
+            ArticleCityIndex previous = index;
+            int previousSize = previous.size();
+            int[] previousPostings = previous.articlesForCity(0);
+            index = index.append(List.copyOf(articles), CITIES);
+
+            ArticleCityIndex rebuilt = ArticleCityIndex.build(articles, CITIES);
+            assertThat(index.size()).isEqualTo(articles.size());
+            for (int ordinal = 0; ordinal < 3; ordinal++) {
+                assertThat(index.articlesForCity(ordinal)).containsExactly(rebuilt.articlesForCity(ordinal));
+            }
+            assertThat(index.globalArticles()).containsExactly(rebuilt.globalArticles());
+            assertThat(previous.size()).isEqualTo(previousSize);
+            assertThat(previous.articlesForCity(0)).containsExactly(previousPostings);
+        }
+        assertThat(index.segmentCount()).isLessThanOrEqualTo(12);
+    }
+
+    @Test
+    void appendWithoutNewArticlesReturnsTheSameIndex() {
+        List<ArticleRecord> articles = List.of(article(0), article(-1));
+        ArticleCityIndex index = ArticleCityIndex.build(articles, CITIES);
+
+        assertThat(index.append(articles, CITIES)).isSameAs(index);
+        assertThat(index.append(List.of(article(2)), CITIES).articlesForCity(2)).containsExactly(0);
+    }
+
+    @Test
+    void roundTripsThroughItsBinaryForm() throws IOException {
+        ArticleCityIndex index = ArticleCityIndex.empty();
+        List<ArticleRecord> articles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            articles.add(i % 3 == 0 ? article(-1) : article(i % 2, 2));
+            index = index.append(List.copyOf(articles), CITIES);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        ArticleCityIndex restored = ArticleCityIndex.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(restored.size()).isEqualTo(10);
+        assertThat(restored.search(new int[]{0, 1, 2}, true)).containsExactly(index.search(new int[]{0, 1, 2}, true));
+        articles.add(article(0));
+        assertThat(restored.append(articles, CITIES).articlesForCity(0)).endsWith(10);
+    }
+
+    /**
+     * An article of the given city ordinals, or a non-local article for {@code -1}.
+     */
+    static ArticleRecord article(int... ordinals) {
+        List<City> cities = new ArrayList<>();
+        boolean local = ordinals.length > 0 && ordinals[0] >= 0;
+        if (local) {
+            Arrays.stream(ordinals).forEach(ordinal -> cities.add(CITIES.get(ordinal)));
+        }
+        NewsArticle article = NewsArticle.builder()
+                .title("Title")
+                .description("Description")
+                .url("https://example.com/" + Arrays.toString(ordinals))
+                .isLocal(local)
+                .cities(cities)
+                .build();
+        return ArticleRecord.of(article, CITIES);
+    }
+}
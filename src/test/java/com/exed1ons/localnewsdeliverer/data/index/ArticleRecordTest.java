@@ -0,0 +1,91 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static com.exed1ons.localnewsdeliverer.data.index.CityIndexTest.city;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArticleRecordTest {
+
+    private static final CityIndex CITIES = CityIndex.build(List.of(
+            city(1, "Austin", "Texas", "TX"),
+            city(2, "Dallas", "Texas", "TX")));
+
+    @Test
+    void keepsTextFieldsAndCities() {
+        NewsArticle article = NewsArticle.builder()
+                .title("Flooding in Dallas — “update”")
+                .description("Roads closed")
+                .url("https://example.com/a")
+                .urlToImage("https://example.com/a.jpg")
+                .isLocal(true)
+                .cities(List.of(CITIES.get(1), CITIES.get(0)))
+                .build();
+
+        ArticleRecord record = ArticleRecord.of(article, CITIES);
+
+        assertThat(record.getCityOrdinals()).containsExactly(1, 0);
+        article.setAlternateUrls(List.of("https://example.com/b"));
+        assertThat(record.toNewsArticle(CITIES, List.of("https://example.com/b"))).isEqualTo(article);
+    }
+
+    @Test
+    void keepsPlaceholderTextsAndNullsApart() {
+        NewsArticle placeholders = NewsArticle.builder()
+                .title(ArticleRecord.NO_TITLE)
+                .urlToImage(ArticleRecord.NO_IMAGE)
+                .build();
+        NewsArticle empty = NewsArticle.builder().title("").description("").url("").urlToImage("").build();
+
+        ArticleRecord placeholderRecord = ArticleRecord.of(placeholders, CITIES);
+        ArticleRecord emptyRecord = ArticleRecord.of(empty, CITIES);
+
+        assertThat(placeholderRecord.getTitle()).isEqualTo(ArticleRecord.NO_TITLE);
+        assertThat(placeholderRecord.getUrlToImage()).isEqualTo(ArticleRecord.NO_IMAGE);
+        assertThat(placeholderRecord.getDescription()).isNull();
+        assertThat(placeholderRecord.getUrl()).isNull();
+        assertThat(placeholderRecord.serializedSize()).isEqualTo(21);
+        assertThat(emptyRecord.getTitle()).isEmpty();
+        assertThat(emptyRecord.getDescription()).isEmpty();
+        assertThat(emptyRecord.getUrl()).isEmpty();
+        assertThat(emptyRecord.getUrlToImage()).isEmpty();
+    }
+
+    @Test
+    void leavesOutCitiesTheIndexDoesNotKnow() {
+        NewsArticle article = NewsArticle.builder()
+                .isLocal(true)
+                .cities(List.of(city(9, "Nowhere", "Texas", "TX"), CITIES.get(0)))
+                .build();
+
+        assertThat(ArticleRecord.of(article, CITIES).getCityOrdinals()).containsExactly(0);
+    }
+
+    @Test
+    void readsBackWhatItWroteAtAnOffset() throws IOException {
+        ArticleRecord first = ArticleRecord.of(NewsArticle.builder()
+                .title("First").url("https://example.com/1").isLocal(false).build(), CITIES);
+        ArticleRecord second = ArticleRecord.of(NewsArticle.builder()
+                .title(ArticleRecord.NO_TITLE).description("Zürich café").url("https://example.com/2")
+                .isLocal(true).cities(List.of(CITIES.get(1))).build(), CITIES);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        first.writeTo(out);
+        second.writeTo(out);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+        assertThat(bytes.size()).isEqualTo(first.serializedSize() + second.serializedSize());
+        ArticleRecord read = ArticleRecord.readFrom(buffer, first.serializedSize());
+        assertThat(read.toNewsArticle(CITIES, List.of())).isEqualTo(second.toNewsArticle(CITIES, List.of()));
+        assertThat(ArticleRecord.readFrom(buffer, 0).toNewsArticle(CITIES, List.of()))
+                .isEqualTo(first.toNewsArticle(CITIES, List.of()));
+    }
+}
@@ -0,0 +1,197 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ArticleTextIndexTest {
+
+    private static final CityIndex NO_CITIES = CityIndex.build(List.of());
+    private static final String[] WORDS = {
+            "storm", "flood", "council", "vote", "school", "budget", "fire", "road", "bridge", "park",
+            "police", "mayor", "river", "election", "tax", "library", "festival", "traffic", "housing", "water"};
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        List<ArticleRecord> articles = List.of(
+                article("Council meets", "The storm flooded several roads."),
+                article("Storm damage", "Crews cleared trees on Monday."),
+                article(ArticleRecord.NO_TITLE, "Nothing about the weather."));
+        ArticleTextIndex index = ArticleTextIndex.build(articles);
+
+        assertThat(index.search("storms", null, 10)).containsExactly(1, 0);
+        assertThat(index.search("the", null, 10)).isEmpty();
+        assertThat(index.search("weather", null, 0)).isEmpty();
+    }
+
+    @Test
+    void onlyConsidersFilteredPositions() {
+        List<ArticleRecord> articles = List.of(
+                article("Storm", "storm storm"),
+                article("Storm", null),
+                article("Budget", "storm"));
+        ArticleTextIndex index = ArticleTextIndex.build(articles);
+
+        assertThat(index.search("storm", new int[]{1, 2}, 10)).containsExactly(1, 2);
+        assertThat(index.search("storm", new int[0], 10)).isEmpty();
+    }
+
+    @Test
+    void appendsSegmentsAndMergesThemLogarithmically() {
+        List<ArticleRecord> articles = randomArticles(new Random(3), 1000);
+        ArticleTextIndex index = ArticleTextIndex.empty();
+        for (int size = 10; size <= articles.size(); size += 10) {
+            ArticleTextIndex next = index.append(articles.subList(0, size));
+            assertThat(next.size()).isEqualTo(size);
+            index = next;
+        }
+
+        assertThat(index.segmentCount()).isLessThanOrEqualTo(8);
+        assertThat(index.append(articles)).isSameAs(index);
+        assertThat(index.append(articles.subList(0, 5)).size()).isEqualTo(5);
+    }
+
+    @Test
+    void roundTripsThroughItsBinaryForm() throws IOException {
+        Random random = new Random(5);
+        List<ArticleRecord> articles = randomArticles(random, 300);
+        ArticleTextIndex index = ArticleTextIndex.empty();
+        for (int size = 23; size < articles.size(); size += 23) {
+            index = index.append(articles.subList(0, size));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        ArticleTextIndex restored = ArticleTextIndex.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertThat(restored.size()).isEqualTo(index.size());
+        assertThat(restored.segmentCount()).isEqualTo(1);
+        for (int query = 0; query < 20; query++) {
+            String text = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            assertThat(restored.search(text, null, 10)).containsExactly(index.search(text, null, 10));
+        }
+        assertThat(restored.append(articles).search("storm", null, 1000))
+                .containsExactly(index.append(articles).search("storm", null, 1000));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        ArticleTextIndex.empty().writeTo(new DataOutputStream(empty));
+        assertThat(ArticleTextIndex.readFrom(ByteBuffer.wrap(empty.toByteArray()))).isSameAs(ArticleTextIndex.empty());
+    }
+
+    @Test
+    void matchesAnExhaustiveBm25Ranking() {
+        Random random = new Random(11);
+        List<ArticleRecord> articles = randomArticles(random, 600);
+        ArticleTextIndex index = ArticleTextIndex.empty();
+        for (int size = 37; size < articles.size(); size += 37) {
+            index = index.append(articles.subList(0, size));
+        }
+        index = index.append(articles);
+        Reference reference = new Reference(articles);
+
+        for (int query = 0; query < 40; query++) {
+            String text = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)];
+            int[] filter = query % 2 == 0 ? null
+                    : IntStream.range(0, articles.size()).filter(i -> i % 3 != 0).toArray();
+            int[] expected = reference.search(text, filter, 10);
+
+            int[] actual = index.search(text, filter, 10);
+
+            assertThat(actual).hasSameSizeAs(expected);
+            for (int i = 0; i < expected.length; i++) {
+                assertThat(reference.score(text, actual[i]))
+                        .isCloseTo(reference.score(text, expected[i]), within(1e-9));
+            }
+        }
+    }
+
+    private static List<ArticleRecord> randomArticles(Random random, int count) {
+        List<ArticleRecord> articles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            articles.add(article(words(random, 1 + random.nextInt(4)), words(random, random.nextInt(30))));
+        }
+        return articles;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // Skewed towards the first words, so document frequencies differ.
+            int word = Math.min(random.nextInt(WORDS.length), random.nextInt(WORDS.length));
+            text.append(WORDS[word]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static ArticleRecord article(String title, String description) {
+        return ArticleRecord.of(NewsArticle.builder().title(title).description(description).build(), NO_CITIES);
+    }
+
+    /**
+     * Scores every article with the BM25 formula the index is meant to implement.
+     */
+    private static final class Reference {
+        private final List<Map<String, Integer>> counts = new ArrayList<>();
+        private final Map<String, Integer> documentFrequencies = new HashMap<>();
+        private final int[] lengths;
+        private final double averageLength;
+
+        private Reference(List<ArticleRecord> articles) {
+            lengths = new int[articles.size()];
+            long total = 0;
+            for (int i = 0; i < articles.size(); i++) {
+                Map<String, Integer> terms = new HashMap<>();
+                String title = articles.get(i).getTitle();
+                if (!ArticleRecord.NO_TITLE.equals(title)) {
+                    TextAnalyzer.terms(title).forEach(term -> terms.merge(term, 2, Integer::sum));
+                }
+                TextAnalyzer.terms(articles.get(i).getDescription()).forEach(term -> terms.merge(term, 1, Integer::sum));
+                counts.add(terms);
+                terms.keySet().forEach(term -> documentFrequencies.merge(term, 1, Integer::sum));
+                lengths[i] = terms.values().stream().mapToInt(Integer::intValue).sum();
+                total += lengths[i];
+            }
+            averageLength = Math.max(1.0, (double) total / articles.size());
+        }
+
+        private double score(String query, int position) {
+            double score = 0;
+            for (String term : new LinkedHashSet<>(TextAnalyzer.terms(query))) {
+                int frequency = counts.get(position).getOrDefault(term, 0);
+                if (frequency > 0) {
+                    int documents = documentFrequencies.get(term);
+                    double idf = Math.log(1 + (counts.size() - documents + 0.5) / (documents + 0.5));
+                    score += idf * frequency * 2.2 / (frequency + 1.2 * (0.25 + 0.75 * lengths[position] / averageLength));
+                }
+            }
+            return score;
+        }
+
+        private int[] search(String query, int[] filter, int limit) {
+            IntStream positions = filter != null ? IntStream.of(filter) : IntStream.range(0, counts.size());
+            return positions.boxed()
+                    .filter(position -> score(query, position) > 0)
+                    .sorted(Comparator.<Integer>comparingDouble(position -> score(query, position)).reversed()
+                            .thenComparing(Comparator.reverseOrder()))
+                    .limit(limit)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CityGazetteerTest {
+
+    private static final CityIndex CITIES = CityIndex.build(List.of(
+            city(1, "New York", "New York", "NY", 8_804_190),
+            city(2, "York", "Pennsylvania", "PA", 44_800),
+            city(3, "Austin", "Texas", "TX", 961_855),
+            city(4, "Austin", "Minnesota", "MN", 26_000),
+            city(5, "Round Rock", "Texas", "TX", 119_468),
+            city(6, "Springfield", "Illinois", "IL", 114_394),
+            city(7, "Springfield", "Missouri", "MO", 169_176),
+            city(8, "Kansas City", "Missouri", "MO", 508_090),
+            city(9, "Kansas City", "Kansas", "KS", 156_607),
+            city(10, "Springfield", "Missouri", "MO", 1_000)));
+
+    private static final CityGazetteer GAZETTEER = CityGazetteer.build(CITIES);
+
+    @Test
+    void prefersTheLongestNameStartingAtAWord() {
+        CityGazetteer.Mentions mentions = GAZETTEER.scan("Flooding closed roads across New York overnight.", 5);
+
+        assertThat(names(mentions.candidates())).containsExactly("New York, NY");
+        assertThat(mentions.confident()).isEmpty();
+    }
+
+    @Test
+    void takesCitiesQualifiedByStateNameOrCode() {
+        assertThat(names(GAZETTEER.scan("AUSTIN, Texas — The council met on Monday.", 5).confident()))
+                .containsExactly("Austin, TX");
+        assertThat(names(GAZETTEER.scan("The fair in Austin, MN opens today.", 5).confident()))
+                .containsExactly("Austin, MN");
+    }
+
+    @Test
+    void takesUnqualifiedNamesThatExistOnlyInAQualifiedState() {
+        CityGazetteer.Mentions mentions = GAZETTEER.scan(
+                "Austin, Texas — Officials in Round Rock and Springfield said the storm had passed.", 5);
+
+        assertThat(names(mentions.confident())).containsExactly("Austin, TX", "Round Rock, TX");
+        assertThat(names(mentions.candidates())).startsWith("Austin, TX");
+    }
+
+    @Test
+    void ignoresMentionsWithoutACapitalLetter() {
+        CityGazetteer.Mentions mentions = GAZETTEER.scan("a springfield of flowers near new york avenue", 5);
+
+        assertThat(mentions.confident()).isEmpty();
+        assertThat(mentions.candidates()).isEmpty();
+    }
+
+    @Test
+    void ranksAmbiguousNamesByTheStatesNamedInTheTextThenByPopulation() {
+        assertThat(names(GAZETTEER.scan("Springfield schools reopened.", 5).candidates()))
+                .containsExactly("Springfield, MO", "Springfield, IL");
+        assertThat(names(GAZETTEER.scan("Springfield schools reopened, Illinois officials said.", 5).candidates()))
+                .containsExactly("Springfield, IL", "Springfield, MO");
+        assertThat(names(GAZETTEER.scan("Springfield schools reopened.", 1).candidates()))
+                .containsExactly("Springfield, MO");
+    }
+
+    @Test
+    void doesNotCountAStateInsideACityNameAsAMention() {
+        CityGazetteer.Mentions mentions = GAZETTEER.scan("Kansas City police closed the bridge.", 5);
+
+        assertThat(names(mentions.candidates())).containsExactly("Kansas City, MO", "Kansas City, KS");
+    }
+
+    private static List<String> names(int[] ordinals) {
+        return Arrays.stream(ordinals)
+                .mapToObj(CITIES::get)
+                .map(city -> city.getName() + ", " + city.getStateCode())
+                .toList();
+    }
+
+    private static City city(long id, String name, String stateName, String stateCode, long population) {
+        return City.builder().id(id).name(name).stateName(stateName).stateCode(stateCode).population(population).build();
+    }
+}
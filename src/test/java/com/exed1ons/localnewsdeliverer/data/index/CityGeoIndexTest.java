@@ -0,0 +1,86 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CityGeoIndexTest {
+
+    @Test
+    void measuresGreatCircleDistances() {
+        assertThat(CityGeoIndex.distanceKm(48.8566, 2.3522, 51.5074, -0.1278)).isCloseTo(343.6, within(1.0));
+        assertThat(CityGeoIndex.distanceKm(0, 179.5, 0, -179.5)).isCloseTo(111.2, within(0.5));
+        assertThat(CityGeoIndex.distanceKm(10, 20, 10, 20)).isZero();
+    }
+
+    @Test
+    void findsCitiesAcrossTheAntimeridianAndNearThePole() {
+        CityIndex cities = CityIndex.build(List.of(
+                city(1, 65.0, 179.8),
+                city(2, 65.0, -179.8),
+                city(3, 65.0, 170.0),
+                city(4, 89.9, 0.0),
+                city(5, 89.9, 180.0)));
+        CityGeoIndex index = CityGeoIndex.build(cities);
+
+        assertThat(index.withinRadius(65.0, 179.9, 20)).containsExactlyInAnyOrder(0, 1);
+        assertThat(index.withinRadius(90.0, 0.0, 15)).containsExactlyInAnyOrder(3, 4);
+    }
+
+    @Test
+    void leavesOutCitiesWithoutCoordinates() {
+        CityIndex cities = CityIndex.build(List.of(
+                city(1, 30.0, -97.0),
+                City.builder().id(2L).name("Nowhere").stateName("Texas").stateCode("TX").build()));
+        CityGeoIndex index = CityGeoIndex.build(cities);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.nearest(0, 0, 5)).containsExactly(0);
+        assertThat(CityGeoIndex.empty().nearest(0, 0, 5)).isEmpty();
+        assertThat(CityGeoIndex.empty().withinRadius(0, 0, 100)).isEmpty();
+    }
+
+    @Test
+    void matchesABruteForceScan() {
+        Random random = new Random(7);
+        List<City> list = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            list.add(city(i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        CityIndex cities = CityIndex.build(list);
+        CityGeoIndex index = CityGeoIndex.build(cities);
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            int[] byDistance = IntStream.range(0, list.size()).boxed()
+                    .sorted(Comparator.comparingDouble(ordinal -> distance(list.get(ordinal), latitude, longitude)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int inRadius = (int) IntStream.of(byDistance)
+                    .filter(ordinal -> distance(list.get(ordinal), latitude, longitude) <= 800)
+                    .count();
+
+            assertThat(index.nearest(latitude, longitude, 10)).containsExactly(Arrays.copyOf(byDistance, 10));
+            assertThat(index.withinRadius(latitude, longitude, 800)).containsExactly(Arrays.copyOf(byDistance, inRadius));
+        }
+    }
+
+    private static double distance(City city, double latitude, double longitude) {
+        return CityGeoIndex.distanceKm(city.getLatitude(), city.getLongitude(), latitude, longitude);
+    }
+
+    private static City city(long id, double latitude, double longitude) {
+        return City.builder().id(id).name("City " + id).stateName("State").stateCode("ST")
+                .latitude(latitude).longitude(longitude).build();
+    }
+}
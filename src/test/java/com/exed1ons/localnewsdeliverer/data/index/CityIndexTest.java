@@ -0,0 +1,65 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CityIndexTest {
+
+    private static final List<City> CITIES = List.of(
+            city(10, "Springfield", "Illinois", "IL"),
+            city(20, "Chicago", "Illinois", "IL"),
+            city(30, "Springfield", "Missouri", "MO"),
+            city(40, "Springfield", "Illinois", "IL"),
+            city(5, "Anchorage", "Alaska", "AK"));
+
+    private final CityIndex index = CityIndex.build(CITIES);
+
+    @Test
+    void findsCitiesByNameAndStateIgnoringCaseAndSpaces() {
+        assertThat(index.findByNameAndStateCode(" chicago ", "il").getId()).isEqualTo(20L);
+        assertThat(index.findByNameAndStateCode("Springfield", "MO").getId()).isEqualTo(30L);
+        assertThat(index.findByNameAndStateCode("Chicago", "MO")).isNull();
+    }
+
+    @Test
+    void returnsTheFirstCityInFileOrderForDuplicateNames() {
+        assertThat(index.findByNameAndStateCode("Springfield", "IL").getId()).isEqualTo(10L);
+        assertThat(index.findOrdinalsByNameAndStateName("SPRINGFIELD", "illinois")).containsExactly(0, 3);
+        assertThat(index.findOrdinalsByNameAndStateName("Springfield", "Texas")).isEmpty();
+    }
+
+    @Test
+    void findsCitiesByIdAndState() {
+        assertThat(index.findById(5).getName()).isEqualTo("Anchorage");
+        assertThat(index.findById(99)).isNull();
+        assertThat(index.ordinalOf(30L)).isEqualTo(2);
+        assertThat(index.ordinalOf(null)).isEqualTo(-1);
+        assertThat(index.findByState("IL")).extracting(City::getId).containsExactly(10L, 20L, 40L);
+        assertThat(index.findByState("missouri")).extracting(City::getId).containsExactly(30L);
+    }
+
+    @Test
+    void exposesCitiesInFileOrder() {
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.getCities()).isEqualTo(CITIES);
+        assertThat(index.get(1)).isEqualTo(CITIES.get(1));
+        assertThat(CityIndex.empty().size()).isZero();
+        assertThat(CityIndex.empty().findByNameAndStateCode("Chicago", "IL")).isNull();
+    }
+
+    @Test
+    void rebuildsTheSameIndexFromItsTable() {
+        CityIndex rebuilt = CityIndex.build(index.getTable());
+
+        assertThat(rebuilt.getCities()).isEqualTo(CITIES);
+        assertThat(rebuilt.findByNameAndStateCode("Anchorage", "AK").getId()).isEqualTo(5L);
+    }
+
+    static City city(long id, String name, String stateName, String stateCode) {
+        return City.builder().id(id).name(name).stateName(stateName).stateCode(stateCode).build();
+    }
+}
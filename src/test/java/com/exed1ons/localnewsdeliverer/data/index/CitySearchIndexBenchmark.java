@@ -0,0 +1,65 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures {@code limit=10} autocomplete latency over 30,000 synthetic cities for queries of one
+ * to five characters. Not part of the regular build; run with
+ * {@code mvn test -Dtest=CitySearchIndexBenchmark}.
+ */
+class CitySearchIndexBenchmark {
+
+    private static final int CITIES = 30_000;
+    private static final int WARMUP = 50_000;
+    private static final int QUERIES = 200_000;
+    private static final String[] SYLLABLES = {
+            "san", "port", "ville", "ford", "ton", "spring", "field", "lake", "mont", "ber",
+            "wood", "ash", "el", "ridge", "dale", "oak", "ham", "new", "burg", "ana"};
+
+    @Test
+    void thirtyThousandCities() {
+        Random random = new Random(42);
+        List<City> cities = new ArrayList<>(CITIES);
+        for (int i = 0; i < CITIES; i++) {
+            StringBuilder name = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(2); syllables > 0; syllables--) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+            City city = CityIndexTest.city(i, name.toString(), "State " + (i % 50), "S" + (i % 50));
+            city.setPopulation((long) random.nextInt(1_000_000));
+            cities.add(city);
+        }
+        long start = System.nanoTime();
+        CitySearchIndex index = CitySearchIndex.build(CityIndex.build(cities));
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        String[] queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String name = cities.get(random.nextInt(CITIES)).getName();
+            int from = random.nextInt(name.length());
+            queries[i] = name.substring(from, Math.min(name.length(), from + 1 + random.nextInt(5)));
+        }
+        int hits = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            hits += index.search(queries[i % queries.length], 10).size();
+        }
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long queryStart = System.nanoTime();
+            hits += index.search(queries[i % queries.length], 10).size();
+            nanos[i] = System.nanoTime() - queryStart;
+        }
+        Arrays.sort(nanos);
+
+        System.out.printf("%d cities: build %d ms, p50 %.1f us, p99 %.1f us, max %.1f us (%d hits)%n",
+                CITIES, buildMillis, nanos[QUERIES / 2] / 1000.0, nanos[QUERIES * 99 / 100] / 1000.0,
+                nanos[QUERIES - 1] / 1000.0, hits);
+    }
+}
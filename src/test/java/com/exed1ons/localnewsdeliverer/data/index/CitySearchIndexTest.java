@@ -0,0 +1,53 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CitySearchIndexTest {
+
+    private final CitySearchIndex index = CitySearchIndex.build(CityIndex.build(List.of(
+            city(1, "Portland", "Maine", "ME", 68_000),
+            city(2, "Portland", "Oregon", "OR", 650_000),
+            city(3, "Port Arthur", "Texas", "TX", 55_000),
+            city(4, "Newport", "Rhode Island", "RI", 25_000),
+            city(5, "Davenport", "Iowa", "IA", 100_000),
+            city(6, "Port", "Nowhere", "NW", null),
+            city(7, "Des Moines", "Iowa", "IA", 215_000),
+            city(8, "Iowa City", "Iowa", "IA", 75_000))));
+
+    @Test
+    void ranksExactThenPrefixThenSubstringMatchesByPopulation() {
+        assertThat(index.search("port", 10)).extracting(City::getId)
+                .containsExactly(6L, 2L, 1L, 3L, 5L, 4L);
+    }
+
+    @Test
+    void matchesStateNamesAfterCityNames() {
+        assertThat(index.search("iowa", 10)).extracting(City::getId).containsExactly(8L, 7L, 5L);
+        assertThat(index.search("  OREGON", 10)).extracting(City::getId).containsExactly(2L);
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        assertThat(index.search("port", 2)).extracting(City::getId).containsExactly(6L, 2L);
+        assertThat(index.search("port", 0)).isEmpty();
+        assertThat(index.search("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void listsAllCitiesByPopulationForAnEmptyQuery() {
+        assertThat(index.search(null, 3)).extracting(City::getId).containsExactly(2L, 7L, 5L);
+        assertThat(index.search("", 100)).hasSize(8);
+        assertThat(CitySearchIndex.empty().search("port", 10)).isEmpty();
+    }
+
+    private static City city(long id, String name, String stateName, String stateCode, Integer population) {
+        City city = CityIndexTest.city(id, name, stateName, stateCode);
+        city.setPopulation(population == null ? null : population.longValue());
+        return city;
+    }
+}
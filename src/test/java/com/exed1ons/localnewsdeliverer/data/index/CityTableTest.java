@@ -0,0 +1,76 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import com.exed1ons.localnewsdeliverer.domain.City;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CityTableTest {
+
+    private static final List<City> CITIES = List.of(
+            City.builder().id(1L).name("Springfield").stateName("Illinois").stateCode("IL")
+                    .population(114_394L).latitude(39.8).longitude(-89.6).build(),
+            City.builder().id(2L).name("Springfield").stateName("Missouri").stateCode("MO")
+                    .population(169_176L).latitude(37.2).longitude(-93.3).build(),
+            City.builder().id(3L).name("Peoria").stateName("Illinois").stateCode("IL").build());
+
+    @Test
+    void storesEachStateOnceAndSharesRepeatedNames() {
+        CityTable table = CityTable.of(CITIES);
+
+        assertThat(table.size()).isEqualTo(3);
+        assertThat(table.stateCount()).isEqualTo(2);
+        assertThat(table.state(0)).isEqualTo(table.state(2));
+        assertThat(table.stateNameAt(table.state(1))).isEqualTo("Missouri");
+        assertThat(table.stateCodeAt(table.state(1))).isEqualTo("MO");
+        assertThat(table.name(0)).isSameAs(table.name(1));
+        assertThat(table.normalizedName(0)).isEqualTo(CityIndex.normalize("Springfield"));
+    }
+
+    @Test
+    void reportsMissingPopulationAndCoordinates() {
+        CityTable table = CityTable.of(CITIES);
+
+        assertThat(table.population(2)).isNull();
+        assertThat(table.populationOrZero(2)).isZero();
+        assertThat(table.hasCoordinates(2)).isFalse();
+        assertThat(table.latitude(2)).isNull();
+        assertThat(table.longitude(2)).isNull();
+        assertThat(table.populationOrZero(0)).isEqualTo(114_394L);
+        assertThat(table.hasCoordinates(0)).isTrue();
+    }
+
+    @Test
+    void rebuildsTheOriginalCities() {
+        CityTable table = CityTable.of(CITIES);
+
+        for (int ordinal = 0; ordinal < CITIES.size(); ordinal++) {
+            assertThat(table.toCity(ordinal)).isEqualTo(CITIES.get(ordinal));
+        }
+    }
+
+    @Test
+    void readsBackWhatItWrote() throws IOException {
+        CityTable table = CityTable.of(CITIES);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.writeTo(new DataOutputStream(bytes));
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.size() + 4);
+        buffer.put(bytes.toByteArray()).putInt(42).flip();
+
+        CityTable read = CityTable.readFrom(buffer);
+
+        assertThat(buffer.getInt()).isEqualTo(42);
+        assertThat(read.size()).isEqualTo(3);
+        assertThat(read.stateCount()).isEqualTo(2);
+        for (int ordinal = 0; ordinal < CITIES.size(); ordinal++) {
+            assertThat(read.toCity(ordinal)).isEqualTo(CITIES.get(ordinal));
+            assertThat(read.normalizedName(ordinal)).isEqualTo(table.normalizedName(ordinal));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PorterStemmerTest {
+
+    @Test
+    void stemsTheExamplesOfThePaper() {
+        String[][] examples = {
+                {"caresses", "caress"}, {"ponies", "poni"}, {"cats", "cat"},
+                {"feed", "feed"}, {"agreed", "agre"}, {"plastered", "plaster"}, {"motoring", "motor"},
+                {"conflated", "conflat"}, {"hopping", "hop"}, {"falling", "fall"}, {"filing", "file"},
+                {"happy", "happi"}, {"relational", "relat"}, {"conditional", "condit"},
+                {"digitizer", "digit"}, {"operator", "oper"}, {"hopeful", "hope"}, {"goodness", "good"},
+                {"triplicate", "triplic"}, {"electrical", "electr"}, {"revival", "reviv"},
+                {"adjustable", "adjust"}, {"adoption", "adopt"}, {"probate", "probat"}, {"rate", "rate"},
+                {"controll", "control"}, {"roll", "roll"},
+                {"connections", "connect"}, {"connected", "connect"}, {"connecting", "connect"}};
+        for (String[] example : examples) {
+            assertThat(PorterStemmer.stem(example[0])).as(example[0]).isEqualTo(example[1]);
+        }
+    }
+
+    @Test
+    void leavesShortAndNonAsciiWordsUnchanged() {
+        assertThat(PorterStemmer.stem("is")).isEqualTo("is");
+        assertThat(PorterStemmer.stem("cafés")).isEqualTo("cafés");
+        assertThat(PorterStemmer.stem("covid19")).isEqualTo("covid19");
+    }
+}
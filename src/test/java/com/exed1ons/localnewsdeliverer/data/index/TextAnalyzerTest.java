@@ -0,0 +1,29 @@
+package com.exed1ons.localnewsdeliverer.data.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextAnalyzerTest {
+
+    @Test
+    void stemsWordsAndDropsStopWords() {
+        assertThat(TextAnalyzer.terms("Flooding closes roads")).containsExactly("flood", "close", "road");
+        assertThat(TextAnalyzer.terms("The road was closed by the flood")).containsExactly("road", "close", "flood");
+    }
+
+    @Test
+    void stripsPossessivesAndInnerApostrophes() {
+        assertThat(TextAnalyzer.terms("Boston's mayor")).containsExactly("boston", "mayor");
+        assertThat(TextAnalyzer.terms("Boston’s O'Neill")).containsExactly("boston", "oneil");
+        assertThat(TextAnalyzer.terms("'quoted'")).containsExactly("quot");
+    }
+
+    @Test
+    void keepsDigitsAndSkipsOverlongTokens() {
+        assertThat(TextAnalyzer.terms("I-95 crash, 2024")).containsExactly("i", "95", "crash", "2024");
+        assertThat(TextAnalyzer.terms("x".repeat(41) + " storm")).containsExactly("storm");
+        assertThat(TextAnalyzer.terms(null)).isEmpty();
+        assertThat(TextAnalyzer.terms(" -- ")).isEmpty();
+    }
+}
@@ -0,0 +1,145 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsWithCommasQuotesAndLineBreaks() throws IOException {
+        List<List<String>> records = readAll("id,city\n"
+                + "1,\"Winston-Salem, North\"\n"
+                + "2,\"The \"\"Big\"\" Apple\"\n"
+                + "3,\"Two\nlines\"\n"
+                + "4,\"\"\n");
+
+        assertThat(records).containsExactly(
+                List.of("id", "city"),
+                List.of("1", "Winston-Salem, North"),
+                List.of("2", "The \"Big\" Apple"),
+                List.of("3", "Two\nlines"),
+                List.of("4", ""));
+    }
+
+    @Test
+    void handlesCrlfEndingsByteOrderMarkAndMissingFinalNewline() throws IOException {
+        List<List<String>> records = readAll("\uFEFFid,city\r\n1,Zürich\r\n2,Austin");
+
+        assertThat(records).containsExactly(
+                List.of("id", "city"),
+                List.of("1", "Zürich"),
+                List.of("2", "Austin"));
+    }
+
+    @Test
+    void readsRecordsSplitAcrossChannelReads() throws IOException {
+        String content = "id,name,population\n"
+                + "1,\"Long, quoted \"\"name\"\"\",12345\r\n"
+                + "2,Short,\n";
+        CsvReader csv = new CsvReader(new ChunkedChannel(content, 3));
+
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.field(1)).isEqualTo("Long, quoted \"name\"");
+        assertThat(csv.longField(2)).isEqualTo(12345L);
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.field(1)).isEqualTo("Short");
+        assertThat(csv.longField(2)).isNull();
+        assertThat(csv.next()).isFalse();
+    }
+
+    @Test
+    void reportsTheLineEachRecordStartsOnAndBlankLines() throws IOException {
+        CsvReader csv = reader("a\n\"b\nc\"\n\nd\n");
+
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.lineNumber()).isEqualTo(1);
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.lineNumber()).isEqualTo(2);
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.lineNumber()).isEqualTo(4);
+        assertThat(csv.isBlankLine()).isTrue();
+        assertThat(csv.next()).isTrue();
+        assertThat(csv.lineNumber()).isEqualTo(5);
+        assertThat(csv.isBlankLine()).isFalse();
+    }
+
+    @Test
+    void parsesNumbersAndReportsMissingFields() throws IOException {
+        CsvReader csv = reader("42,-7,1234.0,1.2e6, 99 ,abc,30.25\n");
+        assertThat(csv.next()).isTrue();
+
+        assertThat(csv.longField(0)).isEqualTo(42L);
+        assertThat(csv.longField(1)).isEqualTo(-7L);
+        assertThat(csv.longField(2)).isEqualTo(1234L);
+        assertThat(csv.longField(3)).isEqualTo(1_200_000L);
+        assertThat(csv.longField(4)).isEqualTo(99L);
+        assertThat(csv.doubleField(6)).isEqualTo(30.25);
+        assertThatThrownBy(() -> csv.longField(5)).isInstanceOf(NumberFormatException.class);
+        assertThat(csv.field(7)).isNull();
+        assertThat(csv.field(-1)).isNull();
+        assertThat(csv.longField(7)).isNull();
+        assertThat(csv.isEmpty(7)).isTrue();
+    }
+
+    private static List<List<String>> readAll(String content) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader csv = reader(content)) {
+            while (csv.next()) {
+                List<String> fields = new ArrayList<>();
+                for (int i = 0; i < csv.fieldCount(); i++) {
+                    fields.add(csv.field(i));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    private static CsvReader reader(String content) {
+        return new CsvReader(new ChunkedChannel(content, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Channel that hands out at most {@code chunk} bytes per read.
+     */
+    private static final class ChunkedChannel implements ReadableByteChannel {
+        private final ByteBuffer bytes;
+        private final int chunk;
+
+        private ChunkedChannel(String content, int chunk) {
+            this.bytes = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(ByteBuffer target) {
+            if (!bytes.hasRemaining()) {
+                return -1;
+            }
+            int length = Math.min(Math.min(chunk, bytes.remaining()), target.remaining());
+            ByteBuffer slice = bytes.slice(bytes.position(), length);
+            target.put(slice);
+            bytes.position(bytes.position() + length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestionCheckpointStoreTest {
+
+    private static final String HEADER = "{\"header\": \"" + "h".repeat(300) + "\"}\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resumesAfterLinesAreAppended() throws IOException {
+        Path file = Files.writeString(dir.resolve("news.jsonl"), HEADER + "line one\nline two\n");
+        IngestionCheckpointStore store = new IngestionCheckpointStore(new ObjectMapper(), "");
+        long offset = Files.size(file);
+        store.update(file, offset);
+
+        Files.writeString(file, "line three\n", StandardOpenOption.APPEND);
+
+        assertThat(store.offsetOf(file)).isEqualTo(offset);
+    }
+
+    @Test
+    void startsOverWhenTheFileIsTruncated() throws IOException {
+        Path file = Files.writeString(dir.resolve("news.jsonl"), HEADER + "line one\nline two\n");
+        IngestionCheckpointStore store = new IngestionCheckpointStore(new ObjectMapper(), "");
+        store.update(file, Files.size(file));
+
+        Files.writeString(file, HEADER);
+
+        assertThat(store.offsetOf(file)).isZero();
+    }
+
+    @Test
+    void startsOverWhenTheFileIsRewrittenWithTheSameHeader() throws IOException {
+        Path file = Files.writeString(dir.resolve("news.jsonl"), HEADER + "line one\nline two\n");
+        IngestionCheckpointStore store = new IngestionCheckpointStore(new ObjectMapper(), "");
+        store.update(file, Files.size(file));
+
+        Files.writeString(file, HEADER + "line ONE\nline TWO\nline three\n");
+
+        assertThat(store.offsetOf(file)).isZero();
+    }
+
+    @Test
+    void persistsCheckpointsAcrossInstances() throws IOException {
+        Path file = Files.writeString(dir.resolve("news.jsonl"), "line one\n");
+        String checkpoints = dir.resolve("state/checkpoints.json").toString();
+        IngestionCheckpointStore store = new IngestionCheckpointStore(new ObjectMapper(), checkpoints);
+        store.load();
+        store.update(file, 9);
+        store.save();
+
+        IngestionCheckpointStore reloaded = new IngestionCheckpointStore(new ObjectMapper(), checkpoints);
+        reloaded.load();
+
+        assertThat(reloaded.offsetOf(file)).isEqualTo(9);
+        assertThat(reloaded.checkpoints()).singleElement()
+                .satisfies(checkpoint -> assertThat(IngestionCheckpointStore.matches(checkpoint)).isTrue());
+        assertThat(reloaded.offsetOf(dir.resolve("other.jsonl"))).isZero();
+    }
+}
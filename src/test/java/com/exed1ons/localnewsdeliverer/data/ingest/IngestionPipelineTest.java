@@ -0,0 +1,183 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestionPipelineTest {
+
+    @Test
+    void storesArticlesInSubmissionOrderWhenStagesFinishOutOfOrder() throws InterruptedException {
+        ScheduledExecutorService delays = Executors.newScheduledThreadPool(4);
+        RecordingListener listener = new RecordingListener();
+        IngestionPipeline pipeline = IngestionPipeline.builder()
+                .queueCapacity(4)
+                .maxInFlight(16)
+                .stage("first", 4, item -> sleepRandomly())
+                .asyncStage("second", item -> {
+                    CompletableFuture<Void> done = new CompletableFuture<>();
+                    delays.schedule(() -> done.complete(null), ThreadLocalRandom.current().nextInt(3), TimeUnit.MILLISECONDS);
+                    return done;
+                })
+                .stage("third", 3, item -> sleepRandomly())
+                .listener(listener)
+                .build();
+        pipeline.start();
+        for (int i = 0; i < 200; i++) {
+            pipeline.submit(article(i));
+        }
+        pipeline.finish();
+        delays.shutdownNow();
+
+        assertThat(listener.stored).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            assertThat(listener.stored.get(i)).isEqualTo("http://example.com/" + i);
+        }
+        assertThat(listener.submitted).hasValue(200);
+        assertThat(pipeline.inFlight()).isZero();
+    }
+
+    @Test
+    void reportsDroppedAndFailedItemsWithoutStoringThem() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        IngestionPipeline pipeline = IngestionPipeline.builder()
+                .stage("drop", 2, item -> {
+                    if (index(item) % 3 == 0) {
+                        item.drop();
+                    }
+                })
+                .asyncStage("fail", item -> index(item) % 3 == 1
+                        ? CompletableFuture.failedFuture(new IllegalStateException("boom"))
+                        : CompletableFuture.completedFuture(null))
+                .stage("throw", 2, item -> {
+                    if (index(item) == 5) {
+                        throw new IllegalStateException("boom");
+                    }
+                })
+                .listener(listener)
+                .build();
+        pipeline.start();
+        for (int i = 0; i < 12; i++) {
+            pipeline.submit(article(i));
+        }
+        pipeline.finish();
+
+        assertThat(listener.stored).containsExactly(
+                "http://example.com/2", "http://example.com/8", "http://example.com/11");
+        assertThat(listener.dropped).hasValue(9);
+    }
+
+    @Test
+    void skipsRemainingStagesForCompletedItems() throws InterruptedException {
+        AtomicInteger laterCalls = new AtomicInteger();
+        RecordingListener listener = new RecordingListener();
+        IngestionPipeline pipeline = IngestionPipeline.builder()
+                .stage("cache", 1, IngestionItem::complete)
+                .asyncStage("fetch", item -> {
+                    laterCalls.incrementAndGet();
+                    return CompletableFuture.completedFuture(null);
+                })
+                .stage("classify", 1, item -> laterCalls.incrementAndGet())
+                .listener(listener)
+                .build();
+        pipeline.start();
+        for (int i = 0; i < 5; i++) {
+            pipeline.submit(article(i));
+        }
+        pipeline.finish();
+
+        assertThat(laterCalls).hasValue(0);
+        assertThat(listener.stored).hasSize(5);
+    }
+
+    @Test
+    void limitsOutstandingFuturesOfAnAsyncStage() throws InterruptedException {
+        ScheduledExecutorService delays = Executors.newScheduledThreadPool(4);
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicInteger maxOutstanding = new AtomicInteger();
+        RecordingListener listener = new RecordingListener();
+        IngestionPipeline pipeline = IngestionPipeline.builder()
+                .asyncStage("limited", 2, item -> {
+                    maxOutstanding.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                    CompletableFuture<Void> done = new CompletableFuture<>();
+                    delays.schedule(() -> {
+                        outstanding.decrementAndGet();
+                        done.complete(null);
+                    }, 1, TimeUnit.MILLISECONDS);
+                    return done;
+                })
+                .listener(listener)
+                .build();
+        pipeline.start();
+        for (int i = 0; i < 50; i++) {
+            pipeline.submit(article(i));
+        }
+        pipeline.finish();
+        delays.shutdownNow();
+
+        assertThat(listener.stored).hasSize(50);
+        assertThat(maxOutstanding.get()).isEqualTo(2);
+    }
+
+    @Test
+    void finishesWithoutAnySubmissions() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        IngestionPipeline pipeline = IngestionPipeline.builder()
+                .stage("only", 2, item -> {
+                })
+                .listener(listener)
+                .build();
+        pipeline.start();
+        pipeline.finish();
+
+        assertThat(listener.stored).isEmpty();
+    }
+
+    private static NewsArticle article(int i) {
+        return NewsArticle.builder().url("http://example.com/" + i).build();
+    }
+
+    private static int index(IngestionItem item) {
+        String url = item.getArticle().getUrl();
+        return Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+    }
+
+    private static void sleepRandomly() {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingListener implements IngestionListener {
+        private final List<String> stored = new ArrayList<>();
+        private final AtomicInteger submitted = new AtomicInteger();
+        private final AtomicInteger dropped = new AtomicInteger();
+
+        @Override
+        public void onSubmitted() {
+            submitted.incrementAndGet();
+        }
+
+        @Override
+        public void onStored(NewsArticle article, long fingerprint) {
+            stored.add(article.getUrl());
+        }
+
+        @Override
+        public void onDropped() {
+            dropped.incrementAndGet();
+        }
+    }
+}
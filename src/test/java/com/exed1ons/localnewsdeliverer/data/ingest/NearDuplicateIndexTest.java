@@ -0,0 +1,71 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NearDuplicateIndexTest {
+
+    @Test
+    void findsEveryFingerprintWithinTheMaximumDistance() {
+        Random random = new Random(5);
+        NearDuplicateIndex<Integer> index = new NearDuplicateIndex<>(5);
+        List<Long> fingerprints = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long fingerprint = random.nextLong();
+            fingerprints.add(fingerprint);
+            index.add(fingerprint, i);
+        }
+
+        for (int i = 0; i < fingerprints.size(); i++) {
+            long query = flip(fingerprints.get(i), random, 5);
+            assertThat(index.find(query)).isEqualTo(i);
+            assertThat(index.find(flip(query, random, 1 + random.nextInt(3)) ^ ~0L)).isNull();
+        }
+    }
+
+    @Test
+    void prefersTheClosestAndThenTheEarliestEntry() {
+        NearDuplicateIndex<String> index = new NearDuplicateIndex<>(3);
+        index.add(0b1110L, "far");
+        index.add(0b0010L, "near");
+        index.add(0b0001L, "near too");
+
+        assertThat(index.find(0b0000L)).isEqualTo("near");
+        assertThat(index.find(0b1111L)).isEqualTo("far");
+        assertThat(index.find(0b1111_0000L)).isNull();
+    }
+
+    @Test
+    void addsOnlyWhenNoNearDuplicateExistsAndForgetsRemovedEntries() {
+        NearDuplicateIndex<String> index = new NearDuplicateIndex<>(2);
+        String first = "first";
+
+        assertThat(index.findOrAdd(0xff00L, first)).isNull();
+        assertThat(index.findOrAdd(0xff01L, "second")).isSameAs(first);
+        assertThat(index.size()).isEqualTo(1);
+
+        index.remove(0xff00L, first);
+        assertThat(index.find(0xff00L)).isNull();
+        assertThat(index.findOrAdd(0xff01L, "third")).isNull();
+    }
+
+    @Test
+    void rejectsDistancesTheBandsCannotCover() {
+        assertThatThrownBy(() -> new NearDuplicateIndex<>(8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NearDuplicateIndex<>(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long flip(long fingerprint, Random random, int bits) {
+        long result = fingerprint;
+        while (SimHash.distance(result, fingerprint) < bits) {
+            result ^= 1L << random.nextInt(64);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,65 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetLineReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tracksTheByteOffsetPastEachLine() throws IOException {
+        Path file = write("first\r\nzweite Zeile über\n\nlast");
+
+        try (OffsetLineReader reader = new OffsetLineReader(file, 0)) {
+            assertThat(reader.readLine()).isEqualTo("first");
+            assertThat(reader.getOffset()).isEqualTo(7);
+            assertThat(reader.isTerminated()).isTrue();
+
+            assertThat(reader.readLine()).isEqualTo("zweite Zeile über");
+            assertThat(reader.getOffset()).isEqualTo(7 + "zweite Zeile über\n".getBytes(StandardCharsets.UTF_8).length);
+
+            assertThat(reader.readLine()).isEmpty();
+            assertThat(reader.readLine()).isEqualTo("last");
+            assertThat(reader.isTerminated()).isFalse();
+            assertThat(reader.getOffset()).isEqualTo(Files.size(file));
+            assertThat(reader.readLine()).isNull();
+        }
+    }
+
+    @Test
+    void resumesAtAnOffset() throws IOException {
+        Path file = write("one\ntwo\nthree\n");
+
+        try (OffsetLineReader reader = new OffsetLineReader(file, 4)) {
+            assertThat(reader.readLine()).isEqualTo("two");
+            assertThat(reader.readLine()).isEqualTo("three");
+            assertThat(reader.getOffset()).isEqualTo(14);
+            assertThat(reader.readLine()).isNull();
+        }
+    }
+
+    @Test
+    void readsLinesLongerThanTheBuffer() throws IOException {
+        String longLine = "x".repeat(200_000);
+        Path file = write(longLine + "\nshort\n");
+
+        try (OffsetLineReader reader = new OffsetLineReader(file, 0)) {
+            assertThat(reader.readLine()).isEqualTo(longLine);
+            assertThat(reader.getOffset()).isEqualTo(200_001);
+            assertThat(reader.readLine()).isEqualTo("short");
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("news.jsonl"), content, StandardCharsets.UTF_8);
+    }
+}
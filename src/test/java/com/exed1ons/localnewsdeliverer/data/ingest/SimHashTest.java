@@ -0,0 +1,53 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimHashTest {
+
+    private static final String STORY = "Officials said the storm damaged dozens of homes along the river and closed "
+            + "three schools while crews worked through the night to restore power to the neighborhood. The mayor "
+            + "asked residents to stay off the roads until the water recedes and promised an update on Tuesday. "
+            + "Emergency shelters opened at the community center and the old armory, where volunteers handed out "
+            + "blankets, bottled water and hot meals to families who had to leave their houses before dawn. "
+            + "The county engineer said two bridges on the east side would stay closed until inspectors could "
+            + "check their foundations, and that the damage to local roads could take weeks to repair. "
+            + "Forecasters expect more rain later in the week, though they said it should be lighter than the "
+            + "downpour that dropped nearly five inches on the area in less than six hours on Sunday night. "
+            + "Residents who need help with cleanup can call the city hotline or visit the relief desk at the "
+            + "library, which will stay open late through the end of the month.";
+
+    @Test
+    void givesRepublishedCopiesCloseFingerprints() {
+        long original = SimHash.of(STORY);
+        long republished = SimHash.of("By Staff Reports. " + STORY.toUpperCase()
+                + " All rights reserved.");
+
+        assertThat(original).isNotEqualTo(SimHash.NONE);
+        assertThat(SimHash.distance(original, republished)).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void givesUnrelatedTextsDistantFingerprints() {
+        long other = SimHash.of("The school board approved a new budget for the coming year after a long debate "
+                + "about teacher salaries, bus routes and the cost of repairing the roof of the high school gym, "
+                + "and members agreed to revisit the plan in the spring.");
+
+        assertThat(SimHash.distance(SimHash.of(STORY), other)).isGreaterThan(10);
+    }
+
+    @Test
+    void ignoresBoilerplateRepeatedWithinTheText() {
+        String footer = " Subscribe to our newsletter for more local news.";
+
+        assertThat(SimHash.distance(SimHash.of(STORY + footer), SimHash.of(STORY + footer.repeat(20))))
+                .isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void returnsNoneForTextsTooShortToCompare() {
+        assertThat(SimHash.of(null)).isEqualTo(SimHash.NONE);
+        assertThat(SimHash.of("Storm closes schools on Monday")).isEqualTo(SimHash.NONE);
+    }
+}
@@ -0,0 +1,36 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the heap taken by three million distinct URLs and the cost of adding them.
+ * Not part of the regular build; run with
+ * {@code mvn test -Dtest=UrlDeduplicationIndexBenchmark}.
+ */
+class UrlDeduplicationIndexBenchmark {
+
+    private static final int URLS = 3_000_000;
+
+    @Test
+    void threeMillionUrls() {
+        UrlDeduplicationIndex index = new UrlDeduplicationIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < URLS; i++) {
+            index.add("https://news" + (i % 500) + ".example.com/2024/story-" + i + "?utm_source=feed");
+        }
+        long addNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int i = 0; i < URLS; i++) {
+            if (index.contains("https://news" + (i % 500) + ".example.com/2024/story-" + i)) {
+                found++;
+            }
+        }
+        long containsNanos = System.nanoTime() - start;
+
+        System.out.printf("%d URLs: %d MB of tables, add %.0f ns/URL, contains %.0f ns/URL, %d found%n",
+                index.size(), index.memoryFootprintBytes() / (1024 * 1024),
+                addNanos / (double) URLS, containsNanos / (double) URLS, found);
+    }
+}
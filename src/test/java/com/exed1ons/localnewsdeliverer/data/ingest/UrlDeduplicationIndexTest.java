@@ -0,0 +1,76 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlDeduplicationIndexTest {
+
+    @Test
+    void addReportsOnlyTheFirstOfEquivalentUrls() {
+        UrlDeduplicationIndex index = new UrlDeduplicationIndex();
+
+        assertThat(index.add("https://example.com/story")).isTrue();
+        assertThat(index.add("http://example.com/story/?utm_source=feed")).isFalse();
+        assertThat(index.add("https://example.com/other")).isTrue();
+        assertThat(index.contains("https://EXAMPLE.com/story#top")).isTrue();
+        assertThat(index.contains("https://example.com/missing")).isFalse();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        UrlDeduplicationIndex index = new UrlDeduplicationIndex(16);
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(index.add("https://example.com/" + i)).isTrue();
+        }
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(index.contains("https://example.com/" + i)).isTrue();
+        }
+        assertThat(index.size()).isEqualTo(50_000);
+        assertThat(index.memoryFootprintBytes()).isGreaterThanOrEqualTo(50_000L * Long.BYTES);
+    }
+
+    @Test
+    void hashesRoundTripIntoAFreshIndex() {
+        UrlDeduplicationIndex index = new UrlDeduplicationIndex();
+        for (int i = 0; i < 1000; i++) {
+            index.add("https://example.com/" + i);
+        }
+
+        UrlDeduplicationIndex restored = new UrlDeduplicationIndex();
+        restored.addHashes(index.hashes());
+
+        assertThat(restored.size()).isEqualTo(1000);
+        assertThat(restored.add("https://example.com/500")).isFalse();
+        assertThat(restored.add("https://example.com/1000")).isTrue();
+    }
+
+    @Test
+    void concurrentAddsAcceptEachUrlOnce() throws InterruptedException {
+        UrlDeduplicationIndex index = new UrlDeduplicationIndex();
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (index.add("https://example.com/" + i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(accepted).hasValue(20_000);
+        assertThat(index.size()).isEqualTo(20_000);
+    }
+}
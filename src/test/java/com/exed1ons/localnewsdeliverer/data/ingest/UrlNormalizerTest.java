@@ -0,0 +1,50 @@
+package com.exed1ons.localnewsdeliverer.data.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlNormalizerTest {
+
+    @Test
+    void ignoresSchemeDefaultPortTrailingSlashAndFragment() {
+        String key = UrlNormalizer.normalize("https://Example.com/news/story");
+        assertThat(UrlNormalizer.normalize("http://example.com/news/story/")).isEqualTo(key);
+        assertThat(UrlNormalizer.normalize("https://EXAMPLE.com:443/news/story#comments")).isEqualTo(key);
+        assertThat(UrlNormalizer.normalize("http://example.com:80/news/story")).isEqualTo(key);
+        assertThat(UrlNormalizer.normalize("  https://example.com/news/story  ")).isEqualTo(key);
+    }
+
+    @Test
+    void keepsNonDefaultPortsAndPathCase() {
+        assertThat(UrlNormalizer.normalize("http://example.com:8080/a"))
+                .isNotEqualTo(UrlNormalizer.normalize("http://example.com/a"));
+        assertThat(UrlNormalizer.normalize("https://example.com:80/a"))
+                .isNotEqualTo(UrlNormalizer.normalize("https://example.com/a"));
+        assertThat(UrlNormalizer.normalize("https://example.com/Story"))
+                .isNotEqualTo(UrlNormalizer.normalize("https://example.com/story"));
+    }
+
+    @Test
+    void dropsTrackingParametersButKeepsTheRest() {
+        assertThat(UrlNormalizer.normalize("https://example.com/a?utm_source=x&id=7&fbclid=abc&UTM_Medium=y"))
+                .isEqualTo(UrlNormalizer.normalize("https://example.com/a?id=7"));
+        assertThat(UrlNormalizer.normalize("https://example.com/a?id=7"))
+                .isNotEqualTo(UrlNormalizer.normalize("https://example.com/a?id=8"));
+        assertThat(UrlNormalizer.normalize("https://example.com/a?gclid=1&&ref_src=twsrc"))
+                .isEqualTo(UrlNormalizer.normalize("https://example.com/a"));
+    }
+
+    @Test
+    void keepsGenericParametersThatMayIdentifyTheArticle() {
+        assertThat(UrlNormalizer.normalize("https://example.com/article?ref=123"))
+                .isNotEqualTo(UrlNormalizer.normalize("https://example.com/article?ref=456"));
+    }
+
+    @Test
+    void fallsBackToLowerCaseForUnparseableOrRelativeUrls() {
+        assertThat(UrlNormalizer.normalize("http://exa mple.com/A")).isEqualTo("http://exa mple.com/a");
+        assertThat(UrlNormalizer.normalize("/News/Local")).isEqualTo("/news/local");
+        assertThat(UrlNormalizer.normalize(null)).isEmpty();
+    }
+}
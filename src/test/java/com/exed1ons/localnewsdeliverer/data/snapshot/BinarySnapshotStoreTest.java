@@ -0,0 +1,154 @@
+package com.exed1ons.localnewsdeliverer.data.snapshot;
+
+import com.exed1ons.localnewsdeliverer.data.index.ArticleAlternates;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleCityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleRecord;
+import com.exed1ons.localnewsdeliverer.data.index.ArticleTextIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityIndex;
+import com.exed1ons.localnewsdeliverer.data.index.CityTable;
+import com.exed1ons.localnewsdeliverer.data.ingest.IngestionCheckpointStore;
+import com.exed1ons.localnewsdeliverer.domain.City;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinarySnapshotStoreTest {
+
+    private static final List<City> CITIES = List.of(
+            City.builder().id(1L).name("Austin").stateName("Texas").stateCode("TX")
+                    .population(961_855L).latitude(30.3).longitude(-97.8).build(),
+            City.builder().id(2L).name("Boise").stateName("Idaho").stateCode("ID").build());
+
+    @TempDir
+    Path dir;
+
+    private Path cityFile;
+    private Path newsFile;
+    private Path snapshotFile;
+    private BinarySnapshotStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cityFile = Files.writeString(dir.resolve("cities.csv"), "id,name\n1,Austin\n2,Boise\n");
+        newsFile = Files.writeString(dir.resolve("news.jsonl"), "{\"url\": \"https://example.com/1\"}\n");
+        snapshotFile = dir.resolve("state/store-snapshot.bin");
+        store = new BinarySnapshotStore(snapshotFile.toString());
+    }
+
+    @Test
+    void restoresWhatWasSaved() throws IOException {
+        SnapshotContent saved = content();
+        store.save(saved, cityFile.toString());
+
+        SnapshotContent opened = store.open(cityFile.toString(), List.of(newsFile));
+
+        assertThat(opened).isNotNull();
+        CityIndex cities = CityIndex.build(opened.getCities());
+        assertThat(cities.getCities()).isEqualTo(CITIES);
+        assertThat(opened.getUrlHashes()).containsExactly(saved.getUrlHashes());
+        assertThat(opened.getFingerprints()).containsExactly(saved.getFingerprints());
+        assertThat(opened.getCheckpoints()).isEqualTo(saved.getCheckpoints());
+        assertThat(opened.getAlternates().asMap()).isEqualTo(saved.getAlternates().asMap());
+        assertThat(opened.getArticleCityIndex().size()).isEqualTo(2);
+        assertThat(opened.getArticleCityIndex().articlesForCity(1)).containsExactly(0);
+        assertThat(opened.getArticleCityIndex().globalArticles()).containsExactly(1);
+        assertThat(opened.getArticleTextIndex().size()).isEqualTo(2);
+        assertThat(opened.getArticleTextIndex().search("libraries", null, 10)).containsExactly(0);
+        assertThat(opened.getArticles()).hasSize(2);
+        for (int i = 0; i < 2; i++) {
+            assertThat(opened.getArticles().get(i).toNewsArticle(cities, List.of()))
+                    .isEqualTo(saved.getArticles().get(i).toNewsArticle(cities, List.of()));
+        }
+    }
+
+    @Test
+    void keepsFilesReadAfterTheSnapshotUsable() throws IOException {
+        store.save(content(), cityFile.toString());
+        Files.writeString(newsFile, "{\"url\": \"https://example.com/2\"}\n", StandardOpenOption.APPEND);
+
+        assertThat(store.open(cityFile.toString(), List.of(newsFile))).isNotNull();
+    }
+
+    @Test
+    void ignoresTheSnapshotWhenTheCityFileChanged() throws IOException {
+        store.save(content(), cityFile.toString());
+        Files.writeString(cityFile, "3,Reno\n", StandardOpenOption.APPEND);
+
+        assertThat(store.open(cityFile.toString(), List.of(newsFile))).isNull();
+    }
+
+    @Test
+    void ignoresTheSnapshotWhenANewsFileWasReplacedOrDropped() throws IOException {
+        store.save(content(), cityFile.toString());
+
+        assertThat(store.open(cityFile.toString(), List.of())).isNull();
+
+        Files.writeString(newsFile, "{\"url\": \"https://example.com/9\"}\n");
+        assertThat(store.open(cityFile.toString(), List.of(newsFile))).isNull();
+    }
+
+    @Test
+    void ignoresACorruptedSnapshot() throws IOException {
+        store.save(content(), cityFile.toString());
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[bytes.length - 3] ^= 0x5a;
+        Files.write(snapshotFile, bytes);
+
+        assertThat(store.open(cityFile.toString(), List.of(newsFile))).isNull();
+    }
+
+    @Test
+    void doesNothingWithoutAPath() {
+        BinarySnapshotStore disabled = new BinarySnapshotStore("");
+
+        disabled.save(content(), cityFile.toString());
+
+        assertThat(disabled.open(cityFile.toString(), List.of(newsFile))).isNull();
+        assertThat(snapshotFile).doesNotExist();
+    }
+
+    private SnapshotContent content() {
+        CityIndex cities = CityIndex.build(CITIES);
+        List<ArticleRecord> articles = List.of(
+                ArticleRecord.of(NewsArticle.builder()
+                        .title("Boise opens a new library")
+                        .description("The library opened on Monday.")
+                        .url("https://example.com/1")
+                        .urlToImage(ArticleRecord.NO_IMAGE)
+                        .isLocal(true)
+                        .cities(List.of(CITIES.get(1)))
+                        .build(), cities),
+                ArticleRecord.of(NewsArticle.builder()
+                        .title(ArticleRecord.NO_TITLE)
+                        .url("https://example.com/2")
+                        .isLocal(false)
+                        .build(), cities));
+        IngestionCheckpointStore checkpoints = new IngestionCheckpointStore(new ObjectMapper(), "");
+        try {
+            checkpoints.update(newsFile, Files.size(newsFile));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return SnapshotContent.builder()
+                .cities(CityTable.of(CITIES))
+                .urlHashes(new long[]{17L, -4L})
+                .articleCityIndex(ArticleCityIndex.build(articles, cities))
+                .articleTextIndex(ArticleTextIndex.build(articles))
+                .articles(articles)
+                .fingerprints(new long[]{0x1234L, 0L})
+                .alternates(ArticleAlternates.of(Map.of(0, List.of("https://mirror.example.com/1"))))
+                .checkpoints(checkpoints.checkpoints())
+                .build();
+    }
+}
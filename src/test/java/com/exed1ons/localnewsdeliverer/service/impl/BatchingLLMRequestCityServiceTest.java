@@ -0,0 +1,101 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchingLLMRequestCityServiceTest {
+
+    private final LLMRequestCityServiceImpl delegate = mock(LLMRequestCityServiceImpl.class);
+    private BatchingLLMRequestCityService service;
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void sendsConcurrentCallsAsOneBatch() {
+        service = service(3, Duration.ofMinutes(1));
+        when(delegate.requestCitiesAsync(anyList())).thenAnswer(invocation -> {
+            List<String> descriptions = invocation.getArgument(0);
+            List<List<String>> answers = new ArrayList<>();
+            for (String description : descriptions) {
+                answers.add(List.of("City of " + description));
+            }
+            return CompletableFuture.completedFuture(answers);
+        });
+
+        List<CompletableFuture<List<String>>> results = new ArrayList<>();
+        for (String description : List.of("a", "b", "c")) {
+            results.add(service.requestCityAsync(description));
+        }
+
+        assertThat(results.get(0).join()).containsExactly("City of a");
+        assertThat(results.get(1).join()).containsExactly("City of b");
+        assertThat(results.get(2).join()).containsExactly("City of c");
+        verify(delegate).requestCitiesAsync(anyList());
+    }
+
+    @Test
+    void returnsBeforeTheBatchIsAnswered() {
+        service = service(2, Duration.ofMinutes(1));
+        CompletableFuture<List<List<String>>> answers = new CompletableFuture<>();
+        when(delegate.requestCitiesAsync(List.of("a", "b"))).thenReturn(answers);
+
+        CompletableFuture<List<String>> first = service.requestCityAsync("a");
+        CompletableFuture<List<String>> second = service.requestCityAsync("b");
+
+        assertThat(first).isNotDone();
+        answers.complete(List.of(List.of("Austin, TX"), List.of("Reno, NV")));
+        assertThat(first).isCompletedWithValue(List.of("Austin, TX"));
+        assertThat(second).isCompletedWithValue(List.of("Reno, NV"));
+    }
+
+    @Test
+    void sendsAnIncompleteBatchAfterTheMaximumWait() {
+        service = service(5, Duration.ofMillis(20));
+        when(delegate.requestCitiesAsync(List.of("lonely")))
+                .thenReturn(CompletableFuture.completedFuture(List.of(List.of("Reno, NV"))));
+
+        assertThat(service.requestCity("lonely")).containsExactly("Reno, NV");
+    }
+
+    @Test
+    void failsEveryCallerOfAFailedBatch() {
+        service = service(2, Duration.ofMinutes(1));
+        when(delegate.requestCitiesAsync(anyList()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("API request failed")));
+
+        CompletableFuture<List<String>> first = service.requestCityAsync("a");
+
+        assertThatThrownBy(() -> service.requestCity("b")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(first::join).hasRootCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void callsTheDelegateDirectlyWithoutBatching() {
+        service = service(1, Duration.ofMinutes(1));
+        when(delegate.requestCityAsync("solo")).thenReturn(CompletableFuture.completedFuture(List.of("Austin, TX")));
+
+        assertThat(service.requestCity("solo")).containsExactly("Austin, TX");
+        verify(delegate, never()).requestCitiesAsync(anyList());
+    }
+
+    private BatchingLLMRequestCityService service(int batchSize, Duration maxWait) {
+        return new BatchingLLMRequestCityService(delegate, new SimpleMeterRegistry(), batchSize, maxWait);
+    }
+}
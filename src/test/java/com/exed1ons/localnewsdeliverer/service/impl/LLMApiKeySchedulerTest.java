@@ -0,0 +1,88 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LLMApiKeySchedulerTest {
+
+    private LLMApiKeyScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void spreadsRequestsOverTheKeyWithTheMostBudgetLeft() {
+        scheduler = scheduler(List.of("a", "b", "c"), 10, 0);
+
+        assertThat(List.of(lease(1), lease(1), lease(1), lease(1)))
+                .extracting(LLMApiKeyScheduler.ApiKeyLease::apiKey)
+                .containsExactly("a", "b", "c", "a");
+    }
+
+    @Test
+    void queuesCallersOnceEveryBucketIsEmptyAndServesThemInOrder() throws Exception {
+        scheduler = scheduler(List.of("a"), 600, 0);
+        for (int i = 0; i < 600; i++) {
+            lease(1);
+        }
+
+        CompletableFuture<LLMApiKeyScheduler.ApiKeyLease> first = scheduler.acquire(1);
+        CompletableFuture<LLMApiKeyScheduler.ApiKeyLease> second = scheduler.acquire(1);
+
+        assertThat(first).isNotDone();
+        assertThat(scheduler.waiting()).isEqualTo(2);
+        // The request bucket refills at ten requests per second.
+        assertThat(first.get(2, TimeUnit.SECONDS).apiKey()).isEqualTo("a");
+        assertThat(second.get(2, TimeUnit.SECONDS).apiKey()).isEqualTo("a");
+        assertThat(scheduler.waiting()).isZero();
+    }
+
+    @Test
+    void chargesTheTokenBucketByTheEstimatedTokens() {
+        scheduler = scheduler(List.of("a", "b"), 0, 1000);
+
+        assertThat(lease(900).apiKey()).isEqualTo("a");
+        assertThat(lease(900).apiKey()).isEqualTo("b");
+        assertThat(scheduler.acquire(900)).isNotDone();
+    }
+
+    @Test
+    void pausesARateLimitedKey() {
+        scheduler = scheduler(List.of("a", "b"), 0, 0);
+        LLMApiKeyScheduler.ApiKeyLease limited = lease(1);
+
+        scheduler.rateLimited(limited, Duration.ofMinutes(5));
+
+        assertThat(lease(1).apiKey()).isEqualTo("b");
+        assertThat(lease(1).apiKey()).isEqualTo("b");
+    }
+
+    @Test
+    void needsAtLeastOneKey() {
+        scheduler = scheduler(List.of("a"), 0, 0);
+
+        assertThatThrownBy(() -> scheduler(List.of(), 0, 0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private LLMApiKeyScheduler.ApiKeyLease lease(int tokens) {
+        CompletableFuture<LLMApiKeyScheduler.ApiKeyLease> lease = scheduler.acquire(tokens);
+        assertThat(lease).isDone();
+        return lease.join();
+    }
+
+    private static LLMApiKeyScheduler scheduler(List<String> keys, int requestsPerMinute, int tokensPerMinute) {
+        return new LLMApiKeyScheduler(new SimpleMeterRegistry(), keys, requestsPerMinute, tokensPerMinute,
+                Duration.ofSeconds(30));
+    }
+}
@@ -0,0 +1,121 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.cache.ContentHash;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LLMCacheDiskStoreTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final long TTL = Duration.ofDays(1).toMillis();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRecordsBackAfterReopening() throws IOException {
+        Path file = directory.resolve("cache/llm.jsonl");
+        LLMCacheDiskStore store = store(file, 10);
+        store.open();
+        store.put(record("a", System.currentTimeMillis(), List.of("Austin, TX")));
+        store.put(record("b", System.currentTimeMillis(), null));
+        store.close();
+
+        LLMCacheDiskStore reopened = store(file, 10);
+        reopened.open();
+
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get(key("a")).getCityNames()).containsExactly("Austin, TX");
+        assertThat(reopened.get(key("b")).getCityNames()).isNull();
+        assertThat(reopened.get(key("c"))).isNull();
+        reopened.close();
+    }
+
+    @Test
+    void truncatesATornLastLine() throws IOException {
+        Path file = directory.resolve("llm.jsonl");
+        LLMCacheDiskStore store = store(file, 10);
+        store.open();
+        store.put(record("a", System.currentTimeMillis(), List.of("Austin, TX")));
+        store.close();
+        Files.writeString(file, "{\"key\":\"" + key("b") + "\",\"createdAt\":1", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        LLMCacheDiskStore reopened = store(file, 10);
+        reopened.open();
+        reopened.put(record("c", System.currentTimeMillis(), List.of("Reno, NV")));
+        reopened.close();
+
+        assertThat(Files.readAllLines(file)).hasSize(2).allMatch(line -> line.startsWith("{") && line.endsWith("}"));
+        LLMCacheDiskStore again = store(file, 10);
+        again.open();
+        assertThat(again.get(key("a")).getCityNames()).containsExactly("Austin, TX");
+        assertThat(again.get(key("c")).getCityNames()).containsExactly("Reno, NV");
+        again.close();
+    }
+
+    @Test
+    void keepsTheNewestRecordsWhenTheFileReachesItsBound() throws IOException {
+        Path file = directory.resolve("llm.jsonl");
+        LLMCacheDiskStore store = store(file, 3);
+        store.open();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            store.put(record("r" + i, now + i, List.of("City " + i)));
+        }
+        store.put(record("r5", now + 5, List.of("City 5")));
+
+        assertThat(Files.readAllLines(file)).hasSize(3);
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.get(key("r2"))).isNull();
+        assertThat(store.get(key("r3")).getCityNames()).containsExactly("City 3");
+        assertThat(store.get(key("r5")).getCityNames()).containsExactly("City 5");
+        store.put(record("r6", now + 6, List.of("City 6")));
+        assertThat(store.get(key("r6")).getCityNames()).containsExactly("City 6");
+        store.close();
+    }
+
+    @Test
+    void dropsSupersededAndExpiredRecordsOnOpen() throws IOException {
+        Path file = directory.resolve("llm.jsonl");
+        LLMCacheDiskStore store = store(file, 100);
+        store.open();
+        long now = System.currentTimeMillis();
+        store.put(record("old", now - 2 * TTL, List.of("Gone, NV")));
+        for (int i = 0; i < 4; i++) {
+            store.put(record("same", now + i, List.of("Version " + i)));
+        }
+        store.close();
+
+        LLMCacheDiskStore reopened = store(file, 100);
+        reopened.open();
+
+        assertThat(Files.readAllLines(file)).hasSize(1);
+        assertThat(reopened.get(key("same")).getCityNames()).containsExactly("Version 3");
+        assertThat(reopened.get(key("old"))).isNull();
+        reopened.close();
+    }
+
+    private static LLMCacheDiskStore store(Path file, int maxRecords) {
+        return new LLMCacheDiskStore(OBJECT_MAPPER, file, maxRecords, TTL);
+    }
+
+    private static LLMCacheRecord record(String name, long createdAt, List<String> cityNames) {
+        return LLMCacheRecord.builder().key(key(name)).createdAt(createdAt).cityNames(cityNames).build();
+    }
+
+    private static String key(String name) {
+        return ContentHash.sha256(name);
+    }
+}
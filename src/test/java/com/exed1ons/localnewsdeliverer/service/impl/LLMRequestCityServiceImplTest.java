@@ -0,0 +1,181 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class LLMRequestCityServiceImplTest {
+
+    private static final String API_URL = "http://llm.test/v1/chat/completions";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LLMApiKeyScheduler apiKeyScheduler = scheduler(List.of("key-1"), 0);
+    private LLMRequestCityServiceImpl service = service();
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+        apiKeyScheduler.shutdown();
+    }
+
+    @Test
+    void parsesASingleAnswer() throws Exception {
+        expectAnswer("Chicago, IL; Springfield, IL ");
+        expectAnswer(" Global ");
+
+        assertThat(service.requestCity("Storm hits Chicago")).containsExactly("Chicago, IL", "Springfield, IL");
+        assertThat(service.requestCity("Markets rally")).isNull();
+        server.verify();
+    }
+
+    @Test
+    void sendsSeveralArticlesInOneRequestAndMatchesAnswersById() throws Exception {
+        server.expect(requestTo(API_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Authorization", "Bearer key-1"))
+                .andExpect(content().string(containsString("### ARTICLE 2")))
+                .andRespond(withSuccess(completion("""
+                        Here you go: {"results": [
+                          {"id": 2, "answer": "global"},
+                          {"id": 1, "answer": "Austin, TX"},
+                          {"id": 3, "answer": "Reno, NV; Las Vegas, NV"}]}"""), MediaType.APPLICATION_JSON));
+
+        List<List<String>> results = service.requestCities(List.of("first", "second", "third"));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).containsExactly("Austin, TX");
+        assertThat(results.get(1)).isNull();
+        assertThat(results.get(2)).containsExactly("Reno, NV", "Las Vegas, NV");
+        server.verify();
+    }
+
+    @Test
+    void fallsBackToOneRequestPerArticleWhenTheBatchAnswerIsIncomplete() throws Exception {
+        expectAnswer("{\"results\": [{\"id\": 1, \"answer\": \"Austin, TX\"}]}");
+        server.expect(requestTo(API_URL))
+                .andExpect(content().string(containsString("\"content\":\"first\"")))
+                .andRespond(withSuccess(completion("Austin, TX"), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(API_URL))
+                .andExpect(content().string(containsString("\"content\":\"second\"")))
+                .andRespond(withSuccess(completion("global"), MediaType.APPLICATION_JSON));
+
+        List<List<String>> results = service.requestCities(List.of("first", "second"));
+
+        assertThat(results.get(0)).containsExactly("Austin, TX");
+        assertThat(results.get(1)).isNull();
+        server.verify();
+    }
+
+    @Test
+    void chainsTheCallOnTheKeyLeaseWithoutBlockingTheCaller() throws Exception {
+        useScheduler(scheduler(List.of("key-1"), 1));
+        expectAnswer("Austin, TX");
+        assertThat(service.requestCity("first")).containsExactly("Austin, TX");
+
+        CompletableFuture<List<String>> second = service.requestCityAsync("second");
+
+        assertThat(second).isNotDone();
+        assertThat(apiKeyScheduler.waiting()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void retriesWithAnotherKeyAfterARateLimit() throws Exception {
+        useScheduler(scheduler(List.of("key-1", "key-2"), 0));
+        server.expect(requestTo(API_URL))
+                .andExpect(header("Authorization", "Bearer key-1"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30"));
+        server.expect(requestTo(API_URL))
+                .andExpect(header("Authorization", "Bearer key-2"))
+                .andRespond(withSuccess(completion("Reno, NV"), MediaType.APPLICATION_JSON));
+
+        assertThat(service.requestCityAsync("Casino opens").get(10, TimeUnit.SECONDS)).containsExactly("Reno, NV");
+        assertThat(meterRegistry.get("llm.request").tag("key", "0").tag("outcome", "rate_limited").timer().count())
+                .isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void registersATimerPerKeyAndOutcomeUpFront() throws Exception {
+        useScheduler(scheduler(List.of("key-1", "key-2"), 0));
+
+        assertThat(meterRegistry.get("llm.request").timers())
+                .extracting(timer -> timer.getId().getTag("key") + "/" + timer.getId().getTag("outcome"))
+                .containsExactlyInAnyOrder("0/success", "0/rate_limited", "0/bad_request", "0/error",
+                        "1/success", "1/rate_limited", "1/bad_request", "1/error");
+        assertThat(meterRegistry.get("llm.key.wait").timer().count()).isZero();
+
+        expectAnswer("Reno, NV");
+        service.requestCity("Casino opens");
+        assertThat(meterRegistry.get("llm.request").tag("outcome", "success").timers())
+                .extracting(timer -> timer.count())
+                .containsExactlyInAnyOrder(1L, 0L);
+        assertThat(meterRegistry.get("llm.key.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsTheFutureOnABadRequest() {
+        server.expect(requestTo(API_URL)).andRespond(withBadRequest());
+
+        assertThatThrownBy(() -> service.requestCityAsync("text").join())
+                .hasCauseInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Bad request sent to API");
+    }
+
+    private void expectAnswer(String answer) throws Exception {
+        server.expect(requestTo(API_URL)).andRespond(withSuccess(completion(answer), MediaType.APPLICATION_JSON));
+    }
+
+    private static String completion(String answer) throws Exception {
+        return OBJECT_MAPPER.writeValueAsString(Map.of(
+                "choices", List.of(Map.of("message", Map.of("role", "assistant", "content", answer)))));
+    }
+
+    private LLMApiKeyScheduler scheduler(List<String> keys, int requestsPerMinute) {
+        return new LLMApiKeyScheduler(meterRegistry, keys, requestsPerMinute, 0, Duration.ofSeconds(1));
+    }
+
+    private void useScheduler(LLMApiKeyScheduler scheduler) {
+        apiKeyScheduler.shutdown();
+        service.shutdown();
+        apiKeyScheduler = scheduler;
+        service = service();
+    }
+
+    private LLMRequestCityServiceImpl service() {
+        LLMRequestCityServiceImpl impl =
+                new LLMRequestCityServiceImpl(restTemplate, OBJECT_MAPPER, apiKeyScheduler, meterRegistry);
+        ReflectionTestUtils.setField(impl, "apiUrl", API_URL);
+        ReflectionTestUtils.setField(impl, "systemPrompt", "Name the cities.");
+        ReflectionTestUtils.setField(impl, "model", "test-model");
+        return impl;
+    }
+}
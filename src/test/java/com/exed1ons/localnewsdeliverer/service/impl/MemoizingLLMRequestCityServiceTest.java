@@ -0,0 +1,109 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MemoizingLLMRequestCityServiceTest {
+
+    private final BatchingLLMRequestCityService delegate = mock(BatchingLLMRequestCityService.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void normalizesTextToLowerCaseWords() {
+        assertThat(MemoizingLLMRequestCityService.normalize("  Storm HITS Chicago -- again!\n"))
+                .isEqualTo("storm hits chicago again");
+    }
+
+    @Test
+    void asksOnceForBodiesThatDifferOnlyInCaseAndPunctuation() {
+        MemoizingLLMRequestCityService service = service("", Duration.ofDays(1));
+        when(delegate.requestCityAsync(anyString())).thenReturn(CompletableFuture.completedFuture(List.of("Chicago, IL")));
+
+        assertThat(service.requestCity("Storm hits Chicago.")).containsExactly("Chicago, IL");
+        assertThat(service.requestCity("STORM hits   chicago")).containsExactly("Chicago, IL");
+
+        verify(delegate, times(1)).requestCityAsync(anyString());
+        assertThat(service.getStatistics().getHits()).isEqualTo(1);
+        assertThat(service.getStatistics().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsOnlyUncachedArticlesOfABatch() {
+        MemoizingLLMRequestCityService service = service("", Duration.ofDays(1));
+        when(delegate.requestCityAsync("known")).thenReturn(CompletableFuture.completedFuture(null));
+        service.requestCity("known");
+        when(delegate.requestCitiesAsync(List.of("new one", "new two")))
+                .thenReturn(CompletableFuture.completedFuture(List.of(List.of("Austin, TX"), List.of("Reno, NV"))));
+
+        List<List<String>> results = service.requestCities(List.of("new one", "known", "new two"));
+
+        assertThat(results).containsExactly(List.of("Austin, TX"), null, List.of("Reno, NV"));
+    }
+
+    @Test
+    void sharesOneRequestBetweenConcurrentCallsForTheSameBody() {
+        MemoizingLLMRequestCityService service = service("", Duration.ofDays(1));
+        CompletableFuture<List<String>> answer = new CompletableFuture<>();
+        when(delegate.requestCityAsync(anyString())).thenReturn(answer);
+
+        CompletableFuture<List<String>> first = service.requestCityAsync("Casino opens");
+        CompletableFuture<List<String>> second = service.requestCityAsync("casino opens!");
+        answer.complete(List.of("Reno, NV"));
+
+        assertThat(first.join()).containsExactly("Reno, NV");
+        assertThat(second.join()).containsExactly("Reno, NV");
+        assertThat(service.requestCity("Casino opens")).containsExactly("Reno, NV");
+        verify(delegate, times(1)).requestCityAsync(anyString());
+    }
+
+    @Test
+    void reusesAnswersFromTheDiskTierAfterARestart() {
+        String path = directory.resolve("llm.jsonl").toString();
+        MemoizingLLMRequestCityService first = service(path, Duration.ofDays(1));
+        first.open();
+        when(delegate.requestCityAsync(anyString())).thenReturn(CompletableFuture.completedFuture(List.of("Reno, NV")));
+        first.requestCity("Casino opens");
+        first.close();
+
+        MemoizingLLMRequestCityService second = service(path, Duration.ofDays(1));
+        second.open();
+        assertThat(second.requestCity("casino opens")).containsExactly("Reno, NV");
+        second.close();
+
+        verify(delegate, times(1)).requestCityAsync(anyString());
+    }
+
+    @Test
+    void asksAgainOnceAnAnswerHasExpired() {
+        MemoizingLLMRequestCityService service = service("", Duration.ZERO);
+        when(delegate.requestCityAsync(anyString())).thenReturn(CompletableFuture.completedFuture(List.of("Reno, NV")));
+
+        service.requestCity("Casino opens");
+        service.requestCity("Casino opens");
+
+        verify(delegate, times(2)).requestCityAsync(anyString());
+        verify(delegate, never()).requestCitiesAsync(anyList());
+    }
+
+    private MemoizingLLMRequestCityService service(String path, Duration ttl) {
+        return new MemoizingLLMRequestCityService(delegate, new ObjectMapper(), "test-model", "Name the cities.",
+                100, ttl, path, 1000);
+    }
+}
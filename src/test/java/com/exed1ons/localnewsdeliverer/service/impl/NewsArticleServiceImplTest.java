@@ -0,0 +1,37 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.data.DataStore;
+import com.exed1ons.localnewsdeliverer.domain.ItemPage;
+import com.exed1ons.localnewsdeliverer.domain.NewsArticle;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NewsArticleServiceImplTest {
+
+    private final DataStore dataStore = mock(DataStore.class);
+    private final NewsArticleServiceImpl service = new NewsArticleServiceImpl(dataStore);
+
+    @Test
+    void pagesThroughTheArticles() {
+        List<NewsArticle> articles = IntStream.range(0, 5)
+                .mapToObj(i -> NewsArticle.builder().url("http://example.com/" + i).build())
+                .toList();
+        when(dataStore.getNewsArticles()).thenReturn(articles);
+
+        ItemPage<NewsArticle> first = service.getNewsArticles(0, 2);
+        ItemPage<NewsArticle> last = service.getNewsArticles(4, 2);
+
+        assertThat(first.getItems()).containsExactly(articles.get(0), articles.get(1));
+        assertThat(first.getNextOffset()).isEqualTo(2);
+        assertThat(last.getItems()).containsExactly(articles.get(4));
+        assertThat(last.getNextOffset()).isNull();
+        assertThat(service.getNewsArticles(9, 2).getItems()).isEmpty();
+        assertThat(service.getNewsArticles(0, Integer.MAX_VALUE).getItems()).hasSize(5);
+    }
+}
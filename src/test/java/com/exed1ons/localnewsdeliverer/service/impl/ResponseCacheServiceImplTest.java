@@ -0,0 +1,134 @@
+package com.exed1ons.localnewsdeliverer.service.impl;
+
+import com.exed1ons.localnewsdeliverer.domain.CacheStatistics;
+import com.exed1ons.localnewsdeliverer.domain.CachedResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheServiceImplTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesRepeatRequestsFromTheCacheUntilTheVersionChanges() {
+        ResponseCacheServiceImpl cache = new ResponseCacheServiceImpl(DataSize.ofKilobytes(64), DataSize.ofKilobytes(1));
+
+        CachedResponse first = cache.get("/news", 1, () -> response("[1]"));
+        CachedResponse second = cache.get("/news", 1, () -> response("[2]"));
+        CachedResponse stale = cache.get("/news", 0, () -> response("[0]"));
+        CachedResponse newer = cache.get("/news", 2, () -> response("[3]"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(body(stale)).isEqualTo("[0]");
+        assertThat(body(newer)).isEqualTo("[3]");
+        assertThat(body(cache.get("/news", 2, () -> response("[4]")))).isEqualTo("[3]");
+        assertThat(loads).hasValue(3);
+        CacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getHits()).isEqualTo(2);
+        assertThat(statistics.getMisses()).isEqualTo(3);
+        assertThat(statistics.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    void derivesStrongETagsFromTheBodyAndCompressesLargeBodies() throws IOException {
+        ResponseCacheServiceImpl cache = new ResponseCacheServiceImpl(DataSize.ofKilobytes(64), DataSize.ofBytes(100));
+        String large = "[" + "\"item\",".repeat(50) + "\"last\"]";
+
+        CachedResponse small = cache.get("/small", 1, () -> response("[]"));
+        CachedResponse compressed = cache.get("/large", 1, () -> response(large));
+        CachedResponse sameBody = new ResponseCacheServiceImpl(DataSize.ofKilobytes(64), DataSize.ofBytes(100))
+                .get("/other", 7, () -> response(large));
+
+        assertThat(small.getGzipBody()).isNull();
+        assertThat(small.getEtag()).hasSize(32).isNotEqualTo(compressed.getEtag());
+        assertThat(sameBody.getEtag()).isEqualTo(compressed.getEtag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getGzipBody()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(large);
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntriesOnceTheLimitIsExceeded() {
+        ResponseCacheServiceImpl cache = new ResponseCacheServiceImpl(DataSize.ofBytes(400), DataSize.ofKilobytes(1));
+        String body = "x".repeat(100);
+
+        cache.get("/a", 1, () -> response(body));
+        cache.get("/b", 1, () -> response(body));
+        cache.get("/c", 1, () -> response(body));
+        cache.get("/a", 1, () -> response(body));
+        cache.get("/d", 1, () -> response(body));
+        cache.get("/e", 1, () -> response(body));
+        int loadsBefore = loads.get();
+
+        cache.get("/a", 1, () -> response(body));
+        cache.get("/e", 1, () -> response(body));
+        assertThat(loads.get()).isEqualTo(loadsBefore);
+        assertThat(cache.getStatistics().getSize()).isLessThanOrEqualTo(3);
+        cache.get("/b", 1, () -> response(body));
+        assertThat(loads.get()).isEqualTo(loadsBefore + 1);
+    }
+
+    @Test
+    void doesNotCacheResponsesLargerThanTheLimit() {
+        ResponseCacheServiceImpl cache = new ResponseCacheServiceImpl(DataSize.ofBytes(50), DataSize.ofKilobytes(1));
+
+        cache.get("/big", 1, () -> response("y".repeat(51)));
+        cache.get("/big", 1, () -> response("y".repeat(51)));
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getStatistics().getSize()).isZero();
+    }
+
+    @Test
+    void staysWithinTheLimitUnderConcurrentRequests() throws Exception {
+        ResponseCacheServiceImpl cache = new ResponseCacheServiceImpl(DataSize.ofBytes(2000), DataSize.ofKilobytes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            int seed = thread;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    String key = "/q" + ((i * 31 + seed) % 60);
+                    CachedResponse response = cache.get(key, 1 + i / 1000, () -> response(key + "-" + "z".repeat(90)));
+                    assertThat(body(response)).startsWith(key + "-");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getHits() + statistics.getMisses()).isEqualTo(16_000);
+        // Every body is at least 94 bytes, so no more than 21 of them fit in 2000 bytes.
+        assertThat(statistics.getSize()).isLessThanOrEqualTo(2000 / 94);
+    }
+
+    private CachedResponse response(String body) {
+        loads.incrementAndGet();
+        return CachedResponse.builder()
+                .contentType("application/json")
+                .headers(Map.of())
+                .body(body.getBytes(StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static String body(CachedResponse response) {
+        return new String(response.getBody(), StandardCharsets.UTF_8);
+    }
+}